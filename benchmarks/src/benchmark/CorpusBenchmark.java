@@ -0,0 +1,31 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/*************************************************************
+ * Filename: CorpusBenchmark.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// phases of the valid programs from tests/asmtests, has to be run from the project root
+public class CorpusBenchmark extends PhaseBenchmark {
+    @Param({"empty", "print", "simple_char", "simple_expr", "simple_if", "simple_labels", "simple_no_return",
+            "simple_set_at", "simple_string", "simple_string_compare", "simple_var", "simple_while"})
+    public String file;
+
+    @Override
+    protected String getSource() throws IOException {
+        byte[] source = Files.readAllBytes(Paths.get("tests", "asmtests", this.file + ".c"));
+
+        return new String(source, StandardCharsets.US_ASCII);
+    }
+}
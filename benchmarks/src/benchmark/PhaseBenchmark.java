@@ -0,0 +1,145 @@
+package benchmark;
+
+import asm.ASMAllocatorTrace;
+import asm.ASMProgram;
+import grammar.custom.VYPeExpressionVisitor;
+import grammar.custom.VYPeFailFastLexer;
+import grammar.custom.VYPeStartLow;
+import grammar.gen.VYPeParserParser;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.openjdk.jmh.annotations.*;
+import tables.FunctionTable;
+import tables.SymbolTable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*************************************************************
+ * Filename: PhaseBenchmark.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// benchmarks every compiler phase separately, the input of a phase is prepared by the previous phases in the setup
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class PhaseBenchmark {
+    private String source;
+    private List<? extends Token> tokens;
+    private VYPeParserParser.StartContext parseTree;
+    private FunctionTable functionTable;
+    private ASMProgram program;
+    private List<ASMAllocatorTrace> allocatorTraces;
+    private File output;
+
+    protected abstract String getSource() throws IOException;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.source = this.getSource();
+        this.output = File.createTempFile("vype-benchmark", ".asm");
+        this.output.deleteOnExit();
+
+        this.tokens = this.lexAll();
+        this.parseTree = this.parse();
+        this.functionTable = this.semanticCheck();
+        this.program = this.lower();
+        this.allocatorTraces = this.recordAllocatorTraces();
+    }
+
+    private List<? extends Token> lexAll() {
+        CommonTokenStream tokenStream = new CommonTokenStream(new VYPeFailFastLexer(new ANTLRInputStream(this.source)));
+        tokenStream.fill();
+
+        return tokenStream.getTokens();
+    }
+
+    @Benchmark
+    public int lex() {
+        VYPeFailFastLexer lexer = new VYPeFailFastLexer(new ANTLRInputStream(this.source));
+        int count = 0;
+
+        while (lexer.nextToken().getType() != Token.EOF) {
+            count++;
+        }
+
+        return count;
+    }
+
+    // same two stage parsing as the compiler
+    @Benchmark
+    public VYPeParserParser.StartContext parse() {
+        CommonTokenStream tokenStream = new CommonTokenStream(new ListTokenSource(this.tokens));
+        VYPeParserParser parser = new VYPeParserParser(tokenStream);
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+
+        try {
+            return parser.start();
+        }
+        catch (ParseCancellationException e) {
+            tokenStream.seek(0);
+            parser.reset();
+            parser.setErrorHandler(new DefaultErrorStrategy());
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+
+            return parser.start();
+        }
+    }
+
+    @Benchmark
+    public FunctionTable semanticCheck() {
+        VYPeExpressionVisitor visitor = new VYPeExpressionVisitor(new FunctionTable(), new SymbolTable());
+        visitor.doSemanticCheck(this.parseTree);
+
+        return visitor.getFunctionTable();
+    }
+
+    @Benchmark
+    public ASMProgram lower() {
+        ASMProgram program = new ASMProgram(this.output.getPath(), this.functionTable);
+        VYPeStartLow lowerer = new VYPeStartLow(program);
+        lowerer.visit(this.parseTree);
+        program.finalize();
+
+        return program;
+    }
+
+    // register allocator calls of the lowered functions
+    private List<ASMAllocatorTrace> recordAllocatorTraces() {
+        ASMProgram program = new ASMProgram(this.output.getPath(), this.functionTable);
+        program.recordAllocatorTraces();
+        new VYPeStartLow(program).visit(this.parseTree);
+
+        return program.getAllocatorTraces();
+    }
+
+    // replays the recorded traces, so only the register allocation of the lowering is measured
+    @Benchmark
+    public ASMProgram allocate() {
+        ASMProgram fragment = this.program.newFragment();
+
+        for (ASMAllocatorTrace trace : this.allocatorTraces) {
+            trace.replay(fragment);
+        }
+
+        return fragment;
+    }
+
+    @Benchmark
+    public void emit() {
+        this.program.printToFile();
+    }
+}
@@ -0,0 +1,463 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/*************************************************************
+ * Filename: ProgramGenerator.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// generates valid VYPe programs covering the constructs of VYPeParser.g4,
+// the output is deterministic for the given seed and the generated programs always terminate
+public class ProgramGenerator {
+    private static final String[] TYPES = {"int", "char", "string"};
+
+    private class Variable {
+        String name;
+        String type;
+
+        Variable(String name, String type) {
+            this.name = name;
+            this.type = type;
+        }
+    }
+
+    private class Signature {
+        String name;
+        String returnType;
+        List<String> parameterTypes;
+
+        Signature(String name, String returnType, List<String> parameterTypes) {
+            this.name = name;
+            this.returnType = returnType;
+            this.parameterTypes = parameterTypes;
+        }
+    }
+
+    private int functions = 10;
+    private int nestingDepth = 2;
+    private int localsPerBlock = 4;
+    private int expressionDepth = 3;
+    private double callDensity = 0.1;
+    private int stringOperations = 2;
+    private int stringLiterals = 10;
+
+    private Random random;
+    private StringBuilder program;
+    private List<Signature> signatures;
+    private List<List<Variable>> scopes;
+    private int variableIndex;
+    private int literalsLeft;
+
+    public ProgramGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public ProgramGenerator setFunctions(int functions) { this.functions = functions; return this; }
+    public ProgramGenerator setNestingDepth(int depth) { this.nestingDepth = depth; return this; }
+    public ProgramGenerator setLocalsPerBlock(int locals) { this.localsPerBlock = locals; return this; }
+    public ProgramGenerator setExpressionDepth(int depth) { this.expressionDepth = depth; return this; }
+    // probability that an expression operand is a call of one of the previously defined functions
+    public ProgramGenerator setCallDensity(double density) { this.callDensity = density; return this; }
+    // strcat, get_at and set_at statements per function
+    public ProgramGenerator setStringOperations(int operations) { this.stringOperations = operations; return this; }
+    // printed string literals in the whole program
+    public ProgramGenerator setStringLiterals(int literals) { this.stringLiterals = literals; return this; }
+
+    public String generate() {
+        this.program = new StringBuilder();
+        this.signatures = new ArrayList<>();
+        this.scopes = new ArrayList<>();
+        this.variableIndex = 0;
+        this.literalsLeft = this.stringLiterals;
+
+        // every other function is declared before its definition
+        for (int i = 0; i < this.functions; i++) {
+            Signature signature = this.generateSignature(i);
+            if (i % 2 == 1) {
+                this.program.append(this.getHeader(signature, false)).append(";\n\n");
+            }
+            this.generateFunction(signature, this.stringLiterals / (this.functions + 1));
+            this.signatures.add(signature);
+        }
+        this.generateMain();
+
+        return this.program.toString();
+    }
+
+    //  --- FUNCTIONS ---
+    private Signature generateSignature(int index) {
+        List<String> parameterTypes = new ArrayList<>();
+        int parameterCnt = this.random.nextInt(4);
+
+        for (int i = 0; i < parameterCnt; i++) {
+            parameterTypes.add(this.randomType());
+        }
+
+        String returnType = (index % 5 == 4) ? "void" : this.randomType();
+
+        return new Signature("f" + index, returnType, parameterTypes);
+    }
+
+    private String getHeader(Signature signature, boolean names) {
+        StringBuilder header = new StringBuilder();
+        header.append(signature.returnType).append(" ").append(signature.name).append("(");
+
+        if (signature.parameterTypes.isEmpty()) {
+            header.append("void");
+        }
+        for (int i = 0; i < signature.parameterTypes.size(); i++) {
+            if (i > 0) {
+                header.append(", ");
+            }
+            header.append(signature.parameterTypes.get(i));
+            if (names) {
+                header.append(" p").append(i);
+            }
+        }
+
+        return header.append(")").toString();
+    }
+
+    private void generateFunction(Signature signature, int literals) {
+        this.program.append(this.getHeader(signature, true)).append(" {\n");
+
+        List<Variable> parameters = new ArrayList<>();
+        for (int i = 0; i < signature.parameterTypes.size(); i++) {
+            parameters.add(new Variable("p" + i, signature.parameterTypes.get(i)));
+        }
+        this.scopes.add(parameters);
+
+        this.generateBlockBody(1, literals);
+
+        for (int i = 0; i < this.stringOperations; i++) {
+            this.generateStringOperation(1);
+        }
+
+        if (!signature.returnType.equals("void")) {
+            this.indent(1).append("return ");
+            this.generateExpression(signature.returnType, this.expressionDepth);
+            this.program.append(";\n");
+        }
+
+        this.scopes.remove(this.scopes.size() - 1);
+        this.program.append("}\n\n");
+    }
+
+    private void generateMain() {
+        this.program.append("int main(void) {\n");
+        this.scopes.add(new ArrayList<>());
+
+        this.generateBlockBody(1, this.literalsLeft);
+
+        // call every function at least once
+        for (Signature signature : this.signatures) {
+            this.indent(1);
+            this.generateCall(signature);
+            this.program.append(";\n");
+        }
+
+        this.indent(1).append("return 0;\n");
+        this.scopes.remove(this.scopes.size() - 1);
+        this.program.append("}\n");
+    }
+
+    //  --- STATEMENTS ---
+    private void generateBlockBody(int level, int literals) {
+        List<Variable> locals = this.scopes.get(this.scopes.size() - 1);
+
+        for (int i = 0; i < this.localsPerBlock; i++) {
+            Variable variable = new Variable("v" + this.variableIndex++, this.randomType());
+            this.indent(level).append(variable.type).append(" ").append(variable.name).append(";\n");
+            locals.add(variable);
+        }
+
+        for (int i = 0; i < this.localsPerBlock; i++) {
+            this.generateAssignment(level);
+        }
+
+        this.generatePrints(level, literals);
+
+        if (level <= this.nestingDepth) {
+            this.generateConditional(level);
+            this.generateWhile(level);
+        }
+    }
+
+    private void generateBlock(int level) {
+        this.program.append("{\n");
+        this.scopes.add(new ArrayList<>());
+        this.generateBlockBody(level + 1, 0);
+        this.scopes.remove(this.scopes.size() - 1);
+        this.indent(level).append("}");
+    }
+
+    private void generateAssignment(int level) {
+        Variable variable = this.randomVariable(null);
+        if (variable == null) {
+            return;
+        }
+
+        this.indent(level).append(variable.name).append(" = ");
+        this.generateExpression(variable.type, this.expressionDepth);
+        this.program.append(";\n");
+    }
+
+    // only the true branch is nested further, so the program size grows linearly with the nesting depth
+    private void generateConditional(int level) {
+        this.indent(level).append("if (");
+        this.generateExpression("int", this.expressionDepth);
+        this.program.append(") ");
+        this.generateBlock(level);
+        this.program.append(" else {\n");
+        this.generateAssignment(level + 1);
+        this.indent(level).append("}\n");
+    }
+
+    private void generateWhile(int level) {
+        String counter = "i" + this.variableIndex++;
+
+        this.indent(level).append("int ").append(counter).append(";\n");
+        this.indent(level).append("while (").append(counter).append(" < 2) {\n");
+        this.indent(level + 1).append(counter).append(" = ").append(counter).append(" + 1;\n");
+        this.generateAssignment(level + 1);
+        this.indent(level).append("}\n");
+    }
+
+    private void generatePrints(int level, int literals) {
+        for (int i = 0; i < literals && this.literalsLeft > 0; i++, this.literalsLeft--) {
+            this.indent(level).append("print(\"literal ").append(this.random.nextInt(1000)).append("\\n\"");
+            Variable variable = this.randomVariable(null);
+            if (variable != null) {
+                this.program.append(", ").append(variable.name);
+            }
+            this.program.append(");\n");
+        }
+    }
+
+    private void generateStringOperation(int level) {
+        Variable string = this.randomVariable("string");
+        if (string == null) {
+            return;
+        }
+
+        this.indent(level).append(string.name).append(" = ");
+        switch (this.random.nextInt(3)) {
+            case 0:
+                this.program.append("strcat(").append(string.name).append(", ");
+                this.generateExpression("string", 1);
+                this.program.append(")");
+                break;
+            case 1:
+                this.program.append("set_at(").append(string.name).append(", 0, ");
+                this.generateExpression("char", 1);
+                this.program.append(")");
+                break;
+            default:
+                this.program.append("(string) get_at(").append(string.name).append(", 0)");
+                break;
+        }
+        this.program.append(";\n");
+    }
+
+    //  --- EXPRESSIONS ---
+    private void generateExpression(String type, int depth) {
+        Signature callee = this.randomCallee(type);
+        if (callee != null && this.random.nextDouble() < this.callDensity) {
+            this.generateCall(callee);
+            return;
+        }
+
+        if (depth == 0) {
+            this.generateOperand(type);
+            return;
+        }
+
+        switch (type) {
+            case "int":
+                this.generateIntExpression(depth);
+                break;
+            case "char":
+                // int expressions are parenthesized, so the cast applies to the whole operand
+                this.program.append("(char) ");
+                this.generateExpression("int", depth - 1);
+                break;
+            default:
+                this.program.append("strcat(");
+                this.generateExpression("string", depth - 1);
+                this.program.append(", ");
+                this.generateExpression("string", depth - 1);
+                this.program.append(")");
+                break;
+        }
+    }
+
+    private void generateIntExpression(int depth) {
+        final String[] arithmetic = {"+", "-", "*", "/", "%"};
+        final String[] relational = {"<", ">", "<=", ">=", "==", "!="};
+        final String[] logical = {"&&", "||"};
+
+        this.program.append("(");
+        switch (this.random.nextInt(5)) {
+            case 0:
+            case 1:
+                String operator = arithmetic[this.random.nextInt(arithmetic.length)];
+                this.generateExpression("int", depth - 1);
+                this.program.append(" ").append(operator).append(" ");
+                if (operator.equals("/") || operator.equals("%")) {
+                    // divisor must not be zero
+                    this.program.append(1 + this.random.nextInt(9));
+                }
+                else {
+                    this.generateExpression("int", depth - 1);
+                }
+                break;
+            case 2:
+                String type = this.randomType();
+                this.generateExpression(type, depth - 1);
+                this.program.append(" ").append(relational[this.random.nextInt(relational.length)]).append(" ");
+                this.generateExpression(type, depth - 1);
+                break;
+            case 3:
+                this.generateExpression("int", depth - 1);
+                this.program.append(" ").append(logical[this.random.nextInt(logical.length)]).append(" ");
+                this.generateExpression("int", depth - 1);
+                break;
+            default:
+                this.program.append("!");
+                this.generateExpression("int", depth - 1);
+                break;
+        }
+        this.program.append(")");
+    }
+
+    private void generateOperand(String type) {
+        Variable variable = this.randomVariable(type);
+        if (variable != null && this.random.nextBoolean()) {
+            this.program.append(variable.name);
+            return;
+        }
+
+        switch (type) {
+            case "int":
+                this.program.append(this.random.nextInt(100));
+                break;
+            case "char":
+                this.program.append("'").append((char) ('a' + this.random.nextInt(26))).append("'");
+                break;
+            default:
+                this.program.append("(string) '").append((char) ('a' + this.random.nextInt(26))).append("'");
+                break;
+        }
+    }
+
+    private void generateCall(Signature callee) {
+        this.program.append(callee.name).append("(");
+        for (int i = 0; i < callee.parameterTypes.size(); i++) {
+            if (i > 0) {
+                this.program.append(", ");
+            }
+            // arguments are simple, otherwise the call density would multiply the program size
+            this.generateOperand(callee.parameterTypes.get(i));
+        }
+        this.program.append(")");
+    }
+
+    //  --- HELPERS ---
+    private String randomType() {
+        return TYPES[this.random.nextInt(TYPES.length)];
+    }
+
+    // visible variable of the given type (any type if null), null if there is none
+    private Variable randomVariable(String type) {
+        List<Variable> candidates = new ArrayList<>();
+        for (List<Variable> scope : this.scopes) {
+            for (Variable variable : scope) {
+                if (type == null || variable.type.equals(type)) {
+                    candidates.add(variable);
+                }
+            }
+        }
+
+        return candidates.isEmpty() ? null : candidates.get(this.random.nextInt(candidates.size()));
+    }
+
+    // previously defined function returning the given type, null if there is none
+    private Signature randomCallee(String type) {
+        List<Signature> candidates = new ArrayList<>();
+        for (Signature signature : this.signatures) {
+            if (signature.returnType.equals(type)) {
+                candidates.add(signature);
+            }
+        }
+
+        return candidates.isEmpty() ? null : candidates.get(this.random.nextInt(candidates.size()));
+    }
+
+    private StringBuilder indent(int level) {
+        for (int i = 0; i < level; i++) {
+            this.program.append("    ");
+        }
+
+        return this.program;
+    }
+
+    // ProgramGenerator [--seed=N] [--functions=N] [--nesting-depth=N] [--locals-per-block=N] [--expression-depth=N]
+    //                  [--call-density=D] [--string-operations=N] [--string-literals=N]
+    public static void main(String[] args) {
+        long seed = 42;
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+
+        for (String option : options) {
+            if (option.startsWith("--seed=")) {
+                seed = Long.parseLong(option.substring("--seed=".length()));
+            }
+        }
+
+        ProgramGenerator generator = new ProgramGenerator(seed);
+
+        for (String option : options) {
+            String[] parts = option.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid option " + option);
+            }
+
+            switch (parts[0]) {
+                case "--seed":
+                    break;
+                case "--functions":
+                    generator.setFunctions(Integer.parseInt(parts[1]));
+                    break;
+                case "--nesting-depth":
+                    generator.setNestingDepth(Integer.parseInt(parts[1]));
+                    break;
+                case "--locals-per-block":
+                    generator.setLocalsPerBlock(Integer.parseInt(parts[1]));
+                    break;
+                case "--expression-depth":
+                    generator.setExpressionDepth(Integer.parseInt(parts[1]));
+                    break;
+                case "--call-density":
+                    generator.setCallDensity(Double.parseDouble(parts[1]));
+                    break;
+                case "--string-operations":
+                    generator.setStringOperations(Integer.parseInt(parts[1]));
+                    break;
+                case "--string-literals":
+                    generator.setStringLiterals(Integer.parseInt(parts[1]));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+
+        System.out.print(generator.generate());
+    }
+}
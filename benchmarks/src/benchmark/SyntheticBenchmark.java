@@ -0,0 +1,37 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+
+/*************************************************************
+ * Filename: SyntheticBenchmark.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// phases of the generated programs, single parameter can be selected by the JMH -p option
+public class SyntheticBenchmark extends PhaseBenchmark {
+    @Param({"10", "100"})
+    public int functions;
+
+    @Param({"2", "6"})
+    public int expressionDepth;
+
+    @Param({"4", "24"})
+    public int localsPerBlock;
+
+    @Param({"0", "100"})
+    public int stringLiterals;
+
+    @Override
+    protected String getSource() {
+        return new ProgramGenerator(42)
+                .setFunctions(this.functions)
+                .setExpressionDepth(this.expressionDepth)
+                .setLocalsPerBlock(this.localsPerBlock)
+                .setStringLiterals(this.stringLiterals)
+                .generate();
+    }
+}
@@ -1,17 +1,14 @@
-import asm.ASMProgram;
-import asm.ASMRegister;
-import asm.ASMRegisterAllocator;
-import exceptions.SemanticException;
-import grammar.custom.VYPeExpressionVisitor;
-import tables.FunctionTable;
-import tables.SymbolTable;
-import asm.ASMElement;
-import grammar.custom.VYPeStartLow;
+import compiler.BatchCompiler;
+import compiler.CompileServer;
+import compiler.Compiler;
+import compiler.CompilerOptions;
+import compiler.DFACache;
 import util.Constant;
-import grammar.gen.*;
-import org.antlr.v4.runtime.*;
+import util.Statistics;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
 
 /*************************************************************
  * Filename: Main.java
@@ -26,60 +23,106 @@ public class Main {
 
     public static void main(String[] args) {
         //args = new String[] {"tests/asmtests/temp.c"};
-        if(args.length < 1 || args.length > 2){
-            System.exit(Constant.INTERNAL_ERROR);
+        // vype --train-dfa <cache> <file|directory>... saves the prediction DFA learned from the sources
+        if(args.length > 2 && args[0].equals("--train-dfa")){
+            try {
+                BatchCompiler batch = new BatchCompiler(Arrays.asList(args).subList(2, args.length));
+                System.exit(DFACache.train(batch.getSources(), Paths.get(args[1])));
+            } catch (IOException e) {
+                System.exit(Constant.INTERNAL_ERROR);
+            }
         }
 
-        String outputFilename = (args.length == 2) ? args[1] : "out.asm";
-        VYPeLexer lexer = null;
-        try{
-            lexer = new VYPeLexer(new ANTLRFileStream(args[0]));
-        }catch(java.io.IOException e){
-            System.exit(Constant.INTERNAL_ERROR);
+        // every mode starts with the DFA shipped next to vype.jar, if there is any
+        DFACache.load(DFACache.getDefaultPath());
+
+        // leading options apply to the single compilation, the batch and the server alike
+        CompilerOptions options = new CompilerOptions();
+        Statistics statistics = null;
+        boolean json = false;
+        int index = 0;
+        for(; index < args.length && args[index].startsWith("--"); index++){
+            String option = args[index];
+            if(option.equals("--batch") || option.startsWith("--server")){
+                break;
+            }
+            else if(option.equals("--stats") || option.equals("--stats=json")){
+                statistics = new Statistics();
+                json = option.equals("--stats=json");
+            }
+            else if(!options.parse(option)){
+                usage("unknown option " + option);
+            }
         }
+        args = Arrays.copyOfRange(args, index, args.length);
 
-        CommonTokenStream tokenStream = new CommonTokenStream (lexer);
-
-        tokenStream.fill();
-
-        tokenStream.getTokens().forEach(token -> {
-            if(token.getType() == Constant.ERROR_TYPE){
-                System.exit(Constant.LEXICAL_ERROR);
+        // vype [<options>] --batch <file|directory>...
+        if(args.length > 0 && args[0].equals("--batch")){
+            if(args.length < 2 || statistics != null){
+                usage("--batch takes the sources and no --stats");
+            }
+            try {
+                BatchCompiler batch = new BatchCompiler(Arrays.asList(args).subList(1, args.length), options);
+                System.exit(batch.compile());
+            } catch (IOException e) {
+                System.exit(Constant.INTERNAL_ERROR);
             }
-        });
-
-        VYPeParserParser parser = new VYPeParserParser(tokenStream);
-        VYPeParserParser.StartContext parseTree = parser.start();
-
-        if(parser.getNumberOfSyntaxErrors() > 0) {
-            System.exit(Constant.SYNTAX_ERROR);
         }
 
-        VYPeExpressionVisitor visitor = new VYPeExpressionVisitor("", new FunctionTable(), new SymbolTable());
+        // vype [<options>] --server (requests on stdin) or vype [<options>] --server=<port> (requests on the port)
+        if(args.length > 0 && args[0].startsWith("--server")){
+            boolean serverOption = args[0].equals("--server") || args[0].startsWith("--server=");
+            if(!serverOption || args.length > 1 || statistics != null){
+                usage("--server takes no arguments and no --stats");
+            }
+            try {
+                CompileServer server = new CompileServer(options);
+                if (args[0].startsWith("--server=")) {
+                    server.listen(Integer.parseInt(args[0].substring("--server=".length())));
+                }
+                else {
+                    server.serve();
+                }
+                System.exit(Constant.NO_ERROR);
+            } catch (IOException | NumberFormatException e) {
+                System.exit(Constant.INTERNAL_ERROR);
+            }
+        }
 
-        try {
-            visitor.doSemanticCheck(parseTree);
+        // vype [<options>] <source> [<output>], the options do not follow the source
+        if(args.length < 1 || args.length > 2){
+            usage("expected <source> [<output>]");
         }
-        catch(SemanticException e) {
-            System.err.println(e.getMessage());
-            e.printStackTrace();
-            System.exit(Constant.SEMANTIC_ERROR);
+        for(String arg : args){
+            if(arg.startsWith("--")){
+                usage("misplaced option " + arg);
+            }
         }
 
-        // function table will be used during the assembly generation
-        FunctionTable functionTable = visitor.getFunctionTable();
+        String outputFilename = (args.length == 2) ? args[1] : (options.isBinary() ? "out.bin" : "out.asm");
 
-        // ASM generation
-        ASMProgram program = new ASMProgram(outputFilename, functionTable);
+        Compiler compiler = options.newCompiler();
+        compiler.setStatistics(statistics);
+        if(statistics != null){
+            Statistics.resetPeakHeap();
+        }
+        int result = compiler.compile(args[0], outputFilename);
 
-        VYPeStartLow lowerer = new VYPeStartLow(program);
-        lowerer.visit(parseTree);
-        program.finalize();
+        if(statistics != null){
+            System.out.print(json ? statistics.getJson() + "\n" : statistics.getText());
+        }
 
-        //program.debugPrint();
-        program.printToFile();
+        System.exit(result);
+    }
 
-        //System.out.println(parseTree.toStringTree());
-        System.exit(Constant.NO_ERROR);
+    private static void usage(String error) {
+        System.err.print("vype: " + error + "\n"
+                + "usage: vype [<options>] <source> [<output>]\n"
+                + "       vype [<options>] --batch <source|directory>...\n"
+                + "       vype [<options>] --server | --server=<port>\n"
+                + "       vype --train-dfa <cache> <source|directory>...\n"
+                + "options: --binary --allocator=lru|linear|coloring --callee-saved --ir --dump-ir --sccp\n"
+                + "         --stats | --stats=json (single compilation only)\n");
+        System.exit(Constant.INTERNAL_ERROR);
     }
 }
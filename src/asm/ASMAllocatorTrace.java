@@ -0,0 +1,239 @@
+package asm;
+
+import util.Constant;
+import util.ISA;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*************************************************************
+ * Filename: ASMAllocatorTrace.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// calls of the register allocator made by the lowering of one function, packed as the opcodes followed by
+// their arguments, variables are recorded by their ids which are the same when the trace is replayed,
+// the replay runs the lru allocator only
+public class ASMAllocatorTrace {
+    private static final int NEW_SCOPE = 0;
+    private static final int KILL_SCOPE = 1;
+    private static final int TEMP_VAR = 2;          // id
+    private static final int DECLARE = 3;           // name, type
+    private static final int PARAMETER = 4;         // name, type, offset
+    private static final int CHECK = 5;             // name
+    private static final int KILL = 6;              // id, force
+    private static final int GET_REGISTER = 7;      // id
+    private static final int GET_REGISTER_NO_SPILL = 8; // id
+    private static final int SAVE = 9;
+    private static final int RESTORE = 10;
+    private static final int CONSTANT = 11;         // id, constant
+    private static final int SAVE_STATE = 12;
+    private static final int RECONCILE_STATE = 13;  // state
+    private static final int RESTORE_STATE = 14;    // state
+    private static final int RELEASE_CONSTANT = 15; // id
+
+    private static final Constant.Type[] TYPES = Constant.Type.values();
+
+    private int size = 0;
+    private int[] ops = new int[64];
+    private int variableCnt = 0;
+    private int reservedArguments = ISA.ARG_MASK;
+
+    private List<String> names = new ArrayList<>();
+    private Map<String, Integer> nameIndex = new HashMap<>();
+    private List<ASMOperand> constants = new ArrayList<>();
+
+    //  --- RECORDING ---
+    void setReservedArguments(int reservedArguments) {
+        this.reservedArguments = reservedArguments;
+    }
+
+    void newScope() {
+        this.add(NEW_SCOPE);
+    }
+
+    void killScope() {
+        this.add(KILL_SCOPE);
+    }
+
+    void tempVar(ASMVariable var) {
+        this.add(TEMP_VAR);
+        this.add(this.variable(var));
+    }
+
+    void declareVariable(String name, Constant.Type type) {
+        this.add(DECLARE);
+        this.add(this.internName(name));
+        this.add(type.ordinal());
+    }
+
+    void addParameter(String name, Constant.Type type, long offset) {
+        this.add(PARAMETER);
+        this.add(this.internName(name));
+        this.add(type.ordinal());
+        this.add((int) offset);
+    }
+
+    void checkVariable(String name) {
+        this.add(CHECK);
+        this.add(this.internName(name));
+    }
+
+    void killVariable(ASMVariable var, boolean force) {
+        this.add(KILL);
+        this.add(this.variable(var));
+        this.add(force ? 1 : 0);
+    }
+
+    void getRegister(ASMVariable var) {
+        this.add(GET_REGISTER);
+        this.add(this.variable(var));
+    }
+
+    void getRegisterNoSpill(ASMVariable var) {
+        this.add(GET_REGISTER_NO_SPILL);
+        this.add(this.variable(var));
+    }
+
+    void setConstant(ASMVariable var, ASMOperand constant) {
+        this.add(CONSTANT);
+        this.add(this.variable(var));
+        this.add(this.constants.size());
+        this.constants.add(constant);
+    }
+
+    void releaseConstant(ASMVariable var) {
+        this.add(RELEASE_CONSTANT);
+        this.add(this.variable(var));
+    }
+
+    void saveRegisters() {
+        this.add(SAVE);
+    }
+
+    void restoreRegisters() {
+        this.add(RESTORE);
+    }
+
+    void saveState() {
+        this.add(SAVE_STATE);
+    }
+
+    void reconcileState(ASMRegisterAllocator.State state) {
+        this.add(RECONCILE_STATE);
+        this.add(state.getIndex());
+    }
+
+    void restoreState(ASMRegisterAllocator.State state) {
+        this.add(RESTORE_STATE);
+        this.add(state.getIndex());
+    }
+
+    private void add(int value) {
+        if (this.size == this.ops.length) {
+            this.ops = Arrays.copyOf(this.ops, 2 * this.size);
+        }
+        this.ops[this.size++] = value;
+    }
+
+    private int variable(ASMVariable var) {
+        this.variableCnt = Math.max(this.variableCnt, var.getId() + 1);
+
+        return var.getId();
+    }
+
+    private int internName(String name) {
+        Integer index = this.nameIndex.get(name);
+        if (index == null) {
+            index = this.names.size();
+            this.names.add(name);
+            this.nameIndex.put(name, index);
+        }
+
+        return index;
+    }
+
+    //  --- REPLAYING ---
+    public int size() {
+        return this.size;
+    }
+
+    // repeats the calls on a new allocator, spills and reloads are added to the program
+    public void replay(ASMProgram program) {
+        ASMRegisterAllocator allocator = new ASMRegisterAllocator(program, this.reservedArguments);
+        ASMVariable[] variables = new ASMVariable[this.variableCnt];
+        Deque<List<ASMRegister>> saved = new ArrayDeque<>();
+        // states by their indexes, they are saved in the same order
+        List<ASMRegisterAllocator.State> states = new ArrayList<>();
+
+        int index = 0;
+        while (index < this.size) {
+            switch (this.ops[index++]) {
+                case NEW_SCOPE:
+                    allocator.newScope();
+                    break;
+                case KILL_SCOPE:
+                    allocator.killScope();
+                    break;
+                case TEMP_VAR:
+                    variables[this.ops[index++]] = allocator.getTempVar();
+                    break;
+                case DECLARE:
+                    allocator.declareVariable(this.names.get(this.ops[index]), TYPES[this.ops[index + 1]]);
+                    index += 2;
+                    break;
+                case PARAMETER:
+                    allocator.addParameter(this.names.get(this.ops[index]), TYPES[this.ops[index + 1]],
+                            this.ops[index + 2]);
+                    index += 3;
+                    break;
+                case CHECK:
+                    ASMVariable var = allocator.checkVariable(this.names.get(this.ops[index++]));
+                    if (var != null) {
+                        variables[var.getId()] = var;
+                    }
+                    break;
+                case KILL:
+                    allocator.killVariable(variables[this.ops[index]], this.ops[index + 1] != 0);
+                    index += 2;
+                    break;
+                case GET_REGISTER:
+                    allocator.getRegister(variables[this.ops[index++]]);
+                    break;
+                case GET_REGISTER_NO_SPILL:
+                    allocator.getRegisterNoSpill(variables[this.ops[index++]]);
+                    break;
+                case CONSTANT:
+                    allocator.setConstant(variables[this.ops[index]], this.constants.get(this.ops[index + 1]));
+                    index += 2;
+                    break;
+                case RELEASE_CONSTANT:
+                    allocator.releaseConstant(variables[this.ops[index++]]);
+                    break;
+                case SAVE:
+                    saved.push(allocator.saveRegisters());
+                    break;
+                case SAVE_STATE:
+                    states.add(allocator.saveState());
+                    break;
+                case RECONCILE_STATE:
+                    allocator.reconcileState(states.get(this.ops[index++]));
+                    break;
+                case RESTORE_STATE:
+                    allocator.restoreState(states.get(this.ops[index++]));
+                    break;
+                default:
+                    allocator.restoreRegisters(saved.pop());
+            }
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package asm;
+
+import exceptions.InternalException;
+import exceptions.MemoryException;
+import util.ISA;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/*************************************************************
+ * Filename: ASMAssembler.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// encodes the program into a flat MIPS32 image, big endian words from the .org address,
+// the .data strings follow the code, the first pass assigns the addresses and the second one encodes
+public class ASMAssembler {
+    private static final int OP_SPECIAL = 0x00;
+    private static final int OP_REGIMM = 0x01;
+    private static final int OP_SPECIAL2 = 0x1c;
+
+    // simulator instructions use the function codes of SPECIAL reserved by MIPS32,
+    // the first operand is in rs and the second one in rt
+    private static final Map<ISA.ASMOpCode, Integer> SIMULATOR_FUNCTIONS;
+    static
+    {
+        SIMULATOR_FUNCTIONS = new HashMap<>();
+        SIMULATOR_FUNCTIONS.put(ISA.ASMOpCode.PRINT_CHAR, 0x05);
+        SIMULATOR_FUNCTIONS.put(ISA.ASMOpCode.PRINT_INT, 0x0e);
+        SIMULATOR_FUNCTIONS.put(ISA.ASMOpCode.PRINT_STRING, 0x14);
+        SIMULATOR_FUNCTIONS.put(ISA.ASMOpCode.READ_CHAR, 0x15);
+        SIMULATOR_FUNCTIONS.put(ISA.ASMOpCode.READ_INT, 0x16);
+        SIMULATOR_FUNCTIONS.put(ISA.ASMOpCode.READ_STRING, 0x17);
+    }
+
+    private Map<String, Long> labels = new HashMap<>();
+    private long origin = 0;
+    private ByteBuffer image;
+    private ASMEmitter listing;
+
+    public void assemble(ASMInstructionBuffer program, String file, String listingFile) throws IOException {
+        long end = this.layout(program);
+
+        // heap begins right after the image, the first allocations would overwrite a longer one
+        if (end > ASMProgram.HEAP_BEGIN) {
+            throw new MemoryException(String.format("Program image ends at 0x%x, past the heap at 0x%x", end,
+                    ASMProgram.HEAP_BEGIN));
+        }
+
+        this.image = ByteBuffer.allocate((int) (end - this.origin));
+        this.listing = new ASMEmitter(listingFile);
+        this.encode(program);
+        this.listing.close();
+
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            this.image.flip();
+            while (this.image.hasRemaining()) {
+                channel.write(this.image);
+            }
+        }
+    }
+
+    //  --- FIRST PASS ---
+    // addresses of all the labels, returns the end of the image
+    private long layout(ASMInstructionBuffer program) {
+        ASMInstructionBuffer.Cursor cursor = program.cursor();
+        long address = 0;
+        boolean first = true;
+
+        while (cursor.next()) {
+            switch (cursor.getKind()) {
+                case ASMInstructionBuffer.DIRECTIVE:
+                    address = this.getDirectiveAddress(cursor.getName(), address);
+
+                    // image starts at the first origin
+                    if (first && cursor.getName().startsWith(".org")) {
+                        this.origin = address;
+                        first = false;
+                    }
+                    break;
+                case ASMInstructionBuffer.LABEL:
+                    this.labels.put(cursor.getName(), address);
+                    break;
+                case ASMInstructionBuffer.INSTRUCTION:
+                    address += ISA.REGISTER_SIZE * getWordCount(cursor);
+                    break;
+                default:
+                    ASMString string = (ASMString) cursor.getData();
+                    this.labels.put(string.getName().getName(), address);
+                    address += string.getBytes().length;
+            }
+        }
+
+        return align(address);
+    }
+
+    private long getDirectiveAddress(String directive, long address) {
+        if (directive.startsWith(".org")) {
+            return Long.decode(directive.substring(".org".length()).trim());
+        }
+        else if (directive.equals(".data")) {
+            return align(address);
+        }
+
+        return address;
+    }
+
+    private static int getWordCount(ASMInstructionBuffer.Cursor cursor) {
+        // LI is expanded to LUI and ORI, unless the immediate fits the ADDIU
+        if (cursor.getOpCode() == ISA.ASMOpCode.MOVSI) {
+            if (cursor.getOperandKind(1) == ASMInstructionBuffer.LABEL_NAME || !isShort(cursor.getImmediate(1))) {
+                return 2;
+            }
+        }
+
+        return 1;
+    }
+
+    //  --- SECOND PASS ---
+    private void encode(ASMInstructionBuffer program) throws IOException {
+        ASMInstructionBuffer.Cursor cursor = program.cursor();
+        long address = this.origin;
+
+        while (cursor.next()) {
+            switch (cursor.getKind()) {
+                case ASMInstructionBuffer.DIRECTIVE:
+                    address = this.getDirectiveAddress(cursor.getName(), address);
+                    this.image.position((int) (address - this.origin));
+                    this.listing.emit(String.format("%08x           ", address), cursor);
+                    break;
+                case ASMInstructionBuffer.LABEL:
+                    this.listing.emit(String.format("%08x           ", address), cursor);
+                    break;
+                case ASMInstructionBuffer.INSTRUCTION:
+                    int[] words = this.encodeInstruction(cursor, address);
+                    for (int i = 0; i < words.length; i++) {
+                        this.image.putInt(words[i]);
+                        // only the first word is listed with the instruction
+                        if (i == 0) {
+                            this.listing.emit(String.format("%08x  %08x ", address, words[i]), cursor);
+                        }
+                        else {
+                            this.listing.emitLine(String.format("%08x  %08x", address, words[i]));
+                        }
+                        address += ISA.REGISTER_SIZE;
+                    }
+                    break;
+                default:
+                    byte[] bytes = ((ASMString) cursor.getData()).getBytes();
+                    this.image.put(bytes);
+                    this.listing.emit(String.format("%08x           ", address), cursor);
+                    address += bytes.length;
+            }
+        }
+
+        this.image.position((int) (align(address) - this.origin));
+    }
+
+    private int[] encodeInstruction(ASMInstructionBuffer.Cursor op, long address) {
+        switch (op.getOpCode()) {
+            case MOV:
+                return words(rType(OP_SPECIAL, op.getRegister(1), 0, op.getRegister(0), 0x21));
+            case MOVSI:
+                return this.encodeLoadImmediate(op);
+            case MOVZ:
+                return words(rType(OP_SPECIAL, op.getRegister(1), op.getRegister(2), op.getRegister(0), 0x0a));
+            case MFHI:
+                return words(rType(OP_SPECIAL, 0, 0, op.getRegister(0), 0x10));
+            case MFLO:
+                return words(rType(OP_SPECIAL, 0, 0, op.getRegister(0), 0x12));
+            case ADD:
+                return words(rType(OP_SPECIAL, op.getRegister(1), op.getRegister(2), op.getRegister(0), 0x20));
+            case SUB:
+                return words(rType(OP_SPECIAL, op.getRegister(1), op.getRegister(2), op.getRegister(0), 0x22));
+            case ADDU:
+            case SUBU:
+                return words(encodeAccumulate(op));
+            case MUL:
+                return words(rType(OP_SPECIAL2, op.getRegister(1), op.getRegister(2), op.getRegister(0), 0x02));
+            case DIV:
+                return words(rType(OP_SPECIAL, op.getRegister(0), op.getRegister(1), 0, 0x1a));
+            case ADDI:
+                return words(iType(0x08, op.getRegister(1), op.getRegister(0), checkShort(op.getImmediate(2))));
+            case ANDI:
+                return words(iType(0x0c, op.getRegister(1), op.getRegister(0), checkUnsigned(op.getImmediate(2))));
+            case SLT:
+                return words(rType(OP_SPECIAL, op.getRegister(1), op.getRegister(2), op.getRegister(0), 0x2a));
+            case BEQ:
+                return words(iType(0x04, op.getRegister(0), op.getRegister(1), this.branchOffset(op.getLabel(2), address)));
+            case BNE:
+                return words(iType(0x05, op.getRegister(0), op.getRegister(1), this.branchOffset(op.getLabel(2), address)));
+            case BGTZ:
+                return words(iType(0x07, op.getRegister(0), 0, this.branchOffset(op.getLabel(1), address)));
+            case BLTZ:
+                return words(iType(OP_REGIMM, op.getRegister(0), 0, this.branchOffset(op.getLabel(1), address)));
+            case J:
+                return words(this.jType(0x02, op.getLabel(0)));
+            case JAL:
+                return words(this.jType(0x03, op.getLabel(0)));
+            case JR:
+                return words(rType(OP_SPECIAL, op.getRegister(0), 0, 0, 0x08));
+            case BREAK:
+                return words(rType(OP_SPECIAL, 0, 0, 0, 0x0d));
+            case SW:
+                return words(iType(0x2b, op.getRegister(2), op.getRegister(0), checkShort(op.getImmediate(1))));
+            case LW:
+                return words(iType(0x23, op.getRegister(2), op.getRegister(0), checkShort(op.getImmediate(1))));
+            case SB:
+                return words(iType(0x28, op.getRegister(2), op.getRegister(0), checkShort(op.getImmediate(1))));
+            case LBU:
+                return words(iType(0x24, op.getRegister(2), op.getRegister(0), checkShort(op.getImmediate(1))));
+            default:
+                int rt = (op.getOperandCount() > 1) ? op.getRegister(1) : 0;
+                return words(rType(OP_SPECIAL, op.getRegister(0), rt, 0, SIMULATOR_FUNCTIONS.get(op.getOpCode())));
+        }
+    }
+
+    private int[] encodeLoadImmediate(ASMInstructionBuffer.Cursor op) {
+        int rt = op.getRegister(0);
+        boolean label = op.getOperandKind(1) == ASMInstructionBuffer.LABEL_NAME;
+        long value = label ? this.getLabelAddress(op.getLabel(1)) : op.getImmediate(1);
+
+        // ADDIU rt, $0, value
+        if (!label && isShort(value)) {
+            return words(iType(0x09, 0, rt, (int) value));
+        }
+
+        // LUI rt, upper and ORI rt, rt, lower
+        return words(iType(0x0f, 0, rt, (int) (value >>> 16)), iType(0x0d, rt, rt, (int) value));
+    }
+
+    // ADDU and SUBU with two operands add to the first one
+    private static int encodeAccumulate(ASMInstructionBuffer.Cursor op) {
+        int rd = op.getRegister(0);
+        boolean add = op.getOpCode() == ISA.ASMOpCode.ADDU;
+
+        if (op.getOperandKind(1) == ASMInstructionBuffer.REGISTER) {
+            return rType(OP_SPECIAL, rd, op.getRegister(1), rd, add ? 0x21 : 0x23);
+        }
+
+        long value = op.getImmediate(1);
+        return iType(0x09, rd, rd, checkShort(add ? value : -value));
+    }
+
+    private int branchOffset(String target, long address) {
+        long offset = (this.getLabelAddress(target) - (address + ISA.REGISTER_SIZE)) / ISA.REGISTER_SIZE;
+
+        return checkShort(offset);
+    }
+
+    private int jType(int opCode, String target) {
+        long address = this.getLabelAddress(target);
+
+        return (opCode << 26) | (int) ((address >>> 2) & 0x3ffffff);
+    }
+
+    private long getLabelAddress(String label) {
+        Long address = this.labels.get(label);
+        if (address == null) {
+            throw new InternalException("Label " + label + " is not defined");
+        }
+
+        return address;
+    }
+
+    //  --- ENCODING ---
+    private static int rType(int opCode, int rs, int rt, int rd, int function) {
+        return (opCode << 26) | (rs << 21) | (rt << 16) | (rd << 11) | function;
+    }
+
+    private static int iType(int opCode, int rs, int rt, int immediate) {
+        return (opCode << 26) | (rs << 21) | (rt << 16) | (immediate & 0xffff);
+    }
+
+    private static int[] words(int... words) {
+        return words;
+    }
+
+    private static int checkUnsigned(long value) {
+        if (value < 0 || value > 0xffff) {
+            throw new InternalException("Immediate " + value + " does not fit 16 bits");
+        }
+
+        return (int) value;
+    }
+
+    private static boolean isShort(long value) {
+        return value >= Short.MIN_VALUE && value <= Short.MAX_VALUE;
+    }
+
+    private static int checkShort(long value) {
+        if (!isShort(value)) {
+            throw new InternalException("Immediate " + value + " does not fit 16 bits");
+        }
+
+        return (int) value;
+    }
+
+    private static long align(long address) {
+        return (address + ISA.REGISTER_SIZE - 1) / ISA.REGISTER_SIZE * ISA.REGISTER_SIZE;
+    }
+}
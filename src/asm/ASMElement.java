@@ -11,4 +11,9 @@ package asm;
 
 public abstract class ASMElement {
     abstract public String getText();
+
+    // renders the element without the intermediate strings, used by the emitter
+    public void appendText(StringBuilder builder) {
+        builder.append(this.getText());
+    }
 }
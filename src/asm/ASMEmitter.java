@@ -0,0 +1,94 @@
+package asm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/*************************************************************
+ * Filename: ASMEmitter.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// writes the elements into the output file, lines are rendered into one reusable buffer
+public class ASMEmitter {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private FileChannel channel;
+    private StringBuilder text = new StringBuilder(2 * BUFFER_SIZE);
+    private ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    // invalid characters are replaced as by the print writer
+    private CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    public ASMEmitter(String file) throws IOException {
+        this.channel = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    public void emit(ASMInstructionBuffer program) throws IOException {
+        ASMInstructionBuffer.Cursor cursor = program.cursor();
+        while (cursor.next()) {
+            cursor.appendText(this.text);
+            this.endLine();
+        }
+    }
+
+    // current element of the cursor behind the prefix, the listing of the binary image puts the addresses there
+    public void emit(String prefix, ASMInstructionBuffer.Cursor cursor) throws IOException {
+        this.text.append(prefix);
+        cursor.appendText(this.text);
+        this.endLine();
+    }
+
+    public void emitLine(String line) throws IOException {
+        this.text.append(line);
+        this.endLine();
+    }
+
+    private void endLine() throws IOException {
+        this.text.append(LINE_SEPARATOR);
+
+        if (this.text.length() >= BUFFER_SIZE) {
+            this.encode(false);
+        }
+    }
+
+    public void close() throws IOException {
+        this.encode(true);
+        this.encoder.flush(this.bytes);
+        this.write();
+        this.channel.close();
+    }
+
+    private void encode(boolean endOfInput) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(this.text);
+
+        // the byte buffer is written whenever it is full
+        while (this.encoder.encode(chars, this.bytes, endOfInput) == CoderResult.OVERFLOW) {
+            this.write();
+        }
+        this.write();
+
+        this.text.delete(0, chars.position());
+    }
+
+    private void write() throws IOException {
+        this.bytes.flip();
+        while (this.bytes.hasRemaining()) {
+            this.channel.write(this.bytes);
+        }
+        this.bytes.clear();
+    }
+}
@@ -0,0 +1,742 @@
+package asm;
+
+import util.ISA;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*************************************************************
+ * Filename: ASMGraphColoring.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// colors the interference graph of the virtual registers of one function by the iterated register coalescing,
+// the moves between the virtual registers are coalesced when the graph stays colorable, the registers with
+// the lowest cost per neighbour are spilled, the cost of an occurrence grows ten times with every loop around it
+public class ASMGraphColoring {
+    // states of the nodes
+    private static final int SIMPLIFY = 0;
+    private static final int FREEZE = 1;
+    private static final int SPILL = 2;
+    private static final int SPILLED = 3;
+    private static final int COALESCED = 4;
+    private static final int COLORED = 5;
+    private static final int SELECTED = 6;
+    private static final int UNUSED = 7;
+
+    // states of the moves
+    private static final int MOVE_WORKLIST = 0;
+    private static final int MOVE_ACTIVE = 1;
+    private static final int MOVE_DONE = 2;
+
+    private ASMLiveIntervals intervals;
+    private int virtualCnt;
+
+    // interference graph as it is built, the runs do not change it
+    private EdgeSet edges = new EdgeSet();
+    private int[][] adjacency;
+    private int[] adjacencyCnt;
+    private double[] cost;
+    // registers live across the call sites
+    private int[][] liveAcross;
+    // nodes live across the calls get the callee saved registers first, the other ones the caller saved ones
+    private boolean calleeSaved = false;
+    // virtual registers of the operands of the built instruction and their roles
+    private int[] operandVirtuals = new int[ASMInstructionBuffer.MAX_OPERANDS];
+    private int[] operandRoles = new int[ASMInstructionBuffer.MAX_OPERANDS];
+
+    // moves between the virtual registers, the moves of a node are in its move list
+    private int[] moveDestinations = new int[16];
+    private int[] moveSources = new int[16];
+    private int moveCnt = 0;
+    private int[][] nodeMoves;
+    private int[] nodeMoveCnt;
+
+    // state of one run, the edges added by the coalescing are kept apart from the built graph
+    private int colorCnt;
+    private EdgeSet runEdges;
+    private int[][] runAdjacency;
+    private int[] runAdjacencyCnt;
+    private int[][] runNodeMoves;
+    private int[] runNodeMoveCnt;
+    private double[] runCost;
+    private int[] degree;
+    private int[] state;
+    private int[] alias;
+    private int[] color;
+    private int[] moveState;
+    private IntStack simplifyWorklist;
+    private IntStack freezeWorklist;
+    private IntStack moveWorklist;
+    private IntStack selectStack;
+    // spill candidates are searched, so they are kept in a set with the positions
+    private int[] spillWorklist;
+    private int[] spillPosition;
+    private int spillCnt;
+    // marks of the nodes counted by the conservative test
+    private int[] mark;
+    private int markStamp = 0;
+
+    // call sites are the pairs of the indexes where the registers are saved and restored like in the rewriter
+    public ASMGraphColoring(ASMLiveIntervals intervals, ASMInstructionBuffer code, int start, List<int[]> callSites) {
+        this.intervals = intervals;
+        this.virtualCnt = intervals.getVirtualCount();
+        this.adjacency = new int[this.virtualCnt][];
+        this.adjacencyCnt = new int[this.virtualCnt];
+        this.nodeMoves = new int[this.virtualCnt][];
+        this.nodeMoveCnt = new int[this.virtualCnt];
+        this.cost = new double[this.virtualCnt];
+        this.liveAcross = new int[callSites.size()][];
+
+        this.build(code, start, callSites);
+    }
+
+    //  --- BUILD ---
+    // the blocks are read backwards from their live out registers, every definition interferes with the registers
+    // live after it except the source of a move, the registers live where a call site is restored are live across it
+    private void build(ASMInstructionBuffer code, int start, List<int[]> callSites) {
+        int callSite = callSites.size() - 1;
+        LiveSet live = new LiveSet(this.virtualCnt);
+        ASMInstructionBuffer.Cursor cursor = code.cursor();
+
+        for (int block = this.intervals.getBlockCount() - 1; block >= 0; block--) {
+            live.clear();
+            for (int virtual : this.intervals.getLiveOut(block)) {
+                live.add(virtual);
+            }
+            double weight = Math.pow(10, Math.min(this.intervals.getLoopDepth(block), 8));
+
+            for (int position = this.intervals.getBlockEnd(block); position >= this.intervals.getBlockStart(block);
+                 position--) {
+                cursor.moveTo(start + position);
+                if (cursor.getKind() == ASMInstructionBuffer.INSTRUCTION) {
+                    this.addInstruction(cursor, live, weight);
+                }
+
+                // positions are read backwards
+                while (callSite >= 0 && callSites.get(callSite)[1] - start > position) {
+                    this.liveAcross[callSite--] = new int[0];
+                }
+                if (callSite >= 0 && callSites.get(callSite)[1] - start == position) {
+                    this.liveAcross[callSite--] = live.toArray();
+                }
+            }
+        }
+
+        while (callSite >= 0) {
+            this.liveAcross[callSite--] = new int[0];
+        }
+    }
+
+    private void addInstruction(ASMInstructionBuffer.Cursor cursor, LiveSet live, double weight) {
+        int[] virtuals = this.operandVirtuals;
+        int[] roles = this.operandRoles;
+
+        ISA.ASMOpCode opCode = cursor.getOpCode();
+        int count = 0;
+        for (int i = 0, operandCnt = cursor.getOperandCount(); i < operandCnt; i++) {
+            int virtual = this.getVirtual(cursor, i);
+            if (virtual >= 0) {
+                virtuals[count] = virtual;
+                roles[count++] = ASMLiveIntervals.getRole(opCode, i);
+                this.cost[virtual] += weight;
+            }
+        }
+
+        if (opCode == ISA.ASMOpCode.MOV && count == 2 && virtuals[0] != virtuals[1]) {
+            live.remove(virtuals[1]);
+            this.addMove(virtuals[0], virtuals[1]);
+        }
+
+        for (int i = 0; i < count; i++) {
+            if ((roles[i] & ASMLiveIntervals.DEF) != 0) {
+                live.add(virtuals[i]);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if ((roles[i] & ASMLiveIntervals.DEF) != 0) {
+                for (int j = 0; j < live.size(); j++) {
+                    this.addBuildEdge(live.get(j), virtuals[i]);
+                }
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if ((roles[i] & ASMLiveIntervals.DEF) != 0) {
+                live.remove(virtuals[i]);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if ((roles[i] & ASMLiveIntervals.USE) != 0) {
+                live.add(virtuals[i]);
+            }
+        }
+    }
+
+    private int getVirtual(ASMInstructionBuffer.Cursor cursor, int position) {
+        if (cursor.getOperandKind(position) != ASMInstructionBuffer.REGISTER) {
+            return -1;
+        }
+
+        int register = cursor.getRegister(position);
+        return (register >= ISA.REGCNT) ? register - ISA.REGCNT : -1;
+    }
+
+    private void addBuildEdge(int u, int v) {
+        if (u != v && this.edges.add(u, v)) {
+            this.adjacency[u] = append(this.adjacency[u], this.adjacencyCnt[u]++, v);
+            this.adjacency[v] = append(this.adjacency[v], this.adjacencyCnt[v]++, u);
+        }
+    }
+
+    private void addMove(int destination, int source) {
+        if (this.moveCnt == this.moveDestinations.length) {
+            this.moveDestinations = Arrays.copyOf(this.moveDestinations, 2 * this.moveCnt);
+            this.moveSources = Arrays.copyOf(this.moveSources, 2 * this.moveCnt);
+        }
+        this.moveDestinations[this.moveCnt] = destination;
+        this.moveSources[this.moveCnt] = source;
+
+        this.nodeMoves[destination] = append(this.nodeMoves[destination], this.nodeMoveCnt[destination]++, this.moveCnt);
+        this.nodeMoves[source] = append(this.nodeMoves[source], this.nodeMoveCnt[source]++, this.moveCnt);
+        this.moveCnt++;
+    }
+
+    private static int[] append(int[] array, int size, int value) {
+        if (array == null) {
+            array = new int[4];
+        }
+        else if (size == array.length) {
+            array = Arrays.copyOf(array, 2 * size);
+        }
+        array[size] = value;
+
+        return array;
+    }
+
+    // virtual registers live across every call site
+    public int[][] getLiveAcross() {
+        return this.liveAcross;
+    }
+
+    public void setCalleeSaved(boolean calleeSaved) {
+        this.calleeSaved = calleeSaved;
+    }
+
+    //  --- COLORING ---
+    // returns the register of every virtual register like the linear scan, SPILLED for the ones kept in the frame,
+    // at most 64 registers
+    public int[] allocate(int[] registers) {
+        this.initRun(registers.length);
+        this.makeWorklists();
+
+        while (true) {
+            if (!this.simplifyWorklist.isEmpty()) {
+                this.simplify();
+            }
+            else if (!this.moveWorklist.isEmpty()) {
+                this.coalesce();
+            }
+            else if (!this.freezeWorklist.isEmpty()) {
+                this.freeze();
+            }
+            else if (this.spillCnt > 0) {
+                this.selectSpill();
+            }
+            else {
+                break;
+            }
+        }
+
+        // bit per color
+        long calleeColors = 0;
+        for (int i = 0; this.calleeSaved && i < registers.length; i++) {
+            if ((ISA.CALLEE_SAVED_MASK & (1 << registers[i])) != 0) {
+                calleeColors |= 1L << i;
+            }
+        }
+        this.assignColors(calleeColors);
+
+        int[] assigned = new int[this.virtualCnt];
+        for (int i = 0; i < this.virtualCnt; i++) {
+            int node = this.getAlias(i);
+            assigned[i] = (this.state[node] == COLORED) ? registers[this.color[node]] : ASMLinearScan.SPILLED;
+        }
+
+        return assigned;
+    }
+
+    private void initRun(int colorCnt) {
+        this.colorCnt = colorCnt;
+        this.runEdges = new EdgeSet();
+        this.runAdjacency = new int[this.virtualCnt][];
+        this.runAdjacencyCnt = new int[this.virtualCnt];
+        this.runNodeMoves = new int[this.virtualCnt][];
+        this.runNodeMoveCnt = Arrays.copyOf(this.nodeMoveCnt, this.virtualCnt);
+        for (int i = 0; i < this.virtualCnt; i++) {
+            if (this.nodeMoves[i] != null) {
+                this.runNodeMoves[i] = Arrays.copyOf(this.nodeMoves[i], this.nodeMoves[i].length);
+            }
+        }
+
+        this.runCost = Arrays.copyOf(this.cost, this.virtualCnt);
+        this.degree = Arrays.copyOf(this.adjacencyCnt, this.virtualCnt);
+        this.state = new int[this.virtualCnt];
+        this.alias = new int[this.virtualCnt];
+        this.color = new int[this.virtualCnt];
+        this.moveState = new int[this.moveCnt];
+        this.simplifyWorklist = new IntStack();
+        this.freezeWorklist = new IntStack();
+        this.moveWorklist = new IntStack();
+        this.selectStack = new IntStack();
+        this.spillWorklist = new int[this.virtualCnt];
+        this.spillPosition = new int[this.virtualCnt];
+        this.spillCnt = 0;
+        this.mark = new int[this.virtualCnt];
+        this.markStamp = 0;
+
+        for (int i = 0; i < this.virtualCnt; i++) {
+            this.alias[i] = i;
+        }
+        for (int i = 0; i < this.moveCnt; i++) {
+            this.moveState[i] = MOVE_WORKLIST;
+            this.moveWorklist.push(i);
+        }
+    }
+
+    private void makeWorklists() {
+        for (int i = 0; i < this.virtualCnt; i++) {
+            if (!this.intervals.isUsed(i)) {
+                this.state[i] = UNUSED;
+            }
+            else if (this.degree[i] >= this.colorCnt) {
+                this.addSpillWorklist(i);
+            }
+            else if (this.isMoveRelated(i)) {
+                this.setState(i, FREEZE);
+            }
+            else {
+                this.setState(i, SIMPLIFY);
+            }
+        }
+    }
+
+    private void simplify() {
+        int node = this.simplifyWorklist.pop();
+        if (this.state[node] != SIMPLIFY) {
+            return;
+        }
+
+        this.state[node] = SELECTED;
+        this.selectStack.push(node);
+        for (int i = 0, count = this.getNeighbourCount(node); i < count; i++) {
+            int neighbour = this.getNeighbour(node, i);
+            if (this.isAdjacent(neighbour)) {
+                this.decrementDegree(neighbour);
+            }
+        }
+    }
+
+    private void decrementDegree(int node) {
+        int degree = this.degree[node]--;
+        if (degree != this.colorCnt) {
+            return;
+        }
+
+        this.enableMoves(node);
+        for (int i = 0, count = this.getNeighbourCount(node); i < count; i++) {
+            int neighbour = this.getNeighbour(node, i);
+            if (this.isAdjacent(neighbour)) {
+                this.enableMoves(neighbour);
+            }
+        }
+
+        if (this.state[node] == SPILL) {
+            this.removeSpillWorklist(node);
+            this.setState(node, this.isMoveRelated(node) ? FREEZE : SIMPLIFY);
+        }
+    }
+
+    private void enableMoves(int node) {
+        for (int i = 0; i < this.runNodeMoveCnt[node]; i++) {
+            int move = this.runNodeMoves[node][i];
+            if (this.moveState[move] == MOVE_ACTIVE) {
+                this.moveState[move] = MOVE_WORKLIST;
+                this.moveWorklist.push(move);
+            }
+        }
+    }
+
+    private void coalesce() {
+        int move = this.moveWorklist.pop();
+        if (this.moveState[move] != MOVE_WORKLIST) {
+            return;
+        }
+
+        int u = this.getAlias(this.moveDestinations[move]);
+        int v = this.getAlias(this.moveSources[move]);
+
+        if (u == v) {
+            this.moveState[move] = MOVE_DONE;
+            this.addWorklist(u);
+        }
+        else if (this.edges.contains(u, v) || this.runEdges.contains(u, v)) {
+            // constrained, the registers interfere
+            this.moveState[move] = MOVE_DONE;
+            this.addWorklist(u);
+            this.addWorklist(v);
+        }
+        else if (this.isConservative(u, v)) {
+            this.moveState[move] = MOVE_DONE;
+            this.combine(u, v);
+            this.addWorklist(u);
+        }
+        else {
+            this.moveState[move] = MOVE_ACTIVE;
+        }
+    }
+
+    private void addWorklist(int node) {
+        if (this.state[node] == FREEZE && !this.isMoveRelated(node) && this.degree[node] < this.colorCnt) {
+            this.setState(node, SIMPLIFY);
+        }
+    }
+
+    // Briggs, the combined node has less than K neighbours of a significant degree
+    private boolean isConservative(int u, int v) {
+        this.markStamp++;
+        int significant = 0;
+
+        for (int node : new int[] {u, v}) {
+            for (int i = 0, count = this.getNeighbourCount(node); i < count; i++) {
+                int neighbour = this.getNeighbour(node, i);
+                if (this.isAdjacent(neighbour) && this.mark[neighbour] != this.markStamp) {
+                    this.mark[neighbour] = this.markStamp;
+                    if (this.degree[neighbour] >= this.colorCnt) {
+                        significant++;
+                    }
+                }
+            }
+        }
+
+        return significant < this.colorCnt;
+    }
+
+    private void combine(int u, int v) {
+        if (this.state[v] == SPILL) {
+            this.removeSpillWorklist(v);
+        }
+        this.state[v] = COALESCED;
+        this.alias[v] = u;
+        this.runCost[u] += this.runCost[v];
+
+        for (int i = 0; i < this.runNodeMoveCnt[v]; i++) {
+            this.runNodeMoves[u] = append(this.runNodeMoves[u], this.runNodeMoveCnt[u]++, this.runNodeMoves[v][i]);
+        }
+        this.enableMoves(v);
+
+        for (int i = 0, count = this.getNeighbourCount(v); i < count; i++) {
+            int neighbour = this.getNeighbour(v, i);
+            if (this.isAdjacent(neighbour)) {
+                this.addEdge(neighbour, u);
+                this.decrementDegree(neighbour);
+            }
+        }
+
+        if (this.degree[u] >= this.colorCnt && this.state[u] == FREEZE) {
+            this.addSpillWorklist(u);
+        }
+    }
+
+    private void addEdge(int u, int v) {
+        if (u != v && !this.edges.contains(u, v) && this.runEdges.add(u, v)) {
+            this.runAdjacency[u] = append(this.runAdjacency[u], this.runAdjacencyCnt[u]++, v);
+            this.runAdjacency[v] = append(this.runAdjacency[v], this.runAdjacencyCnt[v]++, u);
+            this.degree[u]++;
+            this.degree[v]++;
+        }
+    }
+
+    private void freeze() {
+        int node = this.freezeWorklist.pop();
+        if (this.state[node] != FREEZE) {
+            return;
+        }
+
+        this.setState(node, SIMPLIFY);
+        this.freezeMoves(node);
+    }
+
+    private void freezeMoves(int u) {
+        for (int i = 0; i < this.runNodeMoveCnt[u]; i++) {
+            int move = this.runNodeMoves[u][i];
+            if (this.moveState[move] == MOVE_DONE) {
+                continue;
+            }
+
+            int x = this.getAlias(this.moveDestinations[move]);
+            int y = this.getAlias(this.moveSources[move]);
+            int v = (y == this.getAlias(u)) ? x : y;
+            this.moveState[move] = MOVE_DONE;
+
+            if (this.state[v] == FREEZE && !this.isMoveRelated(v) && this.degree[v] < this.colorCnt) {
+                this.setState(v, SIMPLIFY);
+            }
+        }
+    }
+
+    // the lowest cost per neighbour
+    private void selectSpill() {
+        int victim = -1;
+        double victimCost = Double.MAX_VALUE;
+
+        for (int i = 0; i < this.spillCnt; i++) {
+            int node = this.spillWorklist[i];
+            double cost = this.runCost[node] / this.degree[node];
+            if (cost < victimCost) {
+                victimCost = cost;
+                victim = node;
+            }
+        }
+
+        this.removeSpillWorklist(victim);
+        this.setState(victim, SIMPLIFY);
+        this.freezeMoves(victim);
+    }
+
+    private void assignColors(long calleeColors) {
+        long all = (this.colorCnt == 64) ? -1L : (1L << this.colorCnt) - 1;
+
+        boolean[] acrossCall = null;
+        if (calleeColors != 0) {
+            acrossCall = new boolean[this.virtualCnt];
+            for (int[] live : this.liveAcross) {
+                for (int virtual : live) {
+                    acrossCall[this.getAlias(virtual)] = true;
+                }
+            }
+        }
+
+        while (!this.selectStack.isEmpty()) {
+            int node = this.selectStack.pop();
+            long free = all;
+
+            for (int i = 0, count = this.getNeighbourCount(node); i < count; i++) {
+                int neighbour = this.getAlias(this.getNeighbour(node, i));
+                if (this.state[neighbour] == COLORED) {
+                    free &= ~(1L << this.color[neighbour]);
+                }
+            }
+
+            if (free == 0) {
+                this.state[node] = SPILLED;
+            }
+            else {
+                long preferred = free;
+                if (acrossCall != null) {
+                    preferred &= acrossCall[node] ? calleeColors : ~calleeColors;
+                }
+                this.state[node] = COLORED;
+                this.color[node] = Long.numberOfTrailingZeros((preferred != 0) ? preferred : free);
+            }
+        }
+    }
+
+    //  --- NODES ---
+    private void setState(int node, int state) {
+        this.state[node] = state;
+        if (state == SIMPLIFY) {
+            this.simplifyWorklist.push(node);
+        }
+        else if (state == FREEZE) {
+            this.freezeWorklist.push(node);
+        }
+    }
+
+    private void addSpillWorklist(int node) {
+        this.state[node] = SPILL;
+        this.spillPosition[node] = this.spillCnt;
+        this.spillWorklist[this.spillCnt++] = node;
+    }
+
+    private void removeSpillWorklist(int node) {
+        int last = this.spillWorklist[--this.spillCnt];
+        this.spillWorklist[this.spillPosition[node]] = last;
+        this.spillPosition[last] = this.spillPosition[node];
+    }
+
+    private int getNeighbourCount(int node) {
+        return this.adjacencyCnt[node] + this.runAdjacencyCnt[node];
+    }
+
+    private int getNeighbour(int node, int index) {
+        int built = this.adjacencyCnt[node];
+        return (index < built) ? this.adjacency[node][index] : this.runAdjacency[node][index - built];
+    }
+
+    // neighbours which are still in the graph
+    private boolean isAdjacent(int node) {
+        return this.state[node] != SELECTED && this.state[node] != COALESCED;
+    }
+
+    private boolean isMoveRelated(int node) {
+        for (int i = 0; i < this.runNodeMoveCnt[node]; i++) {
+            if (this.moveState[this.runNodeMoves[node][i]] != MOVE_DONE) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private int getAlias(int node) {
+        while (this.state[node] == COALESCED) {
+            node = this.alias[node];
+        }
+
+        return node;
+    }
+
+    //  --- SETS ---
+    // stack of the ints, the worklists keep the removed entries and skip them by the states when popped
+    private static class IntStack {
+        private int[] values = new int[16];
+        private int size = 0;
+
+        void push(int value) {
+            if (this.size == this.values.length) {
+                this.values = Arrays.copyOf(this.values, 2 * this.size);
+            }
+            this.values[this.size++] = value;
+        }
+
+        int pop() {
+            return this.values[--this.size];
+        }
+
+        boolean isEmpty() {
+            return this.size == 0;
+        }
+    }
+
+    // registers live at a position, they can be added, removed and listed in a constant time
+    private static class LiveSet {
+        private int[] members;
+        private int[] positions;
+        private int size = 0;
+
+        LiveSet(int capacity) {
+            this.members = new int[capacity];
+            this.positions = new int[capacity];
+            Arrays.fill(this.positions, -1);
+        }
+
+        void add(int value) {
+            if (this.positions[value] < 0) {
+                this.positions[value] = this.size;
+                this.members[this.size++] = value;
+            }
+        }
+
+        void remove(int value) {
+            int position = this.positions[value];
+            if (position >= 0) {
+                int last = this.members[--this.size];
+                this.members[position] = last;
+                this.positions[last] = position;
+                this.positions[value] = -1;
+            }
+        }
+
+        void clear() {
+            for (int i = 0; i < this.size; i++) {
+                this.positions[this.members[i]] = -1;
+            }
+            this.size = 0;
+        }
+
+        int size() {
+            return this.size;
+        }
+
+        int get(int index) {
+            return this.members[index];
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(this.members, this.size);
+        }
+    }
+
+    // edges of the graph packed as the pairs of the nodes, open addressing
+    private static class EdgeSet {
+        private static final long EMPTY = -1L;
+
+        private long[] keys = new long[64];
+        private int shift = 64 - 6;
+        private int size = 0;
+
+        EdgeSet() {
+            Arrays.fill(this.keys, EMPTY);
+        }
+
+        private static long key(int u, int v) {
+            return (u < v) ? ((long) u << 32) | v : ((long) v << 32) | u;
+        }
+
+        private int slot(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> this.shift);
+        }
+
+        boolean contains(int u, int v) {
+            long key = key(u, v);
+            for (int i = this.slot(key); ; i = (i + 1) & (this.keys.length - 1)) {
+                if (this.keys[i] == key) {
+                    return true;
+                }
+                if (this.keys[i] == EMPTY) {
+                    return false;
+                }
+            }
+        }
+
+        // returns false when the edge is already in the set
+        boolean add(int u, int v) {
+            if (2 * (this.size + 1) > this.keys.length) {
+                this.grow();
+            }
+
+            long key = key(u, v);
+            int i = this.slot(key);
+            while (this.keys[i] != EMPTY) {
+                if (this.keys[i] == key) {
+                    return false;
+                }
+                i = (i + 1) & (this.keys.length - 1);
+            }
+            this.keys[i] = key;
+            this.size++;
+
+            return true;
+        }
+
+        private void grow() {
+            long[] old = this.keys;
+            this.keys = new long[2 * old.length];
+            this.shift--;
+            Arrays.fill(this.keys, EMPTY);
+            for (long key : old) {
+                if (key != EMPTY) {
+                    int i = this.slot(key);
+                    while (this.keys[i] != EMPTY) {
+                        i = (i + 1) & (this.keys.length - 1);
+                    }
+                    this.keys[i] = key;
+                }
+            }
+        }
+    }
+}
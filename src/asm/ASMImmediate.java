@@ -16,6 +16,10 @@ public class ASMImmediate extends ASMOperand {
         this.value = value;
     }
 
+    public long getValue() {
+        return this.value;
+    }
+
     @Override
     public String getText() {
         String string = "0x" + Long.toString(this.value, 16);
@@ -27,4 +31,35 @@ public class ASMImmediate extends ASMOperand {
     public String getTextOperand() {
         return this.getText();
     }
+
+    @Override
+    public void appendText(StringBuilder builder) {
+        appendValue(builder, this.value);
+    }
+
+    public static void appendValue(StringBuilder builder, long value) {
+        builder.append("0x");
+        if (value < 0) {
+            builder.append('-');
+        }
+
+        // digits are appended from the lowest one and reversed, same format as Long.toString(value, 16)
+        int start = builder.length();
+        long rest = value;
+        do {
+            builder.append(Character.forDigit((int) Math.abs(rest % 16), 16));
+            rest /= 16;
+        } while (rest != 0);
+
+        for (int i = start, j = builder.length() - 1; i < j; i++, j--) {
+            char digit = builder.charAt(i);
+            builder.setCharAt(i, builder.charAt(j));
+            builder.setCharAt(j, digit);
+        }
+    }
+
+    @Override
+    public void appendTextOperand(StringBuilder builder) {
+        this.appendText(builder);
+    }
 }
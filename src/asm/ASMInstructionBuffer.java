@@ -0,0 +1,421 @@
+package asm;
+
+import util.ISA;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*************************************************************
+ * Filename: ASMInstructionBuffer.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// elements of the program packed in the primitive arrays, one index per element,
+// labels, comments, wide immediates and data are kept in the pools and referenced by their index
+public class ASMInstructionBuffer {
+    // element kinds
+    public static final int INSTRUCTION = 0;
+    public static final int LABEL = 1;
+    public static final int DIRECTIVE = 2;
+    public static final int DATA = 3;
+
+    // operand kinds, 4 bits per operand
+    public static final int NONE = 0;
+    public static final int REGISTER = 1;
+    public static final int IMMEDIATE = 2;
+    public static final int WIDE_IMMEDIATE = 3;
+    public static final int LABEL_NAME = 4;
+
+    public static final int MAX_OPERANDS = 3;
+    private static final int NO_COMMENT = -1;
+    private static final ISA.ASMOpCode[] OPCODES = ISA.ASMOpCode.values();
+
+    private int size = 0;
+    private int[] kinds = new int[64];
+    // opcode ordinal of the instruction, pool index of the label, directive or data
+    private int[] values = new int[64];
+    private int[] operandKinds = new int[64];
+    private int[] operands = new int[64 * MAX_OPERANDS];
+    private int[] comments = new int[64];
+
+    private List<String> labels = new ArrayList<>();
+    private Map<String, Integer> labelIndex = new HashMap<>();
+    private List<String> commentPool = new ArrayList<>();
+    private Map<String, Integer> commentIndex = new HashMap<>();
+    private long[] wideImmediates = new long[8];
+    private int wideImmediateCnt = 0;
+    private List<ASMData> data = new ArrayList<>();
+
+    //  --- ADDING ---
+    // operands are null from the first missing one
+    public void addInstruction(ISA.ASMOpCode opCode, ASMOperand op1, ASMOperand op2, ASMOperand op3,
+                               String comment) {
+        int index = this.newElement(INSTRUCTION, opCode.ordinal(), comment);
+        this.operandKinds[index] = this.addOperand(index, 0, op1) | (this.addOperand(index, 1, op2) << 4) |
+                (this.addOperand(index, 2, op3) << 8);
+    }
+
+    public void addLabel(String name, String comment) {
+        this.newElement(LABEL, this.internLabel(name), comment);
+    }
+
+    public void addDirective(String name) {
+        this.newElement(DIRECTIVE, this.internLabel(name), null);
+    }
+
+    public void addData(ASMData element) {
+        this.data.add(element);
+        this.newElement(DATA, this.data.size() - 1, null);
+    }
+
+    // copies the element under the cursor of any buffer, its pool indexes are translated to the pools of this buffer
+    public int addElement(Cursor cursor) {
+        ASMInstructionBuffer other = cursor.getBuffer();
+        int source = cursor.getIndex();
+        int kind = other.kinds[source];
+        int value = other.values[source];
+        if (kind == LABEL || kind == DIRECTIVE) {
+            value = this.internLabel(other.labels.get(value));
+        }
+        else if (kind == DATA) {
+            this.data.add(other.data.get(value));
+            value = this.data.size() - 1;
+        }
+
+        int comment = other.comments[source];
+        int index = this.newElement(kind, value, (comment == NO_COMMENT) ? null : other.commentPool.get(comment));
+        this.operandKinds[index] = other.operandKinds[source];
+
+        for (int j = 0; j < MAX_OPERANDS; j++) {
+            int operandKind = (other.operandKinds[source] >> (4 * j)) & 0xf;
+            int operand = other.operands[source * MAX_OPERANDS + j];
+            if (operandKind == LABEL_NAME) {
+                operand = this.internLabel(other.labels.get(operand));
+            }
+            else if (operandKind == WIDE_IMMEDIATE) {
+                operand = this.addWideImmediate(other.wideImmediates[operand]);
+            }
+            this.operands[index * MAX_OPERANDS + j] = operand;
+        }
+
+        return index;
+    }
+
+    // replaces the register operand of the element, e.g. the virtual register by the assigned one
+    public void setRegister(int index, int position, int register) {
+        this.operands[index * MAX_OPERANDS + position] = register;
+    }
+
+    // replaces the operand of the element by a small immediate, e.g. the offset of the spill slot
+    public void setImmediate(int index, int position, int value) {
+        this.operands[index * MAX_OPERANDS + position] = value;
+        int shift = 4 * position;
+        this.operandKinds[index] = (this.operandKinds[index] & ~(0xf << shift)) | (IMMEDIATE << shift);
+    }
+
+    private int newElement(int kind, int value, String comment) {
+        if (this.size == this.kinds.length) {
+            int capacity = 2 * this.size;
+            this.kinds = Arrays.copyOf(this.kinds, capacity);
+            this.values = Arrays.copyOf(this.values, capacity);
+            this.operandKinds = Arrays.copyOf(this.operandKinds, capacity);
+            this.operands = Arrays.copyOf(this.operands, capacity * MAX_OPERANDS);
+            this.comments = Arrays.copyOf(this.comments, capacity);
+        }
+
+        int index = this.size;
+        this.kinds[index] = kind;
+        this.values[index] = value;
+        this.operandKinds[index] = NONE;
+        this.comments[index] = this.internComment(comment);
+        this.size++;
+
+        return index;
+    }
+
+    private int addOperand(int index, int position, ASMOperand op) {
+        int slot = index * MAX_OPERANDS + position;
+
+        if (op == null) {
+            return NONE;
+        }
+        else if (op instanceof ASMRegister) {
+            this.operands[slot] = ((ASMRegister) op).getIndex();
+            return REGISTER;
+        }
+        else if (op instanceof ASMLabel) {
+            this.operands[slot] = this.internLabel(((ASMLabel) op).getName());
+            return LABEL_NAME;
+        }
+
+        long value = ((ASMImmediate) op).getValue();
+        if (value == (int) value) {
+            this.operands[slot] = (int) value;
+            return IMMEDIATE;
+        }
+
+        this.operands[slot] = this.addWideImmediate(value);
+        return WIDE_IMMEDIATE;
+    }
+
+    private int internLabel(String name) {
+        Integer index = this.labelIndex.get(name);
+        if (index == null) {
+            index = this.labels.size();
+            this.labels.add(name);
+            this.labelIndex.put(name, index);
+        }
+
+        return index;
+    }
+
+    private int internComment(String comment) {
+        if (comment == null || comment.equals("")) {
+            return NO_COMMENT;
+        }
+
+        Integer index = this.commentIndex.get(comment);
+        if (index == null) {
+            index = this.commentPool.size();
+            this.commentPool.add(comment);
+            this.commentIndex.put(comment, index);
+        }
+
+        return index;
+    }
+
+    private int addWideImmediate(long value) {
+        if (this.wideImmediateCnt == this.wideImmediates.length) {
+            this.wideImmediates = Arrays.copyOf(this.wideImmediates, 2 * this.wideImmediateCnt);
+        }
+        this.wideImmediates[this.wideImmediateCnt] = value;
+
+        return this.wideImmediateCnt++;
+    }
+
+    //  --- WHOLE BUFFER ---
+    public int size() {
+        return this.size;
+    }
+
+    // renames the labels at once, so the new names may be the old names of the others
+    public void renameLabels(Map<String, String> names) {
+        for (int i = 0; i < this.labels.size(); i++) {
+            String name = names.get(this.labels.get(i));
+            if (name != null) {
+                this.labels.set(i, name);
+            }
+        }
+
+        this.labelIndex.clear();
+        for (int i = 0; i < this.labels.size(); i++) {
+            this.labelIndex.put(this.labels.get(i), i);
+        }
+    }
+
+    // appends the elements of the other buffer, its pool indexes are translated to the pools of this buffer
+    public void append(ASMInstructionBuffer other) {
+        int[] labelMap = new int[other.labels.size()];
+        for (int i = 0; i < labelMap.length; i++) {
+            labelMap[i] = this.internLabel(other.labels.get(i));
+        }
+
+        for (int i = 0; i < other.size; i++) {
+            int kind = other.kinds[i];
+            int value = other.values[i];
+            if (kind == LABEL || kind == DIRECTIVE) {
+                value = labelMap[value];
+            }
+            else if (kind == DATA) {
+                this.data.add(other.data.get(value));
+                value = this.data.size() - 1;
+            }
+
+            int comment = other.comments[i];
+            int index = this.newElement(kind, value, (comment == NO_COMMENT) ? null : other.commentPool.get(comment));
+            this.operandKinds[index] = other.operandKinds[i];
+
+            for (int j = 0; j < MAX_OPERANDS; j++) {
+                int operandKind = (other.operandKinds[i] >> (4 * j)) & 0xf;
+                int operand = other.operands[i * MAX_OPERANDS + j];
+                if (operandKind == LABEL_NAME) {
+                    operand = labelMap[operand];
+                }
+                else if (operandKind == WIDE_IMMEDIATE) {
+                    operand = this.addWideImmediate(other.wideImmediates[operand]);
+                }
+                this.operands[index * MAX_OPERANDS + j] = operand;
+            }
+        }
+    }
+
+    // drops the elements from the index, the pools are kept
+    public void truncate(int size) {
+        this.size = size;
+    }
+
+    // the arrays are kept for the next elements
+    public void clear() {
+        this.size = 0;
+        this.labels.clear();
+        this.labelIndex.clear();
+        this.commentPool.clear();
+        this.commentIndex.clear();
+        this.wideImmediateCnt = 0;
+        this.data.clear();
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    // the first call of next moves the cursor to the element at the index
+    public Cursor cursor(int index) {
+        Cursor cursor = new Cursor();
+        cursor.index = index - 1;
+
+        return cursor;
+    }
+
+    //  --- ITERATION ---
+    // reads the elements in order without allocating, next has to be called before the first element
+    public class Cursor {
+        private int index = -1;
+
+        public boolean next() {
+            this.index++;
+            return this.index < ASMInstructionBuffer.this.size;
+        }
+
+        public int getIndex() {
+            return this.index;
+        }
+
+        // moves the cursor to the element at the index, e.g. to read the elements backwards
+        public void moveTo(int index) {
+            this.index = index;
+        }
+
+        private ASMInstructionBuffer getBuffer() {
+            return ASMInstructionBuffer.this;
+        }
+
+        public int getKind() {
+            return kinds[this.index];
+        }
+
+        public ISA.ASMOpCode getOpCode() {
+            return OPCODES[values[this.index]];
+        }
+
+        // name of the label or the directive
+        public String getName() {
+            return labels.get(values[this.index]);
+        }
+
+        public ASMData getData() {
+            return data.get(values[this.index]);
+        }
+
+        public int getOperandCount() {
+            int count = 0;
+            while (count < MAX_OPERANDS && this.getOperandKind(count) != NONE) {
+                count++;
+            }
+
+            return count;
+        }
+
+        public int getOperandKind(int position) {
+            return (operandKinds[this.index] >> (4 * position)) & 0xf;
+        }
+
+        public int getRegister(int position) {
+            return operands[this.index * MAX_OPERANDS + position];
+        }
+
+        public long getImmediate(int position) {
+            int operand = operands[this.index * MAX_OPERANDS + position];
+            if (this.getOperandKind(position) == WIDE_IMMEDIATE) {
+                return wideImmediates[operand];
+            }
+
+            return operand;
+        }
+
+        public String getLabel(int position) {
+            return labels.get(operands[this.index * MAX_OPERANDS + position]);
+        }
+
+        public String getComment() {
+            int comment = comments[this.index];
+            return (comment == NO_COMMENT) ? "" : commentPool.get(comment);
+        }
+
+        // same text as the elements of the assembly had
+        public void appendText(StringBuilder builder) {
+            switch (this.getKind()) {
+                case INSTRUCTION:
+                    this.appendInstruction(builder);
+                    break;
+                case LABEL:
+                    builder.append(this.getName()).append(':');
+                    break;
+                case DIRECTIVE:
+                    builder.append(this.getName());
+                    break;
+                default:
+                    this.getData().appendText(builder);
+            }
+
+            if (comments[this.index] != NO_COMMENT) {
+                builder.append("\t\t//").append(this.getComment());
+            }
+        }
+
+        private void appendInstruction(StringBuilder builder) {
+            ISA.ASMOpCode opCode = this.getOpCode();
+            builder.append("  ").append(ISA.ASMOpDetailMap.get(opCode).getText());
+
+            if (opCode == ISA.ASMOpCode.SW || opCode == ISA.ASMOpCode.LW ||
+                    opCode == ISA.ASMOpCode.SB || opCode == ISA.ASMOpCode.LBU) {
+                builder.append(' ');
+                this.appendOperand(builder, 0);
+                builder.append(", ");
+                this.appendOperand(builder, 1);
+                builder.append('(');
+                this.appendOperand(builder, 2);
+                builder.append(')');
+                return;
+            }
+
+            for (int i = 0, count = this.getOperandCount(); i < count; i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                builder.append(' ');
+                this.appendOperand(builder, i);
+            }
+        }
+
+        private void appendOperand(StringBuilder builder, int position) {
+            switch (this.getOperandKind(position)) {
+                case REGISTER:
+                    ASMRegister.appendName(builder, this.getRegister(position));
+                    break;
+                case LABEL_NAME:
+                    builder.append(this.getLabel(position));
+                    break;
+                default:
+                    ASMImmediate.appendValue(builder, this.getImmediate(position));
+            }
+        }
+    }
+}
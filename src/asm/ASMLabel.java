@@ -32,6 +32,23 @@ public class ASMLabel extends ASMOperand {
         this.hasColon = true;
     }
 
+    public String getName() {
+        return this.name;
+    }
+
+    public String getComment() {
+        return this.comment;
+    }
+
+    // directives are the labels without the colon
+    public boolean isDirective() {
+        return !this.hasColon;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
     public void addComment(String comment) {
         this.comment = comment;
     }
@@ -54,4 +71,21 @@ public class ASMLabel extends ASMOperand {
     public String getTextOperand() {
         return (this.name);
     }
+
+    @Override
+    public void appendText(StringBuilder builder) {
+        builder.append(this.name);
+        if (this.hasColon) {
+            builder.append(':');
+        }
+
+        if(!this.comment.equals("")) {
+            builder.append("\t\t//").append(this.comment);
+        }
+    }
+
+    @Override
+    public void appendTextOperand(StringBuilder builder) {
+        builder.append(this.name);
+    }
 }
@@ -0,0 +1,148 @@
+package asm;
+
+import util.ISA;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/*************************************************************
+ * Filename: ASMLinearScan.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// assigns the registers to the live intervals in the order of their starts, when no register is free
+// the interval whose next occurrence is the furthest away is spilled as a whole
+public class ASMLinearScan {
+    public static final int SPILLED = -1;
+
+    private ASMLiveIntervals intervals;
+    // intervals which are live across a call site, null when the registers are not preferred
+    private boolean[] acrossCall;
+
+    public ASMLinearScan(ASMLiveIntervals intervals) {
+        this.intervals = intervals;
+    }
+
+    // intervals live across the call sites get the callee saved registers first and the other ones the caller
+    // saved registers, an interval is live across a call site if it starts before it is saved and ends after
+    // it is restored like in the rewriter
+    public void preferCalleeSaved(List<int[]> callSites, int start) {
+        int[] saves = new int[callSites.size()];
+        for (int i = 0; i < saves.length; i++) {
+            saves[i] = callSites.get(i)[0] - start;
+        }
+
+        this.acrossCall = new boolean[this.intervals.getVirtualCount()];
+        for (int i = 0; i < this.acrossCall.length; i++) {
+            if (!this.intervals.isUsed(i)) {
+                continue;
+            }
+
+            // call sites do not nest, so only the first one saved after the start can be restored before the end
+            int index = Arrays.binarySearch(saves, this.intervals.getStart(i) + 1);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            this.acrossCall[i] = index < saves.length &&
+                    callSites.get(index)[1] - start <= this.intervals.getEnd(i);
+        }
+    }
+
+    // returns the register of every virtual register, SPILLED for the ones kept in the frame,
+    // unused virtual registers are SPILLED too
+    public int[] allocate(int[] registers) {
+        int virtualCnt = this.intervals.getVirtualCount();
+        int[] assigned = new int[virtualCnt];
+        Arrays.fill(assigned, SPILLED);
+
+        // intervals ordered by the start, packed with the index of the virtual register
+        long[] order = new long[virtualCnt];
+        int orderCnt = 0;
+        for (int i = 0; i < virtualCnt; i++) {
+            if (this.intervals.isUsed(i)) {
+                order[orderCnt++] = ((long) this.intervals.getStart(i) << 32) | i;
+            }
+        }
+        Arrays.sort(order, 0, orderCnt);
+
+        // active intervals ordered by the end
+        TreeSet<Long> active = new TreeSet<>();
+        // bit per index of the registers
+        long free = (registers.length == 64) ? -1L : (1L << registers.length) - 1;
+        long calleeSaved = 0;
+        for (int i = 0; i < registers.length; i++) {
+            if ((ISA.CALLEE_SAVED_MASK & (1 << registers[i])) != 0) {
+                calleeSaved |= 1L << i;
+            }
+        }
+
+        for (int i = 0; i < orderCnt; i++) {
+            int virtual = (int) order[i];
+            int start = this.intervals.getStart(virtual);
+
+            // registers of the intervals which ended before are free
+            while (!active.isEmpty() && (int) (active.first() >> 32) < start) {
+                int expired = (int) (long) active.pollFirst();
+                free |= 1L << assigned[expired];
+            }
+
+            if (free != 0) {
+                long preferred = free;
+                if (this.acrossCall != null) {
+                    preferred &= this.acrossCall[virtual] ? calleeSaved : ~calleeSaved;
+                }
+                assigned[virtual] = Long.numberOfTrailingZeros((preferred != 0) ? preferred : free);
+                free &= ~(1L << assigned[virtual]);
+                active.add(this.getKey(virtual));
+                continue;
+            }
+
+            // the furthest next occurrence, the current interval is kept spilled on a tie
+            int victim = virtual;
+            int furthest = this.intervals.getNextOccurrence(virtual, start);
+            for (long key : active) {
+                int candidate = (int) key;
+                int next = this.intervals.getNextOccurrence(candidate, start);
+                if (next > furthest) {
+                    furthest = next;
+                    victim = candidate;
+                }
+            }
+
+            if (victim != virtual) {
+                assigned[virtual] = assigned[victim];
+                assigned[victim] = SPILLED;
+                active.remove(this.getKey(victim));
+                active.add(this.getKey(virtual));
+            }
+        }
+
+        // indexes to the registers
+        for (int i = 0; i < virtualCnt; i++) {
+            if (assigned[i] != SPILLED) {
+                assigned[i] = registers[assigned[i]];
+            }
+        }
+
+        return assigned;
+    }
+
+    private long getKey(int virtual) {
+        return ((long) this.intervals.getEnd(virtual) << 32) | virtual;
+    }
+
+    public static boolean hasSpills(int[] assigned, ASMLiveIntervals intervals) {
+        for (int i = 0; i < assigned.length; i++) {
+            if (assigned[i] == SPILLED && intervals.isUsed(i)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,453 @@
+package asm;
+
+import util.ISA;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/*************************************************************
+ * Filename: ASMLiveIntervals.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// live intervals of the virtual registers of one function, positions are the elements from the start of the function,
+// the liveness of the registers used by more basic blocks is propagated back over the control flow graph,
+// an interval spans from the first to the last position where the register is live, holes are not tracked
+public class ASMLiveIntervals {
+    // roles of a register operand
+    public static final int USE = 1;
+    public static final int DEF = 2;
+
+    private ASMInstructionBuffer code;
+    private int start;
+    private int size;
+    private int virtualCnt;
+
+    // relative positions, the start is -1 for the unused registers
+    private int[] intervalStart;
+    private int[] intervalEnd;
+    // positions of the occurrences, the ones of the register v are from occurrenceIndex[v] to occurrenceEnd[v]
+    private int[] occurrenceIndex;
+    private int[] occurrenceEnd;
+    private int[] occurrences;
+
+    // basic blocks by their first position, the last one ends at the end of the function
+    private int[] blockStart;
+    private int blockCnt = 0;
+    // number of the loops around the blocks, the loops are found by the branches back
+    private int[] blockDepth;
+    // predecessors of the block b are from predecessorIndex[b] to predecessorIndex[b + 1]
+    private int[] predecessorIndex;
+    private int[] predecessors;
+
+    // registers live out of the blocks, the ones of the block b are from liveOutIndex[b] to liveOutIndex[b + 1],
+    // kept only when they are requested
+    private boolean keepLiveOut;
+    private int[] liveOutIndex;
+    private int[] liveOut;
+
+    public ASMLiveIntervals(ASMInstructionBuffer code, int start, int virtualCnt) {
+        this(code, start, virtualCnt, false);
+    }
+
+    public ASMLiveIntervals(ASMInstructionBuffer code, int start, int virtualCnt, boolean keepLiveOut) {
+        this.code = code;
+        this.keepLiveOut = keepLiveOut;
+        this.start = start;
+        this.size = code.size() - start;
+        this.virtualCnt = virtualCnt;
+
+        this.intervalStart = new int[virtualCnt];
+        this.intervalEnd = new int[virtualCnt];
+        Arrays.fill(this.intervalStart, -1);
+        Arrays.fill(this.intervalEnd, -1);
+
+        this.findOccurrences();
+        this.computeLiveness();
+    }
+
+    // role of the register operand at the position
+    public static int getRole(ISA.ASMOpCode opCode, int position) {
+        switch (opCode) {
+            // register is incremented by the immediate
+            case ADDU:
+            case SUBU:
+                return USE | DEF;
+            // destination is kept when the condition is not zero
+            case MOVZ:
+                return (position == 0) ? USE | DEF : USE;
+            // length of the read string
+            case READ_STRING:
+                return (position == 1) ? DEF : USE;
+            case SW:
+            case SB:
+            case DIV:
+            case BEQ:
+            case BNE:
+            case BGTZ:
+            case BLTZ:
+            case JR:
+            case PRINT_CHAR:
+            case PRINT_INT:
+            case PRINT_STRING:
+                return USE;
+            default:
+                return (position == 0) ? DEF : USE;
+        }
+    }
+
+    private static boolean isBranch(ISA.ASMOpCode opCode) {
+        return opCode == ISA.ASMOpCode.BEQ || opCode == ISA.ASMOpCode.BNE || opCode == ISA.ASMOpCode.BGTZ ||
+                opCode == ISA.ASMOpCode.BLTZ || opCode == ISA.ASMOpCode.J;
+    }
+
+    private static boolean endsBlock(ISA.ASMOpCode opCode) {
+        return isBranch(opCode) || opCode == ISA.ASMOpCode.JR || opCode == ISA.ASMOpCode.BREAK;
+    }
+
+    //  --- OCCURRENCES ---
+    private void findOccurrences() {
+        int[] counts = new int[this.virtualCnt + 1];
+        this.blockStart = new int[16];
+        boolean blockEnded = true;
+
+        ASMInstructionBuffer.Cursor cursor = this.code.cursor(this.start);
+        while (cursor.next()) {
+            int position = cursor.getIndex() - this.start;
+
+            if (blockEnded || cursor.getKind() == ASMInstructionBuffer.LABEL) {
+                this.addBlock(position);
+                blockEnded = false;
+            }
+            if (cursor.getKind() != ASMInstructionBuffer.INSTRUCTION) {
+                continue;
+            }
+
+            for (int i = 0, count = cursor.getOperandCount(); i < count; i++) {
+                int virtual = this.getVirtual(cursor, i);
+                if (virtual >= 0) {
+                    counts[virtual + 1]++;
+                }
+            }
+            blockEnded = endsBlock(cursor.getOpCode());
+        }
+
+        // occurrences are filled in the order of the positions
+        for (int i = 0; i < this.virtualCnt; i++) {
+            counts[i + 1] += counts[i];
+        }
+        this.occurrenceIndex = Arrays.copyOf(counts, counts.length);
+        this.occurrences = new int[counts[this.virtualCnt]];
+
+        cursor = this.code.cursor(this.start);
+        while (cursor.next()) {
+            if (cursor.getKind() != ASMInstructionBuffer.INSTRUCTION) {
+                continue;
+            }
+
+            int position = cursor.getIndex() - this.start;
+            for (int i = 0, count = cursor.getOperandCount(); i < count; i++) {
+                int virtual = this.getVirtual(cursor, i);
+                // register used twice by one instruction occurs once
+                if (virtual >= 0 && (counts[virtual] == this.occurrenceIndex[virtual] ||
+                        this.occurrences[counts[virtual] - 1] != position)) {
+                    this.occurrences[counts[virtual]++] = position;
+                }
+
+                if (virtual >= 0) {
+                    if (this.intervalStart[virtual] == -1) {
+                        this.intervalStart[virtual] = position;
+                    }
+                    this.intervalEnd[virtual] = position;
+                }
+            }
+        }
+
+        // a register used twice by one instruction leaves a gap at the end of its list
+        this.occurrenceEnd = counts;
+    }
+
+    private void addBlock(int position) {
+        if (this.blockCnt == this.blockStart.length) {
+            this.blockStart = Arrays.copyOf(this.blockStart, 2 * this.blockCnt);
+        }
+        this.blockStart[this.blockCnt++] = position;
+    }
+
+    // index of the virtual register of the operand, -1 for the other operands
+    private int getVirtual(ASMInstructionBuffer.Cursor cursor, int position) {
+        if (cursor.getOperandKind(position) != ASMInstructionBuffer.REGISTER) {
+            return -1;
+        }
+
+        int register = cursor.getRegister(position);
+        return (register >= ISA.REGCNT) ? register - ISA.REGCNT : -1;
+    }
+
+    //  --- LIVENESS ---
+    public int getBlockCount() {
+        return this.blockCnt;
+    }
+
+    public int getBlockStart(int block) {
+        return this.blockStart[block];
+    }
+
+    public int getBlockEnd(int block) {
+        return (block + 1 < this.blockCnt) ? this.blockStart[block + 1] - 1 : this.size - 1;
+    }
+
+    private void computeLiveness() {
+        // only the registers which are used by more blocks or used before their definition need the liveness
+        boolean[] global = new boolean[this.virtualCnt];
+        int[] firstBlock = new int[this.virtualCnt];
+        Arrays.fill(firstBlock, -1);
+
+        // blocks where the registers are used before they are defined and blocks where they are defined,
+        // packed as pairs of the register and the block
+        int[] genVirtuals = new int[this.occurrences.length];
+        int[] genBlocks = new int[this.occurrences.length];
+        int[] killVirtuals = new int[this.occurrences.length];
+        int[] killBlocks = new int[this.occurrences.length];
+        int genCnt = 0;
+        int killCnt = 0;
+        int[] lastGen = new int[this.virtualCnt];
+        int[] lastKill = new int[this.virtualCnt];
+        Arrays.fill(lastGen, -1);
+        Arrays.fill(lastKill, -1);
+
+        Map<String, Integer> labelBlocks = new HashMap<>();
+        String[] targets = new String[this.blockCnt];
+        ISA.ASMOpCode[] lastOpCodes = new ISA.ASMOpCode[this.blockCnt];
+
+        int block = -1;
+        ASMInstructionBuffer.Cursor cursor = this.code.cursor(this.start);
+        while (cursor.next()) {
+            int position = cursor.getIndex() - this.start;
+            while (block + 1 < this.blockCnt && this.blockStart[block + 1] == position) {
+                block++;
+            }
+
+            if (cursor.getKind() == ASMInstructionBuffer.LABEL) {
+                labelBlocks.put(cursor.getName(), block);
+            }
+            if (cursor.getKind() != ASMInstructionBuffer.INSTRUCTION) {
+                continue;
+            }
+
+            ISA.ASMOpCode opCode = cursor.getOpCode();
+            int count = cursor.getOperandCount();
+            lastOpCodes[block] = opCode;
+            if (isBranch(opCode)) {
+                targets[block] = cursor.getLabel(count - 1);
+            }
+
+            // operands are read before the results are written
+            for (int i = 0; i < count; i++) {
+                int virtual = this.getVirtual(cursor, i);
+                if (virtual < 0) {
+                    continue;
+                }
+
+                boolean use = (getRole(opCode, i) & USE) != 0;
+                if (firstBlock[virtual] == -1) {
+                    firstBlock[virtual] = block;
+                    global[virtual] |= use;
+                }
+                else if (firstBlock[virtual] != block) {
+                    global[virtual] = true;
+                }
+
+                if (use && lastKill[virtual] != block && lastGen[virtual] != block) {
+                    lastGen[virtual] = block;
+                    genVirtuals[genCnt] = virtual;
+                    genBlocks[genCnt++] = block;
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                int virtual = this.getVirtual(cursor, i);
+                if (virtual >= 0 && (getRole(opCode, i) & DEF) != 0 && lastKill[virtual] != block) {
+                    lastKill[virtual] = block;
+                    killVirtuals[killCnt] = virtual;
+                    killBlocks[killCnt++] = block;
+                }
+            }
+        }
+
+        // predecessors of the blocks
+        int[] edgeTargets = new int[2 * this.blockCnt];
+        int[] edgeSources = new int[2 * this.blockCnt];
+        int edgeCnt = 0;
+        for (int i = 0; i < this.blockCnt; i++) {
+            ISA.ASMOpCode opCode = lastOpCodes[i];
+            int next = (i + 1 < this.blockCnt) ? i + 1 : -1;
+            int target = (targets[i] != null && labelBlocks.containsKey(targets[i])) ? labelBlocks.get(targets[i]) : -1;
+
+            if (opCode == ISA.ASMOpCode.J || (opCode != null && isBranch(opCode))) {
+                if (target >= 0) {
+                    edgeTargets[edgeCnt] = target;
+                    edgeSources[edgeCnt++] = i;
+                }
+            }
+            if (opCode != ISA.ASMOpCode.J && opCode != ISA.ASMOpCode.JR && opCode != ISA.ASMOpCode.BREAK && next >= 0) {
+                edgeTargets[edgeCnt] = next;
+                edgeSources[edgeCnt++] = i;
+            }
+        }
+
+        // blocks between the target and the source of a branch back are in the loop
+        this.blockDepth = new int[this.blockCnt + 1];
+        for (int i = 0; i < edgeCnt; i++) {
+            if (edgeTargets[i] <= edgeSources[i]) {
+                this.blockDepth[edgeTargets[i]]++;
+                this.blockDepth[edgeSources[i] + 1]--;
+            }
+        }
+        for (int i = 0; i < this.blockCnt; i++) {
+            this.blockDepth[i + 1] += this.blockDepth[i];
+        }
+
+        this.predecessorIndex = new int[this.blockCnt + 1];
+        this.predecessors = bucket(edgeTargets, edgeSources, edgeCnt, this.blockCnt, this.predecessorIndex);
+        int[] genIndex = new int[this.virtualCnt + 1];
+        genBlocks = bucket(genVirtuals, genBlocks, genCnt, this.virtualCnt, genIndex);
+        int[] killIndex = new int[this.virtualCnt + 1];
+        killBlocks = bucket(killVirtuals, killBlocks, killCnt, this.virtualCnt, killIndex);
+
+        // pairs of the blocks and the registers live out of them
+        int[] outBlocks = new int[this.keepLiveOut ? 16 : 0];
+        int[] outVirtuals = new int[outBlocks.length];
+        int outCnt = 0;
+        int[] out = new int[this.blockCnt];
+        Arrays.fill(out, -1);
+
+        // every register is live from the blocks where it is used back to the blocks where it is defined,
+        // the intervals cover the starts of the blocks where it is live in and the ends where it is live out
+        int[] live = new int[this.blockCnt];
+        int[] killed = new int[this.blockCnt];
+        int[] work = new int[this.blockCnt];
+        Arrays.fill(live, -1);
+        Arrays.fill(killed, -1);
+
+        for (int virtual = 0; virtual < this.virtualCnt; virtual++) {
+            if (!global[virtual]) {
+                continue;
+            }
+
+            for (int i = killIndex[virtual]; i < killIndex[virtual + 1]; i++) {
+                killed[killBlocks[i]] = virtual;
+            }
+
+            int workCnt = 0;
+            for (int i = genIndex[virtual]; i < genIndex[virtual + 1]; i++) {
+                live[genBlocks[i]] = virtual;
+                work[workCnt++] = genBlocks[i];
+            }
+
+            while (workCnt > 0) {
+                block = work[--workCnt];
+                this.extend(virtual, this.blockStart[block]);
+
+                for (int i = this.predecessorIndex[block]; i < this.predecessorIndex[block + 1]; i++) {
+                    int predecessor = this.predecessors[i];
+                    this.extend(virtual, this.getBlockEnd(predecessor));
+                    if (this.keepLiveOut && out[predecessor] != virtual) {
+                        out[predecessor] = virtual;
+                        if (outCnt == outBlocks.length) {
+                            outBlocks = Arrays.copyOf(outBlocks, 2 * outCnt);
+                            outVirtuals = Arrays.copyOf(outVirtuals, 2 * outCnt);
+                        }
+                        outBlocks[outCnt] = predecessor;
+                        outVirtuals[outCnt++] = virtual;
+                    }
+                    if (killed[predecessor] != virtual && live[predecessor] != virtual) {
+                        live[predecessor] = virtual;
+                        work[workCnt++] = predecessor;
+                    }
+                }
+            }
+        }
+
+        if (this.keepLiveOut) {
+            this.liveOutIndex = new int[this.blockCnt + 1];
+            this.liveOut = bucket(outBlocks, outVirtuals, outCnt, this.blockCnt, this.liveOutIndex);
+        }
+    }
+
+    // values grouped by their keys, index[k] is the first value of the key k and index[keyCnt] is the count
+    private static int[] bucket(int[] keys, int[] values, int count, int keyCnt, int[] index) {
+        for (int i = 0; i < count; i++) {
+            index[keys[i] + 1]++;
+        }
+        for (int i = 0; i < keyCnt; i++) {
+            index[i + 1] += index[i];
+        }
+
+        int[] next = Arrays.copyOf(index, keyCnt);
+        int[] grouped = new int[count];
+        for (int i = 0; i < count; i++) {
+            grouped[next[keys[i]]++] = values[i];
+        }
+
+        return grouped;
+    }
+
+    public int[] getPredecessors(int block) {
+        return Arrays.copyOfRange(this.predecessors, this.predecessorIndex[block], this.predecessorIndex[block + 1]);
+    }
+
+    public int getLoopDepth(int block) {
+        return this.blockDepth[block];
+    }
+
+    // registers used by more blocks which are live at the end of the block
+    public int[] getLiveOut(int block) {
+        return Arrays.copyOfRange(this.liveOut, this.liveOutIndex[block], this.liveOutIndex[block + 1]);
+    }
+
+    private void extend(int virtual, int position) {
+        if (this.intervalStart[virtual] == -1 || position < this.intervalStart[virtual]) {
+            this.intervalStart[virtual] = position;
+        }
+        if (position > this.intervalEnd[virtual]) {
+            this.intervalEnd[virtual] = position;
+        }
+    }
+
+    //  --- INTERVALS ---
+    public int getVirtualCount() {
+        return this.virtualCnt;
+    }
+
+    public boolean isUsed(int virtual) {
+        return this.intervalStart[virtual] >= 0;
+    }
+
+    public int getStart(int virtual) {
+        return this.intervalStart[virtual];
+    }
+
+    public int getEnd(int virtual) {
+        return this.intervalEnd[virtual];
+    }
+
+    // first occurrence at the position or after it, the end of the interval when there is none
+    public int getNextOccurrence(int virtual, int position) {
+        int index = Arrays.binarySearch(this.occurrences, this.occurrenceIndex[virtual], this.occurrenceEnd[virtual],
+                position);
+        if (index < 0) {
+            index = -index - 1;
+        }
+
+        return (index < this.occurrenceEnd[virtual]) ? this.occurrences[index] : this.intervalEnd[virtual];
+    }
+
+    public int getOccurrenceCount(int virtual) {
+        return this.occurrenceEnd[virtual] - this.occurrenceIndex[virtual];
+    }
+}
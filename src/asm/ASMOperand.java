@@ -11,4 +11,8 @@ package asm;
 
 public abstract class ASMOperand extends ASMElement {
     abstract public String getTextOperand();
+
+    public void appendTextOperand(StringBuilder builder) {
+        builder.append(this.getTextOperand());
+    }
 }
@@ -1,15 +1,23 @@
 package asm;
 
+import exceptions.InternalException;
+import exceptions.OutputException;
+import org.antlr.v4.runtime.tree.ParseTree;
 import tables.Function;
 import tables.FunctionTable;
 import util.Constant;
 import util.ISA;
+import util.Statistics;
 import values.Value;
 
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /*************************************************************
  * Filename: ASMProgram.java
@@ -21,22 +29,92 @@ import java.util.List;
  *************************************************************/
 
 public class ASMProgram {
-    private ArrayList<ASMElement> program = new ArrayList<>();
+    // memory map of the simulator, the code and the data from 0, the heap from $GP up and the stack from $SP down
+    public static final int HEAP_BEGIN = 0x1000;
+    public static final int STACK_TOP = 0x4000;
+
+    // packed elements of the program, they are emitted and cleared when streaming
+    private ASMInstructionBuffer program = new ASMInstructionBuffer();
     private ArrayList<ASMData> data = new ArrayList<>();
 
     private FunctionTable functionTable;
+    private Statistics statistics;
     private String curFunction = new String();
+    private Function curFunctionEntry;
 
     private int labelIndex = 0;
     private int stringIndex = 0;
     private String file;
+    // code is written as soon as it is complete when streaming, otherwise it is kept until printToFile
+    private ASMEmitter emitter;
+    // register allocator calls of the lowered functions, kept only when recording
+    private List<ASMAllocatorTrace> allocatorTraces;
+    private ASMRegisterAllocator.Strategy allocatorStrategy = ASMRegisterAllocator.Strategy.LRU;
+    // registers of the callee saved class are saved by the functions instead of their call sites
+    private boolean calleeSaved = false;
+    // functions are lowered through the IR instead of directly from the parse tree
+    private boolean intermediate = false;
+    // IR is optimized in the SSA form by the sparse conditional constant propagation
+    private boolean constantPropagation = false;
+    // text of the IR of the lowered functions, kept only when it is dumped
+    private StringBuilder intermediateDump;
 
     public ASMProgram(String file, FunctionTable functionTable) {
+        this(file, functionTable, new Statistics());
+    }
+
+    public ASMProgram(String file, FunctionTable functionTable, Statistics statistics) {
         this.file = file;
         this.functionTable = functionTable;
+        this.statistics = statistics;
         this.generateStartup();
     }
 
+    // fragment of the program, it has no startup and it is merged by append
+    private ASMProgram(FunctionTable functionTable, Statistics statistics) {
+        this.functionTable = functionTable;
+        this.statistics = statistics;
+    }
+
+    // functions are lowered into separate fragments, so they can be lowered concurrently
+    public ASMProgram newFragment() {
+        ASMProgram fragment = new ASMProgram(this.functionTable, new Statistics());
+        fragment.allocatorStrategy = this.allocatorStrategy;
+        fragment.calleeSaved = this.calleeSaved;
+        fragment.intermediate = this.intermediate;
+        fragment.constantPropagation = this.constantPropagation;
+        if (this.intermediateDump != null) {
+            fragment.intermediateDump = new StringBuilder();
+        }
+        if (this.allocatorTraces != null) {
+            fragment.recordAllocatorTraces();
+        }
+
+        return fragment;
+    }
+
+    // fragments have to be appended in the source order, string labels are renumbered to the order of this program
+    public void append(ASMProgram fragment) {
+        Map<String, String> names = new HashMap<>();
+        for (ASMData string : fragment.data) {
+            String name = this.getStringLabelName();
+            names.put(string.getName().getName(), name);
+            string.getName().setName(name);
+        }
+
+        fragment.program.renameLabels(names);
+        this.program.append(fragment.program);
+        this.data.addAll(fragment.data);
+        this.statistics.merge(fragment.statistics);
+        if (this.allocatorTraces != null) {
+            this.allocatorTraces.addAll(fragment.allocatorTraces);
+        }
+        if (this.intermediateDump != null) {
+            this.intermediateDump.append(fragment.intermediateDump);
+        }
+        this.flush();
+    }
+
     private void generateStartup() {
         // program should be independent on register allocator
         ASMRegister regStackPtr = new ASMRegister(ISA.Register.STACK_PTR);
@@ -45,8 +123,8 @@ public class ASMProgram {
 
         ASMLabel labMain = new ASMLabel("main");
 
-        ASMImmediate immStackTop = new ASMImmediate(0x4000);
-        ASMImmediate immGlobalBegin = new ASMImmediate(0x1000);
+        ASMImmediate immStackTop = new ASMImmediate(STACK_TOP);
+        ASMImmediate immGlobalBegin = new ASMImmediate(HEAP_BEGIN);
         ASMImmediate immZero = new ASMImmediate(0);
 
         this.addDirective(".text");
@@ -80,135 +158,86 @@ public class ASMProgram {
     }
 
     public void addLabel(String name) {
-        ASMLabel label = new ASMLabel(name);
-        this.program.add(label);
+        this.program.addLabel(name, null);
     }
 
     public void addDirective(String name) {
-        ASMLabel label = new ASMLabel(name, false);
-        this.program.add(label);
+        this.program.addDirective(name);
     }
 
     public void addLabel(String name, String comment) {
-        ASMLabel label = new ASMLabel(name, comment);
-        this.program.add(label);
+        this.program.addLabel(name, comment);
     }
 
     public void addLabel(ASMLabel label) {
-        this.program.add(label);
+        this.program.addLabel(label.getName(), label.getComment());
     }
 
     public void addLabel(ASMLabel label, String comment) {
         label.addComment(comment);
-        this.program.add(label);
+        this.program.addLabel(label.getName(), comment);
     }
 
     public void setCurrentFunction(String name) {
         this.curFunction = name;
+        this.curFunctionEntry = this.functionTable.getFunctionByName(name);
         this.labelIndex = 0;
+        this.statistics.setCurrentFunction(name);
+    }
+
+    // type of the expression in the current function computed by the semantic check
+    public Constant.Type getExpressionType(ParseTree expression) {
+        return this.curFunctionEntry.getExpressionType(expression);
     }
 
 
     //  --- INSTRUCTION RELATED ---
-    private ASMInstruction makeInstruction(ISA.ASMOpCode opCode) {
+    private void checkInstruction(ISA.ASMOpCode opCode, int opCnt) {
         ISA.ASMOpDetail instrDetail = ISA.ASMOpDetailMap.get(opCode);
-        if (instrDetail.getOpCnt() != 0) {
-            System.err.print("Instruction " + instrDetail.getText() + " does not accept 1 operands\n");
-            System.exit(Constant.INTERNAL_ERROR);
+        if (instrDetail.getOpCnt() != opCnt) {
+            throw new InternalException("Instruction " + instrDetail.getText() + " does not accept " + opCnt
+                    + " operands");
         }
 
-        ASMInstruction instr = new ASMInstruction(opCode);
-
-        return instr;
+        this.statistics.addInstruction();
     }
 
     public void addInstruction(ISA.ASMOpCode opCode) {
-        ASMInstruction instr = this.makeInstruction(opCode);
-        this.program.add(instr);
+        this.addInstruction(opCode, (String) null);
     }
 
     public void addInstruction(ISA.ASMOpCode opCode, String comment) {
-        ASMInstruction instr = this.makeInstruction(opCode);
-        instr.addComment(comment);
-        this.program.add(instr);
-    }
-
-    private ASMInstruction makeInstruction(ISA.ASMOpCode opCode, ASMOperand op1) {
-        ISA.ASMOpDetail instrDetail = ISA.ASMOpDetailMap.get(opCode);
-        if (instrDetail.getOpCnt() != 1) {
-            System.err.print("Instruction " + instrDetail.getText() + " does not accept 1 operands\n");
-            System.exit(Constant.INTERNAL_ERROR);
-        }
-
-        ASMInstruction instr = new ASMInstruction(opCode);
-        instr.addOperand(op1);
-
-        return instr;
+        this.checkInstruction(opCode, 0);
+        this.program.addInstruction(opCode, null, null, null, comment);
     }
 
     public void addInstruction(ISA.ASMOpCode opCode, ASMOperand op1) {
-        ASMInstruction instr = this.makeInstruction(opCode, op1);
-        this.program.add(instr);
+        this.addInstruction(opCode, op1, (String) null);
     }
 
     public void addInstruction(ISA.ASMOpCode opCode, ASMOperand op1, String comment) {
-        ASMInstruction instr = this.makeInstruction(opCode, op1);
-        instr.addComment(comment);
-        this.program.add(instr);
-    }
-
-    private ASMInstruction makeInstruction(ISA.ASMOpCode opCode, ASMOperand op1, ASMOperand op2) {
-        ISA.ASMOpDetail instrDetail = ISA.ASMOpDetailMap.get(opCode);
-        if (instrDetail.getOpCnt() != 2) {
-            System.err.print("Instruction " + instrDetail.getText() + " does not accept 2 operands\n");
-            System.exit(Constant.INTERNAL_ERROR);
-        }
-
-        ASMInstruction instr = new ASMInstruction(opCode);
-        instr.addOperand(op1);
-        instr.addOperand(op2);
-
-        return instr;
+        this.checkInstruction(opCode, 1);
+        this.program.addInstruction(opCode, op1, null, null, comment);
     }
 
     public void addInstruction(ISA.ASMOpCode opCode, ASMOperand op1, ASMOperand op2) {
-        ASMInstruction instr = this.makeInstruction(opCode, op1, op2);
-        this.program.add(instr);
+        this.addInstruction(opCode, op1, op2, (String) null);
     }
 
     public void addInstruction(ISA.ASMOpCode opCode, ASMOperand op1, ASMOperand op2, String comment) {
-        ASMInstruction instr = this.makeInstruction(opCode, op1, op2);
-        instr.addComment(comment);
-        this.program.add(instr);
-    }
-
-    private ASMInstruction makeInstruction(ISA.ASMOpCode opCode, ASMOperand op1, ASMOperand op2,
-                                           ASMOperand op3) {
-        ISA.ASMOpDetail instrDetail = ISA.ASMOpDetailMap.get(opCode);
-        if (instrDetail.getOpCnt() != 3) {
-            System.err.print("Instruction " + instrDetail.getText() + " does not accept 3 operands\n");
-            System.exit(Constant.INTERNAL_ERROR);
-        }
-
-        ASMInstruction instr = new ASMInstruction(opCode);
-        instr.addOperand(op1);
-        instr.addOperand(op2);
-        instr.addOperand(op3);
-
-        return instr;
+        this.checkInstruction(opCode, 2);
+        this.program.addInstruction(opCode, op1, op2, null, comment);
     }
 
     public void addInstruction(ISA.ASMOpCode opCode, ASMOperand op1, ASMOperand op2,
                                ASMOperand op3) {
-        ASMInstruction instr = this.makeInstruction(opCode, op1, op2, op3);
-        this.program.add(instr);
+        this.addInstruction(opCode, op1, op2, op3, null);
     }
 
     public void addInstruction(ISA.ASMOpCode opCode, ASMOperand op1, ASMOperand op2,
                                ASMOperand op3, String comment) {
-        ASMInstruction instr = this.makeInstruction(opCode, op1, op2, op3);
-        instr.addComment(comment);
-        this.program.add(instr);
+        this.checkInstruction(opCode, 3);
+        this.program.addInstruction(opCode, op1, op2, op3, comment);
     }
 
 
@@ -216,11 +245,18 @@ public class ASMProgram {
     public void addString(ASMLabel name, String value) {
         ASMString string = new ASMString(name, value);
         this.data.add(string);
+        this.statistics.addStringLiteral();
     }
 
-    public ASMLabel getStringLabel() {
+    private String getStringLabelName() {
         String name = "str" + this.stringIndex;
         this.stringIndex++;
+
+        return name;
+    }
+
+    public ASMLabel getStringLabel() {
+        String name = this.getStringLabelName();
         ASMLabel label = new ASMLabel(name);
 
         return label;
@@ -239,6 +275,82 @@ public class ASMProgram {
         return params;
     }
 
+    public Statistics getStatistics() {
+        return this.statistics;
+    }
+
+    public void setAllocatorStrategy(ASMRegisterAllocator.Strategy strategy) {
+        this.allocatorStrategy = strategy;
+    }
+
+    public ASMRegisterAllocator.Strategy getAllocatorStrategy() {
+        return this.allocatorStrategy;
+    }
+
+    public void setCalleeSaved(boolean calleeSaved) {
+        this.calleeSaved = calleeSaved;
+    }
+
+    public boolean isCalleeSaved() {
+        return this.calleeSaved;
+    }
+
+    public void setIntermediate(boolean intermediate) {
+        this.intermediate = intermediate;
+    }
+
+    public boolean isIntermediate() {
+        return this.intermediate;
+    }
+
+    public void setConstantPropagation(boolean constantPropagation) {
+        this.constantPropagation = constantPropagation;
+    }
+
+    public boolean isConstantPropagation() {
+        return this.constantPropagation;
+    }
+
+    // has to be called before the lowering, the IR is written by printIntermediate
+    public void dumpIntermediate() {
+        this.intermediateDump = new StringBuilder();
+    }
+
+    public boolean isIntermediateDumped() {
+        return this.intermediateDump != null;
+    }
+
+    public void addIntermediate(String text) {
+        if (this.intermediateDump != null) {
+            this.intermediateDump.append(text).append("\n");
+        }
+    }
+
+    ASMInstructionBuffer getInstructionBuffer() {
+        return this.program;
+    }
+
+    // has to be called before the lowering, e.g. by the allocator benchmark
+    public void recordAllocatorTraces() {
+        this.allocatorTraces = new ArrayList<>();
+    }
+
+    // traces of the functions in the source order
+    public List<ASMAllocatorTrace> getAllocatorTraces() {
+        return this.allocatorTraces;
+    }
+
+    ASMAllocatorTrace newAllocatorTrace() {
+        ASMAllocatorTrace trace = null;
+
+        if (this.allocatorTraces != null) {
+            trace = new ASMAllocatorTrace();
+            this.allocatorTraces.add(trace);
+        }
+
+        return trace;
+    }
+
     public FunctionTable getFunctionTable() {
         return this.functionTable;
     }
@@ -262,6 +374,39 @@ public class ASMProgram {
         return isString;
     }
 
+    // leaf functions do not set the frame pointer, so their callers do not save it
+    public boolean isLeafFunction(String name) {
+        Function function = this.functionTable.getFunctionByName(name);
+
+        return function.isLeaf();
+    }
+
+    // registers the leaf function writes, all of them until it is lowered
+    public int getWrittenRegisters(String name) {
+        Function function = this.functionTable.getFunctionByName(name);
+
+        return function.getWrittenRegisters();
+    }
+
+    public boolean isLeafFunction() {
+        return this.curFunctionEntry.isLeaf();
+    }
+
+    // argument registers of the calls and of the parameters of the current function, a leaf function makes no calls,
+    // so the allocators assign the argument registers its parameters are not passed in
+    public int getReservedArguments() {
+        if (!this.curFunctionEntry.isLeaf()) {
+            return ISA.ARG_MASK;
+        }
+
+        int paramCnt = Math.min(this.getFunctionParams(this.curFunction).size(), ISA.ARGCNT);
+        return ((1 << paramCnt) - 1) << ISA.ARG_FIRST;
+    }
+
+    public void setWrittenRegisters(int registers) {
+        this.curFunctionEntry.setWrittenRegisters(registers);
+    }
+
     public Constant.Type getFunctionReturnType(String name) {
         Function function = this.functionTable.getFunctionByName(name);
 
@@ -271,27 +416,98 @@ public class ASMProgram {
     public void finalize() {
         if (this.data.size() > 0) {
             this.addDirective(".data");
-            this.program.addAll(this.data);
+            for (ASMData string : this.data) {
+                this.program.addData(string);
+            }
         }
+        this.flush();
     }
 
 
     //  --- OUTPUT ---
+    // opens the output file, the code of every appended function is written immediately
+    public void startStreaming() {
+        try {
+            this.emitter = new ASMEmitter(this.file);
+        } catch (IOException e) {
+            this.outputError(e);
+        }
+        this.flush();
+    }
+
+    private void flush() {
+        if (this.emitter == null) {
+            return;
+        }
+
+        try {
+            this.emitter.emit(this.program);
+        } catch (IOException e) {
+            this.outputError(e);
+        }
+        this.program.clear();
+    }
+
     public void printToFile() {
         try{
-            PrintWriter writer = new PrintWriter(this.file, "UTF-8");
-            for(ASMElement e : this.program) {
-                writer.println(e.getText());
+            if (this.emitter == null) {
+                this.emitter = new ASMEmitter(this.file);
+                this.emitter.emit(this.program);
             }
-            writer.close();
+
+            this.emitter.close();
+            this.emitter = null;
+        } catch (IOException e) {
+            this.outputError(e);
+        }
+    }
+
+    // binary image instead of the assembly, the listing is written next to it, the program must not be streamed
+    public void printBinary() {
+        try {
+            ASMAssembler assembler = new ASMAssembler();
+            assembler.assemble(this.program, this.file, this.file + ".lst");
+        } catch (IOException e) {
+            this.outputError(e);
+        }
+    }
+
+    // IR of the functions in the source order is written to <output>.ir
+    public void printIntermediate() {
+        String file = this.file + ".ir";
+        try {
+            Files.write(Paths.get(file), this.intermediateDump.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new OutputException("Cannot write the output file " + file + ": " + e.getMessage());
+        }
+    }
+
+    // the compiler reports the error, the server and the batch mode continue with the next source
+    private void outputError(IOException e) {
+        this.closeOutput();
+        throw new OutputException("Cannot write the output file " + this.file + ": " + e.getMessage());
+    }
+
+    // streamed output of the failed compilation is closed, so the compile server does not leak the channels
+    public void closeOutput() {
+        if (this.emitter == null) {
+            return;
+        }
+
+        try {
+            this.emitter.close();
         } catch (IOException e) {
-            // do something
+            // the first error is reported
         }
+        this.emitter = null;
     }
 
     public void debugPrint() {
-        for(ASMElement e : this.program) {
-            System.out.print(e.getText() + "\n");
+        ASMInstructionBuffer.Cursor cursor = this.program.cursor();
+        while (cursor.next()) {
+            StringBuilder text = new StringBuilder();
+            cursor.appendText(text);
+            System.out.print(text + "\n");
         }
     }
 }
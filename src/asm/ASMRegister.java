@@ -19,10 +19,22 @@ public class ASMRegister extends ASMOperand {
         this.index = index;
     }
 
+    public int getIndex() {
+        return this.index;
+    }
+
+    // virtual registers are numbered from the count of the architecture registers
+    public boolean isVirtual() {
+        return this.index >= ISA.REGCNT;
+    }
+
     public String getText() {
         String name = "$";
 
-        if (this.index == ISA.Register.PROGRAM_COUNTER) {
+        if (this.isVirtual()) {
+            name = "%" + (this.index - ISA.REGCNT);
+        }
+        else if (this.index == ISA.Register.PROGRAM_COUNTER) {
             name += "PC";
         }
         else if (this.index == ISA.Register.ASM_TEMPORARY) {
@@ -51,4 +63,45 @@ public class ASMRegister extends ASMOperand {
     public String getTextOperand() {
         return this.getText();
     }
+
+    @Override
+    public void appendText(StringBuilder builder) {
+        appendName(builder, this.index);
+    }
+
+    public static void appendName(StringBuilder builder, int index) {
+        if (index >= ISA.REGCNT) {
+            builder.append('%').append(index - ISA.REGCNT);
+            return;
+        }
+
+        builder.append('$');
+
+        if (index == ISA.Register.PROGRAM_COUNTER) {
+            builder.append("PC");
+        }
+        else if (index == ISA.Register.ASM_TEMPORARY) {
+            builder.append("AT");
+        }
+        else if (index == ISA.Register.GLOBAL_PTR) {
+            builder.append("GP");
+        }
+        else if (index == ISA.Register.STACK_PTR) {
+            builder.append("SP");
+        }
+        else if (index == ISA.Register.FRAME_PTR) {
+            builder.append("FP");
+        }
+        else if (index == ISA.Register.RETURN_ADDR) {
+            builder.append("RA");
+        }
+        else {
+            builder.append(index);
+        }
+    }
+
+    @Override
+    public void appendTextOperand(StringBuilder builder) {
+        this.appendText(builder);
+    }
 }
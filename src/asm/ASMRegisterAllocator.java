@@ -1,5 +1,6 @@
 package asm;
 
+import exceptions.InternalException;
 import util.Constant;
 import util.ISA;
 
@@ -15,12 +16,18 @@ import java.util.*;
  *************************************************************/
 
 public class ASMRegisterAllocator {
+    // LRU assigns the registers while the function is lowered, LINEAR_SCAN and GRAPH_COLORING lower the function
+    // with a virtual register per variable and assign the registers after the whole function is lowered
+    public enum Strategy {
+        LRU, LINEAR_SCAN, GRAPH_COLORING
+    }
 
 // LOCATION ///////////////////////////////////////////////////////////////////
     private class Location {
         public static final int L_REGISTER = 0;
         public static final int L_MEMORY = 1;
         public static final int L_UNKNOWN = 2;
+        public static final int L_CONSTANT = 3; // not stored by the spill, the constant is loaded again by the use
 
         private int type;
         private long address; // stack ptr offset
@@ -59,24 +66,16 @@ public class ASMRegisterAllocator {
 
 // SCOPE //////////////////////////////////////////////////////////////////////
     private class Scope {
-        private long offset = 0;
         private int tempVarIndex = 0;
         public int index;
         private boolean wasReturn = false;
 
-        private Map<ASMVariable, Location> stackMap = new HashMap<>();
+        // declaration order is kept, so the variables are killed in the same order on every run
+        private Map<ASMVariable, Location> stackMap = new LinkedHashMap<>();
+        private Map<String, ASMVariable> nameMap = new HashMap<>();
 
         public Scope (int index) { this.index = index; }
 
-        public long getOffset() {
-            return this.offset;
-        }
-
-        public void addToOffset(long addend) {
-            this.offset += addend;
-        }
-
-
         public ASMVariable getTempVar() {
             // create a new variable
             ASMVariable var = new ASMVariable(this.tempVarIndex);
@@ -84,6 +83,7 @@ public class ASMRegisterAllocator {
             // do not assume location of the variable
             Location loc = new Location(Location.L_UNKNOWN, 0);
             var.setScope(this.index);
+            registerVariable(var);
 
             // save the variable in the current scope map
             this.putVar(var, loc);
@@ -97,6 +97,7 @@ public class ASMRegisterAllocator {
             // do not assume location of the variable
             Location loc = new Location(Location.L_UNKNOWN, 0);
             var.setScope(this.index);
+            registerVariable(var);
 //            System.out.print("Var: " + name + " added into scope: " + this.index + "\n");
 
             // save the variable in the current scope map
@@ -112,44 +113,37 @@ public class ASMRegisterAllocator {
             // variable is already on the stack
             Location loc = new Location(Location.L_MEMORY, offset, true);
             var.setScope(this.index);
+            registerVariable(var);
 
             // save the variable in the current scope map
             this.putVar(var, loc);
         }
 
         public Location getVarLocation(ASMVariable var) {
-            Location location = null;
-            if(this.stackMap.containsKey(var)) {
-                location = this.stackMap.get(var);
-            }
-
-            return location;
+            return this.stackMap.get(var);
         }
 
-        public ASMVariable findVar(ASMVariable var) {
-            boolean found = false;
-
-            for (Map.Entry<ASMVariable, Location> entry : this.stackMap.entrySet()) {
-                ASMVariable curVar = entry.getKey();
-                if (curVar.equals(var)) {
-                    var = curVar;
-                    found = true;
-                    break;
-                }
-            }
-
-            if(!found) {
-                var = null;
-            }
+        public boolean hasVar(ASMVariable var) {
+            return this.stackMap.containsKey(var);
+        }
 
-            return var;
+        public ASMVariable findVar(String name) {
+            return this.nameMap.get(name);
         }
 
         public void putVar(ASMVariable var, Location loc) {
             this.stackMap.put(var, loc);
+            if (!var.isTemporary()) {
+                this.nameMap.put(var.getName(), var);
+            }
         }
 
-        public void removeVar(ASMVariable var) { this.stackMap.remove(var); }
+        public void removeVar(ASMVariable var) {
+            this.stackMap.remove(var);
+            if (!var.isTemporary()) {
+                this.nameMap.remove(var.getName());
+            }
+        }
 
         // TODO should be implemented using iterator
         public Map<ASMVariable, Location> getVarMap() { return this.stackMap; }
@@ -165,32 +159,84 @@ public class ASMRegisterAllocator {
         public ASMRegister register;
         public ASMVariable variable;
 
+        // neighbours in the register stack
+        public RFEntry prev;
+        public RFEntry next;
+
         public RFEntry(ASMRegister register, ASMVariable variable) {
             this.register = register;
             this.variable = variable;
         }
+    }
+///////////////////////////////////////////////////////////////////////////////
 
-        public boolean isEmpty() {
-            boolean empty = (this.variable == null) ? true : this.variable.isEmpty();
-            return empty;
-        }
+// STATE //////////////////////////////////////////////////////////////////////
+    // locations of the variables at a label, every jump to the label stores, moves and loads the variables into
+    // these locations first, so the code after the label finds them there whichever way it was reached
+    public class State {
+        private int index;
+        private List<ASMVariable> variables = new ArrayList<>();
+        private List<Integer> types = new ArrayList<>();
+        // entries of the variables in the registers, null for the others
+        private List<RFEntry> entries = new ArrayList<>();
+
+        private State(int index) { this.index = index; }
+
+        int getIndex() { return this.index; }
     }
 ///////////////////////////////////////////////////////////////////////////////
 
     private ASMProgram program;
+    // calls are recorded only when the program records the allocator traces
+    private ASMAllocatorTrace trace;
+    private Strategy strategy;
+    // argument registers which are not assigned to the variables
+    private int reservedArguments;
+    // first element of the function in the program
+    private int start;
+    // variables of the function by their ids, kept for the virtual registers only
+    private List<ASMVariable> variables = new ArrayList<>();
+    // indexes where the registers are saved and restored around the calls, for the virtual registers only
+    private List<int[]> callSites = new ArrayList<>();
 
     private List<Scope> scopes = new ArrayList<>();
+    // live scopes by their index, variables know the index of their scope
+    private Map<Integer, Scope> scopeMap = new HashMap<>();
     private int scopeIndex;
+    private int variableId = 0;
+    private int stateCnt = 0;
 
     private int SPILL_SIZE = ISA.REGISTER_SIZE;
+    // spill slot of every spilled variable below the frame pointer, they are laid out after the lowering
+    private int slotCnt = 0;
+    // first and last instruction accessing every slot
+    private List<int[]> slotRanges = new ArrayList<>();
+    // instructions accessing the slots, their offsets are replaced by the laid out ones
+    private List<Integer> slotAccesses = new ArrayList<>();
 
     // unique instances of all architecture registers
     private RFEntry[] registerField = new RFEntry[ISA.REGCNT];
-    private List<RFEntry> registerStack = new ArrayList<RFEntry>();
+    // register stack of the GPRs as a circular list, the first entry is the LRU one, the last is the MRU one
+    private RFEntry registerStack = new RFEntry(null, null);
+    // bit per register, set while a variable is assigned to it
+    private int usedRegisters = 0;
+    // entries of the variables which are currently in the registers
+    private Map<ASMVariable, RFEntry> registerMap = new HashMap<>();
 //    private int RS_LAST = ISA.GPRCNT - 1;
 
     public ASMRegisterAllocator(ASMProgram program) {
+        this(program, program.getReservedArguments());
+    }
+
+    public ASMRegisterAllocator(ASMProgram program, int reservedArguments) {
         this.program = program;
+        this.trace = program.newAllocatorTrace();
+        this.reservedArguments = reservedArguments;
+        if (this.trace != null) {
+            this.trace.setReservedArguments(reservedArguments);
+        }
+        this.strategy = program.getAllocatorStrategy();
+        this.start = program.getInstructionBuffer().size();
 
         // initialize the instances representing the registers
         for (int index = 0; index < ISA.REGCNT; index++) {
@@ -200,14 +246,29 @@ public class ASMRegisterAllocator {
             this.registerField[index] = newEntry;
         }
 
-        // fill the register stack with GPRs
+        // fill the register stack with GPRs, the reserved argument registers are set by the calls only
+        this.registerStack.prev = this.registerStack;
+        this.registerStack.next = this.registerStack;
         for (int index = ISA.GPRFIRST; index < (ISA.GPRFIRST + ISA.GPRCNT); index++) {
-            this.registerStack.add(this.registerField[index]);
+            if ((this.reservedArguments & (1 << index)) == 0) {
+                this.pushBottom(this.registerField[index]);
+            }
         }
 
         this.scopeIndex = 0;
     }
 
+    private boolean isVirtual() {
+        return this.strategy != Strategy.LRU;
+    }
+
+    private void registerVariable(ASMVariable var) {
+        var.setId(this.variableId++);
+        if (this.isVirtual()) {
+            this.variables.add(var);
+        }
+    }
+
     public boolean wasReturn() {
         Scope scope = this.getCurScope();
 
@@ -223,27 +284,32 @@ public class ASMRegisterAllocator {
     private Scope getCurScope() { return this.scopes.get(0); }
 
     private Scope getVariableScope(ASMVariable var) {
-        Scope found = null;
+        Scope found = this.scopeMap.get(var.getScope());
 
-        for (Scope scope : this.scopes) {
-//            System.out.print("Searching scope: " + scope.index + "\n");
-            if (scope.findVar(var) != null) {
-                found = scope;
-//                System.out.print("Var: " + var.getName() + " found in scope: " + scope.index + "\n");
-                break;
-            }
+        if (found != null && !found.hasVar(var)) {
+            found = null;
         }
 
         return found;
     }
 
     public void newScope() {
-        this.scopes.add(0, new Scope(this.scopeIndex));
+        if (this.trace != null) {
+            this.trace.newScope();
+        }
+
+        Scope scope = new Scope(this.scopeIndex);
+        this.scopes.add(0, scope);
+        this.scopeMap.put(this.scopeIndex, scope);
 //        System.out.print("Scope: " + this.scopeIndex + " added\n");
         this.scopeIndex++;
     }
 
     public void killScope() {
+        if (this.trace != null) {
+            this.trace.killScope();
+        }
+
         Scope scope = this.getCurScope();
         Map<ASMVariable, Location> varMap = scope.getVarMap();
         List<ASMVariable> vars = new ArrayList<>();
@@ -255,27 +321,36 @@ public class ASMRegisterAllocator {
         }
 
         for (ASMVariable var : vars) {
-            this.killVariable(var, true);
+            this.freeVariable(var, true);
         }
 
         // destroy the current scope
         this.scopes.remove(0);
+        this.scopeMap.remove(scope.index);
     }
 
     public ASMVariable getTempVar() {
         Scope scope = getCurScope();
-        return scope.getTempVar();
+        ASMVariable var = scope.getTempVar();
+
+        if (this.trace != null) {
+            this.trace.tempVar(var);
+        }
+
+        return var;
     }
 
     // should not be called from inside of the register allocator
     public ASMVariable checkVariable(String name) {
         ASMVariable var = null;
 
+        if (this.trace != null) {
+            this.trace.checkVariable(name);
+        }
+
         // try to find if the variable exists in the topmost scope
         for (Scope scope : this.scopes) {
-            ASMVariable varTest = new ASMVariable(name);
-            varTest.setScope(scope.index);
-            var = scope.findVar(varTest);
+            var = scope.findVar(name);
             if (var != null) {
 //                System.out.print("Variable '" + name + "' found in scope " + scope.index + "\n");
                 break;
@@ -298,23 +373,29 @@ public class ASMRegisterAllocator {
 
     public Constant.Type getVariableDataType(ASMVariable var) {
         Constant.Type type = null;
-        ASMVariable varTemp = null;
         Scope scope = this.getVariableScope(var);
 
         if (scope != null) {
-            varTemp = scope.findVar(var);
-            type = varTemp.getType();
+            type = var.getType();
         }
 
         return type;
     }
 
     public void declareVariable(String name, Constant.Type type) {
+        if (this.trace != null) {
+            this.trace.declareVariable(name, type);
+        }
+
         Scope scope = getCurScope();
         scope.addVariable(name, type);
     }
 
     public void addParameter(String name, Constant.Type type, long offset) {
+        if (this.trace != null) {
+            this.trace.addParameter(name, type, offset);
+        }
+
         Scope scope = getCurScope();
         scope.addVariable(name, type, offset);
     }
@@ -324,6 +405,14 @@ public class ASMRegisterAllocator {
     }
 
     public void killVariable(ASMVariable var, boolean force) {
+        if (this.trace != null) {
+            this.trace.killVariable(var, force);
+        }
+
+        this.freeVariable(var, force);
+    }
+
+    private void freeVariable(ASMVariable var, boolean force) {
         // program variables can not be safely killed
         // after end of a block, even user variables are forced to be deleted
         if (var.isTemporary() || force) {
@@ -331,27 +420,60 @@ public class ASMRegisterAllocator {
 
             Scope scope = this.getVariableScope(var);
             if (scope == null) {
-                System.err.print("Variable '" + var.getText() + "' not found!\n");
-                System.exit(Constant.INTERNAL_ERROR);
+                throw new InternalException("Variable '" + var.getText() + "' not found!");
             }
 
-            var = scope.findVar(var);
             Location location = scope.getVarLocation(var);
 
             // set the register free
-            if (location.getType() == Location.L_REGISTER) {
+            if (location.getType() == Location.L_REGISTER && !this.isVirtual()) {
                 RFEntry entry = this.findRFEntry(var);
 //                System.out.print(" from register: " + entry.register.getText() + "\n");
                 entry.variable = null;
+                this.registerMap.remove(var);
+                this.usedRegisters &= ~(1 << entry.register.getIndex());
                 // move the empty register to the top of the stack
-                this.registerStack.remove(entry);
-                this.registerStack.add(0, entry);
+                this.unlink(entry);
+                this.pushTop(entry);
             }
 
             scope.removeVar(var);
         }
     }
 
+    // temporary holds the immediate or the label it was just loaded with and it is not written again,
+    // so it is loaded again instead of being spilled and reloaded
+    public void setConstant(ASMVariable var, ASMOperand constant) {
+        if (this.trace != null) {
+            this.trace.setConstant(var, constant);
+        }
+
+        var.setConstant(constant);
+    }
+
+    // constant does not keep the register after its use, the next use loads it again, so it is not saved by the calls
+    // and it is not moved by the jumps, the virtual registers keep it
+    public void releaseConstant(ASMVariable var) {
+        if (this.trace != null) {
+            this.trace.releaseConstant(var);
+        }
+
+        Location location = this.getVariableLocation(var);
+        if (this.isVirtual() || !var.isConstant() || location == null) {
+            return;
+        }
+
+        if (location.getType() == Location.L_REGISTER) {
+            RFEntry entry = this.findRFEntry(var);
+            entry.variable = null;
+            this.registerMap.remove(var);
+            this.usedRegisters &= ~(1 << entry.register.getIndex());
+            this.unlink(entry);
+            this.pushTop(entry);
+        }
+        location.change(Location.L_CONSTANT);
+    }
+
     public boolean varIsDefined(ASMVariable var) {
         boolean hasVal = true;
 
@@ -364,17 +486,43 @@ public class ASMRegisterAllocator {
 
 
     //  --- REGISTER RELATED ---
+    private void unlink(RFEntry entry) {
+        entry.prev.next = entry.next;
+        entry.next.prev = entry.prev;
+    }
+
+    private void pushTop(RFEntry entry) {
+        entry.prev = this.registerStack;
+        entry.next = this.registerStack.next;
+        entry.next.prev = entry;
+        this.registerStack.next = entry;
+    }
+
+    private void pushBottom(RFEntry entry) {
+        entry.next = this.registerStack;
+        entry.prev = this.registerStack.prev;
+        entry.prev.next = entry;
+        this.registerStack.prev = entry;
+    }
+
+    private boolean isUsed(RFEntry entry) {
+        return (this.usedRegisters & (1 << entry.register.getIndex())) != 0;
+    }
+
     private ASMRegister assignRegister(ASMVariable var) {
         // get the LRU register and remove it from the register stack
-        RFEntry rfEntry = this.registerStack.get(0);
-        this.registerStack.remove(0);
+        RFEntry rfEntry = this.registerStack.next;
+        this.unlink(rfEntry);
         // if register is used spill it
-        if (!rfEntry.isEmpty()) {
+        if (this.isUsed(rfEntry)) {
             this.spill(rfEntry);
+            this.registerMap.remove(rfEntry.variable);
         }
 
         rfEntry.variable = var;
-        this.registerStack.add(rfEntry);
+        this.registerMap.put(var, rfEntry);
+        this.usedRegisters |= 1 << rfEntry.register.getIndex();
+        this.pushBottom(rfEntry);
 
         return rfEntry.register;
     }
@@ -391,101 +539,121 @@ public class ASMRegisterAllocator {
     }
 
     private RFEntry findRFEntry(ASMVariable var) {
-        RFEntry found = null;
-
-        for (RFEntry entry : this.registerStack) {
-            if (!entry.isEmpty() && entry.variable.equals(var)) {
-                found = entry;
-                break;
-            }
-        }
-
-        return found;
+        return this.registerMap.get(var);
     }
 
     private void spill(RFEntry rfEntry) {
-        Scope scope = this.getCurScope();
         ASMVariable varVictim = rfEntry.variable;
         ASMRegister regVictim = rfEntry.register;
 
-        // try to spill the variable to its previous position on the stack
-        Location location = scope.getVarLocation(varVictim);
-        long offset = 0;
+        // victim may belong to any of the enclosing scopes
+        Location location = this.getVariableLocation(varVictim);
 
         if(location == null) {
-            System.err.print("Variable '" + varVictim.getText() + "' not found in the scope!\n");
-            System.exit(Constant.INTERNAL_ERROR);
+            throw new InternalException("Variable '" + varVictim.getText() + "' not found in the scope!");
         }
 
         // current location has to be set to register
         if(location.getType() != Location.L_REGISTER) {
-            System.err.print("Variable '" + varVictim.getText() + "' location should have been set to register!\n");
-            System.exit(Constant.INTERNAL_ERROR);
+            throw new InternalException("Variable '" + varVictim.getText()
+                    + "' location should have been set to register!");
         }
 
-        // variable has been spilled before
-        if(location.wasSpilled()) {
-            offset = location.getAddress();
-
-            ASMRegister regFramePtr = this.getFramePtrReg();
-            ASMImmediate immOffset = new ASMImmediate(offset);
-            String comment = "spill2 " + varVictim.getText();
-            this.program.addInstruction(ISA.ASMOpCode.SW, regVictim, immOffset, regFramePtr, comment);
+        // constant is loaded again by its next use
+        if(varVictim.isConstant()) {
+            location.change(Location.L_CONSTANT);
+            return;
         }
-        // variable spilled for the first time
-        else {
-            // update the offset from the frame pointer
-            scope.addToOffset(this.SPILL_SIZE);
-            offset = scope.getOffset();
-            location.setAddress(offset);
+
+        this.genStore(varVictim, regVictim, location);
+        location.change(Location.L_MEMORY);
+    }
+
+    private void genStore(ASMVariable var, ASMRegister register, Location location) {
+        String comment = "spill2 " + var.getText();
+        // variable spilled for the first time gets its own slot, the slots are shared after the lowering
+        if(!location.wasSpilled()) {
+            this.slotCnt++;
+            this.slotRanges.add(new int[] {this.program.getInstructionBuffer().size(), 0});
+            location.setAddress(this.SPILL_SIZE * this.slotCnt);
             location.spilled();
+            comment = "spill1 " + var.getText();
+        }
+
+        // the address is stored the other way round, the same as for the reloads
+        long offset = -location.getAddress();
+        ASMRegister regFramePtr = this.getFramePtrReg();
+        ASMImmediate immOffset = new ASMImmediate(offset);
+        this.addSlotAccess(location);
+        this.program.addInstruction(ISA.ASMOpCode.SW, register, immOffset, regFramePtr, comment);
+        this.program.getStatistics().addSpill();
+    }
+
+    private void genLoad(ASMVariable var, ASMRegister register, Location location) {
+        long offset = -location.getAddress();
+
+        ASMImmediate immOffset = new ASMImmediate(offset);
+        ASMRegister regFramePtr = this.getFramePtrReg();
+        String comment = "reload " + var.getText();
+        this.addSlotAccess(location);
+        this.program.addInstruction(ISA.ASMOpCode.LW, register, immOffset, regFramePtr, comment);
+        this.program.getStatistics().addReload();
+    }
 
-            ASMRegister regStackPtr = this.getStackPtrReg();
-            ASMImmediate immOffset = new ASMImmediate(this.SPILL_SIZE);
-            ASMImmediate immZero = new ASMImmediate(0);
-            this.program.addInstruction(ISA.ASMOpCode.SUBU, regStackPtr, immOffset);
-            String comment = "spill1 " + varVictim.getText();
-            this.program.addInstruction(ISA.ASMOpCode.SW, regVictim, immZero, regStackPtr, comment);
+    // has to be called before the instruction accessing the slot is added
+    private void addSlotAccess(Location location) {
+        // parameters are above the frame pointer, they are not in the slots
+        if (location.getAddress() <= 0) {
+            return;
         }
 
-        location.change(Location.L_MEMORY);
+        int index = this.program.getInstructionBuffer().size();
+        this.slotRanges.get((int) (location.getAddress() / this.SPILL_SIZE) - 1)[1] = index;
+        this.slotAccesses.add(index);
     }
 
     public ASMRegister getRegister(ASMVariable var) {
+        if (this.trace != null) {
+            this.trace.getRegister(var);
+        }
+
         Location location = this.getVariableLocation(var);
         ASMRegister register = null;
 
+        if (this.isVirtual()) {
+            return this.getVirtualRegister(var, location);
+        }
+
         // variable already in register
         if (location.getType() == Location.L_REGISTER) {
             RFEntry entry = this.findRFEntry(var);
             if (entry == null) {
-                System.err.print("Variable '" + var.getText() + "' should have been in register but not found!\n");
-                System.exit(Constant.INTERNAL_ERROR);
+                throw new InternalException("Variable '" + var.getText()
+                        + "' should have been in register but not found!");
             }
 
             // register was used, move it to the bottom of the stack
-            this.registerStack.remove(entry);
-            this.registerStack.add(entry);
+            this.unlink(entry);
+            this.pushBottom(entry);
 
             register = entry.register;
         }
         // reload from memory
         else if (location.getType() == Location.L_MEMORY) {
             register = this.assignRegister(var);
-            long offset = -location.getAddress();
-
-            ASMImmediate immOffset = new ASMImmediate(offset);
-            ASMRegister regFramePtr = this.getFramePtrReg();
-            String comment = "reload " + var.getText();
-            this.program.addInstruction(ISA.ASMOpCode.LW, register, immOffset, regFramePtr, comment);
+            this.genLoad(var, register, location);
+        }
+        // load the constant again
+        else if (location.getType() == Location.L_CONSTANT) {
+            register = this.assignRegister(var);
+            this.rematerialize(var, register);
         }
         // first use of the variable
         else if (location.getType() == Location.L_UNKNOWN) {
             register = this.assignRegister(var);
         }
         else {
-            System.err.print("Unreachable\n");
-            System.exit(Constant.INTERNAL_ERROR);
+            throw new InternalException("Unreachable");
         }
 
         location.change(Location.L_REGISTER);
@@ -495,14 +663,22 @@ public class ASMRegisterAllocator {
 
     // used when spilling can not happen, asm temporary reg used if needed
     public ASMRegister getRegisterNoSpill(ASMVariable var) {
+        if (this.trace != null) {
+            this.trace.getRegisterNoSpill(var);
+        }
+
         Location location = getVariableLocation(var);
         ASMRegister register = null;
 
+        if (this.isVirtual()) {
+            return this.getVirtualRegister(var, location);
+        }
+
         if (location.getType() == Location.L_REGISTER) {
             register = this.findRegister(var);
             if (register == null) {
-                System.err.print("Variable '" + var.getText() + "' should have been in register but not found!\n");
-                System.exit(Constant.INTERNAL_ERROR);
+                throw new InternalException("Variable '" + var.getText()
+                        + "' should have been in register but not found!");
             }
         }
         // reload from memory to asm temporary => this does not cause spill
@@ -513,71 +689,420 @@ public class ASMRegisterAllocator {
             ASMImmediate immOffset = new ASMImmediate(offset);
             ASMRegister regFramePtr = this.getFramePtrReg();
             String comment = "reload to asm temp " + var.getText();
+            this.addSlotAccess(location);
             this.program.addInstruction(ISA.ASMOpCode.LW, register, immOffset, regFramePtr, comment);
+            this.program.getStatistics().addReload();
+        }
+        else if (location.getType() == Location.L_CONSTANT) {
+            register = this.getAsmTempReg();
+            this.rematerialize(var, register);
         }
         else {
-            System.err.print("Unreachable\n");
-            System.exit(Constant.INTERNAL_ERROR);
+            throw new InternalException("Unreachable");
         }
 
         return register;
     }
 
+    private void rematerialize(ASMVariable var, ASMRegister register) {
+        String comment = "remat " + var.getText();
+        this.program.addInstruction(ISA.ASMOpCode.MOVSI, register, var.getConstant(), comment);
+        this.program.getStatistics().addRematerialization();
+    }
+
+    // the registers live across the call are known after the function is lowered, they are saved by the rewriter
     public List<ASMRegister> saveRegisters() {
-        List<ASMRegister> regs = new ArrayList<ASMRegister>();
-        // save the reserved registers
-        regs.add(this.getFramePtrReg());
-        regs.add(this.getReturnAddrReg());
+        if (this.trace != null) {
+            this.trace.saveRegisters();
+        }
+
+        this.callSites.add(new int[] {this.program.getInstructionBuffer().size(), -1});
+
+        return new ArrayList<>();
+    }
 
-        // save used gprs
-        for (RFEntry entry : this.registerStack) {
-            if (! entry.isEmpty()) {
-                regs.add(entry.register);
+    public void restoreRegisters(List<ASMRegister> regs) {
+        if (this.trace != null) {
+            this.trace.restoreRegisters();
+        }
+
+        this.callSites.get(this.callSites.size() - 1)[1] = this.program.getInstructionBuffer().size();
+    }
+
+    //  --- CONTROL FLOW ---
+    // locations of the variables at the label which is placed or jumped to next, the virtual registers keep
+    // the variables in one place, so their state is empty
+    public State saveState() {
+        if (this.trace != null) {
+            this.trace.saveState();
+        }
+
+        State state = new State(this.stateCnt++);
+        if (this.isVirtual()) {
+            return state;
+        }
+
+        for (int index = this.scopes.size() - 1; index >= 0; index--) {
+            for (Map.Entry<ASMVariable, Location> entry : this.scopes.get(index).getVarMap().entrySet()) {
+                int type = entry.getValue().getType();
+                state.variables.add(entry.getKey());
+                state.types.add(type);
+                state.entries.add((type == Location.L_REGISTER) ? this.findRFEntry(entry.getKey()) : null);
             }
         }
 
-        int regCnt = regs.size();
+        return state;
+    }
+
+    // has to be called before the jump to the label of the state or before the label is reached by falling through,
+    // the variables killed since the state are not read after the label
+    public void reconcileState(State state) {
+        if (this.trace != null) {
+            this.trace.reconcileState(state);
+        }
+
+        if (this.isVirtual()) {
+            return;
+        }
 
-        if (regCnt > 0) {
-            ASMRegister regStackPtr = this.getStackPtrReg();
-            ASMImmediate immSize = new ASMImmediate(this.SPILL_SIZE * regCnt);
+        // values in the registers are stored first, then the registers are exchanged and the rest is loaded
+        List<ASMRegister[]> moves = new ArrayList<>();
+        for (int index = 0; index < state.variables.size(); index++) {
+            ASMVariable var = state.variables.get(index);
+            Location location = this.getVariableLocation(var);
+            RFEntry target = state.entries.get(index);
+            if (location == null) {
+                continue;
+            }
 
-            // allocate space on the stack
-            this.program.addInstruction(ISA.ASMOpCode.SUBU, regStackPtr, immSize);
+            if (state.types.get(index) == Location.L_MEMORY && location.getType() == Location.L_REGISTER) {
+                this.genStore(var, this.findRegister(var), location);
+            }
+            else if (state.types.get(index) == Location.L_MEMORY && location.getType() == Location.L_CONSTANT) {
+                this.rematerialize(var, this.getAsmTempReg());
+                this.genStore(var, this.getAsmTempReg(), location);
+            }
+            else if (target != null && location.getType() == Location.L_REGISTER && this.findRFEntry(var) != target) {
+                moves.add(new ASMRegister[] {this.findRegister(var), target.register});
+            }
+        }
 
-            int offset = this.SPILL_SIZE * (regs.size() - 1);
-            for (ASMRegister reg : regs) {
-                ASMImmediate immOffset = new ASMImmediate(offset);
-                this.program.addInstruction(ISA.ASMOpCode.SW, reg, immOffset, regStackPtr);
-                offset -= this.SPILL_SIZE;
+        this.genMoves(moves);
+
+        for (int index = 0; index < state.variables.size(); index++) {
+            ASMVariable var = state.variables.get(index);
+            Location location = this.getVariableLocation(var);
+            RFEntry target = state.entries.get(index);
+            if (location == null || target == null) {
+                continue;
+            }
+
+            if (location.getType() == Location.L_MEMORY) {
+                this.genLoad(var, target.register, location);
+            }
+            else if (location.getType() == Location.L_CONSTANT) {
+                this.rematerialize(var, target.register);
             }
         }
 
-        return regs;
+        this.applyState(state);
     }
 
-    public void restoreRegisters(List<ASMRegister> regs) {
-        int regCnt = regs.size();
+    // code after a jump continues from the state of the label placed next
+    public void restoreState(State state) {
+        if (this.trace != null) {
+            this.trace.restoreState(state);
+        }
+
+        if (!this.isVirtual()) {
+            this.applyState(state);
+        }
+    }
+
+    // reconciliation adds no code
+    public boolean matchesState(State state) {
+        for (int index = 0; index < state.variables.size(); index++) {
+            Location location = this.getVariableLocation(state.variables.get(index));
+            if (location == null) {
+                continue;
+            }
+
+            int type = state.types.get(index);
+            RFEntry target = state.entries.get(index);
+            if (type == Location.L_MEMORY &&
+                    (location.getType() == Location.L_REGISTER || location.getType() == Location.L_CONSTANT)) {
+                return false;
+            }
+            if (target != null && location.getType() != Location.L_UNKNOWN
+                    && this.findRFEntry(state.variables.get(index)) != target) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // registers are moved at once, a cycle is broken by the asm temporary
+    private void genMoves(List<ASMRegister[]> moves) {
+        while (!moves.isEmpty()) {
+            ASMRegister[] ready = null;
+            for (ASMRegister[] move : moves) {
+                boolean read = false;
+                for (ASMRegister[] other : moves) {
+                    read |= other[0].getIndex() == move[1].getIndex();
+                }
+                if (!read) {
+                    ready = move;
+                    break;
+                }
+            }
+
+            if (ready == null) {
+                ASMRegister[] move = moves.get(0);
+                ASMRegister regTemp = this.getAsmTempReg();
+                this.program.addInstruction(ISA.ASMOpCode.MOV, regTemp, move[1]);
+                for (ASMRegister[] other : moves) {
+                    if (other[0].getIndex() == move[1].getIndex()) {
+                        other[0] = regTemp;
+                    }
+                }
+                continue;
+            }
+
+            this.program.addInstruction(ISA.ASMOpCode.MOV, ready[1], ready[0]);
+            moves.remove(ready);
+        }
+    }
+
+    // the variables get the locations of the state, the order of the register stack is kept
+    private void applyState(State state) {
+        for (int index = 0; index < state.variables.size(); index++) {
+            ASMVariable var = state.variables.get(index);
+            RFEntry entry = this.findRFEntry(var);
+            if (entry != null && entry != state.entries.get(index)) {
+                entry.variable = null;
+                this.registerMap.remove(var);
+                this.usedRegisters &= ~(1 << entry.register.getIndex());
+                this.unlink(entry);
+                this.pushTop(entry);
+            }
+        }
+
+        for (int index = 0; index < state.variables.size(); index++) {
+            ASMVariable var = state.variables.get(index);
+            Location location = this.getVariableLocation(var);
+            RFEntry target = state.entries.get(index);
+            if (location == null) {
+                continue;
+            }
+
+            location.change(state.types.get(index));
+            if (target != null && this.findRFEntry(var) != target) {
+                if (this.isUsed(target)) {
+                    throw new InternalException("Variable '" + target.variable.getText()
+                            + "' is not known at the label!");
+                }
+                target.variable = var;
+                this.registerMap.put(var, target);
+                this.usedRegisters |= 1 << target.register.getIndex();
+            }
+        }
+    }
+
+    // the variable keeps its virtual register until the end of the function
+    private ASMRegister getVirtualRegister(ASMVariable var, Location location) {
+        ASMRegister register = new ASMRegister(ISA.REGCNT + var.getId());
+
+        // parameter is loaded from the frame by its first use
+        if (location.getType() == Location.L_MEMORY) {
+            ASMImmediate immOffset = new ASMImmediate(-location.getAddress());
+            ASMRegister regFramePtr = this.getFramePtrReg();
+            String comment = "reload " + var.getText();
+            this.program.addInstruction(ISA.ASMOpCode.LW, register, immOffset, regFramePtr, comment);
+            this.program.getStatistics().addReload();
+        }
+
+        location.change(Location.L_REGISTER);
+
+        return register;
+    }
 
-        if (regCnt > 0) {
-            // restoring has to be done in the reverse order
-            List<ASMRegister> regsReverse = regs.subList(0, regCnt);
-            Collections.reverse(regsReverse);
+    // has to be called after the whole function is lowered
+    public void finishFunction() {
+        ASMInstructionBuffer code = this.program.getInstructionBuffer();
+        if (!this.isVirtual()) {
+            this.finishRegisters(code);
+            return;
+        }
 
-            ASMRegister regStackPtr = this.getStackPtrReg();
+        boolean coloring = this.strategy == Strategy.GRAPH_COLORING;
+        ASMLiveIntervals intervals = new ASMLiveIntervals(code, this.start, this.variableId, coloring);
+        ASMLinearScan linearScan = null;
+        ASMGraphColoring graphColoring = null;
+        if (coloring) {
+            graphColoring = new ASMGraphColoring(intervals, code, this.start, this.callSites);
+            graphColoring.setCalleeSaved(this.program.isCalleeSaved());
+        }
+        else {
+            linearScan = new ASMLinearScan(intervals);
+            if (this.program.isCalleeSaved()) {
+                linearScan.preferCalleeSaved(this.callSites, this.start);
+            }
+        }
 
-            int offset = 0;
-            // all the saved registers can be found in regs
-            for (ASMRegister reg : regsReverse) {
-                ASMImmediate immOffset = new ASMImmediate(offset);
-                this.program.addInstruction(ISA.ASMOpCode.LW, reg, immOffset, regStackPtr);
-                offset += this.SPILL_SIZE;
+        int[] registers = new int[ISA.GPRCNT - Integer.bitCount(this.reservedArguments)];
+        int registerCnt = 0;
+        for (int register = ISA.GPRFIRST; register <= ISA.GPRLAST; register++) {
+            if ((this.reservedArguments & (1 << register)) == 0) {
+                registers[registerCnt++] = register;
             }
+        }
+        int[] scratch = new int[] {ISA.Register.ASM_TEMPORARY};
+        int[] assigned = coloring ? graphColoring.allocate(registers) : linearScan.allocate(registers);
+
+        // spilled operands of one instruction need up to three scratch registers, two of them are taken from the GPRs
+        if (ASMLinearScan.hasSpills(assigned, intervals)) {
+            registers = Arrays.copyOf(registers, registerCnt - 2);
+            scratch = new int[] {ISA.Register.ASM_TEMPORARY, ISA.GPRLAST - 1, ISA.GPRLAST};
+            assigned = coloring ? graphColoring.allocate(registers) : linearScan.allocate(registers);
+        }
 
-            // free the space on the stack
-            ASMImmediate immSize = new ASMImmediate(this.SPILL_SIZE * regCnt);
-            this.program.addInstruction(ISA.ASMOpCode.ADDU, regStackPtr, immSize);
+        ASMRegisterRewriter rewriter = new ASMRegisterRewriter(this.program, this.start, intervals, assigned, scratch,
+                this.variables);
+        // the graph knows the registers live across the calls exactly
+        if (coloring) {
+            rewriter.setLiveAcross(graphColoring.getLiveAcross());
         }
+        rewriter.setCalleeSaved(this.program.isCalleeSaved());
+        rewriter.setLeaf(this.program.isLeafFunction());
+        rewriter.rewrite(this.callSites);
+    }
+
+    // the registers are assigned already, the call sites save only the registers live after the calls and
+    // the frame of the spill slots is allocated right after the frame pointer is set, so the stack pointer
+    // is not moved by the spills, e.g. inside of the loops
+    private void finishRegisters(ASMInstructionBuffer code) {
+        int frameSize = 0;
+        if (this.slotCnt > 0) {
+            int[] slots = new int[this.slotCnt + 1];
+            frameSize = this.layoutSlots(code, slots);
+
+            ASMInstructionBuffer.Cursor cursor = code.cursor();
+            for (int index : this.slotAccesses) {
+                cursor.moveTo(index);
+                int slot = (int) (-cursor.getImmediate(1) / this.SPILL_SIZE);
+                code.setImmediate(index, 1, -this.SPILL_SIZE * slots[slot]);
+            }
+        }
+
+        ASMLiveIntervals intervals = new ASMLiveIntervals(code, this.start, 0);
+        int[] restores = new int[this.callSites.size()];
+        for (int i = 0; i < restores.length; i++) {
+            restores[i] = this.callSites.get(i)[1] - 1;
+        }
+        int[] live = new ASMRegisterLiveness(intervals, code, this.start).getLiveAfter(restores);
+
+        ASMRegisterRewriter rewriter = new ASMRegisterRewriter(this.program, this.start, intervals, new int[0],
+                new int[] {ISA.Register.ASM_TEMPORARY}, this.variables);
+        rewriter.setFrameSlots(frameSize);
+        rewriter.setSavedRegisters(live);
+        rewriter.setCalleeSaved(this.program.isCalleeSaved());
+        rewriter.setLeaf(this.program.isLeafFunction());
+        rewriter.rewrite(this.callSites);
+    }
+
+    // slots whose ranges do not overlap are shared, a range overlapping a loop covers the whole loop, because
+    // the value may be read in the following iteration, returns the number of the shared slots
+    private int layoutSlots(ASMInstructionBuffer code, int[] slots) {
+        List<int[]> loops = this.findLoops(code);
+
+        long[] order = new long[this.slotCnt];
+        for (int slot = 1; slot <= this.slotCnt; slot++) {
+            int[] range = this.slotRanges.get(slot - 1);
+            range[0] = this.extendToLoop(loops, range[0], 0);
+            range[1] = this.extendToLoop(loops, range[1], 1);
+            order[slot - 1] = ((long) range[0] << 32) | slot;
+        }
+        Arrays.sort(order);
+
+        // shared slots of the active ranges by their ends
+        PriorityQueue<Long> active = new PriorityQueue<>();
+        Deque<Integer> free = new ArrayDeque<>();
+        int frameSize = 0;
+        for (long key : order) {
+            int slot = (int) key;
+            int[] range = this.slotRanges.get(slot - 1);
+
+            while (!active.isEmpty() && (int) (active.peek() >> 32) < range[0]) {
+                free.push((int) (long) active.poll());
+            }
+
+            slots[slot] = free.isEmpty() ? ++frameSize : free.pop();
+            active.add(((long) range[1] << 32) | slots[slot]);
+        }
+
+        return frameSize;
+    }
+
+    // ranges from the labels to the backward branches of the function, the overlapping ones are merged
+    private List<int[]> findLoops(ASMInstructionBuffer code) {
+        Map<String, Integer> labels = new HashMap<>();
+        List<int[]> branches = new ArrayList<>();
+
+        ASMInstructionBuffer.Cursor cursor = code.cursor(this.start);
+        while (cursor.next()) {
+            if (cursor.getKind() == ASMInstructionBuffer.LABEL) {
+                labels.put(cursor.getName(), cursor.getIndex());
+                continue;
+            }
+            if (cursor.getKind() != ASMInstructionBuffer.INSTRUCTION) {
+                continue;
+            }
+
+            for (int i = 0; i < cursor.getOperandCount(); i++) {
+                if (cursor.getOperandKind(i) == ASMInstructionBuffer.LABEL_NAME) {
+                    Integer target = labels.get(cursor.getLabel(i));
+                    if (target != null) {
+                        branches.add(new int[] {target, cursor.getIndex()});
+                    }
+                }
+            }
+        }
+
+        branches.sort((a, b) -> Integer.compare(a[0], b[0]));
+        List<int[]> loops = new ArrayList<>();
+        for (int[] branch : branches) {
+            int[] last = loops.isEmpty() ? null : loops.get(loops.size() - 1);
+            if (last != null && branch[0] <= last[1]) {
+                last[1] = Math.max(last[1], branch[1]);
+            }
+            else {
+                loops.add(branch);
+            }
+        }
+
+        return loops;
+    }
+
+    // the bound of the loop containing the index, the index itself if there is none
+    private int extendToLoop(List<int[]> loops, int index, int bound) {
+        int low = 0;
+        int high = loops.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int[] loop = loops.get(middle);
+            if (loop[1] < index) {
+                low = middle + 1;
+            }
+            else if (loop[0] > index) {
+                high = middle - 1;
+            }
+            else {
+                return loop[bound];
+            }
+        }
+
+        return index;
     }
 
     public ASMRegister getZeroReg() {
@@ -610,6 +1135,11 @@ public class ASMRegisterAllocator {
         return entry.register;
     }
 
+    public ASMRegister getArgumentReg(int index) {
+        RFEntry entry = this.registerField[ISA.ARG_FIRST + index];
+        return entry.register;
+    }
+
     public ASMRegister getReturnValReg() {
         RFEntry entry = this.registerField[ISA.Register.RETURN_VALUE];
         return entry.register;
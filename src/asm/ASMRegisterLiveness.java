@@ -0,0 +1,145 @@
+package asm;
+
+import util.ISA;
+
+/*************************************************************
+ * Filename: ASMRegisterLiveness.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// liveness of the architecture registers of one function, one bit per register, the blocks are the ones
+// of the live intervals, the calls keep the registers as their call sites save them
+public class ASMRegisterLiveness {
+    private ASMLiveIntervals intervals;
+    private ASMInstructionBuffer code;
+    private int start;
+
+    // registers used before they are defined in the block and the registers defined in the block
+    private int[] blockUse;
+    private int[] blockDef;
+    private int[] liveIn;
+    private int[] liveOut;
+
+    public ASMRegisterLiveness(ASMLiveIntervals intervals, ASMInstructionBuffer code, int start) {
+        this.intervals = intervals;
+        this.code = code;
+        this.start = start;
+
+        int blockCnt = intervals.getBlockCount();
+        this.blockUse = new int[blockCnt];
+        this.blockDef = new int[blockCnt];
+        this.liveIn = new int[blockCnt];
+        this.liveOut = new int[blockCnt];
+
+        this.findUses();
+        this.computeLiveness();
+    }
+
+    private void findUses() {
+        ASMInstructionBuffer.Cursor cursor = this.code.cursor();
+
+        for (int block = 0; block < this.intervals.getBlockCount(); block++) {
+            int use = 0;
+            int def = 0;
+            for (int position = this.intervals.getBlockStart(block); position <= this.intervals.getBlockEnd(block);
+                 position++) {
+                cursor.moveTo(this.start + position);
+                if (cursor.getKind() == ASMInstructionBuffer.INSTRUCTION) {
+                    use |= this.getUses(cursor) & ~def;
+                    def |= this.getDefs(cursor);
+                }
+            }
+
+            this.blockUse[block] = use;
+            this.blockDef[block] = def;
+            this.liveIn[block] = use;
+        }
+    }
+
+    // live in registers are propagated to the predecessors until nothing changes
+    private void computeLiveness() {
+        int blockCnt = this.intervals.getBlockCount();
+        int[][] predecessors = new int[blockCnt][];
+        int[] work = new int[blockCnt];
+        boolean[] queued = new boolean[blockCnt];
+        int workCnt = 0;
+
+        for (int block = blockCnt - 1; block >= 0; block--) {
+            predecessors[block] = this.intervals.getPredecessors(block);
+            work[workCnt++] = block;
+            queued[block] = true;
+        }
+
+        while (workCnt > 0) {
+            int block = work[--workCnt];
+            queued[block] = false;
+
+            for (int predecessor : predecessors[block]) {
+                int out = this.liveOut[predecessor] | this.liveIn[block];
+                if (out == this.liveOut[predecessor]) {
+                    continue;
+                }
+
+                this.liveOut[predecessor] = out;
+                int in = this.blockUse[predecessor] | (out & ~this.blockDef[predecessor]);
+                if (in != this.liveIn[predecessor]) {
+                    this.liveIn[predecessor] = in;
+                    if (!queued[predecessor]) {
+                        queued[predecessor] = true;
+                        work[workCnt++] = predecessor;
+                    }
+                }
+            }
+        }
+    }
+
+    // registers live right after the elements at the indexes, the indexes have to be ascending
+    public int[] getLiveAfter(int[] indexes) {
+        int[] live = new int[indexes.length];
+        int next = indexes.length - 1;
+        ASMInstructionBuffer.Cursor cursor = this.code.cursor();
+
+        for (int block = this.intervals.getBlockCount() - 1; block >= 0 && next >= 0; block--) {
+            int current = this.liveOut[block];
+            for (int position = this.intervals.getBlockEnd(block); position >= this.intervals.getBlockStart(block);
+                 position--) {
+                while (next >= 0 && indexes[next] - this.start == position) {
+                    live[next--] = current;
+                }
+
+                cursor.moveTo(this.start + position);
+                if (cursor.getKind() == ASMInstructionBuffer.INSTRUCTION) {
+                    current = (current & ~this.getDefs(cursor)) | this.getUses(cursor);
+                }
+            }
+        }
+
+        return live;
+    }
+
+    private int getUses(ASMInstructionBuffer.Cursor cursor) {
+        return this.getRegisters(cursor, ASMLiveIntervals.USE);
+    }
+
+    private int getDefs(ASMInstructionBuffer.Cursor cursor) {
+        return this.getRegisters(cursor, ASMLiveIntervals.DEF);
+    }
+
+    private int getRegisters(ASMInstructionBuffer.Cursor cursor, int role) {
+        int registers = 0;
+        ISA.ASMOpCode opCode = cursor.getOpCode();
+
+        for (int i = 0, count = cursor.getOperandCount(); i < count; i++) {
+            if (cursor.getOperandKind(i) == ASMInstructionBuffer.REGISTER && cursor.getRegister(i) < ISA.REGCNT &&
+                    (ASMLiveIntervals.getRole(opCode, i) & role) != 0) {
+                registers |= 1 << cursor.getRegister(i);
+            }
+        }
+
+        return registers;
+    }
+}
@@ -0,0 +1,586 @@
+package asm;
+
+import exceptions.InternalException;
+import util.ISA;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/*************************************************************
+ * Filename: ASMRegisterRewriter.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// replaces the virtual registers of one function by the assigned registers, the spilled ones are loaded to
+// the scratch registers before every use and stored after every definition, the slots are below the frame pointer,
+// the spilled constants are loaded again by every use instead and they have no slot, the call sites save
+// the registers which are live across the call, the code of the lru allocator has no virtual registers, its frame
+// and call sites are completed here too, leaf functions address their frame by the stack pointer, so they do not
+// set the frame pointer and their call sites do not save it
+public class ASMRegisterRewriter {
+    private ASMProgram program;
+    private ASMInstructionBuffer code;
+    private int start;
+    private ASMLiveIntervals intervals;
+    private int[] assigned;
+    private int[] scratch;
+    private List<ASMVariable> variables;
+
+    // frame offsets of the spilled registers, the registers whose intervals do not overlap share the slots
+    private int[] slots;
+    private int slotCnt = 0;
+
+    // assigned intervals sorted by their starts, the ones started before the current call site are kept by their ends
+    private long[] intervalOrder;
+    private int intervalNext = 0;
+    private PriorityQueue<Long> startedIntervals = new PriorityQueue<>();
+    // started intervals of every register which end after the current call site
+    private int[] registerIntervals = new int[ISA.REGCNT];
+    // the ones of the constants and the constant started last in every register
+    private int[] registerConstants = new int[ISA.REGCNT];
+    private int[] registerConstant = new int[ISA.REGCNT];
+    // constants live across the current call site, they are loaded again after the call instead of being saved
+    private List<Integer> rematerialized = new ArrayList<>();
+    // virtual registers live across the call sites when they are known exactly, the intervals are used otherwise
+    private int[][] liveAcross;
+    // registers saved by every call site, bit per register, when they are known before, e.g. for the lru code
+    private int[] savedRegisters;
+    // registers of the callee saved class are saved by the function which defines them instead of the call sites
+    private boolean calleeSaved = false;
+    private List<ASMRegister> calleeRegisters = new ArrayList<>();
+    // function calls no other function, the stack pointer is not moved after its frame is allocated
+    private boolean leaf = false;
+    // function does not set the frame pointer, it is a leaf one or it has no frame
+    private boolean frameless = false;
+    private int frameSize = 0;
+
+    private ASMInstructionBuffer out = new ASMInstructionBuffer();
+
+    public ASMRegisterRewriter(ASMProgram program, int start, ASMLiveIntervals intervals, int[] assigned,
+                               int[] scratch, List<ASMVariable> variables) {
+        this.program = program;
+        this.code = program.getInstructionBuffer();
+        this.start = start;
+        this.intervals = intervals;
+        this.assigned = assigned;
+        this.scratch = scratch;
+        this.variables = variables;
+
+        this.assignSlots();
+        this.sortIntervals();
+    }
+
+    // spilled intervals in the order of their starts, the slot of an interval is reused after its end
+    private void assignSlots() {
+        this.slots = new int[this.assigned.length];
+
+        int count = 0;
+        long[] order = new long[this.assigned.length];
+        for (int i = 0; i < this.assigned.length; i++) {
+            if (this.assigned[i] == ASMLinearScan.SPILLED && this.intervals.isUsed(i) && !this.isConstant(i)) {
+                order[count++] = ((long) this.intervals.getStart(i) << 32) | i;
+            }
+        }
+        Arrays.sort(order, 0, count);
+
+        // slots of the active intervals by their ends
+        PriorityQueue<Long> active = new PriorityQueue<>();
+        Deque<Integer> free = new ArrayDeque<>();
+        for (int i = 0; i < count; i++) {
+            int virtual = (int) order[i];
+            int start = this.intervals.getStart(virtual);
+
+            while (!active.isEmpty() && (int) (active.peek() >> 32) < start) {
+                free.push((int) (long) active.poll());
+            }
+
+            int slot = free.isEmpty() ? ++this.slotCnt : free.pop();
+            this.slots[virtual] = -ISA.REGISTER_SIZE * slot;
+            active.add(((long) this.intervals.getEnd(virtual) << 32) | slot);
+        }
+    }
+
+    private void sortIntervals() {
+        int count = 0;
+        this.intervalOrder = new long[this.assigned.length];
+        for (int i = 0; i < this.assigned.length; i++) {
+            if (this.assigned[i] != ASMLinearScan.SPILLED) {
+                this.intervalOrder[count++] = ((long) this.intervals.getStart(i) << 32) | i;
+            }
+        }
+
+        this.intervalOrder = Arrays.copyOf(this.intervalOrder, count);
+        Arrays.sort(this.intervalOrder);
+    }
+
+    public void setLiveAcross(int[][] liveAcross) {
+        this.liveAcross = liveAcross;
+    }
+
+    public void setSavedRegisters(int[] savedRegisters) {
+        this.savedRegisters = savedRegisters;
+    }
+
+    public void setCalleeSaved(boolean calleeSaved) {
+        this.calleeSaved = calleeSaved;
+    }
+
+    public void setLeaf(boolean leaf) {
+        this.leaf = leaf;
+    }
+
+    // slots which are already used by the code, there are no spilled virtual registers then
+    public void setFrameSlots(int slotCnt) {
+        this.slotCnt = slotCnt;
+    }
+
+    // call sites are pairs of the indexes where the registers are saved and restored
+    public void rewrite(List<int[]> callSites) {
+        int callSite = 0;
+        boolean restore = false;
+        List<ASMRegister> saved = null;
+        if (this.calleeSaved) {
+            this.findCalleeRegisters();
+        }
+        this.frameSize = ISA.REGISTER_SIZE * (this.slotCnt + this.calleeRegisters.size());
+        this.frameless = this.leaf || (this.frameSize == 0 && !this.usesFramePtr());
+
+        ASMInstructionBuffer.Cursor cursor = this.code.cursor(this.start);
+        while (cursor.next()) {
+            int index = cursor.getIndex();
+
+            // the registers are restored before the following call site is saved
+            while (callSite < callSites.size() && callSites.get(callSite)[restore ? 1 : 0] == index) {
+                if (restore) {
+                    this.restoreRegisters(saved);
+                    callSite++;
+                }
+                else {
+                    saved = this.saveRegisters(callSite, callSites.get(callSite));
+                }
+                restore = !restore;
+            }
+
+            if (cursor.getKind() == ASMInstructionBuffer.INSTRUCTION) {
+                // the stack pointer is set back to the frame pointer by the returns
+                if (this.isReturn(cursor)) {
+                    this.restoreCalleeRegisters();
+                }
+
+                if (this.frameless && (index == this.start || this.isReturn(cursor))) {
+                    this.rewriteFrame(index);
+                }
+                else {
+                    this.rewriteInstruction(cursor);
+                }
+            }
+            else {
+                this.out.addElement(cursor);
+            }
+
+            // frame of the slots is allocated after the frame pointer is set
+            if (index == this.start) {
+                this.saveCalleeRegisters();
+            }
+        }
+
+        if (callSite < callSites.size() && restore) {
+            this.restoreRegisters(saved);
+        }
+
+        if (this.leaf) {
+            this.rewriteFrameAccesses();
+            this.program.setWrittenRegisters(this.findWrittenRegisters());
+        }
+
+        this.code.truncate(this.start);
+        this.code.append(this.out);
+    }
+
+    private void rewriteInstruction(ASMInstructionBuffer.Cursor cursor) {
+        ISA.ASMOpCode opCode = cursor.getOpCode();
+        int count = cursor.getOperandCount();
+
+        // spilled registers of the instruction and their scratch registers
+        int[] spilled = new int[ASMInstructionBuffer.MAX_OPERANDS];
+        int[] registers = new int[ASMInstructionBuffer.MAX_OPERANDS];
+        int[] roles = new int[ASMInstructionBuffer.MAX_OPERANDS];
+        int spilledCnt = 0;
+
+        for (int i = 0; i < count; i++) {
+            int virtual = this.getVirtual(cursor, i);
+            if (virtual < 0) {
+                continue;
+            }
+
+            if (this.assigned[virtual] != ASMLinearScan.SPILLED) {
+                registers[i] = this.assigned[virtual];
+                continue;
+            }
+
+            int j = 0;
+            while (j < spilledCnt && spilled[j] != virtual) {
+                j++;
+            }
+            if (j == spilledCnt) {
+                if (j == this.scratch.length) {
+                    throw new InternalException("No scratch register left for " + this.getName(virtual) + "!");
+                }
+                spilled[j] = virtual;
+                spilledCnt++;
+            }
+            roles[j] |= ASMLiveIntervals.getRole(opCode, i);
+            registers[i] = this.scratch[j];
+        }
+
+        // spilled constant is loaded by its uses
+        if (opCode == ISA.ASMOpCode.MOVSI && spilledCnt == 1 && this.isConstant(spilled[0]) &&
+                this.getVirtual(cursor, 0) == spilled[0]) {
+            this.program.getStatistics().removeInstruction();
+            return;
+        }
+
+        // coalesced move
+        if (opCode == ISA.ASMOpCode.MOV && spilledCnt == 0 && this.getVirtual(cursor, 0) >= 0 &&
+                this.getVirtual(cursor, 1) >= 0 && registers[0] == registers[1]) {
+            this.program.getStatistics().removeInstruction();
+            return;
+        }
+
+        ASMRegister regFramePtr = new ASMRegister(ISA.Register.FRAME_PTR);
+        for (int j = 0; j < spilledCnt; j++) {
+            if ((roles[j] & ASMLiveIntervals.USE) != 0 && this.isConstant(spilled[j])) {
+                this.addInstruction(ISA.ASMOpCode.MOVSI, new ASMRegister(this.scratch[j]),
+                        this.variables.get(spilled[j]).getConstant(), null, "remat " + this.getName(spilled[j]));
+                this.program.getStatistics().addRematerialization();
+            }
+            else if ((roles[j] & ASMLiveIntervals.USE) != 0) {
+                this.addInstruction(ISA.ASMOpCode.LW, new ASMRegister(this.scratch[j]),
+                        new ASMImmediate(this.slots[spilled[j]]), regFramePtr, "reload " + this.getName(spilled[j]));
+                this.program.getStatistics().addReload();
+            }
+        }
+
+        int index = this.out.addElement(cursor);
+        for (int i = 0; i < count; i++) {
+            if (this.getVirtual(cursor, i) >= 0) {
+                this.out.setRegister(index, i, registers[i]);
+            }
+        }
+
+        for (int j = 0; j < spilledCnt; j++) {
+            if ((roles[j] & ASMLiveIntervals.DEF) != 0) {
+                this.addInstruction(ISA.ASMOpCode.SW, new ASMRegister(this.scratch[j]),
+                        new ASMImmediate(this.slots[spilled[j]]), regFramePtr, "spill " + this.getName(spilled[j]));
+                this.program.getStatistics().addSpill();
+            }
+        }
+    }
+
+    // registers whose intervals start before the call and end after it, more intervals can share a register
+    // when they do not interfere
+    private List<ASMRegister> saveRegisters(int index, int[] callSite) {
+        int save = callSite[0] - this.start;
+        int restore = callSite[1] - this.start;
+
+        // leaf callee keeps the frame pointer and the registers it does not write
+        String callee = this.getCallee(callSite);
+        boolean leafCallee = this.program.isLeafFunction(callee);
+
+        List<ASMRegister> regs = new ArrayList<ASMRegister>();
+        if (!leafCallee) {
+            regs.add(new ASMRegister(ISA.Register.FRAME_PTR));
+        }
+        regs.add(new ASMRegister(ISA.Register.RETURN_ADDR));
+
+        // bit per register, the registers holding only the constants are not saved
+        int live = 0;
+        int constants = 0;
+        int[] constantOf = new int[ISA.REGCNT];
+        if (this.savedRegisters != null) {
+            live = this.savedRegisters[index];
+        }
+        else if (this.liveAcross != null) {
+            int values = 0;
+            for (int virtual : this.liveAcross[index]) {
+                int register = this.assigned[virtual];
+                if (register == ASMLinearScan.SPILLED) {
+                    continue;
+                }
+
+                live |= 1 << register;
+                if (this.isConstant(virtual)) {
+                    constants |= 1 << register;
+                    constantOf[register] = virtual;
+                }
+                else {
+                    values |= 1 << register;
+                }
+            }
+            constants &= ~values;
+        }
+        else {
+            // call sites do not nest, so the intervals which end before this call site end before the following ones
+            while (this.intervalNext < this.intervalOrder.length &&
+                    (int) (this.intervalOrder[this.intervalNext] >> 32) < save) {
+                int virtual = (int) this.intervalOrder[this.intervalNext++];
+                int register = this.assigned[virtual];
+                this.startedIntervals.add(((long) this.intervals.getEnd(virtual) << 32) | virtual);
+                this.registerIntervals[register]++;
+                if (this.isConstant(virtual)) {
+                    this.registerConstants[register]++;
+                    this.registerConstant[register] = virtual;
+                }
+            }
+            while (!this.startedIntervals.isEmpty() && (int) (this.startedIntervals.peek() >> 32) < restore) {
+                int virtual = (int) (long) this.startedIntervals.poll();
+                this.registerIntervals[this.assigned[virtual]]--;
+                if (this.isConstant(virtual)) {
+                    this.registerConstants[this.assigned[virtual]]--;
+                }
+            }
+
+            for (int register = ISA.GPRFIRST; register <= ISA.GPRLAST; register++) {
+                if (this.registerIntervals[register] > 0) {
+                    live |= 1 << register;
+                }
+                // intervals of one register do not overlap, so the one started last is live across the call
+                if (this.registerIntervals[register] == 1 && this.registerConstants[register] == 1) {
+                    constants |= 1 << register;
+                    constantOf[register] = this.registerConstant[register];
+                }
+            }
+        }
+
+        if (this.calleeSaved) {
+            live &= ~ISA.CALLEE_SAVED_MASK;
+        }
+        // the arguments are not kept by the calls
+        live &= ~ISA.ARG_MASK;
+        if (leafCallee) {
+            live &= this.program.getWrittenRegisters(callee);
+        }
+        constants &= live;
+        live &= ~constants;
+        for (int register = ISA.GPRFIRST; register <= ISA.GPRLAST; register++) {
+            if ((live & (1 << register)) != 0) {
+                regs.add(new ASMRegister(register));
+            }
+            if ((constants & (1 << register)) != 0) {
+                this.rematerialized.add(constantOf[register]);
+            }
+        }
+
+        int regCnt = regs.size();
+        this.program.getStatistics().addCallSite(regCnt);
+
+        ASMRegister regStackPtr = new ASMRegister(ISA.Register.STACK_PTR);
+        this.addInstruction(ISA.ASMOpCode.SUBU, regStackPtr, new ASMImmediate(ISA.REGISTER_SIZE * regCnt), null, null);
+
+        int offset = ISA.REGISTER_SIZE * (regCnt - 1);
+        for (ASMRegister reg : regs) {
+            this.addInstruction(ISA.ASMOpCode.SW, reg, new ASMImmediate(offset), regStackPtr, null);
+            offset -= ISA.REGISTER_SIZE;
+        }
+
+        return regs;
+    }
+
+    private void restoreRegisters(List<ASMRegister> regs) {
+        ASMRegister regStackPtr = new ASMRegister(ISA.Register.STACK_PTR);
+
+        int offset = 0;
+        for (int i = regs.size() - 1; i >= 0; i--) {
+            this.addInstruction(ISA.ASMOpCode.LW, regs.get(i), new ASMImmediate(offset), regStackPtr, null);
+            offset += ISA.REGISTER_SIZE;
+        }
+
+        this.addInstruction(ISA.ASMOpCode.ADDU, regStackPtr, new ASMImmediate(ISA.REGISTER_SIZE * regs.size()),
+                null, null);
+
+        for (int virtual : this.rematerialized) {
+            this.addInstruction(ISA.ASMOpCode.MOVSI, new ASMRegister(this.assigned[virtual]),
+                    this.variables.get(virtual).getConstant(), null, "remat " + this.getName(virtual));
+            this.program.getStatistics().addRematerialization();
+        }
+        this.rematerialized.clear();
+    }
+
+    // registers of the callee saved class defined by the function, the spilled registers may be in any scratch one
+    private void findCalleeRegisters() {
+        int defined = 0;
+
+        ASMInstructionBuffer.Cursor cursor = this.code.cursor(this.start);
+        while (cursor.next()) {
+            if (cursor.getKind() != ASMInstructionBuffer.INSTRUCTION) {
+                continue;
+            }
+
+            for (int i = 0, count = cursor.getOperandCount(); i < count; i++) {
+                if (cursor.getOperandKind(i) != ASMInstructionBuffer.REGISTER ||
+                        (ASMLiveIntervals.getRole(cursor.getOpCode(), i) & ASMLiveIntervals.DEF) == 0) {
+                    continue;
+                }
+
+                int virtual = this.getVirtual(cursor, i);
+                if (virtual < 0) {
+                    defined |= 1 << cursor.getRegister(i);
+                }
+                else if (this.assigned[virtual] != ASMLinearScan.SPILLED) {
+                    defined |= 1 << this.assigned[virtual];
+                }
+                else {
+                    for (int register : this.scratch) {
+                        defined |= 1 << register;
+                    }
+                }
+            }
+        }
+
+        for (int register = ISA.CALLEE_SAVED_FIRST; register <= ISA.CALLEE_SAVED_LAST; register++) {
+            if ((defined & (1 << register)) != 0) {
+                this.calleeRegisters.add(new ASMRegister(register));
+            }
+        }
+    }
+
+    // the callee saved registers are kept in the frame after the slots
+    private void saveCalleeRegisters() {
+        int size = this.slotCnt + this.calleeRegisters.size();
+        if (size > 0) {
+            this.addInstruction(ISA.ASMOpCode.SUBU, new ASMRegister(ISA.Register.STACK_PTR),
+                    new ASMImmediate(ISA.REGISTER_SIZE * size), null, null);
+        }
+
+        ASMRegister regFramePtr = new ASMRegister(ISA.Register.FRAME_PTR);
+        for (int i = 0; i < this.calleeRegisters.size(); i++) {
+            ASMImmediate immOffset = new ASMImmediate(-ISA.REGISTER_SIZE * (this.slotCnt + i + 1));
+            this.addInstruction(ISA.ASMOpCode.SW, this.calleeRegisters.get(i), immOffset, regFramePtr, null);
+        }
+    }
+
+    private void restoreCalleeRegisters() {
+        ASMRegister regFramePtr = new ASMRegister(ISA.Register.FRAME_PTR);
+        for (int i = 0; i < this.calleeRegisters.size(); i++) {
+            ASMImmediate immOffset = new ASMImmediate(-ISA.REGISTER_SIZE * (this.slotCnt + i + 1));
+            this.addInstruction(ISA.ASMOpCode.LW, this.calleeRegisters.get(i), immOffset, regFramePtr, null);
+        }
+    }
+
+    // frame pointer is set at the start of the function, the frameless ones allocate only their frame, which is
+    // freed by the returns instead of setting the stack pointer back
+    private void rewriteFrame(int index) {
+        ASMRegister regStackPtr = new ASMRegister(ISA.Register.STACK_PTR);
+        if (index != this.start && this.frameSize > 0) {
+            this.out.addInstruction(ISA.ASMOpCode.ADDU, regStackPtr, new ASMImmediate(this.frameSize), null, null);
+        }
+        else {
+            this.program.getStatistics().removeInstruction();
+        }
+    }
+
+    // frame of the leaf function starts at the stack pointer after the frame is allocated
+    private void rewriteFrameAccesses() {
+        ASMInstructionBuffer.Cursor cursor = this.out.cursor();
+        while (cursor.next()) {
+            if (cursor.getKind() == ASMInstructionBuffer.INSTRUCTION && cursor.getOperandCount() == 3 &&
+                    cursor.getOperandKind(2) == ASMInstructionBuffer.REGISTER &&
+                    cursor.getRegister(2) == ISA.Register.FRAME_PTR) {
+                int index = cursor.getIndex();
+                this.out.setImmediate(index, 1, (int) cursor.getImmediate(1) + this.frameSize);
+                this.out.setRegister(index, 2, ISA.Register.STACK_PTR);
+            }
+        }
+    }
+
+    // bit per register
+    private int findWrittenRegisters() {
+        int written = 0;
+
+        ASMInstructionBuffer.Cursor cursor = this.out.cursor();
+        while (cursor.next()) {
+            if (cursor.getKind() != ASMInstructionBuffer.INSTRUCTION) {
+                continue;
+            }
+
+            for (int i = 0, count = cursor.getOperandCount(); i < count; i++) {
+                if (cursor.getOperandKind(i) == ASMInstructionBuffer.REGISTER &&
+                        (ASMLiveIntervals.getRole(cursor.getOpCode(), i) & ASMLiveIntervals.DEF) != 0) {
+                    written |= 1 << cursor.getRegister(i);
+                }
+            }
+        }
+
+        return written;
+    }
+
+    // the frame pointer is used by the slots and the parameters passed on the stack
+    private boolean usesFramePtr() {
+        ASMInstructionBuffer.Cursor cursor = this.code.cursor(this.start);
+        while (cursor.next()) {
+            if (cursor.getKind() != ASMInstructionBuffer.INSTRUCTION || cursor.getIndex() == this.start ||
+                    this.isReturn(cursor)) {
+                continue;
+            }
+
+            for (int i = 0, count = cursor.getOperandCount(); i < count; i++) {
+                if (cursor.getOperandKind(i) == ASMInstructionBuffer.REGISTER &&
+                        cursor.getRegister(i) == ISA.Register.FRAME_PTR) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    // name of the function called between the indexes of the call site
+    private String getCallee(int[] callSite) {
+        ASMInstructionBuffer.Cursor cursor = this.code.cursor(callSite[0]);
+        while (cursor.next() && cursor.getIndex() < callSite[1]) {
+            if (cursor.getKind() == ASMInstructionBuffer.INSTRUCTION && cursor.getOpCode() == ISA.ASMOpCode.JAL) {
+                String label = cursor.getLabel(0);
+                return label.startsWith("$") ? label.substring(1) : label;
+            }
+        }
+
+        throw new InternalException("Call site without a call!");
+    }
+
+    private boolean isReturn(ASMInstructionBuffer.Cursor cursor) {
+        return cursor.getOpCode() == ISA.ASMOpCode.MOV && cursor.getOperandKind(0) == ASMInstructionBuffer.REGISTER &&
+                cursor.getRegister(0) == ISA.Register.STACK_PTR && cursor.getRegister(1) == ISA.Register.FRAME_PTR;
+    }
+
+    private void addInstruction(ISA.ASMOpCode opCode, ASMOperand op1, ASMOperand op2, ASMOperand op3,
+                                String comment) {
+        this.out.addInstruction(opCode, op1, op2, op3, comment);
+        this.program.getStatistics().addInstruction();
+    }
+
+    private int getVirtual(ASMInstructionBuffer.Cursor cursor, int position) {
+        if (cursor.getOperandKind(position) != ASMInstructionBuffer.REGISTER) {
+            return -1;
+        }
+
+        int register = cursor.getRegister(position);
+        return (register >= ISA.REGCNT) ? register - ISA.REGCNT : -1;
+    }
+
+    // virtual registers of the temporaries holding a constant are defined once by loading it
+    private boolean isConstant(int virtual) {
+        return this.variables.get(virtual).isConstant();
+    }
+
+    private String getName(int virtual) {
+        return this.variables.get(virtual).getText();
+    }
+}
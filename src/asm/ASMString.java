@@ -1,5 +1,7 @@
 package asm;
 
+import java.io.ByteArrayOutputStream;
+
 /*************************************************************
  * Filename: ASMString.java
  * Project: Compiler Implementation for VYPe16 Programming Language
@@ -25,4 +27,34 @@ public class ASMString extends ASMData {
 
         return string;
     }
+
+    // bytes of the literal with the escape sequences replaced, terminated by zero as by .asciz
+    public byte[] getBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(this.value.length());
+
+        // value still contains the quotes
+        for (int i = 1, len = this.value.length() - 1; i < len; i++) {
+            char c = this.value.charAt(i);
+            // backslash without a known escape character stands for itself
+            if (c == '\\' && i + 1 < len && "\"\\'nt".indexOf(this.value.charAt(i + 1)) >= 0) {
+                i++;
+                c = this.value.charAt(i);
+                if (c == 'n') {
+                    c = '\n';
+                } else if (c == 't') {
+                    c = '\t';
+                }
+            }
+            bytes.write(c);
+        }
+        bytes.write(0);
+
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public void appendText(StringBuilder builder) {
+        super.getName().appendText(builder);
+        builder.append(" .").append(super.getDirective()).append(' ').append(this.value);
+    }
 }
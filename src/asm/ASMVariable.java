@@ -17,7 +17,9 @@ public class ASMVariable {
     Integer index;
     String name;
     int scope;
+    int id = -1; // unique within the function
     Constant.Type type = Constant.Type.UNKNOWN; // data type
+    ASMOperand constant = null; // immediate or label the temporary is loaded with, it is not written again
 
     // default initialization of the register field
     public ASMVariable() {
@@ -51,6 +53,9 @@ public class ASMVariable {
     public void setScope(int index) { this.scope = index; }
     public int getScope() { return this.scope; }
 
+    public void setId(int id) { this.id = id; }
+    public int getId() { return this.id; }
+
     public boolean isTemporary() { return this.temporary; }
     public int getIndex() { return  this.index; }
     public String getName() { return  this.name; }
@@ -58,35 +63,28 @@ public class ASMVariable {
 
     public Constant.Type getType() { return this.type; }
 
-    public boolean equals(ASMVariable var) {
-        if (this.empty || var.isEmpty()) {
-            return false;
-        }
+    public void setConstant(ASMOperand constant) { this.constant = constant; }
+    public ASMOperand getConstant() { return this.constant; }
+    public boolean isConstant() { return this.constant != null; }
 
-        if (this.scope != var.getScope()) {
+    // variables are identified by the id given by the register allocator
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof ASMVariable)) {
             return false;
         }
 
-        boolean equal = false;
-
-        if (this.temporary) {
-            if (var.isTemporary()) {
-                if (this.index == var.getIndex()) {
-                    equal = true;
-                }
-            }
-        }
-        else {
-            if(!var.isTemporary()) {
-                if(this.name.equals(var.getName())) {
-                    equal = true;
-                }
-            }
+        ASMVariable var = (ASMVariable) other;
+        if (this.empty || var.isEmpty()) {
+            return false;
         }
 
-        return equal;
+        return this.id == var.getId();
     }
 
+    @Override
+    public int hashCode() { return this.id; }
+
     public String getText() {
         if(this.temporary) {
             return(new String("$t" + this.index));
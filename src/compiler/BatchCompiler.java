@@ -0,0 +1,116 @@
+package compiler;
+
+import util.Constant;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*************************************************************
+ * Filename: BatchCompiler.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// compiles many source files concurrently in one process,
+// every file has its own function table, program and register allocators,
+// the ANTLR DFA caches are static in the generated recognizers and therefore shared by all the workers
+public class BatchCompiler {
+    private static final String SOURCE_EXTENSION = ".c";
+    private static final String OUTPUT_EXTENSION = ".asm";
+    private static final String BINARY_EXTENSION = ".bin";
+
+    private CompilerOptions options;
+    // compilers are reused by the worker threads, so their recognizers stay warm
+    private ThreadLocal<Compiler> compilers;
+
+    private List<Path> sources = new ArrayList<>();
+
+    // inputs are source files or directories searched recursively for the sources
+    public BatchCompiler(List<String> inputs) throws IOException {
+        this(inputs, new CompilerOptions());
+    }
+
+    public BatchCompiler(List<String> inputs, CompilerOptions options) throws IOException {
+        this.options = options;
+        this.compilers = ThreadLocal.withInitial(options::newCompiler);
+
+        for (String input : inputs) {
+            Path path = Paths.get(input);
+
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> files = Files.walk(path)) {
+                    this.sources.addAll(files
+                            .filter(file -> Files.isRegularFile(file))
+                            .filter(file -> file.toString().endsWith(SOURCE_EXTENSION))
+                            .sorted()
+                            .collect(Collectors.toList()));
+                }
+            }
+            else {
+                this.sources.add(path);
+            }
+        }
+    }
+
+    public List<Path> getSources() {
+        return this.sources;
+    }
+
+    // prints the exit code of every file, returns the first non-zero code in the input order
+    public int compile() {
+        ForkJoinPool pool = new ForkJoinPool();
+        List<ForkJoinTask<Integer>> tasks = new ArrayList<>();
+
+        for (Path source : this.sources) {
+            String output = this.getOutputFilename(source);
+            tasks.add(pool.submit(() -> this.compileFile(source.toString(), output)));
+        }
+
+        int result = Constant.NO_ERROR;
+
+        for (int i = 0; i < tasks.size(); i++) {
+            int code = tasks.get(i).join();
+            System.out.println(this.sources.get(i) + ": " + code);
+
+            if (result == Constant.NO_ERROR) {
+                result = code;
+            }
+        }
+
+        pool.shutdown();
+
+        return result;
+    }
+
+    private int compileFile(String source, String output) {
+        try {
+            return this.compilers.get().compile(source, output);
+        }
+        catch(RuntimeException e) {
+            // one broken file must not stop the rest of the batch
+            System.err.println(source + ": " + e);
+            return Constant.INTERNAL_ERROR;
+        }
+    }
+
+    private String getOutputFilename(Path source) {
+        String name = source.toString();
+
+        if (name.endsWith(SOURCE_EXTENSION)) {
+            name = name.substring(0, name.length() - SOURCE_EXTENSION.length());
+        }
+
+        return name + (this.options.isBinary() ? BINARY_EXTENSION : OUTPUT_EXTENSION);
+    }
+}
@@ -0,0 +1,90 @@
+package compiler;
+
+import util.Constant;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*************************************************************
+ * Filename: CompileServer.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// long-lived compile server, it saves the JVM startup, the ATN deserialization and the JIT warm-up of every compilation
+// protocol: one request per line "<source>\t<output>", the answer is a line with the exit code of the compilation,
+// paths are resolved by the server so clients should send absolute paths
+public class CompileServer {
+    // every connection is served by its own thread, its compiler keeps the recognizers warm
+    private ThreadLocal<Compiler> compilers;
+
+    public CompileServer() {
+        this(new CompilerOptions());
+    }
+
+    public CompileServer(CompilerOptions options) {
+        this.compilers = ThreadLocal.withInitial(options::newCompiler);
+    }
+
+    // serves requests from the standard input until it is closed
+    public void serve() throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        this.serve(in, out);
+    }
+
+    // serves clients connecting to the local port, never returns
+    public void listen(int port) throws IOException {
+        ExecutorService workers = Executors.newCachedThreadPool();
+
+        try (ServerSocket server = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+            while (true) {
+                Socket client = server.accept();
+                workers.execute(() -> this.serve(client));
+            }
+        }
+    }
+
+    private void serve(Socket client) {
+        try (Socket socket = client) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            this.serve(in, out);
+        } catch (IOException e) {
+            // client disconnected, nothing to answer
+        }
+    }
+
+    private void serve(BufferedReader in, Writer out) throws IOException {
+        String request;
+
+        while ((request = in.readLine()) != null) {
+            out.write(this.compile(request) + "\n");
+            out.flush();
+        }
+    }
+
+    private int compile(String request) {
+        String[] paths = request.split("\t");
+        if (paths.length != 2 || paths[0].isEmpty() || paths[1].isEmpty()) {
+            return Constant.INTERNAL_ERROR;
+        }
+
+        try {
+            return this.compilers.get().compile(paths[0], paths[1]);
+        }
+        catch(RuntimeException e) {
+            // one broken request must not stop the server
+            System.err.println(paths[0] + ": " + e);
+            return Constant.INTERNAL_ERROR;
+        }
+    }
+}
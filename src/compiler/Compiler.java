@@ -0,0 +1,271 @@
+package compiler;
+
+import asm.ASMProgram;
+import asm.ASMRegisterAllocator;
+import exceptions.InternalException;
+import exceptions.LexicalException;
+import exceptions.MemoryException;
+import exceptions.OutputException;
+import exceptions.SemanticException;
+import grammar.custom.VYPeExpressionVisitor;
+import grammar.custom.VYPeFailFastLexer;
+import grammar.custom.VYPeMappedCharStream;
+import grammar.custom.VYPeStartLow;
+import grammar.gen.VYPeParserParser;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.ATNState;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import tables.FunctionTable;
+import tables.SymbolTable;
+import util.Constant;
+import util.Statistics;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/*************************************************************
+ * Filename: Compiler.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// compiles a single source file, one instance must not be used by more threads at once,
+// the lexer and the parser are reused by the following compilations of the same instance
+public class Compiler {
+    private VYPeFailFastLexer lexer;
+    private VYPeParserParser parser;
+
+    // prediction mode which produced the last parse tree, reported in the compile statistics
+    private PredictionMode predictionMode;
+    // statistics of the next compilation, not measured when null
+    private Statistics statistics;
+    // output is the binary image with its listing instead of the assembly
+    private boolean binary = false;
+    private ASMRegisterAllocator.Strategy allocatorStrategy = ASMRegisterAllocator.Strategy.LRU;
+    private boolean calleeSaved = false;
+    // functions are lowered through the IR, it is written next to the output when dumped
+    private boolean intermediate = false;
+    private boolean dumpIntermediate = false;
+    // IR is optimized by the constant propagation in the SSA form before it is lowered
+    private boolean constantPropagation = false;
+
+    public void setStatistics(Statistics statistics) {
+        this.statistics = statistics;
+    }
+
+    public void setBinary(boolean binary) {
+        this.binary = binary;
+    }
+
+    public void setAllocatorStrategy(ASMRegisterAllocator.Strategy strategy) {
+        this.allocatorStrategy = strategy;
+    }
+
+    public void setCalleeSaved(boolean calleeSaved) {
+        this.calleeSaved = calleeSaved;
+    }
+
+    public void setIntermediate(boolean intermediate, boolean dump) {
+        this.intermediate = intermediate || dump;
+        this.dumpIntermediate = dump;
+    }
+
+    // implies the lowering through the IR
+    public void setConstantPropagation(boolean constantPropagation) {
+        this.constantPropagation = constantPropagation;
+    }
+
+    public PredictionMode getPredictionMode() {
+        return this.predictionMode;
+    }
+
+    // returns one of the Constant error codes
+    public int compile(String sourceFilename, String outputFilename) {
+        CharStream input = null;
+        try{
+            input = new VYPeMappedCharStream(Paths.get(sourceFilename));
+        }catch(IOException e){
+            return Constant.INTERNAL_ERROR;
+        }
+
+        Statistics statistics = (this.statistics != null) ? this.statistics : new Statistics();
+
+        // tokens are lexed on demand of the parser, the first invalid character stops the compilation
+        CommonTokenStream tokenStream = this.getTokenStream(input);
+        VYPeParserParser parser = this.getParser(tokenStream);
+        VYPeParserParser.StartContext parseTree = null;
+
+        try {
+            // measured tokens are lexed ahead of the parser, so the lexing is timed as a whole phase
+            if(this.statistics != null) {
+                statistics.startPhase();
+                tokenStream.fill();
+                statistics.endPhase(Statistics.Phase.LEXING);
+            }
+
+            statistics.startPhase();
+            parseTree = this.parse(parser, tokenStream);
+            statistics.endPhase(Statistics.Phase.PARSING);
+            statistics.setPredictionMode(this.predictionMode.name());
+
+            if(parser.getNumberOfSyntaxErrors() > 0) {
+                // lexical errors take precedence, the rest of the input has to be checked
+                tokenStream.fill();
+                return Constant.SYNTAX_ERROR;
+            }
+        }
+        catch(LexicalException e) {
+            System.err.println(e.getMessage());
+            return Constant.LEXICAL_ERROR;
+        }
+
+        VYPeExpressionVisitor visitor = new VYPeExpressionVisitor(new FunctionTable(), new SymbolTable());
+
+        try {
+            statistics.startPhase();
+            visitor.doSemanticCheck(parseTree);
+            statistics.endPhase(Statistics.Phase.SEMANTIC_CHECK);
+        }
+        catch(SemanticException e) {
+            System.err.println(e.getMessage());
+            e.printStackTrace();
+            return Constant.SEMANTIC_ERROR;
+        }
+
+        // function table will be used during the assembly generation
+        FunctionTable functionTable = visitor.getFunctionTable();
+
+        // ASM generation
+        statistics.startPhase();
+        ASMProgram program = new ASMProgram(outputFilename, functionTable, statistics);
+        program.setAllocatorStrategy(this.allocatorStrategy);
+        program.setCalleeSaved(this.calleeSaved);
+        program.setIntermediate(this.intermediate || this.constantPropagation);
+        program.setConstantPropagation(this.constantPropagation);
+        if(this.dumpIntermediate) {
+            program.dumpIntermediate();
+        }
+        try {
+            // code of every function is written once it is lowered, the emission phase writes only the rest,
+            // the binary image needs the whole program to resolve the labels
+            if(!this.binary) {
+                program.startStreaming();
+            }
+
+            VYPeStartLow lowerer = new VYPeStartLow(program);
+            lowerer.visit(parseTree);
+            program.finalize();
+            statistics.endPhase(Statistics.Phase.LOWERING);
+
+            //program.debugPrint();
+            statistics.startPhase();
+            if(this.binary) {
+                program.printBinary();
+            }
+            else {
+                program.printToFile();
+            }
+            if(this.dumpIntermediate) {
+                program.printIntermediate();
+            }
+            statistics.endPhase(Statistics.Phase.EMISSION);
+        }
+        catch(OutputException e) {
+            // output is not written, the server and the batch mode go on with the next request
+            System.err.println(e.getMessage());
+            program.closeOutput();
+            return Constant.INTERNAL_ERROR;
+        }
+        catch(MemoryException e) {
+            System.err.println(e.getMessage());
+            program.closeOutput();
+            return Constant.MEMORY_ERROR;
+        }
+        catch(InternalException e) {
+            // only this compilation fails, the server and the batch mode go on with the next request
+            System.err.println(e.getMessage());
+            program.closeOutput();
+            return Constant.INTERNAL_ERROR;
+        }
+
+        //System.out.println(parseTree.toStringTree());
+        return Constant.NO_ERROR;
+    }
+
+    // lexes and parses only, it trains the prediction DFA without generating any code
+    public int parseFile(String sourceFilename) {
+        CharStream input = null;
+        try{
+            input = new VYPeMappedCharStream(Paths.get(sourceFilename));
+        }catch(IOException e){
+            return Constant.INTERNAL_ERROR;
+        }
+
+        CommonTokenStream tokenStream = this.getTokenStream(input);
+        VYPeParserParser parser = this.getParser(tokenStream);
+
+        try {
+            this.parse(parser, tokenStream);
+        }
+        catch(LexicalException e) {
+            return Constant.LEXICAL_ERROR;
+        }
+
+        return (parser.getNumberOfSyntaxErrors() > 0) ? Constant.SYNTAX_ERROR : Constant.NO_ERROR;
+    }
+
+    private CommonTokenStream getTokenStream(CharStream input) {
+        if (this.lexer == null) {
+            this.lexer = new VYPeFailFastLexer(input);
+        }
+        else {
+            this.lexer.setInputStream(input);
+        }
+
+        return new CommonTokenStream(this.lexer);
+    }
+
+    private VYPeParserParser getParser(TokenStream tokenStream) {
+        if (this.parser == null) {
+            this.parser = new VYPeParserParser(tokenStream);
+        }
+        else {
+            this.parser.setTokenStream(tokenStream);
+            // parsing aborted by a lexical error leaves the ATN state behind, reset does not clear it
+            this.parser.setState(ATNState.INVALID_STATE_NUMBER);
+        }
+
+        return this.parser;
+    }
+
+    private VYPeParserParser.StartContext parse(VYPeParserParser parser, TokenStream tokenStream) {
+        // first stage - SLL prediction is much faster and it is sufficient for almost every valid input,
+        // the bail strategy aborts on the first error without any recovery
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+
+        try {
+            VYPeParserParser.StartContext parseTree = parser.start();
+            this.predictionMode = PredictionMode.SLL;
+            return parseTree;
+        }
+        catch(ParseCancellationException e) {
+            // SLL failed, the input is either invalid or needs full context => parse again in LL mode
+        }
+
+        // second stage - full LL with the default error reporting and recovery
+        tokenStream.seek(0);
+        parser.reset();
+        parser.addErrorListener(ConsoleErrorListener.INSTANCE);
+        parser.setErrorHandler(new DefaultErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+        this.predictionMode = PredictionMode.LL;
+
+        return parser.start();
+    }
+}
@@ -0,0 +1,72 @@
+package compiler;
+
+import asm.ASMRegisterAllocator;
+
+/*************************************************************
+ * Filename: CompilerOptions.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// options of the code generation given on the command line, the same ones apply to every compilation of the batch
+// and of the server
+public class CompilerOptions {
+    private boolean binary = false;
+    private ASMRegisterAllocator.Strategy allocatorStrategy = ASMRegisterAllocator.Strategy.LRU;
+    private boolean calleeSaved = false;
+    private boolean intermediate = false;
+    private boolean dumpIntermediate = false;
+    private boolean constantPropagation = false;
+
+    // returns false for an unknown option
+    public boolean parse(String option) {
+        if (option.equals("--binary")) {
+            this.binary = true;
+        }
+        else if (option.equals("--allocator=lru")) {
+            this.allocatorStrategy = ASMRegisterAllocator.Strategy.LRU;
+        }
+        else if (option.equals("--allocator=linear")) {
+            this.allocatorStrategy = ASMRegisterAllocator.Strategy.LINEAR_SCAN;
+        }
+        else if (option.equals("--allocator=coloring")) {
+            this.allocatorStrategy = ASMRegisterAllocator.Strategy.GRAPH_COLORING;
+        }
+        else if (option.equals("--callee-saved")) {
+            this.calleeSaved = true;
+        }
+        else if (option.equals("--ir")) {
+            this.intermediate = true;
+        }
+        else if (option.equals("--dump-ir")) {
+            this.intermediate = true;
+            this.dumpIntermediate = true;
+        }
+        else if (option.equals("--sccp")) {
+            this.constantPropagation = true;
+        }
+        else {
+            return false;
+        }
+
+        return true;
+    }
+
+    public boolean isBinary() {
+        return this.binary;
+    }
+
+    public Compiler newCompiler() {
+        Compiler compiler = new Compiler();
+        compiler.setBinary(this.binary);
+        compiler.setAllocatorStrategy(this.allocatorStrategy);
+        compiler.setCalleeSaved(this.calleeSaved);
+        compiler.setIntermediate(this.intermediate, this.dumpIntermediate);
+        compiler.setConstantPropagation(this.constantPropagation);
+
+        return compiler;
+    }
+}
@@ -0,0 +1,487 @@
+package compiler;
+
+import grammar.gen.VYPeParserParser;
+import org.antlr.v4.runtime.RuntimeMetaData;
+import org.antlr.v4.runtime.atn.*;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.dfa.DFAState;
+import util.Constant;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*************************************************************
+ * Filename: DFACache.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// persists the prediction DFA which the parser learns while parsing, the DFA is static in the generated parser,
+// so the preloaded states are shared by all the parsers of the process
+// file: header, prediction context table, semantic context table, states and edges of every decision
+public class DFACache {
+    public static final String FILENAME = "vype.dfa";
+
+    private static final int MAGIC = 0x56444641;
+    private static final int FORMAT_VERSION = 1;
+
+    // reserved table ids
+    private static final int NULL_ID = -1;
+    private static final int ERROR_ID = -2;
+    private static final int EMPTY_ID = 0;
+    private static final int NONE_ID = 0;
+
+    private static final int SINGLETON_CONTEXT = 1;
+    private static final int ARRAY_CONTEXT = 2;
+
+    private static final int PREDICATE = 1;
+    private static final int PRECEDENCE_PREDICATE = 2;
+    private static final int AND = 3;
+    private static final int OR = 4;
+
+    // conflicting alternatives are not accessible outside of the ATN package, they are recomputed from the configs
+    private static class LoadedConfigSet extends ATNConfigSet {
+        LoadedConfigSet() {
+            super(false);
+        }
+
+        void setConflictingAlts() {
+            this.conflictingAlts = PredictionMode.getAlts(PredictionMode.getConflictingAltSubsets(this));
+        }
+    }
+
+    // cache next to vype.jar (or in the directory with the classes), null if the location is unknown
+    public static Path getDefaultPath() {
+        CodeSource source = DFACache.class.getProtectionDomain().getCodeSource();
+        if (source == null) {
+            return null;
+        }
+
+        try {
+            Path location = Paths.get(source.getLocation().toURI());
+            return Files.isDirectory(location) ? location.resolve(FILENAME) : location.resolveSibling(FILENAME);
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    //  --- TRAINING ---
+    // parses the sources and saves the learned DFA, returns one of the Constant error codes
+    public static int train(List<Path> sources, Path cache) {
+        Compiler compiler = new Compiler();
+
+        // invalid sources train the error paths, their result does not matter
+        for (Path source : sources) {
+            compiler.parseFile(source.toString());
+        }
+
+        try {
+            save(cache);
+        } catch (IOException e) {
+            System.err.print("DFA cache " + cache + " can not be written!\n");
+            return Constant.INTERNAL_ERROR;
+        }
+
+        return Constant.NO_ERROR;
+    }
+
+    //  --- SAVING ---
+    public static void save(Path file) throws IOException {
+        DFA[] decisionToDFA = getDecisionToDFA();
+        Map<PredictionContext, Integer> contexts = new IdentityHashMap<>();
+        Map<SemanticContext, Integer> semanticContexts = new IdentityHashMap<>();
+        List<PredictionContext> contextList = new ArrayList<>();
+        List<SemanticContext> semanticContextList = new ArrayList<>();
+
+        // tables are ordered so that every entry follows the entries it refers to
+        for (DFA dfa : decisionToDFA) {
+            for (DFAState state : getStates(dfa)) {
+                for (ATNConfig config : state.configs) {
+                    collectContext(config.context, contexts, contextList);
+                    collectSemanticContext(config.semanticContext, semanticContexts, semanticContextList);
+                }
+                if (state.predicates != null) {
+                    for (DFAState.PredPrediction prediction : state.predicates) {
+                        collectSemanticContext(prediction.pred, semanticContexts, semanticContextList);
+                    }
+                }
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(RuntimeMetaData.VERSION);
+            out.writeInt(VYPeParserParser._serializedATN.hashCode());
+            out.writeInt(decisionToDFA.length);
+
+            out.writeInt(contextList.size());
+            for (PredictionContext context : contextList) {
+                writeContext(out, context, contexts);
+            }
+
+            out.writeInt(semanticContextList.size());
+            for (SemanticContext semanticContext : semanticContextList) {
+                writeSemanticContext(out, semanticContext, semanticContexts);
+            }
+
+            for (DFA dfa : decisionToDFA) {
+                writeDFA(out, dfa, contexts, semanticContexts);
+            }
+        }
+    }
+
+    // all the states of the DFA, the start state of a precedence DFA is not in the state map
+    private static List<DFAState> getStates(DFA dfa) {
+        List<DFAState> states = new ArrayList<>(dfa.states.values());
+
+        if (dfa.isPrecedenceDfa() && dfa.s0 != null) {
+            states.add(dfa.s0);
+        }
+
+        return states;
+    }
+
+    private static void collectContext(PredictionContext context, Map<PredictionContext, Integer> ids,
+                                       List<PredictionContext> list) {
+        if (context == null || context.isEmpty() || ids.containsKey(context)) {
+            return;
+        }
+
+        for (int i = 0; i < context.size(); i++) {
+            collectContext(context.getParent(i), ids, list);
+        }
+
+        // id 0 is reserved for the empty context
+        list.add(context);
+        ids.put(context, list.size());
+    }
+
+    private static void collectSemanticContext(SemanticContext context, Map<SemanticContext, Integer> ids,
+                                               List<SemanticContext> list) {
+        if (context == SemanticContext.NONE || ids.containsKey(context)) {
+            return;
+        }
+
+        if (context instanceof SemanticContext.AND) {
+            for (SemanticContext operand : ((SemanticContext.AND) context).opnds) {
+                collectSemanticContext(operand, ids, list);
+            }
+        }
+        else if (context instanceof SemanticContext.OR) {
+            for (SemanticContext operand : ((SemanticContext.OR) context).opnds) {
+                collectSemanticContext(operand, ids, list);
+            }
+        }
+
+        // id 0 is reserved for no semantic context
+        list.add(context);
+        ids.put(context, list.size());
+    }
+
+    private static int getContextId(PredictionContext context, Map<PredictionContext, Integer> ids) {
+        if (context == null) {
+            return NULL_ID;
+        }
+
+        return context.isEmpty() ? EMPTY_ID : ids.get(context);
+    }
+
+    private static int getSemanticContextId(SemanticContext context, Map<SemanticContext, Integer> ids) {
+        return (context == SemanticContext.NONE) ? NONE_ID : ids.get(context);
+    }
+
+    private static void writeContext(DataOutputStream out, PredictionContext context,
+                                     Map<PredictionContext, Integer> ids) throws IOException {
+        if (context instanceof SingletonPredictionContext) {
+            out.writeByte(SINGLETON_CONTEXT);
+        }
+        else {
+            out.writeByte(ARRAY_CONTEXT);
+            out.writeInt(context.size());
+        }
+
+        for (int i = 0; i < context.size(); i++) {
+            out.writeInt(getContextId(context.getParent(i), ids));
+            out.writeInt(context.getReturnState(i));
+        }
+    }
+
+    private static void writeSemanticContext(DataOutputStream out, SemanticContext context,
+                                             Map<SemanticContext, Integer> ids) throws IOException {
+        if (context instanceof SemanticContext.Predicate) {
+            SemanticContext.Predicate predicate = (SemanticContext.Predicate) context;
+            out.writeByte(PREDICATE);
+            out.writeInt(predicate.ruleIndex);
+            out.writeInt(predicate.predIndex);
+            out.writeBoolean(predicate.isCtxDependent);
+        }
+        else if (context instanceof SemanticContext.PrecedencePredicate) {
+            out.writeByte(PRECEDENCE_PREDICATE);
+            out.writeInt(((SemanticContext.PrecedencePredicate) context).precedence);
+        }
+        else {
+            boolean and = context instanceof SemanticContext.AND;
+            SemanticContext[] operands = and ? ((SemanticContext.AND) context).opnds : ((SemanticContext.OR) context).opnds;
+
+            out.writeByte(and ? AND : OR);
+            out.writeInt(operands.length);
+            for (SemanticContext operand : operands) {
+                out.writeInt(getSemanticContextId(operand, ids));
+            }
+        }
+    }
+
+    private static void writeDFA(DataOutputStream out, DFA dfa, Map<PredictionContext, Integer> contexts,
+                                 Map<SemanticContext, Integer> semanticContexts) throws IOException {
+        List<DFAState> states = getStates(dfa);
+        Map<DFAState, Integer> ids = new IdentityHashMap<>();
+
+        for (DFAState state : states) {
+            ids.put(state, ids.size());
+        }
+
+        out.writeBoolean(dfa.isPrecedenceDfa());
+        out.writeInt(states.size());
+        out.writeInt((dfa.s0 == null) ? NULL_ID : ids.get(dfa.s0));
+
+        for (DFAState state : states) {
+            out.writeInt(state.stateNumber);
+            out.writeBoolean(state.isAcceptState);
+            out.writeInt(state.prediction);
+            out.writeBoolean(state.requiresFullContext);
+
+            out.writeInt(state.configs.uniqueAlt);
+            out.writeInt(state.configs.size());
+            for (ATNConfig config : state.configs) {
+                out.writeInt(config.state.stateNumber);
+                out.writeInt(config.alt);
+                out.writeInt(getContextId(config.context, contexts));
+                out.writeInt(getSemanticContextId(config.semanticContext, semanticContexts));
+                out.writeInt(config.reachesIntoOuterContext);
+            }
+
+            out.writeInt((state.predicates == null) ? NULL_ID : state.predicates.length);
+            if (state.predicates != null) {
+                for (DFAState.PredPrediction prediction : state.predicates) {
+                    out.writeInt(getSemanticContextId(prediction.pred, semanticContexts));
+                    out.writeInt(prediction.alt);
+                }
+            }
+        }
+
+        // edges are written after all the states, they may point forward
+        for (DFAState state : states) {
+            out.writeInt((state.edges == null) ? NULL_ID : state.edges.length);
+            if (state.edges == null) {
+                continue;
+            }
+
+            int edgeCnt = 0;
+            for (DFAState target : state.edges) {
+                edgeCnt += (target != null) ? 1 : 0;
+            }
+
+            out.writeInt(edgeCnt);
+            for (int i = 0; i < state.edges.length; i++) {
+                DFAState target = state.edges[i];
+                if (target != null) {
+                    out.writeInt(i);
+                    out.writeInt((target == ATNSimulator.ERROR) ? ERROR_ID : ids.get(target));
+                }
+            }
+        }
+    }
+
+    //  --- LOADING ---
+    // preloads the cache into the parser DFA, false if the cache is missing or it does not match the parser,
+    // the DFA is replaced only when the whole cache has been read
+    public static boolean load(Path file) {
+        if (file == null || !Files.isRegularFile(file)) {
+            return false;
+        }
+
+        DFA[] decisionToDFA = getDecisionToDFA();
+        DFA[] loaded = new DFA[decisionToDFA.length];
+        ATN atn = VYPeParserParser._ATN;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            // the DFA is valid only for the same grammar and the same runtime
+            if (in.readInt() != MAGIC
+                    || in.readInt() != FORMAT_VERSION
+                    || !in.readUTF().equals(RuntimeMetaData.VERSION)
+                    || in.readInt() != VYPeParserParser._serializedATN.hashCode()
+                    || in.readInt() != decisionToDFA.length) {
+                return false;
+            }
+
+            PredictionContext[] contexts = new PredictionContext[in.readInt() + 1];
+            contexts[EMPTY_ID] = PredictionContext.EMPTY;
+            for (int i = 1; i < contexts.length; i++) {
+                contexts[i] = readContext(in, contexts);
+            }
+
+            SemanticContext[] semanticContexts = new SemanticContext[in.readInt() + 1];
+            semanticContexts[NONE_ID] = SemanticContext.NONE;
+            for (int i = 1; i < semanticContexts.length; i++) {
+                semanticContexts[i] = readSemanticContext(in, semanticContexts);
+            }
+
+            for (int decision = 0; decision < loaded.length; decision++) {
+                loaded[decision] = readDFA(in, atn, decision, contexts, semanticContexts);
+                if (loaded[decision] == null) {
+                    return false;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // corrupted cache, parsing starts with the empty DFA
+            return false;
+        }
+
+        System.arraycopy(loaded, 0, decisionToDFA, 0, loaded.length);
+
+        return true;
+    }
+
+    private static PredictionContext readContext(DataInputStream in, PredictionContext[] table) throws IOException {
+        int type = in.readByte();
+        int size = (type == SINGLETON_CONTEXT) ? 1 : in.readInt();
+        PredictionContext[] parents = new PredictionContext[size];
+        int[] returnStates = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            int parent = in.readInt();
+            parents[i] = (parent == NULL_ID) ? null : table[parent];
+            returnStates[i] = in.readInt();
+        }
+
+        if (type == SINGLETON_CONTEXT) {
+            return SingletonPredictionContext.create(parents[0], returnStates[0]);
+        }
+
+        return new ArrayPredictionContext(parents, returnStates);
+    }
+
+    private static SemanticContext readSemanticContext(DataInputStream in, SemanticContext[] table) throws IOException {
+        int type = in.readByte();
+
+        switch (type) {
+            case PREDICATE:
+                int ruleIndex = in.readInt();
+                int predIndex = in.readInt();
+                return new SemanticContext.Predicate(ruleIndex, predIndex, in.readBoolean());
+            case PRECEDENCE_PREDICATE:
+                return new SemanticContext.PrecedencePredicate(in.readInt());
+            default:
+                // operators are built again, so the operands are ordered and reduced by the runtime
+                int operandCnt = in.readInt();
+                SemanticContext result = null;
+                for (int i = 0; i < operandCnt; i++) {
+                    SemanticContext operand = table[in.readInt()];
+                    if (result == null) {
+                        result = operand;
+                    }
+                    else {
+                        result = (type == AND) ? SemanticContext.and(result, operand) : SemanticContext.or(result, operand);
+                    }
+                }
+                return result;
+        }
+    }
+
+    // null if the DFA does not match the decision
+    private static DFA readDFA(DataInputStream in, ATN atn, int decision, PredictionContext[] contexts,
+                               SemanticContext[] semanticContexts) throws IOException {
+        DFA dfa = new DFA(atn.getDecisionState(decision), decision);
+        if (in.readBoolean() != dfa.isPrecedenceDfa()) {
+            return null;
+        }
+
+        DFAState[] states = new DFAState[in.readInt()];
+        int start = in.readInt();
+
+        for (int i = 0; i < states.length; i++) {
+            int stateNumber = in.readInt();
+            boolean isAcceptState = in.readBoolean();
+            int prediction = in.readInt();
+            boolean requiresFullContext = in.readBoolean();
+
+            LoadedConfigSet configs = new LoadedConfigSet();
+            int uniqueAlt = in.readInt();
+            int configCnt = in.readInt();
+            for (int j = 0; j < configCnt; j++) {
+                ATNState atnState = atn.states.get(in.readInt());
+                int alt = in.readInt();
+                PredictionContext context = contexts[in.readInt()];
+                ATNConfig config = new ATNConfig(atnState, alt, context, semanticContexts[in.readInt()]);
+                config.reachesIntoOuterContext = in.readInt();
+                configs.add(config);
+            }
+            configs.uniqueAlt = uniqueAlt;
+            if (requiresFullContext) {
+                configs.setConflictingAlts();
+            }
+            configs.setReadonly(true);
+
+            DFAState state = new DFAState(configs);
+            state.stateNumber = stateNumber;
+            state.isAcceptState = isAcceptState;
+            state.prediction = prediction;
+            state.requiresFullContext = requiresFullContext;
+
+            int predicateCnt = in.readInt();
+            if (predicateCnt != NULL_ID) {
+                state.predicates = new DFAState.PredPrediction[predicateCnt];
+                for (int j = 0; j < predicateCnt; j++) {
+                    SemanticContext predicate = semanticContexts[in.readInt()];
+                    state.predicates[j] = new DFAState.PredPrediction(predicate, in.readInt());
+                }
+            }
+
+            states[i] = state;
+        }
+
+        for (DFAState state : states) {
+            int edgeLength = in.readInt();
+            if (edgeLength == NULL_ID) {
+                continue;
+            }
+
+            state.edges = new DFAState[edgeLength];
+            int edgeCnt = in.readInt();
+            for (int j = 0; j < edgeCnt; j++) {
+                int symbol = in.readInt();
+                int target = in.readInt();
+                state.edges[symbol] = (target == ERROR_ID) ? ATNSimulator.ERROR : states[target];
+            }
+        }
+
+        for (int i = 0; i < states.length; i++) {
+            // start state of a precedence DFA stays outside of the state map
+            if (!(dfa.isPrecedenceDfa() && i == start)) {
+                dfa.states.put(states[i], states[i]);
+            }
+        }
+        if (start != NULL_ID) {
+            dfa.s0 = states[start];
+        }
+
+        return dfa;
+    }
+
+    private static DFA[] getDecisionToDFA() {
+        // the DFA array is static, any parser instance gives access to it
+        return new VYPeParserParser(null).getInterpreter().decisionToDFA;
+    }
+}
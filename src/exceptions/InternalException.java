@@ -0,0 +1,19 @@
+package exceptions;
+
+/*************************************************************
+ * Filename: InternalException.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// error of the compiler itself, only the current compilation fails
+public class InternalException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public InternalException(String msg){
+        super(msg);
+    }
+}
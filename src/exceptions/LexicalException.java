@@ -0,0 +1,18 @@
+package exceptions;
+
+/*************************************************************
+ * Filename: LexicalException.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+public class LexicalException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public LexicalException(String msg){
+        super(msg);
+    }
+}
@@ -0,0 +1,19 @@
+package exceptions;
+
+/*************************************************************
+ * Filename: MemoryException.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// program does not fit the memory map of the simulator, only the current compilation fails
+public class MemoryException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public MemoryException(String msg){
+        super(msg);
+    }
+}
@@ -0,0 +1,19 @@
+package exceptions;
+
+/*************************************************************
+ * Filename: OutputException.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// output file cannot be written, only the current compilation fails
+public class OutputException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public OutputException(String msg){
+        super(msg);
+    }
+}
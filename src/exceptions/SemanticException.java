@@ -10,6 +10,8 @@ package exceptions;
  *************************************************************/
 
 public class SemanticException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
     public SemanticException(String msg){
         super(msg);
     }
@@ -0,0 +1,49 @@
+package grammar.custom;
+
+import asm.ASMProgram;
+import grammar.gen.VYPeParserBaseVisitor;
+import grammar.gen.VYPeParserParser;
+import ir.IRBuilder;
+
+/*************************************************************
+ * Filename: VYPeBlockIR.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+public class VYPeBlockIR extends VYPeParserBaseVisitor<Void> {
+    ASMProgram program;
+    IRBuilder builder;
+    boolean isFunctionBody;
+
+    public VYPeBlockIR(ASMProgram program, IRBuilder builder) {
+        this(program, builder, false);
+    }
+
+    public VYPeBlockIR(ASMProgram program, IRBuilder builder, boolean isBody) {
+        this.program = program;
+        this.builder = builder;
+        this.isFunctionBody = isBody;
+    }
+
+    @Override
+    public Void visitBlock_statements(VYPeParserParser.Block_statementsContext ctx) {
+        // the parameters share the scope with the function body
+        if (!this.isFunctionBody) {
+            this.builder.newScope();
+        }
+
+        for (VYPeParserParser.StatementContext s : ctx.statement()) {
+            new VYPeStatementIR(this.program, this.builder).visit(s.getChild(0));
+        }
+
+        if (!this.isFunctionBody) {
+            this.builder.killScope();
+        }
+
+        return null;
+    }
+}
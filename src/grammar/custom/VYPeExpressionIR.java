@@ -0,0 +1,174 @@
+package grammar.custom;
+
+import asm.ASMProgram;
+import grammar.gen.VYPeParserBaseVisitor;
+import grammar.gen.VYPeParserParser;
+import ir.IRBuilder;
+import ir.IRInstruction;
+import ir.IRValue;
+import util.Constant;
+import util.Utility;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*************************************************************
+ * Filename: VYPeExpressionIR.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// every operation gets a new temporary, the variables are used as they are
+public class VYPeExpressionIR extends VYPeParserBaseVisitor<IRValue> {
+
+    ASMProgram program;
+    IRBuilder builder;
+
+    public VYPeExpressionIR(ASMProgram program, IRBuilder builder) {
+        this.program = program;
+        this.builder = builder;
+    }
+
+    private IRValue genBinary(IRInstruction.OpCode opCode, VYPeParserParser.ExpressionContext left,
+                              VYPeParserParser.ExpressionContext right) {
+        IRValue valueLeft = new VYPeExpressionIR(this.program, this.builder).visit(left);
+        IRValue valueRight = new VYPeExpressionIR(this.program, this.builder).visit(right);
+        IRValue valueDst = this.builder.getTempValue(Constant.Type.INT);
+
+        this.builder.add(IRInstruction.binary(opCode, valueDst, valueLeft, valueRight));
+
+        return valueDst;
+    }
+
+    @Override
+    public IRValue visitExpressionLabel(VYPeParserParser.ExpressionLabelContext ctx) {
+        return visit(ctx.expression());
+    }
+
+    @Override
+    public IRValue visitPlusMinusLabel(VYPeParserParser.PlusMinusLabelContext ctx) {
+        IRInstruction.OpCode opCode = ctx.op.getText().equals("+") ? IRInstruction.OpCode.ADD : IRInstruction.OpCode.SUB;
+
+        return this.genBinary(opCode, ctx.expression(0), ctx.expression(1));
+    }
+
+    @Override
+    public IRValue visitMulDivModLabel(VYPeParserParser.MulDivModLabelContext ctx) {
+        String op = ctx.op.getText();
+        IRInstruction.OpCode opCode = IRInstruction.OpCode.MOD;
+
+        if (op.equals("*")) {
+            opCode = IRInstruction.OpCode.MUL;
+        }
+        else if (op.equals("/")) {
+            opCode = IRInstruction.OpCode.DIV;
+        }
+
+        return this.genBinary(opCode, ctx.expression(0), ctx.expression(1));
+    }
+
+    @Override
+    public IRValue visitGreaterLowerLabel(VYPeParserParser.GreaterLowerLabelContext ctx) {
+        String op = ctx.op.getText();
+        IRInstruction.OpCode opCode = IRInstruction.OpCode.GE;
+
+        if (op.equals("<")) {
+            opCode = IRInstruction.OpCode.LT;
+        }
+        else if (op.equals("<=")) {
+            opCode = IRInstruction.OpCode.LE;
+        }
+        else if (op.equals(">")) {
+            opCode = IRInstruction.OpCode.GT;
+        }
+
+        return this.genBinary(opCode, ctx.expression(0), ctx.expression(1));
+    }
+
+    @Override
+    public IRValue visitEqualLabel(VYPeParserParser.EqualLabelContext ctx) {
+        IRInstruction.OpCode opCode = ctx.op.getText().equals("==") ? IRInstruction.OpCode.EQ : IRInstruction.OpCode.NE;
+
+        return this.genBinary(opCode, ctx.expression(0), ctx.expression(1));
+    }
+
+    @Override
+    public IRValue visitAndLabel(VYPeParserParser.AndLabelContext ctx) {
+        return this.genBinary(IRInstruction.OpCode.AND, ctx.expression(0), ctx.expression(1));
+    }
+
+    @Override
+    public IRValue visitOrLabel(VYPeParserParser.OrLabelContext ctx) {
+        return this.genBinary(IRInstruction.OpCode.OR, ctx.expression(0), ctx.expression(1));
+    }
+
+    @Override
+    public IRValue visitNegationLabel(VYPeParserParser.NegationLabelContext ctx) {
+        IRValue valueOp = new VYPeExpressionIR(this.program, this.builder).visit(ctx.expression());
+        IRValue valueDst = this.builder.getTempValue(Constant.Type.INT);
+
+        this.builder.add(IRInstruction.unary(IRInstruction.OpCode.NOT, valueDst, valueOp));
+
+        return valueDst;
+    }
+
+    @Override
+    public IRValue visitIntLiteralLabel(VYPeParserParser.IntLiteralLabelContext ctx) {
+        IRValue valueDst = this.builder.getTempValue(Constant.Type.INT);
+        this.builder.add(IRInstruction.constant(valueDst, Integer.valueOf(ctx.getText())));
+
+        return valueDst;
+    }
+
+    @Override
+    public IRValue visitCharLiteralLabel(VYPeParserParser.CharLiteralLabelContext ctx) {
+        IRValue valueDst = this.builder.getTempValue(Constant.Type.CHAR);
+        this.builder.add(IRInstruction.constant(valueDst, Utility.getCharValue(ctx.getText())));
+
+        return valueDst;
+    }
+
+    @Override
+    public IRValue visitStringLiteralLabel(VYPeParserParser.StringLiteralLabelContext ctx) {
+        IRValue valueDst = this.builder.getTempValue(Constant.Type.STRING);
+        this.builder.add(IRInstruction.string(valueDst, ctx.getText()));
+
+        return valueDst;
+    }
+
+    @Override
+    public IRValue visitIdentifierLabel(VYPeParserParser.IdentifierLabelContext ctx) {
+        return this.builder.checkVariable(ctx.getText());
+    }
+
+    // result is null for the void functions
+    @Override
+    public IRValue visitFunction_call(VYPeParserParser.Function_callContext ctx) {
+        String name = ctx.getChild(0).getText();
+        List<IRValue> arguments = new ArrayList<>();
+
+        for (int i = 2, len = ctx.getChildCount() - 1; i < len; i += 2) {
+            arguments.add(new VYPeExpressionIR(this.program, this.builder).visit(ctx.getChild(i)));
+        }
+
+        Constant.Type type = this.program.getFunctionReturnType(name);
+        IRValue valueDst = (type != Constant.Type.VOID) ? this.builder.getTempValue(type) : null;
+        this.builder.add(IRInstruction.call(valueDst, name, arguments));
+
+        return valueDst;
+    }
+
+    @Override
+    public IRValue visitCastingLabel(VYPeParserParser.CastingLabelContext ctx) {
+        Constant.Type castType = Utility.getType(ctx.getChild(1).getText());
+
+        IRValue valueOp = new VYPeExpressionIR(this.program, this.builder).visit(ctx.expression());
+        IRValue valueDst = this.builder.getTempValue(castType);
+        this.builder.add(IRInstruction.unary(IRInstruction.OpCode.CAST, valueDst, valueOp));
+
+        return valueDst;
+    }
+}
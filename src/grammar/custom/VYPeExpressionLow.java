@@ -1,13 +1,13 @@
 package grammar.custom;
 
 import asm.*;
+import exceptions.InternalException;
 import exceptions.SemanticException;
 import grammar.gen.VYPeParserBaseVisitor;
 import grammar.gen.VYPeParserParser;
 import util.Constant;
 import util.ISA;
 import util.Utility;
-import values.Value;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -45,6 +45,10 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
         VYPeExpressionLow lowRight = new VYPeExpressionLow(this.program, this.regAlloc);
         ASMVariable varResRight = lowRight.visit(ctx.expression(1));
 
+        return this.genPlusMinus(op, varResLeft, varResRight);
+    }
+
+    public ASMVariable genPlusMinus(String op, ASMVariable varResLeft, ASMVariable varResRight) {
         ASMVariable varDst = this.regAlloc.getTempVar();
         ASMRegister regOp1 = this.regAlloc.getRegister(varResLeft);
         ASMRegister regOp2 = this.regAlloc.getRegister(varResRight);
@@ -57,8 +61,7 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
             this.program.addInstruction(ISA.ASMOpCode.SUB, regDst, regOp1, regOp2);
         }
         else {
-            System.err.print("Unreachable\n");
-            System.exit(Constant.INTERNAL_ERROR);
+            throw new InternalException("Unreachable");
         }
 
         this.regAlloc.killVariable(varResLeft);
@@ -76,6 +79,10 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
         VYPeExpressionLow lowRight = new VYPeExpressionLow(this.program, this.regAlloc);
         ASMVariable varResRight = lowRight.visit(ctx.expression(1));
 
+        return this.genMulDivMod(op, varResLeft, varResRight);
+    }
+
+    public ASMVariable genMulDivMod(String op, ASMVariable varResLeft, ASMVariable varResRight) {
         ASMVariable varDst = this.regAlloc.getTempVar();
         ASMRegister regDst; // better locality of spilling
         ASMRegister regOp1 = this.regAlloc.getRegister(varResLeft);
@@ -103,8 +110,7 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
             this.program.addInstruction(ISA.ASMOpCode.MFHI, regDst);
         }
         else {
-            System.err.print("Unreachable\n");
-            System.exit(Constant.INTERNAL_ERROR);
+            throw new InternalException("Unreachable");
         }
 
         return varDst;
@@ -117,12 +123,16 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
         VYPeExpressionLow lowLeft = new VYPeExpressionLow(this.program, this.regAlloc);
         ASMVariable varResLeft = lowLeft.visit(ctx.expression(0));
 
-        VYPePrintVisitor visitor = new VYPePrintVisitor(this.program.getFunctionTable(), this.regAlloc);
-        Constant.Type type =  visitor.getExpressionType(ctx.expression(0));
+        Constant.Type type = this.program.getExpressionType(ctx.expression(0));
 
         VYPeExpressionLow lowRight = new VYPeExpressionLow(this.program, this.regAlloc);
         ASMVariable varResRight = lowRight.visit(ctx.expression(1));
 
+        return this.genGreaterLower(op, type, varResLeft, varResRight);
+    }
+
+    // type of the operands decides between the integer and the string comparison
+    public ASMVariable genGreaterLower(String op, Constant.Type type, ASMVariable varResLeft, ASMVariable varResRight) {
         ASMVariable varDst = this.regAlloc.getTempVar();
 
         if (op.equals(">") || op.equals(">=")) {
@@ -152,18 +162,18 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
                 ASMLabel labNotEqual = this.program.getTempLabel();
                 ASMImmediate imm = new ASMImmediate(1);
 
-                this.program.addInstruction(ISA.ASMOpCode.BEQ, regOp1, regOp2, labEqual);
+                // spill of the result is done before the branch, so both paths see it
                 regDst = this.regAlloc.getRegister(varDst);
-                this.program.addInstruction(ISA.ASMOpCode.SLT, regDst, regOp1, regOp2);
                 this.regAlloc.killVariable(varResLeft);
                 this.regAlloc.killVariable(varResRight);
+                this.program.addInstruction(ISA.ASMOpCode.BEQ, regOp1, regOp2, labEqual);
+                this.program.addInstruction(ISA.ASMOpCode.SLT, regDst, regOp1, regOp2);
                 this.program.addInstruction(ISA.ASMOpCode.J, labNotEqual);
                 this.program.addLabel(labEqual);
                 this.program.addInstruction(ISA.ASMOpCode.MOVSI, regDst, imm);
                 this.program.addLabel(labNotEqual);
             } else {
-                System.err.print("Unreachable\n");
-                System.exit(Constant.INTERNAL_ERROR);
+                throw new InternalException("Unreachable");
             }
         }
         else if (type == Constant.Type.STRING) {
@@ -174,13 +184,11 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
                 varDst = this.compareStrings(varResLeft, varResRight, 0, 1, 1);
             }
             else {
-                System.err.print("Unreachable\n");
-                System.exit(Constant.INTERNAL_ERROR);
+                throw new InternalException("Unreachable");
             }
         }
         else {
-            System.err.print("Unreachable\n");
-            System.exit(Constant.INTERNAL_ERROR);
+            throw new InternalException("Unreachable");
         }
 
         return varDst;
@@ -200,7 +208,15 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
         ASMRegister regChar1 = this.regAlloc.getRegister(varChar1);
         ASMRegister regChar2 = this.regAlloc.getRegister(varChar2);
         ASMRegister regZero = this.regAlloc.getZeroReg();
-        ASMRegister regRes;
+        // the temporaries are read by the loop only, the spill of the result is done before the loop
+        this.regAlloc.killVariable(varChar1);
+        this.regAlloc.killVariable(varChar2);
+        this.regAlloc.killVariable(varPtr1);
+        this.regAlloc.killVariable(varPtr2);
+        ASMRegister regRes = this.regAlloc.getRegister(varRes);
+        // operands are copied into the pointers first
+        this.regAlloc.killVariable(varOp1);
+        this.regAlloc.killVariable(varOp2);
 
         ASMImmediate immZero = new ASMImmediate(0);
         ASMImmediate immOne = new ASMImmediate(1);
@@ -227,17 +243,12 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
         this.program.addInstruction(ISA.ASMOpCode.BGTZ, regChar1, labOp1Gr);
         // op2 is greater
         this.program.addInstruction(ISA.ASMOpCode.BLTZ, regChar1, labOp2Gr);
-        this.regAlloc.killVariable(varChar1);
         // is it end of the strings
         this.program.addInstruction(ISA.ASMOpCode.BEQ, regChar2, regZero, labEqual); // char1 is diff, char2 is the value
-        this.regAlloc.killVariable(varChar2);
         this.program.addInstruction(ISA.ASMOpCode.ADDU, regPtr1, immOne);
         this.program.addInstruction(ISA.ASMOpCode.ADDU, regPtr2, immOne);
-        this.regAlloc.killVariable(varPtr1);
-        this.regAlloc.killVariable(varPtr2);
         this.program.addInstruction(ISA.ASMOpCode.J, labStart);
         // store the result
-        regRes = this.regAlloc.getRegister(varRes);
         comment = "string 1 greater";
         this.program.addLabel(labOp1Gr, comment);
         this.program.addInstruction(ISA.ASMOpCode.MOVSI, regRes, immOp1Gr);
@@ -264,9 +275,12 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
         VYPeExpressionLow lowRight = new VYPeExpressionLow(this.program, this.regAlloc);
         ASMVariable varResRight = lowRight.visit(ctx.expression(1));
 
-        VYPePrintVisitor visitor = new VYPePrintVisitor(this.program.getFunctionTable(), this.regAlloc);
-        Constant.Type type =  visitor.getExpressionType(ctx.expression(0));
+        Constant.Type type = this.program.getExpressionType(ctx.expression(0));
+
+        return this.genEqual(op, type, varResLeft, varResRight);
+    }
 
+    public ASMVariable genEqual(String op, Constant.Type type, ASMVariable varResLeft, ASMVariable varResRight) {
         ASMVariable varDst = this.regAlloc.getTempVar();
 
         if (type == Constant.Type.INT || type == Constant.Type.CHAR) {
@@ -279,6 +293,10 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
             ASMImmediate immFalse = new ASMImmediate(0);
             ASMImmediate immTrue = new ASMImmediate(1);
 
+            // spill of the result is done before the branch, so both paths see it
+            this.regAlloc.killVariable(varResLeft);
+            this.regAlloc.killVariable(varResRight);
+            regDst = this.regAlloc.getRegister(varDst);
             if (op.equals("==")) {
                 this.program.addInstruction(ISA.ASMOpCode.BEQ, regOp1, regOp2, labEqual);
             }
@@ -286,12 +304,8 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
                 this.program.addInstruction(ISA.ASMOpCode.BNE, regOp1, regOp2, labEqual);
             }
             else {
-                System.err.print("Unreachable\n");
-                System.exit(Constant.INTERNAL_ERROR);
+                throw new InternalException("Unreachable");
             }
-            this.regAlloc.killVariable(varResLeft);
-            this.regAlloc.killVariable(varResRight);
-            regDst = this.regAlloc.getRegister(varDst);
             this.program.addInstruction(ISA.ASMOpCode.MOVSI, regDst, immFalse);
             this.program.addInstruction(ISA.ASMOpCode.J, labNotEqual);
             this.program.addLabel(labEqual);
@@ -306,13 +320,11 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
                 varDst = this.compareStrings(varResLeft, varResRight, 1, 1, 0);
             }
             else {
-                System.err.print("Unreachable\n");
-                System.exit(Constant.INTERNAL_ERROR);
+                throw new InternalException("Unreachable");
             }
         }
         else {
-            System.err.print("Unreachable\n");
-            System.exit(Constant.INTERNAL_ERROR);
+            throw new InternalException("Unreachable");
         }
 
         return varDst;
@@ -325,6 +337,11 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
         VYPeExpressionLow lowRight = new VYPeExpressionLow(this.program, this.regAlloc);
         ASMVariable varResRight = lowRight.visit(ctx.expression(1));
 
+        return this.genAnd(varResLeft, varResRight);
+    }
+
+    // both operands are always evaluated
+    public ASMVariable genAnd(ASMVariable varResLeft, ASMVariable varResRight) {
         ASMVariable varDst = this.regAlloc.getTempVar();
         ASMRegister regDst; // better locality of spilling
         ASMRegister regOp1 = this.regAlloc.getRegister(varResLeft);
@@ -336,11 +353,12 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
         ASMImmediate immFalse = new ASMImmediate(0);
         ASMImmediate immTrue = new ASMImmediate(1);
 
-        this.program.addInstruction(ISA.ASMOpCode.BEQ, regZero, regOp1, labFalse);
+        // spill of the result is done before the branches, so all the paths see it
         this.regAlloc.killVariable(varResLeft);
-        this.program.addInstruction(ISA.ASMOpCode.BEQ, regZero, regOp2, labFalse);
         this.regAlloc.killVariable(varResRight);
         regDst = this.regAlloc.getRegister(varDst);
+        this.program.addInstruction(ISA.ASMOpCode.BEQ, regZero, regOp1, labFalse);
+        this.program.addInstruction(ISA.ASMOpCode.BEQ, regZero, regOp2, labFalse);
         this.program.addInstruction(ISA.ASMOpCode.MOVSI, regDst, immTrue);
         this.program.addInstruction(ISA.ASMOpCode.J, labTrue);
         this.program.addLabel(labFalse);
@@ -357,6 +375,10 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
         VYPeExpressionLow lowRight = new VYPeExpressionLow(this.program, this.regAlloc);
         ASMVariable varResRight = lowRight.visit(ctx.expression(1));
 
+        return this.genOr(varResLeft, varResRight);
+    }
+
+    public ASMVariable genOr(ASMVariable varResLeft, ASMVariable varResRight) {
         ASMVariable varDst = this.regAlloc.getTempVar();
         ASMRegister regDst; // better locality of spilling
         ASMRegister regOp1 = this.regAlloc.getRegister(varResLeft);
@@ -368,11 +390,12 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
         ASMImmediate immFalse = new ASMImmediate(0);
         ASMImmediate immTrue = new ASMImmediate(1);
 
-        this.program.addInstruction(ISA.ASMOpCode.BNE, regZero, regOp1, labTrue);
+        // spill of the result is done before the branches, so all the paths see it
         this.regAlloc.killVariable(varResLeft);
-        this.program.addInstruction(ISA.ASMOpCode.BNE, regZero, regOp2, labTrue);
         this.regAlloc.killVariable(varResRight);
         regDst = this.regAlloc.getRegister(varDst);
+        this.program.addInstruction(ISA.ASMOpCode.BNE, regZero, regOp1, labTrue);
+        this.program.addInstruction(ISA.ASMOpCode.BNE, regZero, regOp2, labTrue);
         this.program.addInstruction(ISA.ASMOpCode.MOVSI, regDst, immFalse);
         this.program.addInstruction(ISA.ASMOpCode.J, labFalse);
         this.program.addLabel(labTrue);
@@ -387,6 +410,10 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
         VYPeExpressionLow lowOp = new VYPeExpressionLow(this.program, this.regAlloc);
         ASMVariable varOp = lowOp.visit(ctx.expression());
 
+        return this.genNegation(varOp);
+    }
+
+    public ASMVariable genNegation(ASMVariable varOp) {
         ASMVariable varDst = this.regAlloc.getTempVar();
         ASMRegister regDst; // better locality of spilling
         ASMRegister regOp = this.regAlloc.getRegister(varOp);
@@ -397,9 +424,10 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
         ASMImmediate immFalse = new ASMImmediate(0);
         ASMImmediate immTrue = new ASMImmediate(1);
 
-        this.program.addInstruction(ISA.ASMOpCode.BEQ, regZero, regOp, labTrue);
+        // spill of the result is done before the branch, so both paths see it
         this.regAlloc.killVariable(varOp);
         regDst = this.regAlloc.getRegister(varDst);
+        this.program.addInstruction(ISA.ASMOpCode.BEQ, regZero, regOp, labTrue);
         this.program.addInstruction(ISA.ASMOpCode.MOVSI, regDst, immFalse);
         this.program.addInstruction(ISA.ASMOpCode.J, labFalse);
         this.program.addLabel(labTrue);
@@ -413,10 +441,16 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
     public ASMVariable visitIntLiteralLabel(VYPeParserParser.IntLiteralLabelContext ctx) {
 //        System.out.print("int literal: " + ctx.getText() + "\n");
 
+        return this.genImmediate(Integer.valueOf(ctx.getText()));
+    }
+
+    // int and char literals
+    public ASMVariable genImmediate(int value) {
         ASMVariable varDst = this.regAlloc.getTempVar();
         ASMRegister regDst = this.regAlloc.getRegister(varDst);
-        ASMImmediate imm = new ASMImmediate(Integer.valueOf(ctx.getText()));
+        ASMImmediate imm = new ASMImmediate(value);
         this.program.addInstruction(ISA.ASMOpCode.MOVSI, regDst, imm);
+        this.regAlloc.setConstant(varDst, imm);
 
         return varDst;
     }
@@ -425,39 +459,25 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
     public ASMVariable visitCharLiteralLabel(VYPeParserParser.CharLiteralLabelContext ctx) {
 //        System.out.print("char literal: " + ctx.getText() + "\n");
 
-        ASMVariable varDst = this.regAlloc.getTempVar();
-        ASMRegister regDst = this.regAlloc.getRegister(varDst);
-
-        int value = (int) ctx.getText().charAt(1); // because of ''
-        if (value == '\\' && (ctx.getText().length() > 3)) {
-            value = (int) ctx.getText().charAt(2);
-            if (value == 'n') {
-                value = (int) '\n';
-            } else if (value == 't') {
-                value = (int) '\t';
-            } else if (value == '"') {
-                value = (int) '\"';
-            } else if (value == '\'') {
-                value = (int) '\'';
-            }
-        }
-        ASMImmediate imm = new ASMImmediate(value);
-        this.program.addInstruction(ISA.ASMOpCode.MOVSI, regDst, imm);
-
-        return varDst;
+        return this.genImmediate(Utility.getCharValue(ctx.getText()));
     }
 
     @Override
     public ASMVariable visitStringLiteralLabel(VYPeParserParser.StringLiteralLabelContext ctx) {
 //        System.out.print("string literal: " + ctx.getText() + "\n");
 
+        return this.genStringLiteral(ctx.getText());
+    }
+
+    // value is the literal with its quotes
+    public ASMVariable genStringLiteral(String value) {
         ASMVariable varDst = this.regAlloc.getTempVar();
         ASMRegister regDst = this.regAlloc.getRegister(varDst);
-        String value = ctx.getText();
         ASMLabel labString = this.program.getStringLabel();
         this.program.addString(labString, value);
 
         this.program.addInstruction(ISA.ASMOpCode.MOVSI, regDst, labString);
+        this.regAlloc.setConstant(varDst, labString);
 
         return varDst;
     }
@@ -541,23 +561,22 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
             this.program.addInstruction(ISA.ASMOpCode.ADDI, regGlobalPtr, regGlobalPtr, immOne);
         }
         else {
-            System.err.print("Unreachable\n");
-            System.exit(Constant.INTERNAL_ERROR);
+            throw new InternalException("Unreachable");
         }
 
         return varDst;
     }
 
-    private void genPrintFunction(String function, List<ASMVariable> parameters, List<Value> parameterTypes) {
+    private void genPrintFunction(String function, List<ASMVariable> parameters, List<Constant.Type> parameterTypes) {
         ISA.ASMOpCode op = null;
         int i = 0;
 
-        for (Value varType : parameterTypes) {
+        for (Constant.Type varType : parameterTypes) {
             ASMVariable varParam = parameters.get(i++);
             ASMRegister regParam = this.regAlloc.getRegister(varParam);
 //            System.out.print("data type: " + this.regAlloc.getVariableDataType(varParam) + "\n");
 
-            op = this.getPrintOpCode(varType.getType());
+            op = this.getPrintOpCode(varType);
             this.program.addInstruction(op, regParam);
 
             this.regAlloc.killVariable(varParam);
@@ -639,6 +658,7 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
 
         // copy the source string
         ASMVariable varString = this.copyString(varOriginal);
+        this.regAlloc.killVariable(varOriginal);
 
         ASMRegister regString = this.regAlloc.getRegister(varString);
         ASMVariable varIndex = parameters.get(1);
@@ -685,8 +705,20 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
     public ASMVariable visitFunction_call(VYPeParserParser.Function_callContext ctx) {
         String name = ctx.getChild(0).getText();
 //        System.out.print("function call: " + name + "\n");
-        ASMVariable varRes = null;
         List<ASMVariable> parameters = this.getFunctionCallParameters(name, ctx);
+        List<Constant.Type> parameterTypes = new ArrayList<>();
+        if (name.equals(ISA.Function.PRINT)) {
+            for (int i = 2, len = ctx.getChildCount() - 1; i < len; i += 2) {
+                parameterTypes.add(this.program.getExpressionType(ctx.getChild(i)));
+            }
+        }
+
+        return this.genFunctionCall(name, parameters, parameterTypes);
+    }
+
+    // parameter types are needed by print only, the result is null for print
+    public ASMVariable genFunctionCall(String name, List<ASMVariable> parameters, List<Constant.Type> parameterTypes) {
+        ASMVariable varRes = null;
 
         if (name.equals(ISA.Function.READ_CHAR) ||
                 name.equals(ISA.Function.READ_INT) ||
@@ -694,8 +726,6 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
             varRes = this.genReadFunction(name);
         }
         else if (name.equals(ISA.Function.PRINT)) {
-            VYPePrintVisitor visitor = new VYPePrintVisitor(this.program.getFunctionTable(), regAlloc);
-            List<Value> parameterTypes = visitor.getFunctionCallParameters(ctx);
             this.genPrintFunction(name, parameters, parameterTypes);
         }
         else if (name.equals(ISA.Function.GET_AT)) {
@@ -712,18 +742,20 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
             // save used registers on the stack
             regsSaved = this.regAlloc.saveRegisters();
 
+            // the first arguments are passed in the argument registers, the rest of them on the stack
             int paramCnt = parameters.size();
-            int size = ISA.REGISTER_SIZE * paramCnt;
+            int stackCnt = Math.max(paramCnt - ISA.ARGCNT, 0);
+            int size = ISA.REGISTER_SIZE * stackCnt;
             ASMImmediate immSize = new ASMImmediate(size);
             ASMRegister regStackPtr = this.regAlloc.getStackPtrReg();
 
-            if (paramCnt > 0) {
+            if (stackCnt > 0) {
                 // allocate space for the arguments on the stack
                 this.program.addInstruction(ISA.ASMOpCode.SUBU, regStackPtr, immSize);
 
                 // push arguments on the stack
-                int offset = ISA.REGISTER_SIZE * (parameters.size() - 1);
-                for (ASMVariable varParam : parameters) {
+                int offset = ISA.REGISTER_SIZE * (stackCnt - 1);
+                for (ASMVariable varParam : parameters.subList(ISA.ARGCNT, paramCnt)) {
                     ASMImmediate immOffset = new ASMImmediate(offset);
                     // spilling would break the call frame
                     ASMRegister regParam = this.regAlloc.getRegisterNoSpill(varParam);
@@ -734,6 +766,16 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
                 }
             }
 
+            // argument registers are not assigned to the variables, so nothing overwrites them before the call
+            int argIndex = 0;
+            for (ASMVariable varParam : parameters.subList(0, paramCnt - stackCnt)) {
+                ASMRegister regArg = this.regAlloc.getArgumentReg(argIndex++);
+                ASMRegister regParam = this.regAlloc.getRegisterNoSpill(varParam);
+                String comment = "param " + varParam.getText();
+                this.program.addInstruction(ISA.ASMOpCode.MOV, regArg, regParam, comment);
+                this.regAlloc.killVariable(varParam);
+            }
+
             // call the function
             ASMLabel labFunc;
             if (name.equals("main")) {
@@ -744,7 +786,7 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
             }
             this.program.addInstruction(ISA.ASMOpCode.JAL, labFunc);
 
-            if (paramCnt > 0) {
+            if (stackCnt > 0) {
                 // free the parameters from the stack
                 this.program.addInstruction(ISA.ASMOpCode.ADDU, regStackPtr, immSize);
             }
@@ -768,6 +810,11 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
 
         VYPeExpressionLow lowOp = new VYPeExpressionLow(this.program, this.regAlloc);
         ASMVariable varOp = lowOp.visit(ctx.expression());
+
+        return this.genCast(castType, varOp);
+    }
+
+    public ASMVariable genCast(Constant.Type castType, ASMVariable varOp) {
         ASMVariable varRes = this.regAlloc.getTempVar();
 
         ASMRegister regOp = this.regAlloc.getRegister(varOp);
@@ -793,9 +840,9 @@ public class VYPeExpressionLow extends VYPeParserBaseVisitor<ASMVariable> {
             // char + \0
             this.program.addInstruction(ISA.ASMOpCode.ADDU, regGlobalPtr, immTwo);
         } else {
-            System.err.print("Unreachable\n");
-            System.exit(Constant.INTERNAL_ERROR);
+            throw new InternalException("Unreachable");
         }
+        this.regAlloc.killVariable(varOp);
 
         return varRes;
     }
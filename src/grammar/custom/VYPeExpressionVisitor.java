@@ -4,6 +4,7 @@ import exceptions.SemanticException;
 import grammar.gen.VYPeParserBaseVisitor;
 import grammar.gen.VYPeParserParser;
 import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeProperty;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 import util.Constant.Type;
 import util.Utility;
@@ -28,19 +29,60 @@ import java.util.List;
 public class VYPeExpressionVisitor extends VYPeParserBaseVisitor {
     private FunctionTable functionTable;
     private SymbolTable symbolTable;
-    private String currentFunctionName;
+    // function of the checked body, null for the top level visitor
+    private Function function;
+    // order of the currently visited declaration or definition in the source
+    private int position = 0;
+    // type of every visited expression, shared by all the visitors of one function body
+    private ParseTreeProperty<Type> expressionTypes;
+    // body calls a function of the source
+    private boolean calling = false;
 
-    public VYPeExpressionVisitor(String functionName, FunctionTable functionTable, SymbolTable symbolTable) {
-        this.currentFunctionName = functionName;
+    public VYPeExpressionVisitor(FunctionTable functionTable, SymbolTable symbolTable) {
+        this(null, functionTable, symbolTable, new ParseTreeProperty<>());
+    }
+
+    public VYPeExpressionVisitor(Function function, FunctionTable functionTable, SymbolTable symbolTable, ParseTreeProperty<Type> expressionTypes) {
+        this.function = function;
         this.functionTable = functionTable;
         this.symbolTable = symbolTable;
+        this.expressionTypes = expressionTypes;
+    }
+
+    @Override
+    public Object visit(ParseTree tree) {
+        Object result = super.visit(tree);
+
+        if (tree instanceof VYPeParserParser.ExpressionContext) {
+            this.expressionTypes.put(tree, (Type) result);
+        }
+
+        return result;
     }
 
     public void doSemanticCheck(ParseTree ctx) throws SemanticException {
-        this.visit(ctx);
+        // signatures first, the bodies are checked after all the functions are known
+        RuntimeException signatureError = null;
+        try {
+            this.visit(ctx);
+        }
+        catch(RuntimeException e) {
+            signatureError = e;
+        }
+
+        // bodies before the invalid signature would be checked before its error
+        this.functionTable.checkDefinitions(this.position);
+        if(signatureError != null) {
+            throw signatureError;
+        }
+
         this.functionTable.semanticCheck();
     }
 
+    public boolean isCalling() {
+        return this.calling;
+    }
+
     public FunctionTable getFunctionTable() {
         return this.functionTable;
     }
@@ -53,7 +95,8 @@ public class VYPeExpressionVisitor extends VYPeParserBaseVisitor {
         Type returnType = Utility.getType(ctx.type().getText());
         String functionName = ctx.Identifier().getText();
         Function function = new Function(returnType, functionName, this.getParameters(ctx.param_type_list()), false);
-        this.functionTable.add(functionName, function);
+        this.functionTable.add(functionName, function, this.position);
+        this.position++;
 
         return Type.VOID;
     }
@@ -76,9 +119,9 @@ public class VYPeExpressionVisitor extends VYPeParserBaseVisitor {
     @Override public Type visitFunction_definition(VYPeParserParser.Function_definitionContext ctx) {
         Type returnType = Utility.getType(ctx.type().getText());
         String functionName = ctx.Identifier().getText();
-        this.currentFunctionName = functionName;
         Function function = new Function(returnType, functionName, this.getParameters(ctx.param_list()), ctx.block_statements(), true);
-        this.functionTable.add(functionName, function);
+        this.functionTable.add(functionName, function, this.position);
+        this.position++;
 
         //this.visit(ctx.block_statements());
         return Type.VOID;
@@ -136,13 +179,18 @@ public class VYPeExpressionVisitor extends VYPeParserBaseVisitor {
     @Override
     public Type visitFunction_call(VYPeParserParser.Function_callContext ctx) {
         String name = ctx.getChild(0).getText();
-        Function function = this.functionTable.getFunctionByName(name);
+        Function function = this.functionTable.getFunctionByName(name, this.function.getPosition());
         List<Value> parameters = this.getFunctionCallParameters(ctx);
 
         if(!function.isParameterListValid(parameters)){
             throw new SemanticException("Invalid function call parameters for function: " + name + "! Line: " + ctx.start.getLine());
         }
 
+        // embedded functions are not called, they are lowered in place
+        if(function.getPosition() >= 0) {
+            this.calling = true;
+        }
+
         return function.getReturnType();
     }
 
@@ -151,19 +199,24 @@ public class VYPeExpressionVisitor extends VYPeParserBaseVisitor {
         this.checkConditionExpression(ctx.condition_expression());
 
         // if true branch
-        VYPeExpressionVisitor visitor = this.getNewVisitor();
-        visitor.visit(ctx.block_statements(0));
+        this.visitNested(ctx.block_statements(0));
 
         // else branch
-        visitor = this.getNewVisitor();
-        visitor.visit(ctx.block_statements(1));
+        this.visitNested(ctx.block_statements(1));
 
         return Type.VOID;
     }
 
     private VYPeExpressionVisitor getNewVisitor(){
         SymbolTable table = new SymbolTable(this.symbolTable);
-        return new VYPeExpressionVisitor(this.currentFunctionName, this.functionTable, table);
+        return new VYPeExpressionVisitor(this.function, this.functionTable, table, this.expressionTypes);
+    }
+
+    // calls of the nested block belong to the checked body
+    private void visitNested(ParseTree block) {
+        VYPeExpressionVisitor visitor = this.getNewVisitor();
+        visitor.visit(block);
+        this.calling |= visitor.isCalling();
     }
 
     private void checkConditionExpression(VYPeParserParser.Condition_expressionContext ctx) {
@@ -178,15 +231,14 @@ public class VYPeExpressionVisitor extends VYPeParserBaseVisitor {
     public Type visitWhile_statement(VYPeParserParser.While_statementContext ctx) {
         this.checkConditionExpression(ctx.condition_expression());
 
-        VYPeExpressionVisitor visitor = this.getNewVisitor();
-        visitor.visit(ctx.block_statements());
+        this.visitNested(ctx.block_statements());
 
         return Type.VOID;
     }
 
     @Override
     public Type visitReturn_statement(VYPeParserParser.Return_statementContext ctx) {
-        Type functionReturnType = this.functionTable.getFunctionByName(this.currentFunctionName).getReturnType();
+        Type functionReturnType = this.function.getReturnType();
         if(functionReturnType == Type.VOID && ctx.expression() != null) {
             throw new SemanticException("Non-void return type! Line: " + ctx.start.getLine());
         }
@@ -0,0 +1,36 @@
+package grammar.custom;
+
+import exceptions.LexicalException;
+import grammar.gen.VYPeLexer;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.Token;
+import util.Constant;
+
+/*************************************************************
+ * Filename: VYPeFailFastLexer.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// lexer reporting the first invalid character as soon as it is recognized,
+// tokens are produced on demand of the parser so the input is never tokenized ahead
+public class VYPeFailFastLexer extends VYPeLexer {
+
+    public VYPeFailFastLexer(CharStream input) {
+        super(input);
+    }
+
+    @Override
+    public Token nextToken() {
+        Token token = super.nextToken();
+
+        if(token.getType() == Constant.ERROR_TYPE) {
+            throw new LexicalException("Invalid character " + token.getText() + "! Line: " + token.getLine());
+        }
+
+        return token;
+    }
+}
@@ -0,0 +1,59 @@
+package grammar.custom;
+
+import asm.ASMProgram;
+import grammar.gen.VYPeParserBaseVisitor;
+import grammar.gen.VYPeParserParser;
+import ir.IRBuilder;
+import ir.IRFunction;
+import ir.IRInstruction;
+import ir.IRValue;
+import util.Constant;
+
+import java.util.List;
+
+/*************************************************************
+ * Filename: VYPeFunctionIR.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// builds the control flow graph of the function definition, the code after the returns is dropped
+public class VYPeFunctionIR extends VYPeParserBaseVisitor<IRFunction> {
+
+    ASMProgram program;
+
+    public VYPeFunctionIR(ASMProgram program) {
+        this.program = program;
+    }
+
+    @Override
+    public IRFunction visitFunction_definition(VYPeParserParser.Function_definitionContext ctx) {
+        String functionName = ctx.Identifier().getText();
+        Constant.Type returnType = this.program.getFunctionReturnType(functionName);
+        IRBuilder builder = new IRBuilder(new IRFunction(functionName, returnType));
+
+        builder.newScope();
+        List<String> params = this.program.getFunctionParams(functionName);
+        for (int paramIndex = 0; paramIndex < params.size(); paramIndex++) {
+            builder.addParameter(params.get(paramIndex), this.program.getParamType(functionName, paramIndex));
+        }
+
+        new VYPeBlockIR(this.program, builder, true).visit(ctx.block_statements());
+
+        // default return value
+        if (!builder.isTerminated()) {
+            IRValue valueRes = null;
+            if (returnType != Constant.Type.VOID) {
+                valueRes = builder.getTempValue(returnType);
+                builder.add(IRInstruction.defaultValue(valueRes));
+            }
+            builder.add(IRInstruction.ret(valueRes));
+        }
+        builder.killScope();
+
+        return builder.finish();
+    }
+}
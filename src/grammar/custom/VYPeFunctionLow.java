@@ -29,6 +29,27 @@ public class VYPeFunctionLow extends VYPeParserBaseVisitor<Void> {
     @Override
     public Void visitFunction_definition(VYPeParserParser.Function_definitionContext ctx) {
         String functionName = ctx.Identifier().getText();
+        ASMRegisterAllocator registerAllocator = this.genPrologue(functionName);
+
+        VYPeParserParser.Block_statementsContext block = ctx.block_statements();
+
+        // true = block id function body, do not set the new scope in the block lowerer
+        VYPeBlockLow lowBody = new VYPeBlockLow(this.program, registerAllocator, true);
+        lowBody.visit(block);
+
+        // default return value
+        if (! registerAllocator.wasReturn()) {
+            this.genDefaultReturn(functionName, registerAllocator);
+        }
+
+        registerAllocator.killScope();
+        registerAllocator.finishFunction();
+
+        return null;
+    }
+
+    // label, frame pointer and the parameters in the scope of the function, the scope has to be killed by the caller
+    public ASMRegisterAllocator genPrologue(String functionName) {
         this.program.setCurrentFunction(functionName);
         if (functionName.equals("main")) {
             this.program.addLabel(functionName);
@@ -50,57 +71,60 @@ public class VYPeFunctionLow extends VYPeParserBaseVisitor<Void> {
         int paramsCnt = params.size();
 
         if (paramsCnt > 0) {
+            // the first parameters are passed in the argument registers, the rest of them on the stack
+            int stackCnt = Math.max(paramsCnt - ISA.ARGCNT, 0);
             // this should be positive, but it is stored the other way round
-            long offset = -1 * ISA.REGISTER_SIZE * (paramsCnt - 1);
+            long offset = -1 * ISA.REGISTER_SIZE * (stackCnt - 1);
             int paramIndex = 0;
             for (String param : params) {
                 Constant.Type type = this.program.getParamType(functionName, paramIndex);
-                registerAllocator.addParameter(param, type, offset);
-                offset += ISA.REGISTER_SIZE;
-                paramIndex++;
+                if (paramIndex < ISA.ARGCNT) {
+                    registerAllocator.declareVariable(param, type);
+                }
+                else {
+                    registerAllocator.addParameter(param, type, offset);
+                    offset += ISA.REGISTER_SIZE;
+                }
 
                 // move all the variables into registers - hack because of loop at the start of the body
                 ASMVariable varParam = registerAllocator.checkVariable(param);
                 ASMRegister regParam = registerAllocator.getRegister(varParam);
+                if (paramIndex < ISA.ARGCNT) {
+                    ASMRegister regArg = registerAllocator.getArgumentReg(paramIndex);
+                    this.program.addInstruction(ISA.ASMOpCode.MOV, regParam, regArg, "param " + param);
+                }
+                paramIndex++;
             }
         }
 
-        VYPeParserParser.Block_statementsContext block = ctx.block_statements();
-
-        // true = block id function body, do not set the new scope in the block lowerer
-        VYPeBlockLow lowBody = new VYPeBlockLow(this.program, registerAllocator, true);
-        lowBody.visit(block);
+        return registerAllocator;
+    }
 
+    public void genDefaultReturn(String functionName, ASMRegisterAllocator registerAllocator) {
         ASMRegister regRet = registerAllocator.getReturnAddrReg();
         ASMRegister regRetVal = registerAllocator.getReturnValReg();
-
-        // default return value
-        if (! registerAllocator.wasReturn()) {
-            Constant.Type type = this.program.getFunctionReturnType(functionName);
-            String comment = "default return val";
-
-            if (type == Constant.Type.INT || type == Constant.Type.CHAR) {
-                ASMImmediate immZero = new ASMImmediate(0);
-
-                this.program.addInstruction(ISA.ASMOpCode.MOVSI, regRetVal, immZero, comment);
-            } else if (type == Constant.Type.STRING) {
-                ASMRegister regGlobalPtr = registerAllocator.getGlobalPtrReg();
-                ASMRegister regZero = registerAllocator.getZeroReg();
-                ASMImmediate immOffset = new ASMImmediate(0);
-                ASMImmediate immOne = new ASMImmediate(1);
-
-                this.program.addInstruction(ISA.ASMOpCode.MOV, regRetVal, regGlobalPtr, comment);
-                // suppress simulator warning
-                this.program.addInstruction(ISA.ASMOpCode.SB, regZero, immOffset, regGlobalPtr);
-                this.program.addInstruction(ISA.ASMOpCode.ADDU, regGlobalPtr, immOne);
-            }
-
-            this.program.addInstruction(ISA.ASMOpCode.MOV, regStackPtr, regFramePtr);
-            this.program.addInstruction(ISA.ASMOpCode.JR, regRet);
+        ASMRegister regFramePtr = registerAllocator.getFramePtrReg();
+        ASMRegister regStackPtr = registerAllocator.getStackPtrReg();
+        Constant.Type type = this.program.getFunctionReturnType(functionName);
+        String comment = "default return val";
+
+        if (type == Constant.Type.INT || type == Constant.Type.CHAR) {
+            ASMImmediate immZero = new ASMImmediate(0);
+
+            this.program.addInstruction(ISA.ASMOpCode.MOVSI, regRetVal, immZero, comment);
+        } else if (type == Constant.Type.STRING) {
+            ASMRegister regGlobalPtr = registerAllocator.getGlobalPtrReg();
+            ASMRegister regZero = registerAllocator.getZeroReg();
+            ASMImmediate immOffset = new ASMImmediate(0);
+            ASMImmediate immOne = new ASMImmediate(1);
+
+            this.program.addInstruction(ISA.ASMOpCode.MOV, regRetVal, regGlobalPtr, comment);
+            // suppress simulator warning
+            this.program.addInstruction(ISA.ASMOpCode.SB, regZero, immOffset, regGlobalPtr);
+            this.program.addInstruction(ISA.ASMOpCode.ADDU, regGlobalPtr, immOne);
         }
 
-        registerAllocator.killScope();
-
-        return null;
+        this.program.addInstruction(ISA.ASMOpCode.MOV, regStackPtr, regFramePtr);
+        this.program.addInstruction(ISA.ASMOpCode.JR, regRet);
     }
 }
@@ -0,0 +1,437 @@
+package grammar.custom;
+
+import asm.*;
+import exceptions.InternalException;
+import ir.*;
+import util.Constant;
+import util.ISA;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/*************************************************************
+ * Filename: VYPeIRLow.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// lowers the IR of a function by the same templates as the parse tree, the blocks are laid out in their order.
+// A temporary used once in its own block is the temporary of the template which computes it, it is killed by
+// the template which uses it. The other values are the variables of the function scope, they are killed after their
+// last use in the layout or at the end of the last block they are live out of. A variable defined only by an
+// immediate is loaded again instead of being spilled, the lru code loads it by every use and keeps no register for it. The locations of the variables are saved at the start of every
+// block by the first jump or fall through to it, the others store, move and reload the variables into them first.
+public class VYPeIRLow {
+
+    ASMProgram program;
+    ASMRegisterAllocator regAlloc;
+    VYPeExpressionLow exprLow;
+    VYPeStatementLow statLow;
+
+    private IRFunction function;
+    // variables of the values by their ids, the bound temporaries get them when they are computed
+    private ASMVariable[] variables;
+    private boolean[] bound;
+    private int[] useCnt;
+    private int[] defCnt;
+    private ASMLabel[] labels;
+    // locations of the variables at the start of the blocks, null until the block is reached
+    private ASMRegisterAllocator.State[] states;
+    // variables killed after the instruction by its position in the layout
+    private List<List<ASMVariable>> kills = new ArrayList<>();
+
+    public VYPeIRLow(ASMProgram program) {
+        this.program = program;
+    }
+
+    public void lower(IRFunction function) {
+        this.function = function;
+        String functionName = function.getName();
+        VYPeFunctionLow funcLow = new VYPeFunctionLow(this.program);
+        this.regAlloc = funcLow.genPrologue(functionName);
+        this.exprLow = new VYPeExpressionLow(this.program, this.regAlloc);
+        this.statLow = new VYPeStatementLow(this.program, this.regAlloc);
+
+        this.assignVariables();
+        this.scheduleKills();
+
+        List<IRBlock> blocks = function.getBlocks();
+        this.labels = new ASMLabel[blocks.size()];
+        this.states = new ASMRegisterAllocator.State[blocks.size()];
+        for (int index = 1; index < blocks.size(); index++) {
+            this.labels[index] = this.program.getTempLabel();
+        }
+
+        int position = 0;
+        for (int index = 0; index < blocks.size(); index++) {
+            IRBlock block = blocks.get(index);
+            IRBlock next = (index + 1 < blocks.size()) ? blocks.get(index + 1) : null;
+            if (index > 0) {
+                this.enterBlock(block, fallsThrough(blocks.get(index - 1), block));
+                this.program.addLabel(this.labels[index], block.getLabel());
+            }
+
+            for (IRInstruction instruction : block.getInstructions()) {
+                this.lowerInstruction(instruction, next);
+                for (IRValue operand : instruction.getOperands()) {
+                    if (!this.bound[operand.getId()] && this.getVariable(operand).isConstant()) {
+                        this.regAlloc.releaseConstant(this.getVariable(operand));
+                    }
+                }
+                for (ASMVariable var : this.kills.get(position++)) {
+                    this.regAlloc.killVariable(var, true);
+                }
+            }
+        }
+
+        this.regAlloc.killScope();
+        this.regAlloc.finishFunction();
+    }
+
+    private void assignVariables() {
+        int valueCnt = this.function.getValueCount();
+        int[] useBlock = new int[valueCnt];
+        int[] defBlock = new int[valueCnt];
+        this.variables = new ASMVariable[valueCnt];
+        this.bound = new boolean[valueCnt];
+        this.useCnt = new int[valueCnt];
+        this.defCnt = new int[valueCnt];
+
+        for (IRBlock block : this.function.getBlocks()) {
+            for (IRInstruction instruction : block.getInstructions()) {
+                for (IRValue operand : instruction.getOperands()) {
+                    this.useCnt[operand.getId()]++;
+                    useBlock[operand.getId()] = block.getId();
+                }
+                if (instruction.getResult() != null) {
+                    this.defCnt[instruction.getResult().getId()]++;
+                    defBlock[instruction.getResult().getId()] = block.getId();
+                }
+            }
+        }
+
+        // parameters are declared and defined by the prologue
+        List<IRValue> parameters = this.function.getParameters();
+        List<String> params = this.program.getFunctionParams(this.function.getName());
+        for (int index = 0; index < parameters.size(); index++) {
+            this.variables[parameters.get(index).getId()] = this.regAlloc.checkVariable(params.get(index));
+            this.defCnt[parameters.get(index).getId()]++;
+        }
+
+        for (IRValue value : this.function.getValues()) {
+            int id = value.getId();
+            // values merged or removed by the optimizations are not referenced at all
+            if (this.variables[id] != null || (this.useCnt[id] == 0 && this.defCnt[id] == 0)) {
+                continue;
+            }
+
+            if (value.isTemporary() && this.useCnt[id] <= 1 && (this.useCnt[id] == 0 || useBlock[id] == defBlock[id])) {
+                this.bound[id] = true;
+            }
+            else {
+                this.regAlloc.declareVariable(value.getText(), value.getType());
+                this.variables[id] = this.regAlloc.checkVariable(value.getText());
+            }
+        }
+    }
+
+    private void scheduleKills() {
+        IRLiveness liveness = new IRLiveness(this.function);
+        int[] last = new int[this.function.getValueCount()];
+        int position = 0;
+
+        Arrays.fill(last, -1);
+        for (IRBlock block : this.function.getBlocks()) {
+            for (IRInstruction instruction : block.getInstructions()) {
+                for (IRValue operand : instruction.getOperands()) {
+                    last[operand.getId()] = position;
+                }
+                if (instruction.getResult() != null) {
+                    last[instruction.getResult().getId()] = position;
+                }
+                this.kills.add(new ArrayList<>());
+                position++;
+            }
+
+            // live out of the block which ends before the position
+            BitSet liveOut = liveness.getLiveOut(block);
+            for (int id = liveOut.nextSetBit(0); id >= 0; id = liveOut.nextSetBit(id + 1)) {
+                last[id] = position - 1;
+            }
+        }
+
+        for (int id = 0; id < last.length; id++) {
+            if (last[id] >= 0 && !this.bound[id]) {
+                this.kills.get(last[id]).add(this.variables[id]);
+            }
+        }
+    }
+
+    private ASMVariable getVariable(IRValue value) {
+        return this.variables[value.getId()];
+    }
+
+    private List<ASMVariable> getVariables(List<IRValue> values) {
+        List<ASMVariable> vars = new ArrayList<>();
+        for (IRValue value : values) {
+            vars.add(this.getVariable(value));
+        }
+
+        return vars;
+    }
+
+    // variable the template writes into
+    private ASMVariable getTarget(IRValue value) {
+        if (this.bound[value.getId()]) {
+            this.variables[value.getId()] = this.regAlloc.getTempVar();
+        }
+
+        return this.getVariable(value);
+    }
+
+    // result of the template is moved into the variable of the value unless the value is bound to it
+    private void define(IRValue value, ASMVariable varRes) {
+        int id = value.getId();
+
+        if (!this.bound[id]) {
+            this.statLow.genAssignment(this.variables[id], varRes);
+        }
+        else {
+            this.variables[id] = varRes;
+        }
+    }
+
+    private void lowerInstruction(IRInstruction instruction, IRBlock next) {
+        IRValue result = instruction.getResult();
+        List<IRValue> operands = instruction.getOperands();
+        ASMVariable varLeft = operands.isEmpty() ? null : this.getVariable(operands.get(0));
+        ASMVariable varRight = (operands.size() < 2) ? null : this.getVariable(operands.get(1));
+
+        switch (instruction.getOpCode()) {
+            case CONST:
+                if (this.bound[result.getId()]) {
+                    this.define(result, this.exprLow.genImmediate(instruction.getImmediate()));
+                }
+                else {
+                    this.lowerConstant(result, instruction.getImmediate());
+                }
+                break;
+            case STRING:
+                this.define(result, this.exprLow.genStringLiteral(instruction.getText()));
+                break;
+            case DEFAULT:
+                this.statLow.genDefaultValue(this.getTarget(result), result.getType());
+                break;
+            case COPY:
+                this.statLow.genAssignment(this.getTarget(result), varLeft);
+                break;
+            case ADD:
+                this.define(result, this.exprLow.genPlusMinus("+", varLeft, varRight));
+                break;
+            case SUB:
+                this.define(result, this.exprLow.genPlusMinus("-", varLeft, varRight));
+                break;
+            case MUL:
+                this.define(result, this.exprLow.genMulDivMod("*", varLeft, varRight));
+                break;
+            case DIV:
+                this.define(result, this.exprLow.genMulDivMod("/", varLeft, varRight));
+                break;
+            case MOD:
+                this.define(result, this.exprLow.genMulDivMod("%", varLeft, varRight));
+                break;
+            case LT:
+            case LE:
+            case GT:
+            case GE:
+                this.define(result, this.exprLow.genGreaterLower(getOperatorText(instruction.getOpCode()),
+                        operands.get(0).getType(), varLeft, varRight));
+                break;
+            case EQ:
+            case NE:
+                this.define(result, this.exprLow.genEqual(getOperatorText(instruction.getOpCode()),
+                        operands.get(0).getType(), varLeft, varRight));
+                break;
+            case AND:
+                this.define(result, this.exprLow.genAnd(varLeft, varRight));
+                break;
+            case OR:
+                this.define(result, this.exprLow.genOr(varLeft, varRight));
+                break;
+            case NOT:
+                this.define(result, this.exprLow.genNegation(varLeft));
+                break;
+            case CAST:
+                this.define(result, this.exprLow.genCast(result.getType(), varLeft));
+                break;
+            case CALL:
+                this.lowerCall(instruction);
+                break;
+            case JUMP:
+                if (instruction.getTargets().get(0) != next) {
+                    this.genJump(instruction.getTargets().get(0));
+                }
+                break;
+            case BRANCH:
+                this.lowerBranch(instruction, varLeft, next);
+                break;
+            case RETURN:
+                this.statLow.genReturn(varLeft);
+                break;
+            default:
+                throw new InternalException("Unreachable");
+        }
+
+        // nothing kills the unused temporary
+        if (result != null && this.bound[result.getId()] && this.useCnt[result.getId()] == 0) {
+            this.regAlloc.killVariable(this.getVariable(result));
+        }
+    }
+
+    // immediate goes straight into the variable, the lru code loads the constant by its uses instead
+    private void lowerConstant(IRValue value, int immediate) {
+        ASMVariable var = this.getVariable(value);
+        ASMImmediate imm = new ASMImmediate(immediate);
+
+        if (this.defCnt[value.getId()] == 1 && this.program.getAllocatorStrategy() == ASMRegisterAllocator.Strategy.LRU) {
+            this.regAlloc.setConstant(var, imm);
+            this.regAlloc.releaseConstant(var);
+            return;
+        }
+
+        ASMRegister regVar = this.regAlloc.getRegister(var);
+        this.program.addInstruction(ISA.ASMOpCode.MOVSI, regVar, imm);
+        if (this.defCnt[value.getId()] == 1) {
+            this.regAlloc.setConstant(var, imm);
+        }
+    }
+
+    private void lowerCall(IRInstruction instruction) {
+        List<Constant.Type> parameterTypes = new ArrayList<>();
+        for (IRValue operand : instruction.getOperands()) {
+            parameterTypes.add(operand.getType());
+        }
+
+        ASMVariable varRes = this.exprLow.genFunctionCall(instruction.getText(),
+                this.getVariables(instruction.getOperands()), parameterTypes);
+
+        if (instruction.getResult() != null) {
+            this.define(instruction.getResult(), varRes);
+        }
+        else if (varRes != null) {
+            // result of a void function
+            this.regAlloc.killVariable(varRes);
+        }
+    }
+
+    // falls through to the next block if it is one of the targets
+    private void lowerBranch(IRInstruction instruction, ASMVariable varCond, IRBlock next) {
+        IRBlock blockTrue = instruction.getTargets().get(0);
+        IRBlock blockFalse = instruction.getTargets().get(1);
+        ASMRegister regCond = this.regAlloc.getRegister(varCond);
+        ASMRegister regZero = this.regAlloc.getZeroReg();
+        // the condition is read by the branch only
+        this.regAlloc.killVariable(varCond);
+
+        if (blockFalse == next) {
+            this.genBranch(ISA.ASMOpCode.BNE, ISA.ASMOpCode.BEQ, regCond, regZero, blockTrue);
+        }
+        else {
+            this.genBranch(ISA.ASMOpCode.BEQ, ISA.ASMOpCode.BNE, regCond, regZero, blockFalse);
+        }
+
+        if (blockFalse != next && blockTrue != next) {
+            this.genJump(blockTrue);
+        }
+    }
+
+    // the block is entered with the locations of its state, the first one to reach it saves them
+    private void enterBlock(IRBlock block, boolean fallThrough) {
+        ASMRegisterAllocator.State state = this.states[block.getId()];
+
+        if (state == null) {
+            this.states[block.getId()] = this.regAlloc.saveState();
+        }
+        else if (fallThrough) {
+            this.regAlloc.reconcileState(state);
+        }
+        else {
+            this.regAlloc.restoreState(state);
+        }
+    }
+
+    private void genJump(IRBlock target) {
+        ASMRegisterAllocator.State state = this.states[target.getId()];
+
+        if (state == null) {
+            this.states[target.getId()] = this.regAlloc.saveState();
+        }
+        else {
+            this.regAlloc.reconcileState(state);
+        }
+        this.program.addInstruction(ISA.ASMOpCode.J, this.labels[target.getId()]);
+    }
+
+    // branch which needs to move the variables first skips the moves and the jump by the inverted condition
+    private void genBranch(ISA.ASMOpCode opCode, ISA.ASMOpCode opInverted, ASMRegister regCond, ASMRegister regZero,
+                           IRBlock target) {
+        ASMRegisterAllocator.State state = this.states[target.getId()];
+
+        if (state == null) {
+            this.states[target.getId()] = this.regAlloc.saveState();
+        }
+        if (state == null || this.regAlloc.matchesState(state)) {
+            this.program.addInstruction(opCode, regCond, regZero, this.labels[target.getId()]);
+            return;
+        }
+
+        ASMLabel labSkip = this.program.getTempLabel();
+        ASMRegisterAllocator.State stateSkip = this.regAlloc.saveState();
+        this.program.addInstruction(opInverted, regCond, regZero, labSkip);
+        this.genJump(target);
+        this.regAlloc.restoreState(stateSkip);
+        this.program.addLabel(labSkip);
+    }
+
+    // next block is reached without the jump
+    private static boolean fallsThrough(IRBlock block, IRBlock next) {
+        List<IRInstruction> instructions = block.getInstructions();
+        if (instructions.isEmpty()) {
+            return true;
+        }
+
+        IRInstruction last = instructions.get(instructions.size() - 1);
+        switch (last.getOpCode()) {
+            case RETURN:
+                return false;
+            case JUMP:
+                return last.getTargets().get(0) == next;
+            case BRANCH:
+                return last.getTargets().contains(next);
+            default:
+                return true;
+        }
+    }
+
+    private static String getOperatorText(IRInstruction.OpCode opCode) {
+        switch (opCode) {
+            case LT:
+                return "<";
+            case LE:
+                return "<=";
+            case GT:
+                return ">";
+            case GE:
+                return ">=";
+            case EQ:
+                return "==";
+            default:
+                return "!=";
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package grammar.custom;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*************************************************************
+ * Filename: VYPeMappedCharStream.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// character stream reading the source file directly from the memory mapped file,
+// VYPe sources are plain ASCII so every byte is one character (any other byte is lexed as an error token)
+public class VYPeMappedCharStream implements CharStream {
+    private MappedByteBuffer data;
+    private int size;
+    private int index = 0;
+    private String name;
+
+    public VYPeMappedCharStream(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // mapping stays valid after the channel is closed
+            this.data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        this.size = this.data.limit();
+        this.name = file.toString();
+    }
+
+    @Override
+    public void consume() {
+        if (this.index >= this.size) {
+            throw new IllegalStateException("cannot consume EOF");
+        }
+        this.index++;
+    }
+
+    @Override
+    public int LA(int i) {
+        if (i == 0) {
+            return 0; // undefined
+        }
+        if (i < 0) {
+            i++; // LA(-1) is the previous character
+        }
+
+        int position = this.index + i - 1;
+        if (position < 0 || position >= this.size) {
+            return IntStream.EOF;
+        }
+
+        return this.data.get(position) & 0xff;
+    }
+
+    @Override
+    public int mark() {
+        // whole file is mapped, there is nothing to buffer
+        return -1;
+    }
+
+    @Override
+    public void release(int marker) {
+    }
+
+    @Override
+    public int index() {
+        return this.index;
+    }
+
+    @Override
+    public void seek(int index) {
+        this.index = Math.min(index, this.size);
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public String getSourceName() {
+        return this.name;
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        int start = interval.a;
+        int stop = Math.min(interval.b, this.size - 1);
+
+        if (start >= this.size || stop < start) {
+            return "";
+        }
+
+        byte[] text = new byte[stop - start + 1];
+        for (int i = 0; i < text.length; i++) {
+            text[i] = this.data.get(start + i);
+        }
+
+        return new String(text, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public String toString() {
+        return this.getText(Interval.of(0, this.size - 1));
+    }
+}
@@ -5,9 +5,15 @@ import asm.ASMProgram;
 import asm.ASMRegisterAllocator;
 import grammar.gen.VYPeParserBaseVisitor;
 import grammar.gen.VYPeParserParser;
+import ir.IRConstantPropagation;
+import ir.IRFunction;
+import ir.IRPrinter;
+import ir.IRSSA;
+import ir.IRVerifier;
+import util.Statistics;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.IntStream;
 
 /*************************************************************
  * Filename: Main.java
@@ -21,6 +27,8 @@ import java.util.List;
 public class VYPeStartLow extends VYPeParserBaseVisitor<Void> {
 
     ASMProgram program;
+    // allocations of this thread are measured by the lowering phase itself
+    private Thread compilingThread;
 
     public VYPeStartLow(ASMProgram program) {
         this.program = program;
@@ -30,11 +38,57 @@ public class VYPeStartLow extends VYPeParserBaseVisitor<Void> {
     public Void visitStart(VYPeParserParser.StartContext ctx) {
         List<VYPeParserParser.Function_definitionContext> functions = ctx.function_definition();
 
-        for(VYPeParserParser.Function_definitionContext f : functions) {
-            VYPeFunctionLow funcLowerer = new VYPeFunctionLow(this.program);
+        this.compilingThread = Thread.currentThread();
+
+        // functions are independent, each one is lowered into its own fragment concurrently, the leaf functions
+        // are lowered first, so their callers know which registers they write
+        ASMProgram[] leaves = new ASMProgram[functions.size()];
+        IntStream.range(0, functions.size()).parallel().filter(i -> this.isLeaf(functions.get(i)))
+                .forEach(i -> leaves[i] = this.lowerFunction(functions.get(i)));
+
+        // fragments are merged in the source order as soon as the previous ones are merged
+        IntStream.range(0, functions.size()).parallel()
+                .mapToObj(i -> (leaves[i] != null) ? leaves[i] : this.lowerFunction(functions.get(i)))
+                .forEachOrdered(this.program::append);
+
+        return null;
+    }
+
+    private boolean isLeaf(VYPeParserParser.Function_definitionContext f) {
+        return this.program.isLeafFunction(f.Identifier().getText());
+    }
+
+    private ASMProgram lowerFunction(VYPeParserParser.Function_definitionContext f) {
+        ASMProgram fragment = this.program.newFragment();
+
+        // allocations are counted per thread
+        long startAllocated = Statistics.getAllocatedBytes();
+        if (this.program.isIntermediate()) {
+            IRFunction function = new VYPeFunctionIR(fragment).visit(f);
+            new IRVerifier().verify(function);
+            // the dump shows the optimized SSA form
+            if (this.program.isConstantPropagation()) {
+                IRSSA ssa = new IRSSA();
+                ssa.construct(function);
+                new IRConstantPropagation().run(function);
+                new IRVerifier().verify(function);
+                fragment.addIntermediate(new IRPrinter().print(function));
+                ssa.destruct(function);
+                new IRVerifier().verify(function);
+            }
+            else {
+                fragment.addIntermediate(new IRPrinter().print(function));
+            }
+            new VYPeIRLow(fragment).lower(function);
+        }
+        else {
+            VYPeFunctionLow funcLowerer = new VYPeFunctionLow(fragment);
             funcLowerer.visit(f);
         }
+        if (Thread.currentThread() != this.compilingThread) {
+            fragment.getStatistics().addPhase(Statistics.Phase.LOWERING, 0, Statistics.getAllocatedBytes() - startAllocated);
+        }
 
-        return null;
+        return fragment;
     }
 }
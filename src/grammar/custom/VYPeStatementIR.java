@@ -0,0 +1,109 @@
+package grammar.custom;
+
+import asm.ASMProgram;
+import grammar.gen.VYPeParserBaseVisitor;
+import grammar.gen.VYPeParserParser;
+import ir.IRBlock;
+import ir.IRBuilder;
+import ir.IRInstruction;
+import ir.IRValue;
+import util.Constant;
+import util.Utility;
+
+/*************************************************************
+ * Filename: VYPeStatementIR.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+public class VYPeStatementIR extends VYPeParserBaseVisitor<Void> {
+
+    ASMProgram program;
+    IRBuilder builder;
+
+    public VYPeStatementIR(ASMProgram program, IRBuilder builder) {
+        this.program = program;
+        this.builder = builder;
+    }
+
+    @Override
+    public Void visitVariable_definition_statement(VYPeParserParser.Variable_definition_statementContext ctx) {
+        Constant.Type type = Utility.getType(ctx.getChild(0).getText());
+        for(int i = 1, len = ctx.getChildCount() - 1; i < len; i += 2){
+            IRValue valueNew = this.builder.declareVariable(ctx.getChild(i).getText(), type);
+            this.builder.add(IRInstruction.defaultValue(valueNew));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitAssignment_statement(VYPeParserParser.Assignment_statementContext ctx) {
+        IRValue valueRes = new VYPeExpressionIR(this.program, this.builder).visit(ctx.expression());
+        IRValue valueNew = this.builder.checkVariable(ctx.Identifier().getText());
+
+        this.builder.add(IRInstruction.copy(valueNew, valueRes));
+        return null;
+    }
+
+    @Override
+    public Void visitReturn_statement(VYPeParserParser.Return_statementContext ctx) {
+        IRValue valueRes = null;
+
+        if (ctx.expression() != null) {
+            valueRes = new VYPeExpressionIR(this.program, this.builder).visit(ctx.expression());
+        }
+        // the following statements are not reachable
+        this.builder.add(IRInstruction.ret(valueRes));
+
+        return null;
+    }
+
+    @Override
+    public Void visitConditional_statement(VYPeParserParser.Conditional_statementContext ctx) {
+        IRValue valueCond = new VYPeExpressionIR(this.program, this.builder).visit(ctx.condition_expression().expression());
+
+        IRBlock blockTrue = this.builder.newBlock();
+        IRBlock blockFalse = this.builder.newBlock();
+        IRBlock blockEnd = this.builder.newBlock();
+
+        this.builder.add(IRInstruction.branch(valueCond, blockTrue, blockFalse));
+        this.builder.setBlock(blockTrue);
+        new VYPeBlockIR(this.program, this.builder).visit(ctx.block_statements(0));
+        this.builder.add(IRInstruction.jump(blockEnd));
+        this.builder.setBlock(blockFalse);
+        new VYPeBlockIR(this.program, this.builder).visit(ctx.block_statements(1));
+        this.builder.add(IRInstruction.jump(blockEnd));
+        this.builder.setBlock(blockEnd);
+
+        return null;
+    }
+
+    @Override
+    public Void visitWhile_statement(VYPeParserParser.While_statementContext ctx) {
+        IRBlock blockBegin = this.builder.newBlock();
+        IRBlock blockBody = this.builder.newBlock();
+        IRBlock blockEnd = this.builder.newBlock();
+
+        this.builder.add(IRInstruction.jump(blockBegin));
+        this.builder.setBlock(blockBegin);
+        // the condition is computed in each loop
+        IRValue valueCond = new VYPeExpressionIR(this.program, this.builder).visit(ctx.condition_expression().expression());
+        this.builder.add(IRInstruction.branch(valueCond, blockBody, blockEnd));
+        this.builder.setBlock(blockBody);
+        new VYPeBlockIR(this.program, this.builder).visit(ctx.block_statements());
+        this.builder.add(IRInstruction.jump(blockBegin));
+        this.builder.setBlock(blockEnd);
+
+        return null;
+    }
+
+    @Override
+    public Void visitFunction_call_statement(VYPeParserParser.Function_call_statementContext ctx) {
+        new VYPeExpressionIR(this.program, this.builder).visitFunction_call(ctx.function_call());
+
+        return null;
+    }
+}
@@ -1,6 +1,7 @@
 package grammar.custom;
 
 import asm.*;
+import exceptions.InternalException;
 import grammar.gen.VYPeParserBaseVisitor;
 import grammar.gen.VYPeParserParser;
 import util.Constant;
@@ -35,30 +36,34 @@ public class VYPeStatementLow extends VYPeParserBaseVisitor<Void> {
             this.regAlloc.declareVariable(name, type);
 
             ASMVariable varNew = this.regAlloc.checkVariable(name);
-            ASMRegister regNew = this.regAlloc.getRegister(varNew);
-            ASMRegister regZero = this.regAlloc.getZeroReg();
-            String comment = name + "(" + regNew.getText() + ") = default value";
-
-            if (type == Constant.Type.INT || type == Constant.Type.CHAR) {
-                this.program.addInstruction(ISA.ASMOpCode.MOV, regNew, regZero, comment);
-            }
-            else if (type == Constant.Type.STRING) {
-                ASMRegister regGlobalPtr = this.regAlloc.getGlobalPtrReg();
-                ASMImmediate immOne = new ASMImmediate(1);
-                ASMImmediate immOffset = new ASMImmediate(0);
-                this.program.addInstruction(ISA.ASMOpCode.MOV, regNew, regGlobalPtr, comment);
-                // store zero so that simulator does not print warnings
-                this.program.addInstruction(ISA.ASMOpCode.SB, regZero, immOffset, regGlobalPtr);
-                this.program.addInstruction(ISA.ASMOpCode.ADDU, regGlobalPtr, immOne);
-            }
-            else {
-                System.err.print("Unreachable\n");
-                System.exit(Constant.INTERNAL_ERROR);
-            }
+            this.genDefaultValue(varNew, type);
         }
         return null;
     }
 
+    // zero or a new empty string
+    public void genDefaultValue(ASMVariable varNew, Constant.Type type) {
+        ASMRegister regNew = this.regAlloc.getRegister(varNew);
+        ASMRegister regZero = this.regAlloc.getZeroReg();
+        String comment = varNew.getText() + "(" + regNew.getText() + ") = default value";
+
+        if (type == Constant.Type.INT || type == Constant.Type.CHAR) {
+            this.program.addInstruction(ISA.ASMOpCode.MOV, regNew, regZero, comment);
+        }
+        else if (type == Constant.Type.STRING) {
+            ASMRegister regGlobalPtr = this.regAlloc.getGlobalPtrReg();
+            ASMImmediate immOne = new ASMImmediate(1);
+            ASMImmediate immOffset = new ASMImmediate(0);
+            this.program.addInstruction(ISA.ASMOpCode.MOV, regNew, regGlobalPtr, comment);
+            // store zero so that simulator does not print warnings
+            this.program.addInstruction(ISA.ASMOpCode.SB, regZero, immOffset, regGlobalPtr);
+            this.program.addInstruction(ISA.ASMOpCode.ADDU, regGlobalPtr, immOne);
+        }
+        else {
+            throw new InternalException("Unreachable");
+        }
+    }
+
     @Override
     public Void visitAssignment_statement(VYPeParserParser.Assignment_statementContext ctx) {
 //        System.out.print("assignment of " + ctx.Identifier().getText() + "\n");
@@ -66,13 +71,17 @@ public class VYPeStatementLow extends VYPeParserBaseVisitor<Void> {
         ASMVariable varRes = exprLow.visit(ctx.expression());
 
         ASMVariable varNew = this.regAlloc.checkVariable(ctx.Identifier().getText());
+        this.genAssignment(varNew, varRes);
+        return null;
+    }
+
+    public void genAssignment(ASMVariable varNew, ASMVariable varRes) {
         ASMRegister regRes = this.regAlloc.getRegister(varRes);
         ASMRegister regNew = this.regAlloc.getRegister(varNew);
 
-        String comment = ctx.Identifier().getText() + "(" + regNew.getText() + ") = " + regRes.getText();
+        String comment = varNew.getText() + "(" + regNew.getText() + ") = " + regRes.getText();
         this.program.addInstruction(ISA.ASMOpCode.MOV, regNew, regRes, comment);
         this.regAlloc.killVariable(varRes);
-        return null;
     }
 
     @Override
@@ -80,10 +89,21 @@ public class VYPeStatementLow extends VYPeParserBaseVisitor<Void> {
 //        System.out.print("return\n");
         VYPeExpressionLow exprLow = new VYPeExpressionLow(this.program, this.regAlloc);
         boolean returnsVal = (ctx.expression() == null) ? false : true;
+        ASMVariable varRes = null;
 
         if (returnsVal) {
-            ASMVariable varRes = exprLow.visit(ctx.expression());
+            varRes = exprLow.visit(ctx.expression());
+        }
+
+        this.genReturn(varRes);
+        this.regAlloc.setReturn();
 
+        return null;
+    }
+
+    // varRes is null when no value is returned
+    public void genReturn(ASMVariable varRes) {
+        if (varRes != null) {
             ASMRegister regReturn = this.regAlloc.getReturnValReg();
             ASMRegister regZero = this.regAlloc.getZeroReg();
             ASMRegister regRes = this.regAlloc.getRegister(varRes);
@@ -98,10 +118,6 @@ public class VYPeStatementLow extends VYPeParserBaseVisitor<Void> {
 
         this.program.addInstruction(ISA.ASMOpCode.MOV, regStackPtr, regFramePtr);
         this.program.addInstruction(ISA.ASMOpCode.JR, regRet);
-
-        this.regAlloc.setReturn();
-
-        return null;
     }
 
     @Override
@@ -118,13 +134,18 @@ public class VYPeStatementLow extends VYPeParserBaseVisitor<Void> {
         String comIf = "If statement";
         this.program.addInstruction(ISA.ASMOpCode.BEQ, regCond, regZero, labFalse, comIf);
         this.regAlloc.killVariable(varCond);
+        // both branches start and end with the variables where they are before the branch
+        ASMRegisterAllocator.State stateIf = this.regAlloc.saveState();
         VYPeBlockLow lowTrue = new VYPeBlockLow(this.program, this.regAlloc);
         lowTrue.visit(ctx.block_statements(0));
+        this.regAlloc.reconcileState(stateIf);
         this.program.addInstruction(ISA.ASMOpCode.J, labTrue);
+        this.regAlloc.restoreState(stateIf);
         String comFalse = "If false";
         this.program.addLabel(labFalse, comFalse);
         VYPeBlockLow lowFalse = new VYPeBlockLow(this.program, this.regAlloc);
         lowFalse.visit(ctx.block_statements(1));
+        this.regAlloc.reconcileState(stateIf);
         String comTrue = "If end";
         this.program.addLabel(labTrue, comTrue);
 
@@ -142,6 +163,8 @@ public class VYPeStatementLow extends VYPeParserBaseVisitor<Void> {
         ASMLabel labBegin = this.program.getTempLabel(comBegin);
         ASMLabel labEnd = this.program.getTempLabel(comEnd);
 
+        // every iteration starts with the variables where they are before the loop
+        ASMRegisterAllocator.State stateBegin = this.regAlloc.saveState();
         this.program.addLabel(labBegin);
         // compute the condition in each loop
         ASMVariable varCond = lowCond.visit(ctx.condition_expression().expression());
@@ -149,11 +172,14 @@ public class VYPeStatementLow extends VYPeParserBaseVisitor<Void> {
         // test the condition
         this.program.addInstruction(ISA.ASMOpCode.BEQ, regCond, regZero, labEnd);
         this.regAlloc.killVariable(varCond);
+        ASMRegisterAllocator.State stateEnd = this.regAlloc.saveState();
         //compute the body of the loop
         VYPeBlockLow lowBody = new VYPeBlockLow(this.program, this.regAlloc);
         lowBody.visit(ctx.block_statements());
         // jump back to the beginning of the loop
+        this.regAlloc.reconcileState(stateBegin);
         this.program.addInstruction(ISA.ASMOpCode.J, labBegin);
+        this.regAlloc.restoreState(stateEnd);
         this.program.addLabel(labEnd);
 
         return null;
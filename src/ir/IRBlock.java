@@ -0,0 +1,57 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*************************************************************
+ * Filename: IRBlock.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// basic block, only its last instruction is a terminator, the successors are the targets of the terminator
+public class IRBlock {
+    private int id = -1; // index in the function, set once the block is placed
+    private List<IRInstruction> instructions = new ArrayList<>();
+    private List<IRBlock> predecessors = new ArrayList<>();
+
+    void setId(int id) { this.id = id; }
+    public int getId() { return this.id; }
+
+    public String getLabel() {
+        return "b" + this.id;
+    }
+
+    public void add(IRInstruction instruction) {
+        this.instructions.add(instruction);
+    }
+
+    public List<IRInstruction> getInstructions() { return this.instructions; }
+
+    public boolean isTerminated() {
+        return this.getTerminator() != null;
+    }
+
+    public IRInstruction getTerminator() {
+        if (this.instructions.isEmpty()) {
+            return null;
+        }
+
+        IRInstruction last = this.instructions.get(this.instructions.size() - 1);
+
+        return last.isTerminator() ? last : null;
+    }
+
+    public List<IRBlock> getSuccessors() {
+        IRInstruction terminator = this.getTerminator();
+
+        return (terminator != null) ? terminator.getTargets() : Collections.emptyList();
+    }
+
+    // valid after IRFunction.computePredecessors
+    public List<IRBlock> getPredecessors() { return this.predecessors; }
+}
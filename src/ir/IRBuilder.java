@@ -0,0 +1,98 @@
+package ir;
+
+import util.Constant;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*************************************************************
+ * Filename: IRBuilder.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// appends the instructions to the current block and resolves the variables of the nested scopes
+public class IRBuilder {
+    private IRFunction function;
+    private IRBlock block;
+    // the innermost scope is the first one
+    private List<Map<String, IRValue>> scopes = new ArrayList<>();
+
+    public IRBuilder(IRFunction function) {
+        this.function = function;
+        this.setBlock(function.newBlock());
+    }
+
+    public IRFunction getFunction() { return this.function; }
+
+    public void newScope() {
+        this.scopes.add(0, new HashMap<>());
+    }
+
+    public void killScope() {
+        this.scopes.remove(0);
+    }
+
+    public IRValue declareVariable(String name, Constant.Type type) {
+        IRValue value = this.function.newLocal(name, type);
+        this.scopes.get(0).put(name, value);
+
+        return value;
+    }
+
+    public IRValue addParameter(String name, Constant.Type type) {
+        IRValue value = this.function.addParameter(name, type);
+        this.scopes.get(0).put(name, value);
+
+        return value;
+    }
+
+    public IRValue checkVariable(String name) {
+        for (Map<String, IRValue> scope : this.scopes) {
+            IRValue value = scope.get(name);
+            if (value != null) {
+                return value;
+            }
+        }
+
+        return null;
+    }
+
+    public IRValue getTempValue(Constant.Type type) {
+        return this.function.newTemporary(type);
+    }
+
+    public IRBlock newBlock() {
+        return this.function.newBlock();
+    }
+
+    // the following instructions are appended to the block, it is placed after the previous one
+    public void setBlock(IRBlock block) {
+        this.function.addBlock(block);
+        this.block = block;
+    }
+
+    public boolean isTerminated() {
+        return this.block.isTerminated();
+    }
+
+    public void add(IRInstruction instruction) {
+        // code after a return goes to a new block without predecessors
+        if (this.block.isTerminated()) {
+            this.setBlock(this.newBlock());
+        }
+
+        this.block.add(instruction);
+    }
+
+    public IRFunction finish() {
+        this.function.removeUnreachableBlocks();
+
+        return this.function;
+    }
+}
@@ -0,0 +1,398 @@
+package ir;
+
+import util.Constant;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*************************************************************
+ * Filename: IRConstantPropagation.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// sparse conditional constant propagation of the function in the SSA form. The values start unknown and only the
+// instructions of the blocks reached by the executable edges are evaluated, so a branch with a constant condition
+// makes only one of its targets executable. The values proven constant are defined by their immediates, the constant
+// branches become jumps, the blocks which are not reached are removed, the chains of jumps left by the folded
+// branches are merged and the instructions whose results are not needed are removed.
+public class IRConstantPropagation {
+    // lattice of a value
+    private static final int UNKNOWN = 0;
+    private static final int CONSTANT = 1;
+    private static final int VARYING = 2;
+
+    private IRFunction function;
+    private int[] lattice;
+    private int[] constants;
+    private boolean[] reached;
+    private Set<Long> executable = new HashSet<>();
+    private List<List<IRInstruction>> users = new ArrayList<>();
+    private Map<IRInstruction, IRBlock> blockOf = new HashMap<>();
+    // edges as the source and the target block, the source of the edge into the entry is null
+    private List<IRBlock[]> edgeWork = new ArrayList<>();
+    private List<IRValue> valueWork = new ArrayList<>();
+
+    public void run(IRFunction function) {
+        this.function = function;
+        int valueCnt = function.getValueCount();
+        this.lattice = new int[valueCnt];
+        this.constants = new int[valueCnt];
+        this.reached = new boolean[function.getBlocks().size()];
+
+        for (int id = 0; id < valueCnt; id++) {
+            this.users.add(new ArrayList<>());
+        }
+        for (IRBlock block : function.getBlocks()) {
+            for (IRInstruction instruction : block.getInstructions()) {
+                this.blockOf.put(instruction, block);
+                for (IRValue operand : instruction.getOperands()) {
+                    this.users.get(operand.getId()).add(instruction);
+                }
+            }
+        }
+        for (IRValue parameter : function.getParameters()) {
+            this.lattice[parameter.getId()] = VARYING;
+        }
+
+        this.propagate();
+        this.rewrite();
+        this.mergeBlocks();
+        this.removeDeadCode();
+    }
+
+    private void propagate() {
+        this.edgeWork.add(new IRBlock[] {null, this.function.getEntry()});
+
+        while (!this.edgeWork.isEmpty() || !this.valueWork.isEmpty()) {
+            if (!this.edgeWork.isEmpty()) {
+                IRBlock[] edge = this.edgeWork.remove(this.edgeWork.size() - 1);
+                IRBlock block = edge[1];
+                if (edge[0] != null && !this.executable.add(this.getEdgeKey(edge[0], block))) {
+                    continue;
+                }
+
+                // phis take the new edge into account, the rest is evaluated once the block is reached
+                boolean first = !this.reached[block.getId()];
+                this.reached[block.getId()] = true;
+                for (IRInstruction instruction : block.getInstructions()) {
+                    if (first || instruction.isPhi()) {
+                        this.evaluate(instruction, block);
+                    }
+                }
+            }
+            else {
+                IRValue value = this.valueWork.remove(this.valueWork.size() - 1);
+                for (IRInstruction instruction : this.users.get(value.getId())) {
+                    IRBlock block = this.blockOf.get(instruction);
+                    if (this.reached[block.getId()]) {
+                        this.evaluate(instruction, block);
+                    }
+                }
+            }
+        }
+    }
+
+    private long getEdgeKey(IRBlock source, IRBlock target) {
+        return ((long) source.getId() << 32) | target.getId();
+    }
+
+    private void evaluate(IRInstruction instruction, IRBlock block) {
+        List<IRValue> operands = instruction.getOperands();
+
+        switch (instruction.getOpCode()) {
+            case JUMP:
+                this.edgeWork.add(new IRBlock[] {block, instruction.getTargets().get(0)});
+                return;
+            case BRANCH:
+                int condition = this.lattice[operands.get(0).getId()];
+                if (condition == CONSTANT) {
+                    int target = (this.constants[operands.get(0).getId()] != 0) ? 0 : 1;
+                    this.edgeWork.add(new IRBlock[] {block, instruction.getTargets().get(target)});
+                }
+                else if (condition == VARYING) {
+                    this.edgeWork.add(new IRBlock[] {block, instruction.getTargets().get(0)});
+                    this.edgeWork.add(new IRBlock[] {block, instruction.getTargets().get(1)});
+                }
+                return;
+            case RETURN:
+                return;
+            case PHI:
+                this.evaluatePhi(instruction, block);
+                return;
+            default:
+                if (instruction.getResult() != null) {
+                    this.evaluateResult(instruction);
+                }
+        }
+    }
+
+    // meet of the operands of the executable edges
+    private void evaluatePhi(IRInstruction instruction, IRBlock block) {
+        int state = UNKNOWN;
+        int constant = 0;
+
+        for (int index = 0; index < instruction.getOperands().size() && state != VARYING; index++) {
+            IRBlock source = instruction.getSources().get(index);
+            int id = instruction.getOperand(index).getId();
+            if (!this.executable.contains(this.getEdgeKey(source, block)) || this.lattice[id] == UNKNOWN) {
+                continue;
+            }
+
+            if (this.lattice[id] == VARYING || (state == CONSTANT && constant != this.constants[id])) {
+                state = VARYING;
+            }
+            else {
+                state = CONSTANT;
+                constant = this.constants[id];
+            }
+        }
+
+        this.update(instruction.getResult(), state, constant);
+    }
+
+    private void evaluateResult(IRInstruction instruction) {
+        IRInstruction.OpCode opCode = instruction.getOpCode();
+        IRValue result = instruction.getResult();
+        List<IRValue> operands = instruction.getOperands();
+        int[] values = new int[operands.size()];
+
+        switch (opCode) {
+            case CONST:
+                this.update(result, CONSTANT, instruction.getImmediate());
+                return;
+            case DEFAULT:
+                // new empty string is not a constant
+                if (result.getType() == Constant.Type.STRING) {
+                    this.update(result, VARYING, 0);
+                }
+                else {
+                    this.update(result, CONSTANT, 0);
+                }
+                return;
+            case STRING:
+            case CALL:
+                this.update(result, VARYING, 0);
+                return;
+            default:
+                break;
+        }
+
+        // strings are not folded
+        for (int index = 0; index < operands.size(); index++) {
+            IRValue operand = operands.get(index);
+            if (this.lattice[operand.getId()] == VARYING || operand.getType() == Constant.Type.STRING
+                    || result.getType() == Constant.Type.STRING) {
+                this.update(result, VARYING, 0);
+                return;
+            }
+            if (this.lattice[operand.getId()] == UNKNOWN) {
+                return;
+            }
+            values[index] = this.constants[operand.getId()];
+        }
+
+        Integer constant = fold(opCode, result.getType(), values);
+        if (constant != null) {
+            this.update(result, CONSTANT, constant);
+        }
+        else {
+            this.update(result, VARYING, 0);
+        }
+    }
+
+    // the same results as the instructions of the templates, null when the result is left to the run time
+    private static Integer fold(IRInstruction.OpCode opCode, Constant.Type resultType, int[] values) {
+        switch (opCode) {
+            case COPY:
+                return values[0];
+            case ADD:
+                // add traps on the overflow
+                long sum = (long) values[0] + values[1];
+                return (sum == (int) sum) ? (Integer) (int) sum : null;
+            case SUB:
+                long difference = (long) values[0] - values[1];
+                return (difference == (int) difference) ? (Integer) (int) difference : null;
+            case MUL:
+                return values[0] * values[1];
+            case DIV:
+                return (values[1] == 0 || (values[0] == Integer.MIN_VALUE && values[1] == -1))
+                        ? null : (Integer) (values[0] / values[1]);
+            case MOD:
+                return (values[1] == 0 || (values[0] == Integer.MIN_VALUE && values[1] == -1))
+                        ? null : (Integer) (values[0] % values[1]);
+            case LT:
+                return (values[0] < values[1]) ? 1 : 0;
+            case LE:
+                return (values[0] <= values[1]) ? 1 : 0;
+            case GT:
+                return (values[0] > values[1]) ? 1 : 0;
+            case GE:
+                return (values[0] >= values[1]) ? 1 : 0;
+            case EQ:
+                return (values[0] == values[1]) ? 1 : 0;
+            case NE:
+                return (values[0] != values[1]) ? 1 : 0;
+            case AND:
+                return (values[0] != 0 && values[1] != 0) ? 1 : 0;
+            case OR:
+                return (values[0] != 0 || values[1] != 0) ? 1 : 0;
+            case NOT:
+                return (values[0] == 0) ? 1 : 0;
+            case CAST:
+                return (resultType == Constant.Type.CHAR) ? (Integer) (values[0] & 0xff) : (Integer) values[0];
+            default:
+                return null;
+        }
+    }
+
+    // values only go down the lattice
+    private void update(IRValue value, int state, int constant) {
+        int id = value.getId();
+
+        if (state > this.lattice[id]) {
+            this.lattice[id] = state;
+            this.constants[id] = constant;
+            this.valueWork.add(value);
+        }
+    }
+
+    private boolean isConstant(IRValue value) {
+        return value != null && this.lattice[value.getId()] == CONSTANT;
+    }
+
+    private void rewrite() {
+        for (IRBlock block : this.function.getBlocks()) {
+            if (!this.reached[block.getId()]) {
+                continue;
+            }
+
+            // constant phis are defined after the remaining ones
+            List<IRInstruction> phis = new ArrayList<>();
+            List<IRInstruction> rest = new ArrayList<>();
+            for (IRInstruction instruction : block.getInstructions()) {
+                IRValue result = instruction.getResult();
+                IRInstruction.OpCode opCode = instruction.getOpCode();
+
+                if (this.isConstant(result) && opCode != IRInstruction.OpCode.CONST) {
+                    rest.add(IRInstruction.constant(result, this.constants[result.getId()]));
+                }
+                else if (opCode == IRInstruction.OpCode.BRANCH && this.isConstant(instruction.getOperand(0))) {
+                    int target = (this.constants[instruction.getOperand(0).getId()] != 0) ? 0 : 1;
+                    rest.add(IRInstruction.jump(instruction.getTargets().get(target)));
+                }
+                else if (instruction.isPhi()) {
+                    phis.add(instruction);
+                }
+                else {
+                    rest.add(instruction);
+                }
+            }
+
+            block.getInstructions().clear();
+            block.getInstructions().addAll(phis);
+            block.getInstructions().addAll(rest);
+        }
+
+        this.function.removeUnreachableBlocks();
+    }
+
+    // block with the only predecessor which jumps to it is appended to the predecessor, its phis have one operand
+    private void mergeBlocks() {
+        Map<IRValue, IRValue> replaced = new HashMap<>();
+
+        for (IRBlock block : this.function.getBlocks()) {
+            // merged blocks are empty
+            IRInstruction terminator = block.getTerminator();
+            while (terminator != null && terminator.getOpCode() == IRInstruction.OpCode.JUMP) {
+                IRBlock successor = terminator.getTargets().get(0);
+                if (successor == block || successor == this.function.getEntry()
+                        || successor.getPredecessors().size() != 1) {
+                    break;
+                }
+
+                List<IRInstruction> instructions = block.getInstructions();
+                instructions.remove(instructions.size() - 1);
+                for (IRInstruction instruction : successor.getInstructions()) {
+                    if (instruction.isPhi()) {
+                        replaced.put(instruction.getResult(), instruction.getOperand(0));
+                    }
+                    else {
+                        instructions.add(instruction);
+                    }
+                }
+                successor.getInstructions().clear();
+
+                // edges of the successor leave the block now
+                for (IRBlock target : block.getSuccessors()) {
+                    target.getPredecessors().replaceAll(predecessor -> (predecessor == successor) ? block : predecessor);
+                    for (IRInstruction instruction : target.getInstructions()) {
+                        if (instruction.isPhi()) {
+                            instruction.getSources().replaceAll(source -> (source == successor) ? block : source);
+                        }
+                    }
+                }
+                terminator = block.getTerminator();
+            }
+        }
+
+        for (IRBlock block : this.function.getBlocks()) {
+            for (IRInstruction instruction : block.getInstructions()) {
+                for (int index = 0; index < instruction.getOperands().size(); index++) {
+                    IRValue operand = instruction.getOperand(index);
+                    while (replaced.containsKey(operand)) {
+                        operand = replaced.get(operand);
+                    }
+                    instruction.setOperand(index, operand);
+                }
+            }
+        }
+
+        this.function.removeUnreachableBlocks();
+    }
+
+    // instructions needed by the calls, the divisions, the additions, the subtractions and the terminators. The
+    // division by zero and the overflow are left to the run time, the additions proven not to overflow are constants
+    // by now.
+    private void removeDeadCode() {
+        Map<IRValue, IRInstruction> definitions = new HashMap<>();
+        Set<IRInstruction> needed = new HashSet<>();
+        List<IRInstruction> work = new ArrayList<>();
+
+        for (IRBlock block : this.function.getBlocks()) {
+            for (IRInstruction instruction : block.getInstructions()) {
+                IRInstruction.OpCode opCode = instruction.getOpCode();
+                if (instruction.getResult() != null) {
+                    definitions.put(instruction.getResult(), instruction);
+                }
+                if (opCode == IRInstruction.OpCode.CALL || opCode == IRInstruction.OpCode.DIV
+                        || opCode == IRInstruction.OpCode.MOD || opCode == IRInstruction.OpCode.ADD
+                        || opCode == IRInstruction.OpCode.SUB || instruction.isTerminator()) {
+                    needed.add(instruction);
+                    work.add(instruction);
+                }
+            }
+        }
+
+        while (!work.isEmpty()) {
+            IRInstruction instruction = work.remove(work.size() - 1);
+            for (IRValue operand : instruction.getOperands()) {
+                IRInstruction definition = definitions.get(operand);
+                if (definition != null && needed.add(definition)) {
+                    work.add(definition);
+                }
+            }
+        }
+
+        for (IRBlock block : this.function.getBlocks()) {
+            block.getInstructions().removeIf(instruction -> !needed.contains(instruction));
+        }
+    }
+}
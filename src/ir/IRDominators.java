@@ -0,0 +1,152 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*************************************************************
+ * Filename: IRDominators.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// dominator tree and dominance frontiers of the blocks, the blocks have to be reachable and their predecessors
+// computed, the immediate dominators are found by the iterative algorithm over the reverse postorder
+public class IRDominators {
+    private IRBlock[] idom;
+    private List<List<IRBlock>> children = new ArrayList<>();
+    private List<List<IRBlock>> frontiers = new ArrayList<>();
+    private List<IRBlock> preorder = new ArrayList<>();
+
+    public IRDominators(IRFunction function) {
+        List<IRBlock> blocks = function.getBlocks();
+        List<IRBlock> order = getReversePostorder(function);
+        int[] orderIndex = new int[blocks.size()];
+        for (int index = 0; index < order.size(); index++) {
+            orderIndex[order.get(index).getId()] = index;
+        }
+
+        IRBlock entry = function.getEntry();
+        this.idom = new IRBlock[blocks.size()];
+        this.idom[entry.getId()] = entry;
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (IRBlock block : order) {
+                if (block == entry) {
+                    continue;
+                }
+
+                IRBlock newIdom = null;
+                for (IRBlock predecessor : block.getPredecessors()) {
+                    if (this.idom[predecessor.getId()] == null) {
+                        continue;
+                    }
+                    newIdom = (newIdom == null) ? predecessor : this.intersect(predecessor, newIdom, orderIndex);
+                }
+                if (newIdom != this.idom[block.getId()]) {
+                    this.idom[block.getId()] = newIdom;
+                    changed = true;
+                }
+            }
+        }
+        this.idom[entry.getId()] = null;
+
+        for (int index = 0; index < blocks.size(); index++) {
+            this.children.add(new ArrayList<>());
+            this.frontiers.add(new ArrayList<>());
+        }
+        for (IRBlock block : order) {
+            if (block != entry) {
+                this.children.get(this.idom[block.getId()].getId()).add(block);
+            }
+        }
+
+        // the join block is in the frontier of the blocks between its predecessors and its immediate dominator
+        for (IRBlock block : blocks) {
+            if (block.getPredecessors().size() < 2) {
+                continue;
+            }
+            for (IRBlock predecessor : block.getPredecessors()) {
+                for (IRBlock runner = predecessor; runner != this.idom[block.getId()]; runner = this.idom[runner.getId()]) {
+                    List<IRBlock> frontier = this.frontiers.get(runner.getId());
+                    if (!frontier.contains(block)) {
+                        frontier.add(block);
+                    }
+                }
+            }
+        }
+
+        List<IRBlock> stack = new ArrayList<>();
+        stack.add(entry);
+        while (!stack.isEmpty()) {
+            IRBlock block = stack.remove(stack.size() - 1);
+            this.preorder.add(block);
+            List<IRBlock> blockChildren = this.children.get(block.getId());
+            for (int index = blockChildren.size() - 1; index >= 0; index--) {
+                stack.add(blockChildren.get(index));
+            }
+        }
+    }
+
+    private IRBlock intersect(IRBlock first, IRBlock second, int[] orderIndex) {
+        while (first != second) {
+            while (orderIndex[first.getId()] > orderIndex[second.getId()]) {
+                first = this.idom[first.getId()];
+            }
+            while (orderIndex[second.getId()] > orderIndex[first.getId()]) {
+                second = this.idom[second.getId()];
+            }
+        }
+
+        return first;
+    }
+
+    private static List<IRBlock> getReversePostorder(IRFunction function) {
+        List<IRBlock> postorder = new ArrayList<>();
+        boolean[] visited = new boolean[function.getBlocks().size()];
+        // block and the index of its next successor
+        List<IRBlock> blocks = new ArrayList<>();
+        List<Integer> next = new ArrayList<>();
+
+        blocks.add(function.getEntry());
+        next.add(0);
+        visited[function.getEntry().getId()] = true;
+        while (!blocks.isEmpty()) {
+            int top = blocks.size() - 1;
+            IRBlock block = blocks.get(top);
+            List<IRBlock> successors = block.getSuccessors();
+            if (next.get(top) < successors.size()) {
+                IRBlock successor = successors.get(next.get(top));
+                next.set(top, next.get(top) + 1);
+                if (!visited[successor.getId()]) {
+                    visited[successor.getId()] = true;
+                    blocks.add(successor);
+                    next.add(0);
+                }
+            }
+            else {
+                postorder.add(block);
+                blocks.remove(top);
+                next.remove(top);
+            }
+        }
+
+        List<IRBlock> order = new ArrayList<>();
+        for (int index = postorder.size() - 1; index >= 0; index--) {
+            order.add(postorder.get(index));
+        }
+
+        return order;
+    }
+
+    // null for the entry
+    public IRBlock getImmediateDominator(IRBlock block) { return this.idom[block.getId()]; }
+    public List<IRBlock> getChildren(IRBlock block) { return this.children.get(block.getId()); }
+    public List<IRBlock> getFrontier(IRBlock block) { return this.frontiers.get(block.getId()); }
+    // dominators come before the blocks they dominate
+    public List<IRBlock> getPreorder() { return this.preorder; }
+}
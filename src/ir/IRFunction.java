@@ -0,0 +1,137 @@
+package ir;
+
+import util.Constant;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/*************************************************************
+ * Filename: IRFunction.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// control flow graph of a function, the first block is the entry and the blocks are lowered in their order
+public class IRFunction {
+    private String name;
+    private Constant.Type returnType;
+    private List<IRValue> parameters = new ArrayList<>();
+    private List<IRBlock> blocks = new ArrayList<>();
+    // values indexed by their ids
+    private List<IRValue> values = new ArrayList<>();
+    private Set<String> names = new HashSet<>();
+
+    public IRFunction(String name, Constant.Type returnType) {
+        this.name = name;
+        this.returnType = returnType;
+    }
+
+    public String getName() { return this.name; }
+    public Constant.Type getReturnType() { return this.returnType; }
+    public List<IRValue> getParameters() { return this.parameters; }
+    public List<IRBlock> getBlocks() { return this.blocks; }
+    public IRBlock getEntry() { return this.blocks.get(0); }
+    public List<IRValue> getValues() { return this.values; }
+    public int getValueCount() { return this.values.size(); }
+
+    public IRValue newTemporary(Constant.Type type) {
+        IRValue value = new IRValue(this.values.size(), type, null);
+        this.values.add(value);
+
+        return value;
+    }
+
+    // shadowed variables of the nested blocks get the id as a suffix
+    public IRValue newLocal(String name, Constant.Type type) {
+        int id = this.values.size();
+        String unique = this.names.add(name) ? name : name + "." + id;
+        IRValue value = new IRValue(id, type, unique);
+        this.values.add(value);
+        this.names.add(unique);
+
+        return value;
+    }
+
+    // another definition of the value in the SSA form
+    public IRValue newVersion(IRValue value) {
+        if (value.isTemporary()) {
+            return this.newTemporary(value.getType());
+        }
+
+        return this.newLocal(value.getName(), value.getType());
+    }
+
+    public IRValue addParameter(String name, Constant.Type type) {
+        IRValue value = this.newLocal(name, type);
+        this.parameters.add(value);
+
+        return value;
+    }
+
+    // the block is not a part of the function until it is placed by addBlock
+    public IRBlock newBlock() {
+        return new IRBlock();
+    }
+
+    public void addBlock(IRBlock block) {
+        block.setId(this.blocks.size());
+        this.blocks.add(block);
+    }
+
+    public void computePredecessors() {
+        for (IRBlock block : this.blocks) {
+            block.getPredecessors().clear();
+        }
+
+        for (IRBlock block : this.blocks) {
+            for (IRBlock successor : block.getSuccessors()) {
+                successor.getPredecessors().add(block);
+            }
+        }
+    }
+
+    // code after the returns and behind the folded branches is not reachable, the remaining blocks are numbered
+    // again and the phis keep only the operands of the remaining predecessors
+    public void removeUnreachableBlocks() {
+        Set<IRBlock> reached = new HashSet<>();
+        List<IRBlock> stack = new ArrayList<>();
+        stack.add(this.getEntry());
+        reached.add(this.getEntry());
+
+        while (!stack.isEmpty()) {
+            IRBlock block = stack.remove(stack.size() - 1);
+            for (IRBlock successor : block.getSuccessors()) {
+                if (reached.add(successor)) {
+                    stack.add(successor);
+                }
+            }
+        }
+
+        List<IRBlock> placed = this.blocks;
+        this.blocks = new ArrayList<>();
+        for (IRBlock block : placed) {
+            if (reached.contains(block)) {
+                this.addBlock(block);
+            }
+        }
+
+        this.computePredecessors();
+        for (IRBlock block : this.blocks) {
+            for (IRInstruction instruction : block.getInstructions()) {
+                if (!instruction.isPhi()) {
+                    break;
+                }
+                for (int index = instruction.getSources().size() - 1; index >= 0; index--) {
+                    if (!block.getPredecessors().contains(instruction.getSources().get(index))) {
+                        instruction.removeSource(index);
+                    }
+                }
+            }
+        }
+    }
+}
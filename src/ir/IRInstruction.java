@@ -0,0 +1,150 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/*************************************************************
+ * Filename: IRInstruction.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// three-address instruction, the result and the operands are values, only the terminators have targets
+public class IRInstruction {
+
+    public enum OpCode {
+        CONST,      // result = immediate
+        STRING,     // result = address of the string literal
+        DEFAULT,    // result = default value of its type, zero or a new empty string
+        COPY,       // result = operand
+        ADD, SUB, MUL, DIV, MOD,
+        LT, LE, GT, GE, EQ, NE, // integers, chars or strings
+        AND, OR,    // both operands are always evaluated
+        NOT,
+        CAST,       // to the type of the result
+        CALL,       // embedded or source function, the result is null for void
+        PHI,        // result = operand of the source block the control came from, only at the start of a block
+        JUMP,
+        BRANCH,     // to the first target when the operand is not zero
+        RETURN;     // operand is missing in the void functions
+
+        public boolean isTerminator() {
+            return this == JUMP || this == BRANCH || this == RETURN;
+        }
+
+        public boolean isBinary() {
+            return this.compareTo(ADD) >= 0 && this.compareTo(OR) <= 0;
+        }
+
+        public boolean isComparison() {
+            return this.compareTo(LT) >= 0 && this.compareTo(NE) <= 0;
+        }
+
+        public String getText() {
+            return this.name().toLowerCase();
+        }
+    }
+
+    private OpCode opCode;
+    private IRValue result;
+    private List<IRValue> operands;
+    private int immediate;
+    private String text; // string literal with its quotes or the name of the called function
+    private List<IRBlock> targets = Collections.emptyList();
+    private List<IRBlock> sources = Collections.emptyList(); // predecessors of the phi operands
+
+    private IRInstruction(OpCode opCode, IRValue result, IRValue... operands) {
+        this.opCode = opCode;
+        this.result = result;
+        this.operands = new ArrayList<>(Arrays.asList(operands));
+    }
+
+    public static IRInstruction constant(IRValue result, int immediate) {
+        IRInstruction instruction = new IRInstruction(OpCode.CONST, result);
+        instruction.immediate = immediate;
+        return instruction;
+    }
+
+    public static IRInstruction string(IRValue result, String literal) {
+        IRInstruction instruction = new IRInstruction(OpCode.STRING, result);
+        instruction.text = literal;
+        return instruction;
+    }
+
+    public static IRInstruction defaultValue(IRValue result) {
+        return new IRInstruction(OpCode.DEFAULT, result);
+    }
+
+    public static IRInstruction copy(IRValue result, IRValue operand) {
+        return new IRInstruction(OpCode.COPY, result, operand);
+    }
+
+    public static IRInstruction binary(OpCode opCode, IRValue result, IRValue left, IRValue right) {
+        return new IRInstruction(opCode, result, left, right);
+    }
+
+    public static IRInstruction unary(OpCode opCode, IRValue result, IRValue operand) {
+        return new IRInstruction(opCode, result, operand);
+    }
+
+    public static IRInstruction call(IRValue result, String function, List<IRValue> arguments) {
+        IRInstruction instruction = new IRInstruction(OpCode.CALL, result);
+        instruction.operands.addAll(arguments);
+        instruction.text = function;
+        return instruction;
+    }
+
+    // operand of every predecessor of the block
+    public static IRInstruction phi(IRValue result, List<IRValue> operands, List<IRBlock> sources) {
+        IRInstruction instruction = new IRInstruction(OpCode.PHI, result);
+        instruction.operands.addAll(operands);
+        instruction.sources = new ArrayList<>(sources);
+        return instruction;
+    }
+
+    public static IRInstruction jump(IRBlock target) {
+        IRInstruction instruction = new IRInstruction(OpCode.JUMP, null);
+        instruction.targets = Arrays.asList(target);
+        return instruction;
+    }
+
+    public static IRInstruction branch(IRValue condition, IRBlock targetTrue, IRBlock targetFalse) {
+        IRInstruction instruction = new IRInstruction(OpCode.BRANCH, null, condition);
+        instruction.targets = Arrays.asList(targetTrue, targetFalse);
+        return instruction;
+    }
+
+    // value is null in the void functions
+    public static IRInstruction ret(IRValue value) {
+        if (value == null) {
+            return new IRInstruction(OpCode.RETURN, null);
+        }
+
+        return new IRInstruction(OpCode.RETURN, null, value);
+    }
+
+    public OpCode getOpCode() { return this.opCode; }
+    public IRValue getResult() { return this.result; }
+    public List<IRValue> getOperands() { return this.operands; }
+    public IRValue getOperand(int index) { return this.operands.get(index); }
+    public int getImmediate() { return this.immediate; }
+    public String getText() { return this.text; }
+    public List<IRBlock> getTargets() { return this.targets; }
+    public List<IRBlock> getSources() { return this.sources; }
+
+    public void setResult(IRValue result) { this.result = result; }
+    public void setOperand(int index, IRValue operand) { this.operands.set(index, operand); }
+
+    public void removeSource(int index) {
+        this.operands.remove(index);
+        this.sources.remove(index);
+    }
+
+    public boolean isTerminator() { return this.opCode.isTerminator(); }
+    public boolean isPhi() { return this.opCode == OpCode.PHI; }
+}
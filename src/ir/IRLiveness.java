@@ -0,0 +1,82 @@
+package ir;
+
+import java.util.BitSet;
+import java.util.List;
+
+/*************************************************************
+ * Filename: IRLiveness.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// values live at the boundaries of the blocks, bit per value id, the phi operands are live out of their source
+// blocks and the phi results are defined at the start of their blocks
+public class IRLiveness {
+    private BitSet[] liveIn;
+    private BitSet[] liveOut;
+
+    public IRLiveness(IRFunction function) {
+        List<IRBlock> blocks = function.getBlocks();
+        int count = blocks.size();
+        BitSet[] uses = new BitSet[count];
+        BitSet[] defs = new BitSet[count];
+        BitSet[] phiUses = new BitSet[count];
+        this.liveIn = new BitSet[count];
+        this.liveOut = new BitSet[count];
+
+        for (IRBlock block : blocks) {
+            phiUses[block.getId()] = new BitSet();
+        }
+
+        // values used before they are defined in the block and the values defined in it
+        for (IRBlock block : blocks) {
+            BitSet use = new BitSet();
+            BitSet def = new BitSet();
+            for (IRInstruction instruction : block.getInstructions()) {
+                for (int index = 0; index < instruction.getOperands().size(); index++) {
+                    IRValue operand = instruction.getOperand(index);
+                    if (instruction.isPhi()) {
+                        phiUses[instruction.getSources().get(index).getId()].set(operand.getId());
+                    }
+                    else if (!def.get(operand.getId())) {
+                        use.set(operand.getId());
+                    }
+                }
+                if (instruction.getResult() != null) {
+                    def.set(instruction.getResult().getId());
+                }
+            }
+            uses[block.getId()] = use;
+            defs[block.getId()] = def;
+            this.liveIn[block.getId()] = (BitSet) use.clone();
+            this.liveOut[block.getId()] = (BitSet) phiUses[block.getId()].clone();
+        }
+
+        // backward order converges in a few passes over the structured code
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int index = count - 1; index >= 0; index--) {
+                IRBlock block = blocks.get(index);
+                BitSet out = this.liveOut[index];
+                for (IRBlock successor : block.getSuccessors()) {
+                    out.or(this.liveIn[successor.getId()]);
+                }
+
+                BitSet in = (BitSet) out.clone();
+                in.andNot(defs[index]);
+                in.or(uses[index]);
+                if (!in.equals(this.liveIn[index])) {
+                    this.liveIn[index] = in;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    public BitSet getLiveIn(IRBlock block) { return this.liveIn[block.getId()]; }
+    public BitSet getLiveOut(IRBlock block) { return this.liveOut[block.getId()]; }
+}
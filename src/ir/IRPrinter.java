@@ -0,0 +1,133 @@
+package ir;
+
+import util.Constant;
+
+import java.util.List;
+
+/*************************************************************
+ * Filename: IRPrinter.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// textual form of the IR, e.g.
+//
+//  function int max(int %a, int %b) {
+//  b0:
+//      %2 = lt int %a, %b
+//      branch %2, b1, b2
+//  b1:                             // b0
+//      return %b
+//  b2:                             // b0
+//      return %a
+//  }
+//
+// the type follows the operation, it is the type of the operands for the comparisons and the type of the result for
+// the rest, the predecessors are listed after the label of a block, a phi lists its operands with their source
+// blocks, e.g. %i.7 = phi int [%i, b0], [%i.9, b2]
+public class IRPrinter {
+    private static final int COMMENT_COLUMN = 32;
+
+    public String print(IRFunction function) {
+        StringBuilder text = new StringBuilder();
+
+        text.append("function ").append(getTypeText(function.getReturnType())).append(" ")
+                .append(function.getName()).append("(");
+        List<IRValue> parameters = function.getParameters();
+        for (int index = 0; index < parameters.size(); index++) {
+            IRValue parameter = parameters.get(index);
+            text.append((index > 0) ? ", " : "").append(getTypeText(parameter.getType())).append(" ")
+                    .append(parameter.getText());
+        }
+        text.append(") {\n");
+
+        for (IRBlock block : function.getBlocks()) {
+            int start = text.length();
+            text.append(block.getLabel()).append(":");
+            if (!block.getPredecessors().isEmpty()) {
+                while (text.length() - start < COMMENT_COLUMN) {
+                    text.append(' ');
+                }
+                text.append("//");
+                for (IRBlock predecessor : block.getPredecessors()) {
+                    text.append(' ').append(predecessor.getLabel());
+                }
+            }
+            text.append("\n");
+
+            for (IRInstruction instruction : block.getInstructions()) {
+                text.append("    ");
+                this.appendInstruction(text, instruction);
+                text.append("\n");
+            }
+        }
+        text.append("}\n");
+
+        return text.toString();
+    }
+
+    private void appendInstruction(StringBuilder text, IRInstruction instruction) {
+        IRInstruction.OpCode opCode = instruction.getOpCode();
+        IRValue result = instruction.getResult();
+
+        if (result != null) {
+            text.append(result.getText()).append(" = ");
+        }
+        text.append(opCode.getText());
+
+        switch (opCode) {
+            case CONST:
+                text.append(" ").append(getTypeText(result.getType())).append(" ").append(instruction.getImmediate());
+                break;
+            case STRING:
+                text.append(" ").append(instruction.getText());
+                break;
+            case CALL:
+                if (result != null) {
+                    text.append(" ").append(getTypeText(result.getType()));
+                }
+                text.append(" ").append(instruction.getText()).append("(");
+                this.appendOperands(text, instruction.getOperands());
+                text.append(")");
+                break;
+            case PHI:
+                text.append(" ").append(getTypeText(result.getType()));
+                for (int index = 0; index < instruction.getOperands().size(); index++) {
+                    text.append((index > 0) ? ", [" : " [").append(instruction.getOperand(index).getText())
+                            .append(", ").append(instruction.getSources().get(index).getLabel()).append("]");
+                }
+                break;
+            case JUMP:
+            case BRANCH:
+            case RETURN:
+                if (!instruction.getOperands().isEmpty()) {
+                    text.append(" ");
+                    this.appendOperands(text, instruction.getOperands());
+                }
+                for (IRBlock target : instruction.getTargets()) {
+                    text.append(instruction.getOperands().isEmpty() ? " " : ", ").append(target.getLabel());
+                }
+                break;
+            default:
+                IRValue typed = opCode.isComparison() ? instruction.getOperand(0) : result;
+                text.append(" ").append(getTypeText(typed.getType()));
+                if (!instruction.getOperands().isEmpty()) {
+                    text.append(" ");
+                    this.appendOperands(text, instruction.getOperands());
+                }
+        }
+    }
+
+    private void appendOperands(StringBuilder text, List<IRValue> operands) {
+        for (int index = 0; index < operands.size(); index++) {
+            text.append((index > 0) ? ", " : "").append(operands.get(index).getText());
+        }
+    }
+
+    private static String getTypeText(Constant.Type type) {
+        return type.name().toLowerCase();
+    }
+}
@@ -0,0 +1,240 @@
+package ir;
+
+import exceptions.InternalException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*************************************************************
+ * Filename: IRSSA.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// static single assignment form of the locals and the temporaries, the phis are placed in the iterated dominance
+// frontiers of the definitions where the value is live and the definitions are renamed along the dominator tree,
+// the first definition keeps the original value. The copies of the source are kept, so the phi and its operands
+// never overlap and the form is left by merging them back into one value.
+public class IRSSA {
+
+    public void construct(IRFunction function) {
+        function.computePredecessors();
+        IRDominators dominators = new IRDominators(function);
+        IRLiveness liveness = new IRLiveness(function);
+        int valueCnt = function.getValueCount();
+        boolean[] renamed = new boolean[valueCnt];
+        int[] defCnt = new int[valueCnt];
+        List<List<IRBlock>> defBlocks = new ArrayList<>();
+
+        for (int id = 0; id < valueCnt; id++) {
+            defBlocks.add(new ArrayList<>());
+        }
+        for (IRValue parameter : function.getParameters()) {
+            defCnt[parameter.getId()]++;
+            defBlocks.get(parameter.getId()).add(function.getEntry());
+        }
+        for (IRBlock block : function.getBlocks()) {
+            for (IRInstruction instruction : block.getInstructions()) {
+                IRValue result = instruction.getResult();
+                if (result != null) {
+                    defCnt[result.getId()]++;
+                    defBlocks.get(result.getId()).add(block);
+                }
+            }
+        }
+
+        // a temporary is already defined once by its expression
+        for (IRValue value : function.getValues()) {
+            renamed[value.getId()] = !value.isTemporary() || defCnt[value.getId()] > 1;
+        }
+
+        this.placePhis(function, dominators, liveness, renamed, defBlocks);
+        this.rename(function, dominators, renamed);
+    }
+
+    private void placePhis(IRFunction function, IRDominators dominators, IRLiveness liveness, boolean[] renamed,
+                           List<List<IRBlock>> defBlocks) {
+        int blockCnt = function.getBlocks().size();
+        // the stamps are the value id + 1, so they are not cleared for every value
+        int[] hasPhi = new int[blockCnt];
+        int[] inWork = new int[blockCnt];
+
+        for (IRValue value : function.getValues()) {
+            int id = value.getId();
+            if (!renamed[id] || defBlocks.get(id).isEmpty()) {
+                continue;
+            }
+
+            List<IRBlock> work = new ArrayList<>();
+            for (IRBlock block : defBlocks.get(id)) {
+                if (inWork[block.getId()] != id + 1) {
+                    inWork[block.getId()] = id + 1;
+                    work.add(block);
+                }
+            }
+
+            while (!work.isEmpty()) {
+                IRBlock block = work.remove(work.size() - 1);
+                for (IRBlock join : dominators.getFrontier(block)) {
+                    if (hasPhi[join.getId()] == id + 1 || !liveness.getLiveIn(join).get(id)) {
+                        continue;
+                    }
+
+                    // operands are the original value until the predecessors are renamed
+                    List<IRValue> operands = new ArrayList<>();
+                    for (int index = 0; index < join.getPredecessors().size(); index++) {
+                        operands.add(value);
+                    }
+                    join.getInstructions().add(0, IRInstruction.phi(value, operands, join.getPredecessors()));
+                    hasPhi[join.getId()] = id + 1;
+
+                    // phi is another definition
+                    if (inWork[join.getId()] != id + 1) {
+                        inWork[join.getId()] = id + 1;
+                        work.add(join);
+                    }
+                }
+            }
+        }
+    }
+
+    // the dominator tree is walked without the recursion, the nesting of the generated code is not limited
+    private void rename(IRFunction function, IRDominators dominators, boolean[] renamed) {
+        int valueCnt = renamed.length;
+        List<List<IRValue>> stacks = new ArrayList<>();
+        boolean[] originalUsed = new boolean[valueCnt];
+        List<List<Integer>> pushed = new ArrayList<>();
+
+        for (int id = 0; id < valueCnt; id++) {
+            stacks.add(new ArrayList<>());
+        }
+        for (IRBlock block : function.getBlocks()) {
+            pushed.add(new ArrayList<>());
+        }
+        for (IRValue parameter : function.getParameters()) {
+            stacks.get(parameter.getId()).add(parameter);
+            originalUsed[parameter.getId()] = true;
+        }
+
+        // block id to enter, its complement to leave
+        List<Integer> work = new ArrayList<>();
+        work.add(function.getEntry().getId());
+        while (!work.isEmpty()) {
+            int entry = work.remove(work.size() - 1);
+            if (entry < 0) {
+                for (int id : pushed.get(~entry)) {
+                    List<IRValue> stack = stacks.get(id);
+                    stack.remove(stack.size() - 1);
+                }
+                continue;
+            }
+
+            IRBlock block = function.getBlocks().get(entry);
+            for (IRInstruction instruction : block.getInstructions()) {
+                if (!instruction.isPhi()) {
+                    for (int index = 0; index < instruction.getOperands().size(); index++) {
+                        int id = instruction.getOperand(index).getId();
+                        if (renamed[id]) {
+                            instruction.setOperand(index, this.getCurrent(function, block, stacks.get(id)));
+                        }
+                    }
+                }
+
+                IRValue result = instruction.getResult();
+                if (result != null && renamed[result.getId()]) {
+                    int id = result.getId();
+                    IRValue version = originalUsed[id] ? function.newVersion(result) : result;
+                    originalUsed[id] = true;
+                    instruction.setResult(version);
+                    stacks.get(id).add(version);
+                    pushed.get(entry).add(id);
+                }
+            }
+
+            for (IRBlock successor : block.getSuccessors()) {
+                for (IRInstruction instruction : successor.getInstructions()) {
+                    if (!instruction.isPhi()) {
+                        break;
+                    }
+                    for (int index = 0; index < instruction.getSources().size(); index++) {
+                        if (instruction.getSources().get(index) == block) {
+                            int id = instruction.getOperand(index).getId();
+                            instruction.setOperand(index, this.getCurrent(function, block, stacks.get(id)));
+                        }
+                    }
+                }
+            }
+
+            work.add(~entry);
+            List<IRBlock> children = dominators.getChildren(block);
+            for (int index = children.size() - 1; index >= 0; index--) {
+                work.add(children.get(index).getId());
+            }
+        }
+    }
+
+    private IRValue getCurrent(IRFunction function, IRBlock block, List<IRValue> stack) {
+        if (stack.isEmpty()) {
+            throw new InternalException("SSA form of the function " + function.getName() + ", block " + block.getLabel()
+                    + ": value is not defined");
+        }
+
+        return stack.get(stack.size() - 1);
+    }
+
+    // phi and its operands become one value again, the one with the lowest id, so the parameters keep their values
+    public void destruct(IRFunction function) {
+        int[] parent = new int[function.getValueCount()];
+        for (int id = 0; id < parent.length; id++) {
+            parent[id] = id;
+        }
+
+        for (IRBlock block : function.getBlocks()) {
+            for (IRInstruction instruction : block.getInstructions()) {
+                if (!instruction.isPhi()) {
+                    break;
+                }
+                for (IRValue operand : instruction.getOperands()) {
+                    union(parent, instruction.getResult().getId(), operand.getId());
+                }
+            }
+        }
+
+        List<IRValue> values = function.getValues();
+        for (IRBlock block : function.getBlocks()) {
+            List<IRInstruction> instructions = block.getInstructions();
+            instructions.removeIf(IRInstruction::isPhi);
+            for (IRInstruction instruction : instructions) {
+                for (int index = 0; index < instruction.getOperands().size(); index++) {
+                    instruction.setOperand(index, values.get(find(parent, instruction.getOperand(index).getId())));
+                }
+                if (instruction.getResult() != null) {
+                    instruction.setResult(values.get(find(parent, instruction.getResult().getId())));
+                }
+            }
+        }
+    }
+
+    private static int find(int[] parent, int id) {
+        while (parent[id] != id) {
+            parent[id] = parent[parent[id]];
+            id = parent[id];
+        }
+
+        return id;
+    }
+
+    private static void union(int[] parent, int first, int second) {
+        first = find(parent, first);
+        second = find(parent, second);
+        if (first < second) {
+            parent[second] = first;
+        }
+        else {
+            parent[first] = second;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package ir;
+
+import util.Constant;
+
+/*************************************************************
+ * Filename: IRValue.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// virtual register of the IR, it holds a parameter, a local variable or a temporary
+public class IRValue {
+    private int id; // unique within the function
+    private Constant.Type type;
+    private String name; // unique name of the parameter or the local variable, null for the temporaries
+
+    IRValue(int id, Constant.Type type, String name) {
+        this.id = id;
+        this.type = type;
+        this.name = name;
+    }
+
+    public int getId() { return this.id; }
+    public Constant.Type getType() { return this.type; }
+    public String getName() { return this.name; }
+
+    public boolean isTemporary() { return this.name == null; }
+
+    public String getText() {
+        if (this.name == null) {
+            return "%" + this.id;
+        }
+        else {
+            return "%" + this.name;
+        }
+    }
+}
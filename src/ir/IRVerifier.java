@@ -0,0 +1,266 @@
+package ir;
+
+import exceptions.InternalException;
+import util.Constant;
+
+import java.util.BitSet;
+import java.util.List;
+
+/*************************************************************
+ * Filename: IRVerifier.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// checks the structure of the blocks, the operands of the instructions and their types, and that every value is
+// defined on all the paths to its uses, a phi operand at the end of its source block, an invalid IR is an internal
+// error
+public class IRVerifier {
+    private IRFunction function;
+    private IRBlock block;
+
+    public void verify(IRFunction function) {
+        this.function = function;
+        List<IRBlock> blocks = function.getBlocks();
+
+        if (blocks.isEmpty()) {
+            this.error("function has no block");
+        }
+
+        for (int index = 0; index < blocks.size(); index++) {
+            this.block = blocks.get(index);
+            if (this.block.getId() != index) {
+                this.error("block is placed at " + index);
+            }
+        }
+
+        function.computePredecessors();
+        for (IRBlock block : blocks) {
+            this.block = block;
+            this.verifyBlock();
+        }
+
+        this.block = function.getEntry();
+        if (!this.block.getPredecessors().isEmpty()) {
+            this.error("entry block has predecessors");
+        }
+        this.verifyDefinitions();
+    }
+
+    private void verifyBlock() {
+        List<IRInstruction> instructions = this.block.getInstructions();
+
+        if (!this.block.isTerminated()) {
+            this.error("block does not end with a terminator");
+        }
+
+        for (int index = 0; index < instructions.size(); index++) {
+            IRInstruction instruction = instructions.get(index);
+            if (instruction.isTerminator() && index != instructions.size() - 1) {
+                this.error("terminator in the middle of the block");
+            }
+            if (instruction.isPhi() && index > 0 && !instructions.get(index - 1).isPhi()) {
+                this.error("phi after the start of the block");
+            }
+            for (IRBlock target : instruction.getTargets()) {
+                List<IRBlock> blocks = this.function.getBlocks();
+                if (target.getId() < 0 || target.getId() >= blocks.size() || blocks.get(target.getId()) != target) {
+                    this.error("target is not a block of the function");
+                }
+            }
+            for (IRValue operand : instruction.getOperands()) {
+                this.verifyValue(operand);
+            }
+            if (instruction.getResult() != null) {
+                this.verifyValue(instruction.getResult());
+            }
+            this.verifyInstruction(instruction);
+        }
+    }
+
+    private void verifyValue(IRValue value) {
+        if (value == null || value.getId() >= this.function.getValueCount()
+                || this.function.getValues().get(value.getId()) != value) {
+            this.error("value is not a value of the function");
+        }
+    }
+
+    private void verifyInstruction(IRInstruction instruction) {
+        IRInstruction.OpCode opCode = instruction.getOpCode();
+        IRValue result = instruction.getResult();
+        List<IRValue> operands = instruction.getOperands();
+        Constant.Type resultType = (result != null) ? result.getType() : Constant.Type.VOID;
+        int targetCnt = (opCode == IRInstruction.OpCode.JUMP) ? 1 : (opCode == IRInstruction.OpCode.BRANCH) ? 2 : 0;
+        String text = opCode.getText() + ": ";
+
+        if (instruction.getTargets().size() != targetCnt) {
+            this.error(text + "expects " + targetCnt + " targets");
+        }
+        if (opCode.isTerminator() && result != null) {
+            this.error(text + "terminator has a result");
+        }
+        else if (!opCode.isTerminator() && opCode != IRInstruction.OpCode.CALL && result == null) {
+            this.error(text + "result is missing");
+        }
+
+        switch (opCode) {
+            case CONST:
+                this.expect(text, operands.size() == 0 && isNumber(resultType));
+                break;
+            case STRING:
+                this.expect(text, operands.size() == 0 && resultType == Constant.Type.STRING
+                        && instruction.getText() != null);
+                break;
+            case DEFAULT:
+                this.expect(text, operands.size() == 0 && isData(resultType));
+                break;
+            case COPY:
+                this.expect(text, operands.size() == 1 && operands.get(0).getType() == resultType);
+                break;
+            case ADD: case SUB: case MUL: case DIV: case MOD: case AND: case OR:
+                this.expect(text, operands.size() == 2 && resultType == Constant.Type.INT
+                        && operands.get(0).getType() == Constant.Type.INT
+                        && operands.get(1).getType() == Constant.Type.INT);
+                break;
+            case LT: case LE: case GT: case GE: case EQ: case NE:
+                this.expect(text, operands.size() == 2 && resultType == Constant.Type.INT
+                        && isData(operands.get(0).getType())
+                        && operands.get(0).getType() == operands.get(1).getType());
+                break;
+            case NOT:
+                this.expect(text, operands.size() == 1 && resultType == Constant.Type.INT
+                        && operands.get(0).getType() == Constant.Type.INT);
+                break;
+            case CAST:
+                this.expect(text, operands.size() == 1 && isValidCast(operands.get(0).getType(), resultType));
+                break;
+            case CALL:
+                this.expect(text, instruction.getText() != null && (result == null || isData(resultType)));
+                break;
+            case PHI:
+                this.verifyPhi(text, instruction);
+                break;
+            case JUMP:
+                this.expect(text, operands.size() == 0);
+                break;
+            case BRANCH:
+                this.expect(text, operands.size() == 1 && operands.get(0).getType() == Constant.Type.INT);
+                break;
+            case RETURN:
+                if (this.function.getReturnType() == Constant.Type.VOID) {
+                    this.expect(text, operands.size() == 0);
+                }
+                else {
+                    this.expect(text, operands.size() == 1
+                            && operands.get(0).getType() == this.function.getReturnType());
+                }
+                break;
+            default:
+                this.error(text + "unknown operation");
+        }
+    }
+
+    // every predecessor has exactly one operand of the type of the result
+    private void verifyPhi(String text, IRInstruction instruction) {
+        List<IRBlock> sources = instruction.getSources();
+        List<IRBlock> predecessors = this.block.getPredecessors();
+
+        if (sources.size() != predecessors.size() || !sources.containsAll(predecessors)) {
+            this.error(text + "sources are not the predecessors of the block");
+        }
+        for (IRValue operand : instruction.getOperands()) {
+            this.expect(text, operand.getType() == instruction.getResult().getType());
+        }
+    }
+
+    // must be defined = defined on every path from the entry, the parameters are defined by the call
+    private void verifyDefinitions() {
+        List<IRBlock> blocks = this.function.getBlocks();
+        BitSet[] definedOut = new BitSet[blocks.size()];
+        BitSet entry = new BitSet();
+        for (IRValue parameter : this.function.getParameters()) {
+            entry.set(parameter.getId());
+        }
+
+        for (IRBlock block : blocks) {
+            definedOut[block.getId()] = new BitSet();
+            definedOut[block.getId()].set(0, this.function.getValueCount());
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (IRBlock block : blocks) {
+                BitSet defined = this.getDefinedIn(block, entry, definedOut);
+                for (IRInstruction instruction : block.getInstructions()) {
+                    if (instruction.getResult() != null) {
+                        defined.set(instruction.getResult().getId());
+                    }
+                }
+                if (!defined.equals(definedOut[block.getId()])) {
+                    definedOut[block.getId()] = defined;
+                    changed = true;
+                }
+            }
+        }
+
+        for (IRBlock block : blocks) {
+            this.block = block;
+            BitSet defined = this.getDefinedIn(block, entry, definedOut);
+            for (IRInstruction instruction : block.getInstructions()) {
+                for (int index = 0; index < instruction.getOperands().size(); index++) {
+                    IRValue operand = instruction.getOperand(index);
+                    BitSet reaching = instruction.isPhi()
+                            ? definedOut[instruction.getSources().get(index).getId()] : defined;
+                    if (!reaching.get(operand.getId())) {
+                        this.error(operand.getText() + " is not defined on every path to its use");
+                    }
+                }
+                if (instruction.getResult() != null) {
+                    defined.set(instruction.getResult().getId());
+                }
+            }
+        }
+    }
+
+    private BitSet getDefinedIn(IRBlock block, BitSet entry, BitSet[] definedOut) {
+        if (block.getId() == 0) {
+            return (BitSet) entry.clone();
+        }
+
+        BitSet defined = new BitSet();
+        defined.set(0, this.function.getValueCount());
+        for (IRBlock predecessor : block.getPredecessors()) {
+            defined.and(definedOut[predecessor.getId()]);
+        }
+
+        return defined;
+    }
+
+    private static boolean isNumber(Constant.Type type) {
+        return type == Constant.Type.INT || type == Constant.Type.CHAR;
+    }
+
+    private static boolean isData(Constant.Type type) {
+        return isNumber(type) || type == Constant.Type.STRING;
+    }
+
+    private static boolean isValidCast(Constant.Type from, Constant.Type to) {
+        return (from == Constant.Type.CHAR && (to == Constant.Type.INT || to == Constant.Type.STRING))
+                || (from == Constant.Type.INT && to == Constant.Type.CHAR);
+    }
+
+    private void expect(String text, boolean valid) {
+        if (!valid) {
+            this.error(text + "invalid operands");
+        }
+    }
+
+    private void error(String message) {
+        String where = (this.block != null) ? ", block " + this.block.getLabel() : "";
+        throw new InternalException("Invalid IR of the function " + this.function.getName() + where + ": " + message);
+    }
+}
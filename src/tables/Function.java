@@ -3,6 +3,8 @@ package tables;
 import grammar.custom.VYPeExpressionVisitor;
 import util.Constant.Type;
 import grammar.gen.VYPeParserParser;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeProperty;
 import values.Value;
 import java.util.List;
 
@@ -21,6 +23,16 @@ public class Function {
     private List<Value> parameterList;
     private VYPeParserParser.Block_statementsContext block;
     private boolean defined;
+    // types of all the expressions in the body computed by the semantic check, used by the lowering
+    private ParseTreeProperty<Type> expressionTypes = new ParseTreeProperty<>();
+    // position of the function in the source, the body sees only the functions declared before it,
+    // embedded functions precede the source
+    private int position = -1;
+    private int declarationPosition = -1;
+    // body calls no function of the source, it is set after the semantic check of all the bodies
+    private boolean leaf = true;
+    // registers written by the leaf function, bit per register, known once the function is lowered
+    private int writtenRegisters = -1;
 
     public Function(Type returnType, String name, List<Value> parameterList, boolean defined){
         this.returnType = returnType;
@@ -34,10 +46,46 @@ public class Function {
         this.block = block;
     }
 
-    public void invoke(FunctionTable functionTable) {
+    // checks the body, returns whether it calls a function of the source
+    public boolean invoke(FunctionTable functionTable) {
         SymbolTable symbolTable = new SymbolTable(parameterList);
-        VYPeExpressionVisitor walker = new VYPeExpressionVisitor(this.name, functionTable, symbolTable);
+        VYPeExpressionVisitor walker = new VYPeExpressionVisitor(this, functionTable, symbolTable, this.expressionTypes);
         walker.visit(block);
+
+        return walker.isCalling();
+    }
+
+    public void setPosition(int position, int declarationPosition) {
+        this.position = position;
+        this.declarationPosition = declarationPosition;
+    }
+
+    public int getPosition() {
+        return this.position;
+    }
+
+    public int getDeclarationPosition() {
+        return this.declarationPosition;
+    }
+
+    public void setCalling() {
+        this.leaf = false;
+    }
+
+    public boolean isLeaf() {
+        return this.leaf;
+    }
+
+    public void setWrittenRegisters(int writtenRegisters) {
+        this.writtenRegisters = writtenRegisters;
+    }
+
+    public int getWrittenRegisters() {
+        return this.writtenRegisters;
+    }
+
+    public Type getExpressionType(ParseTree expression) {
+        return this.expressionTypes.get(expression);
     }
 
     public String getName(){
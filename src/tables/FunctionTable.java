@@ -6,7 +6,9 @@ import exceptions.SemanticException;
 import values.*;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.stream.IntStream;
 
 /*************************************************************
  * Filename: FunctionTable.java
@@ -18,7 +20,10 @@ import java.util.HashMap;
  *************************************************************/
 
 public class FunctionTable {
-    private HashMap<String, Function> functionList = new HashMap<>();
+    // functions in the order of their first declaration, so the table is walked the same way in every run
+    private LinkedHashMap<String, Function> functionList = new LinkedHashMap<>();
+    // definitions in the source order, their bodies are checked after all the signatures are known
+    private List<Function> definitions = new ArrayList<>();
 
     public FunctionTable(){
         this.loadEmbeddedFunctions();
@@ -51,7 +56,8 @@ public class FunctionTable {
         this.functionList.put("strcat", new Function(Type.STRING, "strcat", parameterList, null, true));
     }
 
-    public void add(String functionName, Function function){
+    // position is the order of the declaration or definition in the source
+    public void add(String functionName, Function function, int position){
         Function f = this.functionList.get(functionName);
 
         if(f != null && function.isDeclaration()){
@@ -67,9 +73,43 @@ public class FunctionTable {
             }
         }
 
+        // function is visible since its first declaration
+        function.setPosition(position, (f != null) ? f.getDeclarationPosition() : position);
         this.functionList.put(functionName, function);
         if(function.isDefinition()) {
-            function.invoke(this);
+            this.definitions.add(function);
+        }
+    }
+
+    // checks the bodies of the definitions before the given position concurrently, the table and the functions are
+    // not modified by the pool, the results are applied in the source order after all the bodies are checked,
+    // the error of the first body in the source order is thrown, so the result is the same as of the serial check
+    public void checkDefinitions(int position) {
+        List<Function> bodies = new ArrayList<>();
+        for(Function function : this.definitions) {
+            if(function.getPosition() < position) {
+                bodies.add(function);
+            }
+        }
+
+        RuntimeException[] errors = new RuntimeException[bodies.size()];
+        boolean[] calling = new boolean[bodies.size()];
+        IntStream.range(0, bodies.size()).parallel().forEach(i -> {
+            try {
+                calling[i] = bodies.get(i).invoke(this);
+            }
+            catch(RuntimeException e) {
+                errors[i] = e;
+            }
+        });
+
+        for(int i = 0; i < bodies.size(); i++) {
+            if(errors[i] != null) {
+                throw errors[i];
+            }
+            if(calling[i]) {
+                bodies.get(i).setCalling();
+            }
         }
     }
 
@@ -81,6 +121,15 @@ public class FunctionTable {
         return f;
     }
 
+    // function visible from the source position
+    public Function getFunctionByName(String name, int position){
+        Function f = this.getFunctionByName(name);
+        if(f.getDeclarationPosition() > position){
+            throw new SemanticException("Function " + name + " is not defined!");
+        }
+        return f;
+    }
+
     public void semanticCheck() {
         if(!isMainFunction()) {
             throw new SemanticException("Missing main function!");
@@ -17,6 +17,18 @@ public class ISA {
     public static final int GPRCNT = 25;
     public static final int GPRFIRST = 3;
     public static final int GPRLAST = GPRFIRST + GPRCNT - 1;
+    // GPRs kept by the callee when the callee saved class is enabled, $s0 - $s7 of MIPS
+    public static final int CALLEE_SAVED_FIRST = 16;
+    public static final int CALLEE_SAVED_LAST = 23;
+    // bit per register
+    public static final int CALLEE_SAVED_MASK = (-1 >>> (31 - CALLEE_SAVED_LAST)) & (-1 << CALLEE_SAVED_FIRST);
+    // arguments of the user functions which are passed in the registers, the rest of them is passed on the stack,
+    // $a0 - $a3 of MIPS, they are not assigned to the variables of the functions which make calls
+    public static final int ARG_FIRST = 4;
+    public static final int ARG_LAST = 7;
+    public static final int ARGCNT = ARG_LAST - ARG_FIRST + 1;
+    // bit per register
+    public static final int ARG_MASK = (-1 >>> (31 - ARG_LAST)) & (-1 << ARG_FIRST);
     public static final int REGISTER_SIZE = 4;
 
     public final class Register {
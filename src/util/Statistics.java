@@ -0,0 +1,211 @@
+package util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*************************************************************
+ * Filename: Statistics.java
+ * Project: Compiler Implementation for VYPe16 Programming Language
+ * Compiler Team: 04
+ * Authors: Filip Benna, xbenna01
+ *          Tomas Bruckner, xbruck02
+ * Date: 18/10/2026
+ *************************************************************/
+
+// compile statistics printed by --stats, phase times are measured on the compiling thread,
+// allocations of the concurrently lowered functions are added by merge
+public class Statistics {
+    public enum Phase {
+        LEXING, PARSING, SEMANTIC_CHECK, LOWERING, EMISSION
+    }
+
+    private static final String STARTUP = "(startup)";
+
+    private long[] phaseTime = new long[Phase.values().length];
+    private long[] phaseAllocated = new long[Phase.values().length];
+    private long phaseStartTime;
+    private long phaseStartAllocated;
+
+    private String predictionMode = "";
+
+    // code generation counters
+    private Map<String, int[]> instructions = new LinkedHashMap<>();
+    private int[] curInstructions;
+    private int spills = 0;
+    private int reloads = 0;
+    private int rematerializations = 0;
+    private int callSites = 0;
+    private int savedRegisters = 0;
+    private int maxSavedRegisters = 0;
+    private int stringLiterals = 0;
+
+    public Statistics() {
+        this.setCurrentFunction(STARTUP);
+    }
+
+    //  --- PHASES ---
+    public static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        // allocation counters are available only on HotSpot
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+        return 0;
+    }
+
+    // heap peaks are shared by the whole JVM, reset them only when a single compilation runs
+    public static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    // sum of the peaks of all heap pools, upper bound of the real peak as the pools peak at different times
+    public static long getPeakHeapBytes() {
+        long peak = 0;
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+
+        return peak;
+    }
+
+    public void startPhase() {
+        this.phaseStartTime = System.nanoTime();
+        this.phaseStartAllocated = getAllocatedBytes();
+    }
+
+    public void endPhase(Phase phase) {
+        this.addPhase(phase, System.nanoTime() - this.phaseStartTime, getAllocatedBytes() - this.phaseStartAllocated);
+    }
+
+    public void addPhase(Phase phase, long time, long allocated) {
+        this.phaseTime[phase.ordinal()] += time;
+        this.phaseAllocated[phase.ordinal()] += allocated;
+    }
+
+    public long getPhaseTime(Phase phase) { return this.phaseTime[phase.ordinal()]; }
+    public long getPhaseAllocated(Phase phase) { return this.phaseAllocated[phase.ordinal()]; }
+
+    public void setPredictionMode(String predictionMode) { this.predictionMode = predictionMode; }
+
+    //  --- CODE GENERATION ---
+    public void setCurrentFunction(String name) {
+        this.curInstructions = this.instructions.computeIfAbsent(name, key -> new int[1]);
+    }
+
+    public void addInstruction() { this.curInstructions[0]++; }
+
+    // instruction dropped after it was added, e.g. a move to the same register
+    public void removeInstruction() { this.curInstructions[0]--; }
+
+    public void addSpill() { this.spills++; }
+
+    public void addReload() { this.reloads++; }
+
+    // constant loaded again instead of a reload
+    public void addRematerialization() { this.rematerializations++; }
+
+    public void addCallSite(int savedRegisters) {
+        this.callSites++;
+        this.savedRegisters += savedRegisters;
+        this.maxSavedRegisters = Math.max(this.maxSavedRegisters, savedRegisters);
+    }
+
+    public void addStringLiteral() { this.stringLiterals++; }
+
+    // adds the statistics of a program fragment, functions keep the order of the merges
+    public void merge(Statistics other) {
+        for (Phase phase : Phase.values()) {
+            this.addPhase(phase, other.getPhaseTime(phase), other.getPhaseAllocated(phase));
+        }
+
+        for (Map.Entry<String, int[]> entry : other.instructions.entrySet()) {
+            this.instructions.computeIfAbsent(entry.getKey(), key -> new int[1])[0] += entry.getValue()[0];
+        }
+
+        this.spills += other.spills;
+        this.reloads += other.reloads;
+        this.rematerializations += other.rematerializations;
+        this.callSites += other.callSites;
+        this.savedRegisters += other.savedRegisters;
+        this.maxSavedRegisters = Math.max(this.maxSavedRegisters, other.maxSavedRegisters);
+        this.stringLiterals += other.stringLiterals;
+    }
+
+    //  --- OUTPUT ---
+    public String getText() {
+        StringBuilder text = new StringBuilder();
+
+        text.append("prediction mode: ").append(this.predictionMode).append("\n");
+        text.append(String.format("%-16s %12s %16s%n", "phase", "time [ms]", "allocated [kB]"));
+        for (Phase phase : Phase.values()) {
+            text.append(String.format("%-16s %12.3f %16d%n", phase.name().toLowerCase(),
+                    this.getPhaseTime(phase) / 1e6, this.getPhaseAllocated(phase) / 1024));
+        }
+
+        text.append("peak heap [kB]: ").append(getPeakHeapBytes() / 1024).append("\n");
+        text.append("instructions:\n");
+        for (Map.Entry<String, int[]> entry : this.instructions.entrySet()) {
+            text.append(String.format("  %-30s %8d%n", entry.getKey(), entry.getValue()[0]));
+        }
+
+        text.append("spills: ").append(this.spills).append("\n");
+        text.append("reloads: ").append(this.reloads).append("\n");
+        text.append("rematerializations: ").append(this.rematerializations).append("\n");
+        text.append("call sites: ").append(this.callSites).append("\n");
+        text.append("saved registers: ").append(this.savedRegisters);
+        text.append(" (max per call site: ").append(this.maxSavedRegisters).append(")\n");
+        text.append("string literals: ").append(this.stringLiterals).append("\n");
+
+        return text.toString();
+    }
+
+    public String getJson() {
+        StringBuilder json = new StringBuilder();
+
+        json.append("{\"predictionMode\":\"").append(this.predictionMode).append("\",\"phases\":{");
+        for (Phase phase : Phase.values()) {
+            if (phase.ordinal() > 0) {
+                json.append(",");
+            }
+            json.append("\"").append(phase.name().toLowerCase()).append("\":{");
+            json.append("\"timeNs\":").append(this.getPhaseTime(phase)).append(",");
+            json.append("\"allocatedBytes\":").append(this.getPhaseAllocated(phase)).append("}");
+        }
+
+        json.append("},\"peakHeapBytes\":").append(getPeakHeapBytes());
+        json.append(",\"instructions\":{");
+        boolean first = true;
+        for (Map.Entry<String, int[]> entry : this.instructions.entrySet()) {
+            if (!first) {
+                json.append(",");
+            }
+            // function names are identifiers, no escaping needed
+            json.append("\"").append(entry.getKey()).append("\":").append(entry.getValue()[0]);
+            first = false;
+        }
+
+        json.append("},\"spills\":").append(this.spills);
+        json.append(",\"reloads\":").append(this.reloads);
+        json.append(",\"rematerializations\":").append(this.rematerializations);
+        json.append(",\"callSites\":").append(this.callSites);
+        json.append(",\"savedRegisters\":").append(this.savedRegisters);
+        json.append(",\"maxSavedRegisters\":").append(this.maxSavedRegisters);
+        json.append(",\"stringLiterals\":").append(this.stringLiterals);
+        json.append("}");
+
+        return json.toString();
+    }
+}
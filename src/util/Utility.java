@@ -32,4 +32,23 @@ public final class Utility {
                 throw new SemanticException("Unknown return type!");
         }
     }
+
+    // value of the char literal with its quotes, only the escapes of the language are translated
+    public final static int getCharValue(String literal) {
+        int value = (int) literal.charAt(1); // because of ''
+        if (value == '\\' && (literal.length() > 3)) {
+            value = (int) literal.charAt(2);
+            if (value == 'n') {
+                value = (int) '\n';
+            } else if (value == 't') {
+                value = (int) '\t';
+            } else if (value == '"') {
+                value = (int) '\"';
+            } else if (value == '\'') {
+                value = (int) '\'';
+            }
+        }
+
+        return value;
+    }
 }
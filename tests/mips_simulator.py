@@ -0,0 +1,394 @@
+#!/usr/bin/env python3
+
+# Simulates the programs generated by vype, either the assembly or the binary image of --binary.
+#
+# The memory map is the one of the startup code: the code and the .data strings from 0, the heap from $GP = 0x1000 up
+# and the stack from $SP = 0x4000 down. The assembly is laid out like the binary image, LI of a label or of a value
+# which does not fit 16 bits takes two words. The binary image is fetched from the memory, so a heap overwriting it
+# breaks the program as it would on the target.
+#
+# The input is read by lines: READ_INT and READ_STRING take a line, READ_CHAR takes the first character of a line.
+# The output of the program is written to stdout, a trap is reported by a last line "*** <reason>".
+
+import argparse
+import re
+import sys
+
+MEMORY_SIZE = 0x4000
+STEP_LIMIT = 50000000
+
+REGISTER_NAMES = {'$ZERO': 0, '$AT': 1, '$GP': 28, '$SP': 29, '$FP': 30, '$RA': 31}
+
+SIMULATOR_FUNCTIONS = {0x05: 'PRINT_CHAR', 0x0e: 'PRINT_INT', 0x14: 'PRINT_STRING',
+                       0x15: 'READ_CHAR', 0x16: 'READ_INT', 0x17: 'READ_STRING'}
+
+
+class Trap(Exception):
+    pass
+
+
+def signed(value, bits=32):
+    value &= (1 << bits) - 1
+    return value - (1 << bits) if value & (1 << (bits - 1)) else value
+
+
+def is_short(value):
+    return -0x8000 <= value <= 0x7fff
+
+
+#  --- ASSEMBLY ---
+def parse_register(text):
+    text = text.strip()
+    if text in REGISTER_NAMES:
+        return REGISTER_NAMES[text]
+    if not re.match(r'^\$\d+$', text):
+        raise ValueError('register expected: ' + text)
+    return int(text[1:])
+
+
+def parse_number(text):
+    text = text.strip()
+    negative = False
+    if text.startswith('0x-'):
+        negative, text = True, '0x' + text[3:]
+    elif text.startswith('-'):
+        negative, text = True, text[1:]
+    value = int(text, 0)
+    return -value if negative else value
+
+
+def parse_string(literal):
+    # the same escape sequences as ASMString, a backslash without a known escape character stands for itself
+    escapes = {'"': '"', '\\': '\\', "'": "'", 'n': '\n', 't': '\t'}
+    value = literal[1:-1]
+    result = bytearray()
+    index = 0
+    while index < len(value):
+        c = value[index]
+        if c == '\\' and index + 1 < len(value) and value[index + 1] in escapes:
+            index += 1
+            c = escapes[value[index]]
+        result += c.encode('latin-1')
+        index += 1
+    return bytes(result) + b'\0'
+
+
+def load_assembly(path, memory):
+    instructions = []
+    strings = []
+    section = 'text'
+
+    for line in open(path, encoding='latin-1'):
+        line = line.strip()
+        if section == 'data':
+            match = re.match(r'^(\S+):?\s+\.asciz\s+(".*")\s*$', line)
+            if match:
+                strings.append((match.group(1).rstrip(':'), parse_string(match.group(2))))
+                continue
+        line = line.split('//')[0].strip()
+        if not line:
+            continue
+        if line.startswith('.'):
+            if line == '.data':
+                section = 'data'
+            elif line == '.text':
+                section = 'text'
+            continue
+        match = re.match(r'^([^\s:]+):(.*)$', line)
+        if match:
+            instructions.append(('label', match.group(1)))
+            line = match.group(2).strip()
+            if not line:
+                continue
+        parts = line.split(None, 1)
+        operands = [operand.strip() for operand in parts[1].split(',')] if len(parts) > 1 else []
+        instructions.append((parts[0].upper(), operands))
+
+    # first pass assigns the addresses
+    labels = {}
+    address = 0
+    for opcode, operands in instructions:
+        if opcode == 'label':
+            labels[operands] = address
+        elif opcode == 'LI' and (not re.match(r'^0x-?[0-9a-fA-F]+$|^-?\d+$', operands[1])
+                                 or not is_short(parse_number(operands[1]))):
+            address += 8
+        else:
+            address += 4
+    address = (address + 3) & ~3
+    for name, data in strings:
+        labels[name] = address
+        memory[address:address + len(data)] = data
+        address += len(data)
+
+    def value(text):
+        return labels[text] if text in labels else parse_number(text)
+
+    def memory_operand(text):
+        match = re.match(r'^(.*)\((\$\w+)\)$', text)
+        return value(match.group(1)), parse_register(match.group(2))
+
+    # second pass decodes the instructions by their addresses
+    program = {}
+    address = 0
+    for opcode, operands in instructions:
+        if opcode == 'label':
+            continue
+        size = 4
+        if opcode == 'MOVE':
+            decoded = ('ADDU', parse_register(operands[0]), parse_register(operands[1]), 0)
+        elif opcode == 'LI':
+            constant = value(operands[1])
+            if operands[1] in labels or not is_short(constant):
+                size = 8
+            decoded = ('LI', parse_register(operands[0]), signed(constant), size)
+        elif opcode in ('ADDU', 'SUBU') and len(operands) == 2:
+            rd = parse_register(operands[0])
+            if operands[1].startswith('$') and operands[1] not in labels:
+                decoded = (opcode, rd, rd, parse_register(operands[1]))
+            else:
+                constant = value(operands[1])
+                decoded = ('ADDIU', rd, rd, constant if opcode == 'ADDU' else -constant)
+        elif opcode in ('ADD', 'SUB', 'ADDU', 'SUBU', 'MUL', 'SLT', 'MOVZ'):
+            decoded = (opcode, parse_register(operands[0]), parse_register(operands[1]), parse_register(operands[2]))
+        elif opcode in ('ADDI', 'ANDI'):
+            decoded = (opcode, parse_register(operands[0]), parse_register(operands[1]), value(operands[2]))
+        elif opcode == 'DIV':
+            decoded = (opcode, parse_register(operands[0]), parse_register(operands[1]))
+        elif opcode in ('BEQ', 'BNE'):
+            decoded = (opcode, parse_register(operands[0]), parse_register(operands[1]), labels[operands[2]])
+        elif opcode in ('BGTZ', 'BLTZ'):
+            decoded = (opcode, parse_register(operands[0]), labels[operands[1]])
+        elif opcode in ('J', 'JAL'):
+            decoded = (opcode, labels[operands[0]])
+        elif opcode in ('SW', 'LW', 'SB', 'LBU'):
+            offset, base = memory_operand(operands[1])
+            decoded = (opcode, parse_register(operands[0]), base, offset)
+        elif opcode in ('MFHI', 'MFLO', 'JR', 'PRINT_CHAR', 'PRINT_INT', 'PRINT_STRING', 'READ_CHAR', 'READ_INT'):
+            decoded = (opcode, parse_register(operands[0]))
+        elif opcode == 'READ_STRING':
+            decoded = (opcode, parse_register(operands[0]), parse_register(operands[1]))
+        elif opcode == 'BREAK':
+            decoded = (opcode,)
+        else:
+            raise ValueError('unknown instruction: ' + opcode)
+        program[address] = decoded
+        address += size
+
+    return lambda pc: program.get(pc)
+
+
+#  --- BINARY ---
+def load_binary(path, memory):
+    image = open(path, 'rb').read()
+    if len(image) > len(memory):
+        raise ValueError('image does not fit the memory')
+    memory[0:len(image)] = image
+
+    def fetch(pc):
+        if pc < 0 or pc + 4 > len(memory):
+            return None
+        return decode(int.from_bytes(memory[pc:pc + 4], 'big'), pc)
+
+    return fetch
+
+
+def decode(word, pc):
+    opcode = word >> 26
+    rs = (word >> 21) & 31
+    rt = (word >> 16) & 31
+    rd = (word >> 11) & 31
+    function = word & 63
+    immediate = signed(word, 16)
+    branch = pc + 4 + 4 * immediate
+
+    if opcode == 0x00:
+        special = {0x21: 'ADDU', 0x23: 'SUBU', 0x20: 'ADD', 0x22: 'SUB', 0x2a: 'SLT', 0x0a: 'MOVZ'}
+        if function in special:
+            return special[function], rd, rs, rt
+        if function in (0x10, 0x12):
+            return ('MFHI' if function == 0x10 else 'MFLO'), rd
+        if function == 0x1a:
+            return 'DIV', rs, rt
+        if function == 0x08:
+            return 'JR', rs
+        if function == 0x0d:
+            return ('BREAK',)
+        if function == 0x17:
+            return 'READ_STRING', rs, rt
+        if function in SIMULATOR_FUNCTIONS:
+            return SIMULATOR_FUNCTIONS[function], rs
+    elif opcode == 0x1c and function == 0x02:
+        return 'MUL', rd, rs, rt
+    elif opcode == 0x01 and rt == 0:
+        return 'BLTZ', rs, branch
+    elif opcode in (0x02, 0x03):
+        return ('J' if opcode == 0x02 else 'JAL'), ((pc + 4) & 0xf0000000) | ((word & 0x3ffffff) << 2)
+    elif opcode in (0x04, 0x05):
+        return ('BEQ' if opcode == 0x04 else 'BNE'), rs, rt, branch
+    elif opcode == 0x07:
+        return 'BGTZ', rs, branch
+    elif opcode in (0x08, 0x09):
+        return ('ADDI' if opcode == 0x08 else 'ADDIU'), rt, rs, immediate
+    elif opcode in (0x0c, 0x0d):
+        return ('ANDI' if opcode == 0x0c else 'ORI'), rt, rs, word & 0xffff
+    elif opcode == 0x0f:
+        return 'LUI', rt, word & 0xffff
+    elif opcode in (0x2b, 0x23, 0x28, 0x24):
+        return {0x2b: 'SW', 0x23: 'LW', 0x28: 'SB', 0x24: 'LBU'}[opcode], rt, rs, immediate
+
+    return None
+
+
+#  --- EXECUTION ---
+def run(fetch, memory, lines, output):
+    registers = [0] * 32
+    hi = lo = 0
+    pc = 0
+
+    def set_register(index, value):
+        if index != 0:
+            registers[index] = signed(value)
+
+    def check(address, size):
+        if address < 0 or address + size > len(memory):
+            raise Trap('memory access out of range at 0x%x' % address)
+        if address % size != 0:
+            raise Trap('unaligned memory access at 0x%x' % address)
+        return address
+
+    def overflow(value):
+        if value != signed(value):
+            raise Trap('integer overflow')
+        return value
+
+    def read_line():
+        return lines.pop(0) if lines else ''
+
+    for _ in range(STEP_LIMIT):
+        instruction = fetch(pc)
+        if instruction is None:
+            raise Trap('invalid instruction at 0x%x' % pc)
+        op = instruction[0]
+        a = instruction[1:]
+        pc += 4
+
+        if op == 'ADDU':
+            set_register(a[0], registers[a[1]] + registers[a[2]])
+        elif op == 'SUBU':
+            set_register(a[0], registers[a[1]] - registers[a[2]])
+        elif op == 'ADD':
+            set_register(a[0], overflow(registers[a[1]] + registers[a[2]]))
+        elif op == 'SUB':
+            set_register(a[0], overflow(registers[a[1]] - registers[a[2]]))
+        elif op == 'ADDI':
+            set_register(a[0], overflow(registers[a[1]] + a[2]))
+        elif op == 'ADDIU':
+            set_register(a[0], registers[a[1]] + a[2])
+        elif op == 'ANDI':
+            set_register(a[0], registers[a[1]] & (a[2] & 0xffff))
+        elif op == 'ORI':
+            set_register(a[0], registers[a[1]] | a[2])
+        elif op == 'LUI':
+            set_register(a[0], a[1] << 16)
+        elif op == 'LI':
+            set_register(a[0], a[1])
+            pc += a[2] - 4
+        elif op == 'MUL':
+            set_register(a[0], registers[a[1]] * registers[a[2]])
+        elif op == 'SLT':
+            set_register(a[0], 1 if registers[a[1]] < registers[a[2]] else 0)
+        elif op == 'MOVZ':
+            if registers[a[2]] == 0:
+                set_register(a[0], registers[a[1]])
+        elif op == 'DIV':
+            dividend, divisor = registers[a[0]], registers[a[1]]
+            if divisor == 0:
+                raise Trap('division by zero')
+            quotient = abs(dividend) // abs(divisor)
+            if (dividend < 0) != (divisor < 0):
+                quotient = -quotient
+            lo, hi = signed(quotient), signed(dividend - quotient * divisor)
+        elif op == 'MFHI':
+            set_register(a[0], hi)
+        elif op == 'MFLO':
+            set_register(a[0], lo)
+        elif op == 'BEQ':
+            if registers[a[0]] == registers[a[1]]:
+                pc = a[2]
+        elif op == 'BNE':
+            if registers[a[0]] != registers[a[1]]:
+                pc = a[2]
+        elif op == 'BGTZ':
+            if registers[a[0]] > 0:
+                pc = a[1]
+        elif op == 'BLTZ':
+            if registers[a[0]] < 0:
+                pc = a[1]
+        elif op == 'J':
+            pc = a[0]
+        elif op == 'JAL':
+            registers[31] = pc
+            pc = a[0]
+        elif op == 'JR':
+            pc = registers[a[0]]
+        elif op == 'SW':
+            address = check(registers[a[1]] + a[2], 4)
+            memory[address:address + 4] = (registers[a[0]] & 0xffffffff).to_bytes(4, 'big')
+        elif op == 'LW':
+            address = check(registers[a[1]] + a[2], 4)
+            set_register(a[0], int.from_bytes(memory[address:address + 4], 'big'))
+        elif op == 'SB':
+            memory[check(registers[a[1]] + a[2], 1)] = registers[a[0]] & 0xff
+        elif op == 'LBU':
+            set_register(a[0], memory[check(registers[a[1]] + a[2], 1)])
+        elif op == 'PRINT_INT':
+            output.append(str(registers[a[0]]))
+        elif op == 'PRINT_CHAR':
+            output.append(chr(registers[a[0]] & 0xff))
+        elif op == 'PRINT_STRING':
+            address = registers[a[0]]
+            while memory[check(address, 1)] != 0:
+                output.append(chr(memory[address]))
+                address += 1
+        elif op == 'READ_INT':
+            line = read_line().strip()
+            set_register(a[0], int(line) if re.match(r'^-?\d+$', line) else 0)
+        elif op == 'READ_CHAR':
+            line = read_line()
+            set_register(a[0], ord(line[0]) if line else 0)
+        elif op == 'READ_STRING':
+            data = read_line().encode('latin-1')
+            address = check(registers[a[0]], 1)
+            check(address + len(data), 1)
+            memory[address:address + len(data)] = data
+            memory[address + len(data)] = 0
+            set_register(a[1], len(data))
+        elif op == 'BREAK':
+            return
+        else:
+            raise Trap('invalid instruction ' + op)
+
+    raise Trap('step limit reached')
+
+
+def simulate(path, binary, lines):
+    memory = bytearray(MEMORY_SIZE)
+    fetch = load_binary(path, memory) if binary else load_assembly(path, memory)
+    output = []
+    try:
+        run(fetch, memory, list(lines), output)
+    except Trap as trap:
+        output.append('\n*** ' + str(trap) + '\n')
+    return ''.join(output)
+
+
+if __name__ == '__main__':
+    parser = argparse.ArgumentParser(description="Simulates the assembly or the binary image generated by vype.")
+    parser.add_argument("--binary", help="program is the binary image of --binary", action="store_true")
+    parser.add_argument("program")
+    parser.add_argument("input", nargs='?', help="file read by the READ_* instructions line by line")
+    args = parser.parse_args()
+
+    lines = open(args.input, encoding='latin-1').read().splitlines() if args.input else []
+    sys.stdout.write(simulate(args.program, args.binary, lines))
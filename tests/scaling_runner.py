@@ -0,0 +1,144 @@
+#!/usr/bin/env python3
+
+# Compiles size sweeps of generated programs and fails when the compile time or the peak heap
+# grows faster than the configured complexity bound, e.g. quadratic lookups in the compiler.
+# The repeated compilations of one program have to produce the same assembly, the functions are
+# lowered concurrently and the output must not depend on the threads which lowered them.
+# The generator is compiled by `ant build-generator`, the compiler by `ant build-jar`.
+
+import argparse
+import json
+import math
+import os
+import subprocess
+import sys
+import tempfile
+
+# Path to the JAR file
+JAR_PATH='../vype.jar'
+# Path to the compiled benchmark.ProgramGenerator
+GENERATOR_PATH='../benchmarks/build'
+
+# swept generator option, its values and the options fixed for the sweep
+SWEEPS = {
+    'functions': ('--functions', [50, 100, 200, 400], ['--locals-per-block=4']),
+    'nesting': ('--nesting-depth', [10, 20, 40, 80], ['--functions=4', '--locals-per-block=2']),
+    'locals': ('--locals-per-block', [25, 50, 100, 200], ['--functions=4', '--nesting-depth=1']),
+    'calls': ('--functions', [50, 100, 200, 400], ['--locals-per-block=4', '--call-density=0.5']),
+    'strings': ('--string-operations', [100, 200, 400, 800], ['--functions=4', '--string-literals=400']),
+}
+
+
+parser = argparse.ArgumentParser(description="Runs all sweeps if no sweep is provided.")
+parser.add_argument("sweeps", nargs="*", choices=[[]] + list(SWEEPS), help="Sweeps to run")
+parser.add_argument("-t", "--time-bound", type=float, default=1.5,
+                    help="Maximal growth exponent of the compile time (default 1.5)")
+parser.add_argument("-m", "--heap-bound", type=float, default=1.5,
+                    help="Maximal growth exponent of the peak heap (default 1.5)")
+parser.add_argument("-r", "--repeat", type=int, default=3,
+                    help="Compilations per size, the minimum is taken (default 3)")
+parser.add_argument("-j", "--jvm-args", default="-XX:+UseSerialGC -Xmn8m",
+                    help="JVM options of the compiler, small young generation keeps the peak heap close to the live data")
+parser.add_argument("-v", "--verbose", help="Prints measurements of every size", action="store_true")
+
+args = parser.parse_args()
+
+# default is to run all sweeps
+if not args.sweeps:
+    args.sweeps = list(SWEEPS)
+
+
+def generate(options, file):
+    with open(file, 'w') as fileHandler:
+        subprocess.check_call(['java', '-cp', GENERATOR_PATH, 'benchmark.ProgramGenerator'] + options, stdout=fileHandler)
+
+
+def compile(file, output):
+    stats = subprocess.check_output(['java'] + args.jvm_args.split() + ['-jar', JAR_PATH, '--stats=json', file, output],
+                                    stderr=subprocess.DEVNULL)
+    stats = json.loads(stats.decode().strip())
+
+    time = sum(phase['timeNs'] for phase in stats['phases'].values())
+    return time, stats['peakHeapBytes']
+
+
+# least squares slope in log-log scale, y ~ x^exponent
+def growth_exponent(xs, ys):
+    lx = [math.log(x) for x in xs]
+    ly = [math.log(y) for y in ys]
+    mx = sum(lx) / len(lx)
+    my = sum(ly) / len(ly)
+
+    return sum((x - mx) * (y - my) for x, y in zip(lx, ly)) / sum((x - mx) ** 2 for x in lx)
+
+
+def check(name, exponent, bound):
+    message = "PASSED"
+    sys.stdout.write("\033[0;32m")
+
+    if exponent > bound:
+        message = "FAILED"
+        sys.stdout.write("\033[1;31m")
+
+    print("%s exponent %.2f (bound %.2f): %s" % (name, exponent, bound, message))
+    sys.stdout.write("\033[0;0m")
+
+    return exponent <= bound
+
+
+# all the repeated compilations produce the same bytes
+def check_outputs(file, outputs):
+    with open(outputs[0], 'rb') as fileHandler:
+        first = fileHandler.read()
+
+    for output in outputs[1:]:
+        with open(output, 'rb') as fileHandler:
+            if fileHandler.read() != first:
+                sys.stdout.write("\033[1;31m")
+                print("%s: output of the repeated compilation differs: FAILED" % os.path.basename(file))
+                sys.stdout.write("\033[0;0m")
+                return False
+
+    return True
+
+
+def run_sweep(name, directory):
+    option, values, fixed = SWEEPS[name]
+    start_section(name)
+
+    sizes = []
+    times = []
+    heaps = []
+    deterministic = True
+
+    for value in values:
+        file = os.path.join(directory, "%s_%s.c" % (name, value))
+        generate(fixed + ["%s=%s" % (option, value)], file)
+
+        outputs = ["%s.%d.asm" % (file, repeat) for repeat in range(args.repeat)]
+        measurements = [compile(file, output) for output in outputs]
+        deterministic = deterministic and check_outputs(file, outputs)
+        sizes.append(os.path.getsize(file))
+        times.append(min(time for time, _ in measurements))
+        heaps.append(min(heap for _, heap in measurements))
+
+        if args.verbose:
+            print("%s=%s: %d B source, %.1f ms, %d kB peak heap" % (option, value, sizes[-1], times[-1] / 1e6, heaps[-1] // 1024))
+
+    # growth is measured against the source size, not the swept value
+    passed = check("time", growth_exponent(sizes, times), args.time_bound)
+    return check("heap", growth_exponent(sizes, heaps), args.heap_bound) and passed and deterministic
+
+
+def start_section(type):
+    print('*' * 90)
+    print('Sweep ' + type + ' has started')
+    print('*' * 90)
+
+
+passed = True
+with tempfile.TemporaryDirectory() as directory:
+    for sweep in args.sweeps:
+        passed = run_sweep(sweep, directory) and passed
+
+sys.exit(0 if passed else 1)
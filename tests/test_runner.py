@@ -2,20 +2,41 @@
 
 import argparse
 import glob
-import re
+import os
 import subprocess
 import sys
+import tempfile
+
+import mips_simulator
 
 # Path to the JAR file
-# TODO VALID PATH
 JAR_PATH='../out/artifacts/vype_jar/vype.jar'
 
+# options every valid test is compiled and run with
+CONFIGURATIONS = [
+    [],
+    ['--allocator=linear'],
+    ['--allocator=coloring'],
+    ['--callee-saved'],
+    ['--ir'],
+    ['--sccp'],
+    ['--sccp', '--allocator=coloring', '--callee-saved'],
+    ['--binary'],
+    ['--binary', '--sccp', '--allocator=linear'],
+]
+
+# exit codes of the valid tests other than 0, by the testcase and an option it is compiled with
+EXPECTED_CODES = {
+    ('testcase12', '--binary'): 4,
+}
+
 
 parser = argparse.ArgumentParser(description="Runs all tests if no parameter is provided.")
 parser.add_argument("-s", "--semantic", help="Runs semantic tests", action="store_true")
 parser.add_argument("-l", "--lexical", help="Runs lexical tests", action="store_true")
 parser.add_argument("-x", "--syntactic", help="Runs syntactic tests", action="store_true")
 parser.add_argument("-v", "--valid", help="Runs valid tests", action="store_true")
+parser.add_argument("--jar", help="Path to the JAR file", default=JAR_PATH)
 
 args = parser.parse_args()
 
@@ -31,7 +52,7 @@ def run_tests(type, folder, returnCode):
     start_section(type)
 
     for file in files:
-        testcase = re.search("\\\\(.+)\.c$", file).group(1)
+        testcase = os.path.splitext(os.path.basename(file))[0]
         fileHandler = open(file, 'r')
 
         sys.stdout.write("\033[0;0m")
@@ -43,7 +64,7 @@ def run_tests(type, folder, returnCode):
         sys.stdout.write("\033[1;31m")
 
         try:
-            subprocess.check_output(['java', '-jar', JAR_PATH, file], stderr=subprocess.DEVNULL)
+            subprocess.check_output(['java', '-jar', args.jar, file, os.devnull], stderr=subprocess.DEVNULL)
         except subprocess.CalledProcessError as e:
             if e.returncode == returnCode:
                 message = "PASSED"
@@ -53,10 +74,45 @@ def run_tests(type, folder, returnCode):
         sys.stdout.write("\033[0;0m")
 
 
+# compiles the test by every configuration, runs it by the simulator and compares its output with <testcase>.out
 def run_valid_tests(folder):
-    run_tests("Valid", folder, 0)
-    # TODO run compiled binaries and check output
-    pass
+    files = sorted(glob.glob(folder))
+    start_section("Valid")
+    output_dir = tempfile.mkdtemp()
+
+    for file in files:
+        testcase = os.path.splitext(os.path.basename(file))[0]
+        base = os.path.splitext(file)[0]
+        fileHandler = open(file, 'r')
+
+        sys.stdout.write("\033[0;0m")
+        print(testcase + ": " + fileHandler.readline())
+
+        fileHandler.close()
+
+        expected = open(base + '.out', encoding='latin-1').read() if os.path.exists(base + '.out') else None
+        lines = open(base + '.in', encoding='latin-1').read().splitlines() if os.path.exists(base + '.in') else []
+
+        for options in CONFIGURATIONS:
+            binary = '--binary' in options
+            output = os.path.join(output_dir, testcase + ('.bin' if binary else '.asm'))
+            returnCode = 0
+            for (name, option), code in EXPECTED_CODES.items():
+                if name == testcase and option in options:
+                    returnCode = code
+            message = "PASSED"
+
+            code = subprocess.call(['java', '-jar', args.jar] + options + [file, output], stderr=subprocess.DEVNULL)
+            if code != returnCode:
+                message = "FAILED (exit code %d)" % code
+            elif code == 0 and expected is not None:
+                actual = mips_simulator.simulate(output, binary, lines)
+                if actual != expected:
+                    message = "FAILED (output " + repr(actual) + ")"
+
+            sys.stdout.write("\033[0;32m" if message == "PASSED" else "\033[1;31m")
+            print("  " + (' '.join(options) or 'default') + ": " + message)
+            sys.stdout.write("\033[0;0m")
 
 def start_section(type):
     print('*' * 90)
@@ -74,5 +130,4 @@ if args.lexical:
     run_tests("Lexical", "./lexical_errors/*.c", 1)
 
 if args.valid:
-    pass
-    #run_valid_tests("./valid/*.c")
+    run_valid_tests("./valid/*.c")
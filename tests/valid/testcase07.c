@@ -1,6 +1,6 @@
 // void function without return
 
-void foo(int){
+void foo(int x){
 }
 
 int main(void){
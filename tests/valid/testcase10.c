@@ -0,0 +1,146 @@
+// locals updated inside of a loop and its branches, more of them than there are registers
+// expected output:
+// 490583
+// 3270 8380 10882 16216 21053 22750 26280 12999
+
+int main(void) {
+    int i, s;
+    int a0, a1, a2, a3, a4, a5, a6, a7;
+    int a8, a9, a10, a11, a12, a13, a14, a15;
+    int a16, a17, a18, a19, a20, a21, a22, a23;
+    int a24, a25, a26, a27, a28, a29, a30, a31;
+
+    a0 = 1;
+    a1 = 2;
+    a2 = 3;
+    a3 = 4;
+    a4 = 5;
+    a5 = 6;
+    a6 = 7;
+    a7 = 8;
+    a8 = 9;
+    a9 = 10;
+    a10 = 11;
+    a11 = 12;
+    a12 = 13;
+    a13 = 14;
+    a14 = 15;
+    a15 = 16;
+    a16 = 17;
+    a17 = 18;
+    a18 = 19;
+    a19 = 20;
+    a20 = 21;
+    a21 = 22;
+    a22 = 23;
+    a23 = 24;
+    a24 = 25;
+    a25 = 26;
+    a26 = 27;
+    a27 = 28;
+    a28 = 29;
+    a29 = 30;
+    a30 = 31;
+    a31 = 32;
+    i = 0;
+    while (i < 10) {
+        a0 = a0 + a1 + i;
+        a1 = a1 + a2 + i;
+        a2 = a2 + a3 + i;
+        a3 = a3 + a4 + i;
+        a4 = a4 + a5 + i;
+        a5 = a5 + a6 + i;
+        a6 = a6 + a7 + i;
+        a7 = a7 + a8 + i;
+        a8 = a8 + a9 + i;
+        a9 = a9 + a10 + i;
+        a10 = a10 + a11 + i;
+        a11 = a11 + a12 + i;
+        a12 = a12 + a13 + i;
+        a13 = a13 + a14 + i;
+        a14 = a14 + a15 + i;
+        a15 = a15 + a16 + i;
+        a16 = a16 + a17 + i;
+        a17 = a17 + a18 + i;
+        a18 = a18 + a19 + i;
+        a19 = a19 + a20 + i;
+        a20 = a20 + a21 + i;
+        a21 = a21 + a22 + i;
+        a22 = a22 + a23 + i;
+        a23 = a23 + a24 + i;
+        a24 = a24 + a25 + i;
+        a25 = a25 + a26 + i;
+        a26 = a26 + a27 + i;
+        a27 = a27 + a28 + i;
+        a28 = a28 + a29 + i;
+        a29 = a29 + a30 + i;
+        a30 = a30 + a31 + i;
+        a31 = a31 + a0 + i;
+        if (a31 > 1000) {
+            a0 = a0 - 1000;
+            a3 = a3 - 1000;
+            a6 = a6 - 1000;
+            a9 = a9 - 1000;
+            a12 = a12 - 1000;
+            a15 = a15 - 1000;
+            a18 = a18 - 1000;
+            a21 = a21 - 1000;
+            a24 = a24 - 1000;
+            a27 = a27 - 1000;
+            a30 = a30 - 1000;
+        } else {
+            a1 = a1 + 7;
+            a6 = a6 + 7;
+            a11 = a11 + 7;
+            a16 = a16 + 7;
+            a21 = a21 + 7;
+            a26 = a26 + 7;
+            a31 = a31 + 7;
+        }
+        i = i + 1;
+    }
+
+    s = 0;
+    s = s + a0;
+    s = s + a1;
+    s = s + a2;
+    s = s + a3;
+    s = s + a4;
+    s = s + a5;
+    s = s + a6;
+    s = s + a7;
+    s = s + a8;
+    s = s + a9;
+    s = s + a10;
+    s = s + a11;
+    s = s + a12;
+    s = s + a13;
+    s = s + a14;
+    s = s + a15;
+    s = s + a16;
+    s = s + a17;
+    s = s + a18;
+    s = s + a19;
+    s = s + a20;
+    s = s + a21;
+    s = s + a22;
+    s = s + a23;
+    s = s + a24;
+    s = s + a25;
+    s = s + a26;
+    s = s + a27;
+    s = s + a28;
+    s = s + a29;
+    s = s + a30;
+    s = s + a31;
+    print(s, "\n");
+    print(a0, " ");
+    print(a4, " ");
+    print(a8, " ");
+    print(a12, " ");
+    print(a16, " ");
+    print(a20, " ");
+    print(a24, " ");
+    print(a28, " ");
+    print("\n");
+}
\ No newline at end of file
@@ -0,0 +1,15 @@
+// overflow of an addition whose result is not used traps, also when the constants are propagated
+// expected output:
+// before
+// *** integer overflow
+
+int main(void) {
+    int x;
+    int y;
+
+    x = 2147483647;
+    print("before\n");
+    y = x + 1;
+    print("after\n");
+    return 0;
+}
\ No newline at end of file
@@ -0,0 +1,407 @@
+// program whose image is longer than 4 KB, --binary fails by the memory error 4 since the heap begins at 0x1000
+// expected output: the running sums of the values printed in lines of ten
+
+int main(void) {
+    int s;
+    s = 0;
+    s = s + 7;
+    print(s, " ");
+    s = s + 1;
+    print(s, " ");
+    s = s + 8;
+    print(s, " ");
+    s = s + 2;
+    print(s, " ");
+    s = s + 9;
+    print(s, " ");
+    s = s + 3;
+    print(s, " ");
+    s = s + 10;
+    print(s, " ");
+    s = s + 4;
+    print(s, " ");
+    s = s + 11;
+    print(s, " ");
+    s = s + 5;
+    print(s, "\n");
+    s = s + 12;
+    print(s, " ");
+    s = s + 6;
+    print(s, " ");
+    s = s + 0;
+    print(s, " ");
+    s = s + 7;
+    print(s, " ");
+    s = s + 1;
+    print(s, " ");
+    s = s + 8;
+    print(s, " ");
+    s = s + 2;
+    print(s, " ");
+    s = s + 9;
+    print(s, " ");
+    s = s + 3;
+    print(s, " ");
+    s = s + 10;
+    print(s, "\n");
+    s = s + 4;
+    print(s, " ");
+    s = s + 11;
+    print(s, " ");
+    s = s + 5;
+    print(s, " ");
+    s = s + 12;
+    print(s, " ");
+    s = s + 6;
+    print(s, " ");
+    s = s + 0;
+    print(s, " ");
+    s = s + 7;
+    print(s, " ");
+    s = s + 1;
+    print(s, " ");
+    s = s + 8;
+    print(s, " ");
+    s = s + 2;
+    print(s, "\n");
+    s = s + 9;
+    print(s, " ");
+    s = s + 3;
+    print(s, " ");
+    s = s + 10;
+    print(s, " ");
+    s = s + 4;
+    print(s, " ");
+    s = s + 11;
+    print(s, " ");
+    s = s + 5;
+    print(s, " ");
+    s = s + 12;
+    print(s, " ");
+    s = s + 6;
+    print(s, " ");
+    s = s + 0;
+    print(s, " ");
+    s = s + 7;
+    print(s, "\n");
+    s = s + 1;
+    print(s, " ");
+    s = s + 8;
+    print(s, " ");
+    s = s + 2;
+    print(s, " ");
+    s = s + 9;
+    print(s, " ");
+    s = s + 3;
+    print(s, " ");
+    s = s + 10;
+    print(s, " ");
+    s = s + 4;
+    print(s, " ");
+    s = s + 11;
+    print(s, " ");
+    s = s + 5;
+    print(s, " ");
+    s = s + 12;
+    print(s, "\n");
+    s = s + 6;
+    print(s, " ");
+    s = s + 0;
+    print(s, " ");
+    s = s + 7;
+    print(s, " ");
+    s = s + 1;
+    print(s, " ");
+    s = s + 8;
+    print(s, " ");
+    s = s + 2;
+    print(s, " ");
+    s = s + 9;
+    print(s, " ");
+    s = s + 3;
+    print(s, " ");
+    s = s + 10;
+    print(s, " ");
+    s = s + 4;
+    print(s, "\n");
+    s = s + 11;
+    print(s, " ");
+    s = s + 5;
+    print(s, " ");
+    s = s + 12;
+    print(s, " ");
+    s = s + 6;
+    print(s, " ");
+    s = s + 0;
+    print(s, " ");
+    s = s + 7;
+    print(s, " ");
+    s = s + 1;
+    print(s, " ");
+    s = s + 8;
+    print(s, " ");
+    s = s + 2;
+    print(s, " ");
+    s = s + 9;
+    print(s, "\n");
+    s = s + 3;
+    print(s, " ");
+    s = s + 10;
+    print(s, " ");
+    s = s + 4;
+    print(s, " ");
+    s = s + 11;
+    print(s, " ");
+    s = s + 5;
+    print(s, " ");
+    s = s + 12;
+    print(s, " ");
+    s = s + 6;
+    print(s, " ");
+    s = s + 0;
+    print(s, " ");
+    s = s + 7;
+    print(s, " ");
+    s = s + 1;
+    print(s, "\n");
+    s = s + 8;
+    print(s, " ");
+    s = s + 2;
+    print(s, " ");
+    s = s + 9;
+    print(s, " ");
+    s = s + 3;
+    print(s, " ");
+    s = s + 10;
+    print(s, " ");
+    s = s + 4;
+    print(s, " ");
+    s = s + 11;
+    print(s, " ");
+    s = s + 5;
+    print(s, " ");
+    s = s + 12;
+    print(s, " ");
+    s = s + 6;
+    print(s, "\n");
+    s = s + 0;
+    print(s, " ");
+    s = s + 7;
+    print(s, " ");
+    s = s + 1;
+    print(s, " ");
+    s = s + 8;
+    print(s, " ");
+    s = s + 2;
+    print(s, " ");
+    s = s + 9;
+    print(s, " ");
+    s = s + 3;
+    print(s, " ");
+    s = s + 10;
+    print(s, " ");
+    s = s + 4;
+    print(s, " ");
+    s = s + 11;
+    print(s, "\n");
+    s = s + 5;
+    print(s, " ");
+    s = s + 12;
+    print(s, " ");
+    s = s + 6;
+    print(s, " ");
+    s = s + 0;
+    print(s, " ");
+    s = s + 7;
+    print(s, " ");
+    s = s + 1;
+    print(s, " ");
+    s = s + 8;
+    print(s, " ");
+    s = s + 2;
+    print(s, " ");
+    s = s + 9;
+    print(s, " ");
+    s = s + 3;
+    print(s, "\n");
+    s = s + 10;
+    print(s, " ");
+    s = s + 4;
+    print(s, " ");
+    s = s + 11;
+    print(s, " ");
+    s = s + 5;
+    print(s, " ");
+    s = s + 12;
+    print(s, " ");
+    s = s + 6;
+    print(s, " ");
+    s = s + 0;
+    print(s, " ");
+    s = s + 7;
+    print(s, " ");
+    s = s + 1;
+    print(s, " ");
+    s = s + 8;
+    print(s, "\n");
+    s = s + 2;
+    print(s, " ");
+    s = s + 9;
+    print(s, " ");
+    s = s + 3;
+    print(s, " ");
+    s = s + 10;
+    print(s, " ");
+    s = s + 4;
+    print(s, " ");
+    s = s + 11;
+    print(s, " ");
+    s = s + 5;
+    print(s, " ");
+    s = s + 12;
+    print(s, " ");
+    s = s + 6;
+    print(s, " ");
+    s = s + 0;
+    print(s, "\n");
+    s = s + 7;
+    print(s, " ");
+    s = s + 1;
+    print(s, " ");
+    s = s + 8;
+    print(s, " ");
+    s = s + 2;
+    print(s, " ");
+    s = s + 9;
+    print(s, " ");
+    s = s + 3;
+    print(s, " ");
+    s = s + 10;
+    print(s, " ");
+    s = s + 4;
+    print(s, " ");
+    s = s + 11;
+    print(s, " ");
+    s = s + 5;
+    print(s, "\n");
+    s = s + 12;
+    print(s, " ");
+    s = s + 6;
+    print(s, " ");
+    s = s + 0;
+    print(s, " ");
+    s = s + 7;
+    print(s, " ");
+    s = s + 1;
+    print(s, " ");
+    s = s + 8;
+    print(s, " ");
+    s = s + 2;
+    print(s, " ");
+    s = s + 9;
+    print(s, " ");
+    s = s + 3;
+    print(s, " ");
+    s = s + 10;
+    print(s, "\n");
+    s = s + 4;
+    print(s, " ");
+    s = s + 11;
+    print(s, " ");
+    s = s + 5;
+    print(s, " ");
+    s = s + 12;
+    print(s, " ");
+    s = s + 6;
+    print(s, " ");
+    s = s + 0;
+    print(s, " ");
+    s = s + 7;
+    print(s, " ");
+    s = s + 1;
+    print(s, " ");
+    s = s + 8;
+    print(s, " ");
+    s = s + 2;
+    print(s, "\n");
+    s = s + 9;
+    print(s, " ");
+    s = s + 3;
+    print(s, " ");
+    s = s + 10;
+    print(s, " ");
+    s = s + 4;
+    print(s, " ");
+    s = s + 11;
+    print(s, " ");
+    s = s + 5;
+    print(s, " ");
+    s = s + 12;
+    print(s, " ");
+    s = s + 6;
+    print(s, " ");
+    s = s + 0;
+    print(s, " ");
+    s = s + 7;
+    print(s, "\n");
+    s = s + 1;
+    print(s, " ");
+    s = s + 8;
+    print(s, " ");
+    s = s + 2;
+    print(s, " ");
+    s = s + 9;
+    print(s, " ");
+    s = s + 3;
+    print(s, " ");
+    s = s + 10;
+    print(s, " ");
+    s = s + 4;
+    print(s, " ");
+    s = s + 11;
+    print(s, " ");
+    s = s + 5;
+    print(s, " ");
+    s = s + 12;
+    print(s, "\n");
+    s = s + 6;
+    print(s, " ");
+    s = s + 0;
+    print(s, " ");
+    s = s + 7;
+    print(s, " ");
+    s = s + 1;
+    print(s, " ");
+    s = s + 8;
+    print(s, " ");
+    s = s + 2;
+    print(s, " ");
+    s = s + 9;
+    print(s, " ");
+    s = s + 3;
+    print(s, " ");
+    s = s + 10;
+    print(s, " ");
+    s = s + 4;
+    print(s, "\n");
+    s = s + 11;
+    print(s, " ");
+    s = s + 5;
+    print(s, " ");
+    s = s + 12;
+    print(s, " ");
+    s = s + 6;
+    print(s, " ");
+    s = s + 0;
+    print(s, " ");
+    s = s + 7;
+    print(s, " ");
+    s = s + 1;
+    print(s, " ");
+    s = s + 8;
+    print(s, " ");
+    s = s + 2;
+    print(s, " ");
+    s = s + 9;
+    print(s, "\n");
+}
\ No newline at end of file
@@ -0,0 +1,41 @@
+// calls with more arguments than argument registers, recursion and values live across calls in loops
+// expected output: see testcase13.out
+
+int sum6(int a, int b, int c, int d, int e, int f) {
+    return a + 2 * b + 3 * c + 4 * d + 5 * e + 6 * f;
+}
+
+int fib(int n) {
+    if (n < 2) {
+        return n;
+    } else {
+        return fib(n - 1) + fib(n - 2);
+    }
+}
+
+string repeat(string s, int n) {
+    string r;
+    r = "";
+    while (n > 0) {
+        r = strcat(r, s);
+        n = n - 1;
+    }
+    return r;
+}
+
+int main(void) {
+    int i, total, last;
+    string line;
+    total = 0;
+    last = 0;
+    i = 0;
+    while (i < 12) {
+        last = sum6(i, last, total, i + 1, i + 2, fib(i));
+        total = total + last / 7;
+        print(i, ": ", fib(i), " ", last, " ", total, "\n");
+        i = i + 1;
+    }
+    line = repeat("ab", 3);
+    print(line, " ", get_at(line, 4), " ", (int) get_at(line, 1), "\n");
+    print(sum6(total, 0 - 1, 0, 1, 0 - last, 2) % 1000, "\n");
+}
\ No newline at end of file